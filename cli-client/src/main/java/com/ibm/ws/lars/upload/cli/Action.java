@@ -45,7 +45,7 @@ public enum Action implements HelpMessage {
 
         @Override
         public String getUsage() {
-            return "upload [FILE]...";
+            return "upload [--threads=<number>] [FILE]...";
         }
 
         @Override
@@ -53,7 +53,9 @@ public enum Action implements HelpMessage {
             return "Uploads one or more features to a LARS server. "
                    + "For each argument, if the argument is a file with the extension .esa then this is treated as a Liberty feature and uploaded. "
                    + "If the argument is a directory then any .esa files within that directory are treated as Liberty features and uploaded. "
-                   + "Note that subdirectories are not recursively searched.";
+                   + "Note that subdirectories are not recursively searched. "
+                   + "If the threads option is specified then up to that number of features are uploaded at the same time, "
+                   + "and each feature is reported as it finishes uploading.";
         }
     },
     FIND("find") {
@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -41,6 +42,8 @@ import java.util.regex.Pattern;
 
 import com.ibm.ws.lars.upload.cli.ClientException.HelpDisplay;
 import com.ibm.ws.massive.esa.MassiveEsa;
+import com.ibm.ws.massive.esa.MassiveEsa.UploadListener;
+import com.ibm.ws.massive.esa.MassiveEsa.UploadResult;
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.connections.RepositoryConnection;
 import com.ibm.ws.repository.connections.RestRepositoryConnection;
@@ -63,6 +66,7 @@ public class Main {
     static final String ASSET_NOT_FOUND = "Asset not found in repository.";
     static final String SERVER_ERROR = "The repository server returned an error.";
     static final String NO_FILES = "No files to upload. The files to upload must be provided as arguments.";
+    static final String INVALID_THREADS = "The number of threads must be a positive whole number: ";
 
     private static Pattern versionPattern = Pattern.compile("productVersion=\"?([0-9\\.+]+)");
 
@@ -267,6 +271,7 @@ public class Main {
      * @param remainingArgs a list of file paths to ESAs which should be uploaded.
      */
     private void doUpload(List<String> remainingArgs) throws ClientException {
+        int threads = getThreads();
         RepositoryConnection repoConnection = createRepoConnection();
         List<File> files = new ArrayList<File>();
         for (String arg : remainingArgs) {
@@ -307,6 +312,11 @@ public class Main {
             throw new ClientException("An error occurred while connecting to the repository: " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
         }
 
+        if (threads > 1) {
+            uploadConcurrently(uploader, files, threads);
+            return;
+        }
+
         int size = files.size();
         for (int i = 0; i < size; i++) {
             File file = files.get(i);
@@ -315,32 +325,112 @@ public class Main {
                 List<RepositoryResource> deletedResources = new ArrayList<>();
                 AddThenDeleteStrategy uploadStrategy = new AddThenDeleteStrategy(State.PUBLISHED, State.PUBLISHED, true, null, deletedResources);
                 uploader.addEsasToMassive(Collections.singleton(file), uploadStrategy);
+                printUploaded(deletedResources);
+            } catch (RepositoryException ex) {
+                throw uploadFailed(file, ex);
+            }
+        }
+    }
 
-                // Did this upload operation cause us to delete one or more existing assets?
-                if (deletedResources.size() > 1) {
-                    // This is an unusual case: we replaced more than one existing (duplicate) assets
-                    output.println("done, replacing multiple duplicate assets:");
-                    for (RepositoryResource deletedResource : deletedResources) {
-                        output.println(resourceToString(deletedResource));
+    /**
+     * Uploads a list of ESAs using several threads, reporting each one as it finishes. All of the ESAs are uploaded
+     * even if some fail, and then an exception is thrown for the first one that failed.
+     *
+     * @param uploader the uploader
+     * @param files the ESAs to upload
+     * @param threads the maximum number of ESAs to upload at the same time
+     */
+    private void uploadConcurrently(MassiveEsa uploader, List<File> files, int threads) throws ClientException {
+        // Each file has its own strategy so that we know which existing assets it replaced
+        final Map<File, List<RepositoryResource>> deletedResources = new HashMap<File, List<RepositoryResource>>();
+        Map<File, AddThenDeleteStrategy> strategies = new LinkedHashMap<File, AddThenDeleteStrategy>();
+        for (File file : files) {
+            List<RepositoryResource> deleted = new ArrayList<>();
+            deletedResources.put(file, deleted);
+            strategies.put(file, new AddThenDeleteStrategy(State.PUBLISHED, State.PUBLISHED, true, null, deleted));
+        }
+
+        final int size = strategies.size();
+        List<UploadResult> results;
+        try {
+            results = uploader.addEsasToMassive(strategies, threads, new UploadListener() {
+                private int finished = 0;
+
+                @Override
+                public void uploadFinished(UploadResult result) {
+                    finished++;
+                    output.print(finished + " of " + size + ": Uploading " + result.getEsa().toString() + " ... ");
+                    if (result.getException() == null) {
+                        printUploaded(deletedResources.get(result.getEsa()));
+                    } else {
+                        output.println("failed");
                     }
-                } else if (deletedResources.size() == 1) {
-                    // More common case: we replaced one asset. Effectively, we are updating that asset.
-                    output.println("done, replacing existing asset " + resourceToString(deletedResources.get(0)));
-                } else {
-                    // Most common case... we didn't replace anything and just
-                    // uploaded this new asset
-                    output.println("done");
                 }
-            } catch (RepositoryException ex) {
-                if (!file.getPath().endsWith(".esa")) {
-                    throw new ClientException("\nAn error occurred while uploading " + file.toString() + ": "
-                                              + "file does not appear to be an esa file.", 1, HelpDisplay.NO_HELP, ex);
-                } else
-                    throw new ClientException("\nAn error occurred while uploading " + file.toString() + ": " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+            });
+        } catch (RepositoryException ex) {
+            throw new ClientException("\nAn error occurred while uploading: " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+        }
+
+        for (UploadResult result : results) {
+            if (result.getException() != null) {
+                throw uploadFailed(result.getEsa(), result.getException());
             }
         }
     }
 
+    /**
+     * Prints the end of the progress line for an ESA which has been uploaded
+     *
+     * @param deletedResources the existing assets which were replaced by the ESA
+     */
+    private void printUploaded(List<RepositoryResource> deletedResources) {
+        // Did this upload operation cause us to delete one or more existing assets?
+        if (deletedResources.size() > 1) {
+            // This is an unusual case: we replaced more than one existing (duplicate) assets
+            output.println("done, replacing multiple duplicate assets:");
+            for (RepositoryResource deletedResource : deletedResources) {
+                output.println(resourceToString(deletedResource));
+            }
+        } else if (deletedResources.size() == 1) {
+            // More common case: we replaced one asset. Effectively, we are updating that asset.
+            output.println("done, replacing existing asset " + resourceToString(deletedResources.get(0)));
+        } else {
+            // Most common case... we didn't replace anything and just
+            // uploaded this new asset
+            output.println("done");
+        }
+    }
+
+    private ClientException uploadFailed(File file, RepositoryException ex) {
+        if (!file.getPath().endsWith(".esa")) {
+            return new ClientException("\nAn error occurred while uploading " + file.toString() + ": "
+                                       + "file does not appear to be an esa file.", 1, HelpDisplay.NO_HELP, ex);
+        } else
+            return new ClientException("\nAn error occurred while uploading " + file.toString() + ": " + ex.getMessage(), 1, HelpDisplay.NO_HELP, ex);
+    }
+
+    /**
+     * Reads the number of threads to upload with from the options
+     *
+     * @return the number of threads, which is one if the option wasn't given
+     */
+    private int getThreads() throws ClientException {
+        if (!options.containsKey(Option.THREADS)) {
+            return 1;
+        }
+        String value = options.get(Option.THREADS);
+        int threads;
+        try {
+            threads = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads < 1) {
+            throw new ClientException(INVALID_THREADS + value, 1, HelpDisplay.SHOW_HELP);
+        }
+        return threads;
+    }
+
     private void doListAll(List<String> params) throws ClientException {
 
         RepositoryConnection repoConnection = createRepoConnection();
@@ -25,6 +25,9 @@ public enum Option {
     PASSWORD("password"),
     CONFIG_FILE("configFile"),
 
+    // options for the upload command
+    THREADS("threads"),
+
     // options for the find command
     FIND_DELETE("F"),
     NAME("name"),
@@ -32,6 +32,7 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -47,10 +48,12 @@ import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.connections.RepositoryConnection;
 import com.ibm.ws.repository.connections.RestRepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryException;
 import com.ibm.ws.repository.resources.EsaResource;
 import com.ibm.ws.repository.resources.internal.EsaResourceImpl;
 import com.ibm.ws.repository.resources.RepositoryResource;
 import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
+import com.ibm.ws.repository.resources.writeable.EsaResourceWritable;
 import com.ibm.ws.repository.strategies.writeable.AddThenDeleteStrategy;
 import com.ibm.ws.repository.strategies.writeable.UploadStrategy;
 
@@ -89,6 +92,32 @@ public class UploadTest {
 
     }
 
+    /**
+     * Mock uploader which only replaces the upload of each file, so that files are uploaded by the real upload pipeline.
+     * Uploading "Broken.esa" fails.
+     */
+    public static class MockFileUploader extends MockUp<MassiveEsa> {
+        private final List<String> filesUploaded = Collections.synchronizedList(new ArrayList<String>());
+
+        @Mock
+        public void $init(RepositoryConnection repoConnection) {}
+
+        @Mock
+        public EsaResourceWritable uploadFile(File esa, UploadStrategy strategy, String contentUrl) throws RepositoryException {
+            filesUploaded.add(esa.getName());
+            if (esa.getName().equals("Broken.esa")) {
+                throw new RepositoryException("broken");
+            }
+            return null;
+        }
+
+        public List<String> getFilesUploaded() {
+            List<String> sorted = new ArrayList<>(filesUploaded);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
     /**
      * Mock file that reports that any file exists, except for "InvalidFile.esa"
      */
@@ -324,6 +353,64 @@ public class UploadTest {
         assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile3.esa ... done"));
     }
 
+    @Test
+    public void testConcurrentUpload() throws ClientException {
+        new MockFile();
+        MockFileUploader uploader = new MockFileUploader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+        main.run(new String[] { "--upload", "--url=http://example.org", "--threads=2", "TestFile.esa", "TestFile2.esa", "TestFile3.esa" });
+
+        assertEquals("Wrong files uploaded", Arrays.asList("TestFile.esa", "TestFile2.esa", "TestFile3.esa"), uploader.getFilesUploaded());
+        assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile.esa ... done"));
+        assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile2.esa ... done"));
+        assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile3.esa ... done"));
+        assertThat("Output incorrect", out.toString(), containsString("3 of 3: Uploading "));
+    }
+
+    @Test
+    public void testConcurrentUploadFailure() {
+        new MockFile();
+        MockFileUploader uploader = new MockFileUploader();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+        try {
+            main.run(new String[] { "--upload", "--url=http://example.org", "--threads=2", "TestFile.esa", "Broken.esa", "TestFile3.esa" });
+            fail("ClientException not thrown");
+        } catch (ClientException ex) {
+            assertEquals("Wrong return code", 1, ex.getReturnCode());
+            assertEquals("Wrong error message", "\nAn error occurred while uploading Broken.esa: broken", ex.getMessage());
+            assertEquals("Wrong help display", HelpDisplay.NO_HELP, ex.getHelpDisplay());
+        }
+
+        // The other files should still have been uploaded
+        assertEquals("Wrong files uploaded", Arrays.asList("Broken.esa", "TestFile.esa", "TestFile3.esa"), uploader.getFilesUploaded());
+        assertThat("Output incorrect", out.toString(), containsString("Uploading Broken.esa ... failed"));
+        assertThat("Output incorrect", out.toString(), containsString("Uploading TestFile3.esa ... done"));
+    }
+
+    @Test
+    public void testInvalidThreads() {
+        new MockUploader();
+        new MockFile();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Main main = new Main(new ByteArrayInputStream(new byte[0]), new PrintStream(out));
+        try {
+            main.run(new String[] { "--upload", "--url=http://example.org", "--threads=none", "TestFile.esa" });
+            fail("ClientException not thrown");
+        } catch (ClientException ex) {
+            assertEquals("Wrong return code", 1, ex.getReturnCode());
+            assertEquals("Wrong error message", Main.INVALID_THREADS + "none", ex.getMessage());
+            assertEquals("Wrong help display", HelpDisplay.SHOW_HELP, ex.getHelpDisplay());
+        }
+    }
+
     @Test
     public void testCredentials() throws ClientException {
         new MockFile();
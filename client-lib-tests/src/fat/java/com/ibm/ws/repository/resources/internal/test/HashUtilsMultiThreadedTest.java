@@ -20,12 +20,23 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import org.junit.Test;
 
+import com.ibm.ws.repository.common.utils.internal.FileHashes;
 import com.ibm.ws.repository.common.utils.internal.HashUtils;
 
 /**
@@ -60,6 +71,85 @@ public class HashUtilsMultiThreadedTest {
         hashMultiFiles(MD5);
     }
 
+    /**
+     * Calculate all of the hashes of all files in a directory at once, and check they match the hashes calculated one at a time
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashMultiFilesAllHashes() throws Exception {
+        List<File> files = new ArrayList<File>();
+        for (File f : new File("resources").listFiles()) {
+            if (f.isFile()) {
+                files.add(f);
+            }
+        }
+
+        Map<File, FileHashes> hashes = HashUtils.getFileHashes(files);
+        assertEquals("Every file should have been hashed", files.size(), hashes.size());
+        for (File f : files) {
+            FileHashes fileHashes = hashes.get(f);
+            assertEquals("SHA-256 for " + f.getName() + " does not match", getHash(f, SHA256), fileHashes.getSHA256());
+            assertEquals("MD5 for " + f.getName() + " does not match", getHash(f, MD5), fileHashes.getMD5());
+            assertEquals("CRC for " + f.getName() + " does not match", getCRC(f), fileHashes.getCRC32());
+            assertEquals("Size for " + f.getName() + " does not match", f.length(), fileHashes.getSize());
+        }
+    }
+
+    /**
+     * Check that a file rewritten with the same size straight after it was hashed is hashed again, even if the file system's modification times are too coarse
+     * to show the change
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashRewrittenFile() throws Exception {
+        File f = File.createTempFile("hashRewrittenFile", ".txt");
+        try {
+            Files.write(f.toPath(), "first content".getBytes(StandardCharsets.UTF_8));
+            long lastModified = f.lastModified();
+            assertEquals(getHash(f, SHA256), HashUtils.getFileSHA256String(f));
+
+            Files.write(f.toPath(), "other content".getBytes(StandardCharsets.UTF_8));
+            f.setLastModified(lastModified);
+            assertEquals("The new content should have been hashed", getHash(f, SHA256), HashUtils.getFileSHA256String(f));
+            assertEquals(getCRC(f), HashUtils.getFileHashes(f).getCRC32());
+        } finally {
+            f.delete();
+        }
+    }
+
+    private static String getHash(File f, String hashType) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(hashType);
+        InputStream is = new DigestInputStream(new FileInputStream(f), digest);
+        try {
+            byte[] buffer = new byte[1024];
+            while (is.read(buffer) != -1) {
+                // Read file in completely
+            }
+        } finally {
+            is.close();
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static long getCRC(File f) throws IOException {
+        InputStream is = new CheckedInputStream(new FileInputStream(f), new CRC32());
+        try {
+            byte[] buffer = new byte[1024];
+            while (is.read(buffer) != -1) {
+                // Read file in completely
+            }
+            return ((CheckedInputStream) is).getChecksum().getValue();
+        } finally {
+            is.close();
+        }
+    }
+
     /**
      * Test that a directory of files can be hashed in parallel
      *
@@ -47,6 +47,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -74,6 +75,7 @@ import com.ibm.ws.repository.common.enums.Visibility;
 import com.ibm.ws.repository.common.utils.internal.HashUtils;
 import com.ibm.ws.repository.connections.RepositoryConnection;
 import com.ibm.ws.repository.connections.RepositoryConnectionList;
+import com.ibm.ws.repository.connections.RestRepositoryConnection;
 import com.ibm.ws.repository.exceptions.RepositoryBackendException;
 import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
 import com.ibm.ws.repository.exceptions.RepositoryBackendRequestFailureException;
@@ -1132,6 +1134,49 @@ public class ResourceTest {
         assertEquals("Should get two assets when using both repos", 2, bothRepos.getAllResources().size());
     }
 
+    @Test
+    public void testGetAllResourcesIteratorFromMultipleRepos() throws URISyntaxException, RepositoryResourceException, RepositoryBackendException {
+
+        RepositoryConnection repo2 = fixture2.getWritableConnection();
+
+        // Use a tiny page so that the iterator has to read several pages from the server
+        if (repoConnection instanceof RestRepositoryConnection) {
+            ((RestRepositoryConnection) repoConnection).setPageSize(2);
+        }
+
+        RepositoryConnectionList bothRepos = new RepositoryConnectionList(repoConnection);
+        bothRepos.add(repo2);
+
+        // Add five assets to repo1
+        Set<String> expectedNames = new HashSet<String>();
+        SampleResourceImpl lastRes = null;
+        for (int i = 0; i < 5; i++) {
+            lastRes = createSampleResource();
+            lastRes.setName("samp" + i);
+            simpleUpload(lastRes);
+            expectedNames.add("samp" + i);
+        }
+
+        // Add the last one again to repo2, along with a new one
+        lastRes.setRepositoryConnection(repo2);
+        simpleUpload(lastRes);
+
+        SampleResourceImpl repo2Res = createSampleResource();
+        repo2Res.setName("repo2samp");
+        repo2Res.setRepositoryConnection(repo2);
+        simpleUpload(repo2Res);
+        expectedNames.add("repo2samp");
+
+        List<String> names = new ArrayList<String>();
+        for (Iterator<RepositoryResource> iterator = bothRepos.getAllResourcesIterator(); iterator.hasNext();) {
+            names.add(iterator.next().getName());
+        }
+
+        assertEquals("Each asset should be returned once", expectedNames.size(), names.size());
+        assertEquals("Wrong assets returned", expectedNames, new HashSet<String>(names));
+        assertEquals("The resources from repo1 should be returned first", "repo2samp", names.get(names.size() - 1));
+    }
+
     @Test
     public void testGetAllFromMultipleReposWithDupes() throws URISyntaxException, RepositoryResourceException, RepositoryBackendException {
 
@@ -114,6 +114,24 @@ public class FileClientLicenseTest {
         assertTrue("The licenses map should contain size for LA_* file", licenses.get(key) != 0);
     }
 
+    /**
+     * The zip client only reads the licenses in an asset once, make sure that reading them again gives the same answer and
+     * that changing the map we get back doesn't change what later callers see
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testGetLicensesTwice() throws Exception {
+        String assetId = "esaWithLicense.esa";
+
+        Map<String, Long> licenses = (Map<String, Long>) reflectiveCallAnyTypes(_licenseClient, "getLicenses", new Class[] { String.class }, new Object[] { assetId });
+        int count = licenses.size();
+        assertTrue("The licenses map should not be empty", count > 0);
+        licenses.clear();
+
+        licenses = (Map<String, Long>) reflectiveCallAnyTypes(_licenseClient, "getLicenses", new Class[] { String.class }, new Object[] { assetId });
+        assertEquals("The licenses should be the same when they are read again", count, licenses.size());
+    }
+
     @Test
     public void testGetLAHeaderAndLIHeaderFromJarFile() throws Exception {
         String assetId = "sampleWithLicense.jar";
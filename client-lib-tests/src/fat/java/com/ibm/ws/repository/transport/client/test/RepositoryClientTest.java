@@ -34,6 +34,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -159,6 +160,46 @@ public class RepositoryClientTest {
                      newAsset.getName(), gotAsset.getName());
     }
 
+    /**
+     * Tests that several assets can be added at once
+     */
+    @Test
+    public void testAddAssets() throws Exception {
+        Asset newAsset1 = createTestAsset();
+        Asset newAsset2 = createTestAsset();
+        newAsset2.setName("Second test asset");
+
+        List<Asset> addedAssets = _writeableClient.addAssets(Arrays.asList(newAsset1, newAsset2));
+        assertEquals("Unexpected number of assets added", 2, addedAssets.size());
+        assertEquals("Assets should be returned in the order added", newAsset1.getName(), addedAssets.get(0).getName());
+        assertEquals("Assets should be returned in the order added", newAsset2.getName(), addedAssets.get(1).getName());
+        for (Asset addedAsset : addedAssets) {
+            assertNotNull("Added asset should have an id", addedAsset.get_id());
+            assertEquals("Added asset should be stored", addedAsset.get_id(), _client.getAsset(addedAsset.get_id()).get_id());
+        }
+    }
+
+    /**
+     * Tests that several assets can be fetched at once and that missing assets are omitted
+     */
+    @Test
+    public void testGetAssetsById() throws Exception {
+        Asset asset1 = _writeableClient.addAsset(createTestAsset());
+        Asset asset2 = _writeableClient.addAsset(createTestAsset());
+
+        List<String> ids = new ArrayList<String>();
+        ids.add(asset2.get_id());
+        ids.add("000000000000000000000000");
+        ids.add(asset1.get_id());
+
+        List<Asset> gotAssets = new ArrayList<Asset>(_client.getAssetsById(ids));
+        assertEquals("Unexpected number of assets returned", 2, gotAssets.size());
+        assertEquals("Assets should be returned in the order requested", asset2.get_id(), gotAssets.get(0).get_id());
+        assertEquals("Assets should be returned in the order requested", asset1.get_id(), gotAssets.get(1).get_id());
+
+        assertTrue("No assets should be returned for no ids", _client.getAssetsById(Collections.<String> emptyList()).isEmpty());
+    }
+
     /**
      * This tests that custom attributes are created in Massive
      */
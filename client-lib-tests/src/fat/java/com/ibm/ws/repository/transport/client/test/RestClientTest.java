@@ -177,6 +177,37 @@ public class RestClientTest {
                      attachmentContentReader.readLine());
     }
 
+    /**
+     * Test for {@link RestClient#getAttachment(Asset, Attachment, long)} with content stored in the
+     * repository and content stored on an http server
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetAttachmentFromOffset() throws Exception {
+        Asset createdAsset = _writeableClient.addAsset(createTestAsset());
+
+        AttachmentSummary storedSummary = new MockAttachmentSummary(new File(resourcesDir, "TestAttachment.txt"), "TestAttachment.txt", AttachmentType.CONTENT, 0, null);
+        Attachment storedAttachment = _writeableClient.addAttachment(createdAsset.get_id(), storedSummary);
+
+        String attachmentUrl = fixture.getHostedFileRoot() + "/testfile.txt";
+        AttachmentSummary linkedSummary = new MockAttachmentSummary(new File(resourcesDir, "TestAttachment.txt"), "TestAttachment.txt", AttachmentType.CONTENT, 0, attachmentUrl);
+        Attachment linkedAttachment = _writeableClient.addAttachment(createdAsset.get_id(), linkedSummary);
+
+        assertTrue(_client instanceof RestClient);
+        RestClient restClient = (RestClient) _client;
+
+        try (InputStream content = restClient.getAttachment(createdAsset, storedAttachment, 10)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(content));
+            assertEquals("The content should start from the offset", "test attachment", reader.readLine());
+        }
+
+        try (InputStream content = restClient.getAttachment(createdAsset, linkedAttachment, 8)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(content));
+            assertEquals("The content should start from the offset", "a test file", reader.readLine());
+        }
+    }
+
     /**
      * Test to make sure that if you don't have permission to upload then you get a {@link RequestFailureException} with the right response code and message in it.
      *
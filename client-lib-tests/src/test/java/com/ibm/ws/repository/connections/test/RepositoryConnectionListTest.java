@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.connections.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.ws.repository.common.enums.FilterPredicate;
+import com.ibm.ws.repository.connections.RepositoryConnectionList;
+import com.ibm.ws.repository.connections.RestRepositoryConnection;
+import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
+import com.ibm.ws.repository.resources.RepositoryResource;
+import com.ibm.ws.repository.resources.internal.SampleResourceImpl;
+import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
+
+/**
+ * Tests for querying the repositories in a {@link RepositoryConnectionList} concurrently
+ */
+public class RepositoryConnectionListTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentQueriesMergedInListOrder() throws Exception {
+        // The first repository is the slowest, but its resources must still come first and win over duplicates
+        DelayedConnection slow = new DelayedConnection("slow", 300, "shared", "onlySlow");
+        DelayedConnection fast = new DelayedConnection("fast", 0, "shared", "onlyFast");
+
+        RepositoryConnectionList list = new RepositoryConnectionList();
+        list.add(slow);
+        list.add(fast);
+        list.setExecutor(executor);
+
+        Collection<RepositoryResource> resources = list.getMatchingResources();
+        assertEquals(3, resources.size());
+        Iterator<RepositoryResource> iterator = resources.iterator();
+        RepositoryResource shared = iterator.next();
+        assertEquals("shared", shared.getName());
+        assertSame(slow, shared.getRepositoryConnection());
+        assertEquals("onlySlow", iterator.next().getName());
+        assertEquals("onlyFast", iterator.next().getName());
+    }
+
+    @Test
+    public void testConcurrentQueriesRunInParallel() throws Exception {
+        RepositoryConnectionList list = new RepositoryConnectionList();
+        list.add(new DelayedConnection("one", 500, "a"));
+        list.add(new DelayedConnection("two", 500, "b"));
+        list.add(new DelayedConnection("three", 500, "c"));
+        list.setExecutor(executor);
+
+        long start = System.nanoTime();
+        assertEquals(3, list.getMatchingResources().size());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Queries took " + elapsedMillis + "ms", elapsedMillis < 1400);
+    }
+
+    @Test
+    public void testConnectionTimeout() throws Exception {
+        DelayedConnection hung = new DelayedConnection("hung", 10000, "a");
+        RepositoryConnectionList list = new RepositoryConnectionList();
+        list.add(new DelayedConnection("ok", 0, "b"));
+        list.add(hung);
+        list.setExecutor(executor);
+        list.setConnectionTimeout(200, TimeUnit.MILLISECONDS);
+
+        try {
+            list.getMatchingResources();
+            fail("Expected the query to time out");
+        } catch (RepositoryBackendIOException e) {
+            assertSame(hung, e.getFailingConnection());
+        }
+    }
+
+    @Test
+    public void testConnectionTimeoutCapsRestTimeouts() throws Exception {
+        RestRepositoryConnection rest = new RestRepositoryConnection("http://broken") {
+            @Override
+            public Collection<RepositoryResource> getMatchingResources(FilterPredicate... predicates) {
+                return Collections.emptyList();
+            }
+        };
+        rest.setConnectTimeout(100);
+        rest.setReadTimeout(0);
+
+        RepositoryConnectionList list = new RepositoryConnectionList();
+        list.add(new DelayedConnection("ok", 0, "a"));
+        list.add(rest);
+        list.setExecutor(executor);
+        list.setConnectionTimeout(1, TimeUnit.SECONDS);
+        list.getMatchingResources();
+
+        assertEquals("A shorter connect timeout should be kept", 100, rest.getConnectTimeout());
+        assertEquals("The read timeout should be lowered to the list's timeout", 1000, rest.getReadTimeout());
+    }
+
+    @Test
+    public void testSequentialWithoutExecutor() throws Exception {
+        RepositoryConnectionList list = new RepositoryConnectionList();
+        list.add(new DelayedConnection("first", 0, "shared"));
+        list.add(new DelayedConnection("second", 0, "shared", "other"));
+
+        List<String> names = new ArrayList<String>();
+        for (RepositoryResource res : list.getMatchingResources()) {
+            names.add(res.getName() + "@" + res.getRepositoryConnection().getRepositoryLocation());
+        }
+        assertEquals("[shared@first, other@second]", names.toString());
+    }
+
+    /**
+     * A connection which waits for a while before returning a fixed set of sample resources
+     */
+    private static class DelayedConnection extends AbstractRepositoryConnection {
+        private final String location;
+        private final long delayMillis;
+        private final String[] names;
+
+        DelayedConnection(String location, long delayMillis, String... names) {
+            this.location = location;
+            this.delayMillis = delayMillis;
+            this.names = names;
+        }
+
+        @Override
+        public Collection<RepositoryResource> getMatchingResources(FilterPredicate... predicates) throws RepositoryBackendException {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                throw new RepositoryBackendIOException(e, this);
+            }
+            List<RepositoryResource> resources = new ArrayList<RepositoryResource>();
+            for (String name : names) {
+                SampleResourceImpl res = new SampleResourceImpl(this);
+                res.setName(name);
+                resources.add(res);
+            }
+            return resources;
+        }
+
+        @Override
+        public String getRepositoryLocation() {
+            return location;
+        }
+
+        @Override
+        public RepositoryReadableClient createClient() {
+            return null;
+        }
+    }
+
+}
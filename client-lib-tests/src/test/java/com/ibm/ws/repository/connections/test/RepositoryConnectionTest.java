@@ -17,16 +17,30 @@
 package com.ibm.ws.repository.connections.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import mockit.Mock;
+import mockit.MockUp;
 
 import org.junit.Test;
 
 import com.ibm.ws.repository.connections.DirectoryRepositoryConnection;
 import com.ibm.ws.repository.connections.RestRepositoryConnection;
 import com.ibm.ws.repository.connections.ZipRepositoryConnection;
+import com.ibm.ws.repository.resources.RepositoryResource;
 import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
 import com.ibm.ws.repository.resources.internal.SampleResourceImpl;
+import com.ibm.ws.repository.transport.client.RestClient;
 
 /**
  *
@@ -59,4 +73,74 @@ public class RepositoryConnectionTest {
         assertEquals("The repo url in the resource is not the one we set",
                      zip.getAbsolutePath(), mr.getRepositoryConnection().getRepositoryLocation());
     }
+
+    /**
+     * Check that a response is remembered between the clients a connection creates, so that asking
+     * for the same resource again is a conditional request which the server can answer with 304
+     */
+    @Test
+    public void testRestResourceIsRevalidated() throws Exception {
+        final byte[] body = "{\"_id\":\"1234\",\"name\":\"sample\"}".getBytes(StandardCharsets.UTF_8);
+        final List<ETagConnection> requests = new ArrayList<ETagConnection>();
+        new MockUp<RestClient>() {
+            @Mock
+            HttpURLConnection createHttpURLConnectionToMassive(String path) throws MalformedURLException {
+                assertEquals("/assets/1234", path);
+                ETagConnection request = new ETagConnection(body, "\"v1\"");
+                requests.add(request);
+                return request;
+            }
+        };
+
+        RestRepositoryConnection connection = new RestRepositoryConnection("a", "b", "c", "http://broken");
+        RepositoryResource first = connection.getResource("1234");
+        RepositoryResource second = connection.getResource("1234");
+
+        assertEquals(2, requests.size());
+        assertNull("The first request should not be conditional", requests.get(0).getRequestProperty("If-None-Match"));
+        assertEquals("The second request should be conditional", "\"v1\"", requests.get(1).getRequestProperty("If-None-Match"));
+        assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, requests.get(1).getResponseCode());
+        assertEquals("sample", first.getName());
+        assertEquals("sample", second.getName());
+    }
+
+    /**
+     * A connection to a server which sends an ETag with its response, and responds with 304 Not Modified if the request matches it
+     */
+    private static class ETagConnection extends HttpURLConnection {
+        private final byte[] body;
+        private final String eTag;
+
+        ETagConnection(byte[] body, String eTag) throws MalformedURLException {
+            super(new URL("http://broken/assets/1234"));
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return eTag.equals(getRequestProperty("If-None-Match")) ? HTTP_NOT_MODIFIED : HTTP_OK;
+        }
+
+        @Override
+        public String getHeaderField(String name) {
+            return "ETag".equalsIgnoreCase(name) ? eTag : null;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(getResponseCode() == HTTP_OK ? body : new byte[0]);
+        }
+
+        @Override
+        public void connect() {}
+
+        @Override
+        public void disconnect() {}
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
 }
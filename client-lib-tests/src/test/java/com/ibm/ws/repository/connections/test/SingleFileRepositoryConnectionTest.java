@@ -16,17 +16,23 @@
 package com.ibm.ws.repository.connections.test;
 
 import static org.hamcrest.Matchers.emptyCollectionOf;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Test;
 
 import com.ibm.ws.repository.connections.SingleFileRepositoryConnection;
 import com.ibm.ws.repository.resources.RepositoryResource;
+import com.ibm.ws.repository.transport.client.SingleFileClient;
+import com.ibm.ws.repository.transport.model.Asset;
 
 /**
  * Tests specific to the SingleFileRepositoryConnection
@@ -34,12 +40,16 @@ import com.ibm.ws.repository.resources.RepositoryResource;
 public class SingleFileRepositoryConnectionTest {
 
     private static final File FILE = new File("testSingleFileRepo");
+    private static final File JOURNAL = SingleFileClient.getJournalFile(FILE);
 
     @After
     public void cleanup() {
         if (FILE.exists()) {
             FILE.delete();
         }
+        if (JOURNAL.exists()) {
+            JOURNAL.delete();
+        }
     }
 
     @Test
@@ -76,4 +86,56 @@ public class SingleFileRepositoryConnectionTest {
         assertThat(repo2.getAllResources(), is(emptyCollectionOf(RepositoryResource.class)));
     }
 
+    @Test
+    public void testJournal() throws Exception {
+        SingleFileRepositoryConnection repo = SingleFileRepositoryConnection.createEmptyRepository(FILE);
+        long emptyLength = FILE.length();
+        repo.setJournaled(true);
+        SingleFileClient journaledClient = (SingleFileClient) repo.createClient();
+
+        Asset added = journaledClient.addAsset(createAsset("first"));
+        journaledClient.addAsset(createAsset("second"));
+        assertEquals("The main file should not have been written", emptyLength, FILE.length());
+
+        // A client which isn't journaled should still see the changes in the journal
+        SingleFileClient reader = new SingleFileClient(FILE);
+        assertThat(reader.getAllAssets(), hasSize(2));
+        assertEquals("first", reader.getAsset(added.get_id()).getName());
+
+        // and it should only need to read the new journal entries to see later changes
+        journaledClient.deleteAssetAndAttachments(added.get_id());
+        Asset third = journaledClient.addAsset(createAsset("third"));
+        assertThat(reader.getAllAssets(), hasSize(2));
+        assertEquals("The id should be the position the asset will have in the file", "3", third.get_id());
+
+        journaledClient.compact();
+        assertEquals("The journal should have been emptied", 0, JOURNAL.length());
+        SingleFileClient afterCompaction = new SingleFileClient(FILE);
+        assertThat(afterCompaction.getAllAssets(), hasSize(2));
+        assertEquals("Ids should be the same once the journal is compacted", "third", afterCompaction.getAsset(third.get_id()).getName());
+        assertThat(reader.getAllAssets(), hasSize(2));
+    }
+
+    @Test
+    public void testJournalCompactedAutomatically() throws Exception {
+        SingleFileRepositoryConnection repo = SingleFileRepositoryConnection.createEmptyRepository(FILE);
+        repo.setJournaled(true);
+        SingleFileClient journaledClient = (SingleFileClient) repo.createClient();
+
+        List<Asset> assets = new ArrayList<Asset>();
+        for (int i = 0; i < SingleFileClient.COMPACTION_THRESHOLD; i++) {
+            assets.add(createAsset("asset" + i));
+        }
+        journaledClient.addAssets(assets);
+
+        assertEquals("The journal should have been compacted", 0, JOURNAL.length());
+        assertThat(new SingleFileClient(FILE).getAllAssets(), hasSize(SingleFileClient.COMPACTION_THRESHOLD));
+    }
+
+    private static Asset createAsset(String name) {
+        Asset asset = new Asset();
+        asset.setName(name);
+        return asset;
+    }
+
 }
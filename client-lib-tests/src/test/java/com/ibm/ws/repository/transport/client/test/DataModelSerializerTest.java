@@ -636,6 +636,29 @@ public class DataModelSerializerTest {
         assertNull("Setter was invoked when it should not have been, so the data should be null", gotBack.getTestData());
     }
 
+    public static class JSONIgnoreOverriddenSetterTest extends JSONIgnoreSetterTest {
+        @Override
+        public void setTestData(String testData) {
+            this.testData = testData;
+        }
+    }
+
+    /**
+     * The setters are looked up once for each class, so check that a subclass which overrides an
+     * ignored setter doesn't share the binding of its superclass.
+     */
+    @Test
+    public void testJSONIgnoreSetterOverridden() throws Exception {
+        String data = "{\"testData\":\"wibble fish monkey\"}";
+        for (int i = 0; i < 2; i++) {
+            JSONIgnoreSetterTest ignored = DataModelSerializer.deserializeObject(new ByteArrayInputStream(data.getBytes()), JSONIgnoreSetterTest.class);
+            assertNull("Setter was invoked when it should not have been, so the data should be null", ignored.getTestData());
+
+            JSONIgnoreSetterTest overridden = DataModelSerializer.deserializeObject(new ByteArrayInputStream(data.getBytes()), JSONIgnoreOverriddenSetterTest.class);
+            assertEquals("Overriding setter should have been invoked", "wibble fish monkey", overridden.getTestData());
+        }
+    }
+
     @Test
     public void testIncompatibleChangesPutSomewhereElse() throws Exception {
         DataModelSerializer.IGNORE_UNKNOWN_FIELDS = true;
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.client.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ibm.ws.lars.testutils.clients.DirectoryWriteableClient;
+import com.ibm.ws.repository.common.enums.ResourceType;
+import com.ibm.ws.repository.transport.client.DirectoryClient;
+import com.ibm.ws.repository.transport.model.Asset;
+
+/**
+ * Tests for reading a directory repository with an index
+ */
+public class DirectoryClientTest {
+
+    /**
+     * More assets than one thread reads on its own, so that reading them is split between threads
+     */
+    private static final int ASSET_COUNT = 20;
+
+    @Test
+    public void testIndexedListing() throws Exception {
+        File repoDir = AbstractFileClientTest.getTempDir();
+        File indexFile = new File(repoDir, "repository.index");
+
+        DirectoryWriteableClient writeableClient = new DirectoryWriteableClient(repoDir);
+        for (int i = 0; i < ASSET_COUNT; i++) {
+            Asset asset = new Asset();
+            asset.setName("asset" + i);
+            asset.setType(ResourceType.FEATURE);
+            writeableClient.addAsset(asset);
+        }
+
+        Map<String, Asset> assets = getAssetsByName(new DirectoryClient(repoDir, indexFile).getAllAssets());
+        assertEquals("All of the assets should have been read", ASSET_COUNT, assets.size());
+        assertTrue("The index should have been written", indexFile.exists());
+
+        // Reading the assets again should use the index and give the same answer
+        Map<String, Asset> indexedAssets = getAssetsByName(new DirectoryClient(repoDir, indexFile).getAllAssets());
+        assertEquals("The assets read from the index should be the same", assets, indexedAssets);
+        assertEquals("The asset id should be set when it's read from the index", assets.get("asset0").get_id(), indexedAssets.get("asset0").get_id());
+
+        // Changes to the assets should be picked up
+        Asset changed = assets.get("asset1");
+        changed.setDescription("A description which changes the size of the file");
+        writeableClient.updateAsset(changed);
+        writeableClient.deleteAssetAndAttachments(assets.get("asset2").get_id());
+
+        assets = getAssetsByName(new DirectoryClient(repoDir, indexFile).getAllAssets());
+        assertEquals("The deleted asset should have gone", ASSET_COUNT - 1, assets.size());
+        assertEquals("The changed asset should have been read again", "A description which changes the size of the file", assets.get("asset1").getDescription());
+
+        // A broken index should be ignored and rebuilt
+        FileOutputStream fos = new FileOutputStream(indexFile);
+        try {
+            fos.write("not an index".getBytes("UTF-8"));
+        } finally {
+            fos.close();
+        }
+        assertEquals("The assets should be read even though the index is broken", assets,
+                     getAssetsByName(new DirectoryClient(repoDir, indexFile).getAllAssets()));
+        assertEquals("The assets should be read from the rebuilt index", assets,
+                     getAssetsByName(new DirectoryClient(repoDir, indexFile).getAllAssets()));
+    }
+
+    private static Map<String, Asset> getAssetsByName(Collection<Asset> assets) {
+        Map<String, Asset> byName = new HashMap<String, Asset>();
+        for (Asset asset : assets) {
+            byName.put(asset.getName(), asset);
+        }
+        return byName;
+    }
+}
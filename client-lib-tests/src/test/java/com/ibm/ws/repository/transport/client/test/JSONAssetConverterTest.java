@@ -17,9 +17,11 @@
 package com.ibm.ws.repository.transport.client.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,6 +35,7 @@ import org.junit.Test;
 
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.common.enums.ResourceType;
+import com.ibm.ws.repository.transport.client.DataModelSerializer;
 import com.ibm.ws.repository.transport.client.JSONAssetConverter;
 import com.ibm.ws.repository.transport.model.Asset;
 import com.ibm.ws.repository.transport.model.Attachment;
@@ -165,6 +168,40 @@ public class JSONAssetConverterTest {
         testAsset(readInAsset);
     }
 
+    /**
+     * Tests that a list of assets can be read one asset at a time, and that assets at a version
+     * this client can't read are skipped in the same way as when reading the whole list.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReadValuesIterator() throws Exception {
+        Asset asset = createTestAsset();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write('[');
+        JSONAssetConverter.writeValue(outputStream, asset);
+        outputStream.write(",{\"name\":\"future\",\"wlpInformation\":{\"wlpInformationVersion\":\"99.0\"}},".getBytes());
+        JSONAssetConverter.writeValue(outputStream, asset);
+        outputStream.write(']');
+
+        try (DataModelSerializer.JsonListIterator<Asset> iterator = JSONAssetConverter.readValuesIterator(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertTrue(iterator.hasNext());
+            testAsset(iterator.next());
+            assertTrue("The asset at a bad version should be skipped", iterator.hasNext());
+            testAsset(iterator.next());
+            assertFalse(iterator.hasNext());
+            assertEquals("The skipped asset should still be counted as read", 3, iterator.getElementsRead());
+        }
+
+        try {
+            JSONAssetConverter.readValuesIterator(new ByteArrayInputStream("{\"name\":\"not a list\"}".getBytes()));
+            fail("Reading an object as a list should fail");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
     /**
      * Test to make sure a single generic type can be read in from a stream
      *
@@ -15,10 +15,17 @@
  *******************************************************************************/
 package com.ibm.ws.repository.transport.client.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -26,6 +33,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import mockit.Expectations;
 import mockit.Injectable;
@@ -37,8 +45,10 @@ import org.junit.Test;
 import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.transport.client.ClientLoginInfo;
+import com.ibm.ws.repository.transport.client.DataModelSerializer;
 import com.ibm.ws.repository.transport.client.RestClient;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.Asset;
 
 public class RestClientUnitTest {
 
@@ -132,6 +142,40 @@ public class RestClientUnitTest {
         }
     }
 
+    /**
+     * Check that requested fields are added to the query url after the filters
+     */
+    @Test
+    public void testFilteredAssetsWithFields() throws IOException, RequestFailureException {
+
+        ClientLoginInfo info = new ClientLoginInfo("noone", "letmein", "123", "http://broken");
+
+        new MockUp<RestClient>() {
+            @Mock
+            HttpURLConnection createHttpURLConnectionToMassive(String path) {
+                if(path.equals("/assets?type=com.ibm.websphere.Feature&fields=name,wlpInformation.provideFeature")) {
+                    // now that the correct query string has been constructed, stop the test
+                    // Otherwise the test will try to connect to a duff url
+                    throw new RuntimeException("OK");
+                } else {
+                    throw new IllegalArgumentException("Wrong path "+path);
+                }
+            }
+        };
+        final RestClient client = new RestClient(info);
+
+        Map<FilterableAttribute, Collection<String>> filters = new HashMap<FilterableAttribute, Collection<String>>();
+        filters.put(FilterableAttribute.TYPE, Collections.singleton(ResourceType.FEATURE.getValue()));
+
+        try {
+            client.getFilteredAssets(filters, Arrays.asList("name", "wlpInformation.provideFeature"));
+        } catch (RuntimeException e) {
+            if (!e.getMessage().equals("OK")) {
+                throw e;
+            }
+        }
+    }
+
     @Test
     public void testGetStatusNoHeader(final @Injectable HttpURLConnection connection) throws IOException, RequestFailureException {
         try {
@@ -207,4 +251,101 @@ public class RestClientUnitTest {
         };
         client.checkRepositoryStatus();
     }
+
+    /**
+     * Check that a gzip encoded response is decoded before it is read
+     */
+    @Test
+    public void testGzipResponseIsDecoded(final @Injectable HttpURLConnection connection) throws IOException, RequestFailureException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(createAssetListJson(2));
+        }
+        final InputStream body = new ByteArrayInputStream(compressed.toByteArray());
+
+        final RestClient client = createClientReturning(connection);
+        new Expectations(connection) {
+            {
+                connection.getContentEncoding();
+                result = "gzip";
+                connection.getInputStream();
+                result = body;
+            }
+        };
+
+        List<Asset> assets = client.getAllAssets();
+        assertEquals(2, assets.size());
+        assertEquals("asset0", assets.get(0).getName());
+        assertEquals("asset1", assets.get(1).getName());
+    }
+
+    /**
+     * Check that closing an iterator over a response before reaching the end reads the rest of the response, so that the connection can be reused
+     */
+    @Test
+    public void testClosingIteratorDrainsResponse(final @Injectable HttpURLConnection connection) throws IOException, RequestFailureException {
+        // Big enough that the parser won't have read it all after the first asset, small enough to be drained rather than dropped
+        final TrackingInputStream body = new TrackingInputStream(createAssetListJson(2000));
+        assertTrue(body.available() < 64 * 1024);
+
+        final RestClient client = createClientReturning(connection);
+        new Expectations(connection) {
+            {
+                connection.getInputStream();
+                result = body;
+            }
+        };
+
+        DataModelSerializer.JsonListIterator<Asset> iterator = client.getAllAssetsIterator(null);
+        assertEquals("asset0", iterator.next().getName());
+        assertTrue("The parser should not have read the whole response yet", body.available() > 0);
+        iterator.close();
+
+        assertEquals("The rest of the response should have been read", 0, body.available());
+        assertTrue("The response should have been closed", body.closed);
+    }
+
+    private RestClient createClientReturning(final HttpURLConnection connection) {
+        ClientLoginInfo info = new ClientLoginInfo("noone", "letmein", "123", "http://broken");
+
+        new MockUp<RestClient>() {
+            @Mock
+            HttpURLConnection createHttpURLConnectionToMassive(String path) {
+                if (path.equals("/assets")) {
+                    return connection;
+                } else {
+                    throw new IllegalArgumentException("Wrong path " + path);
+                }
+            }
+
+            @Mock
+            void testResponseCode(HttpURLConnection conn) throws RequestFailureException, IOException {
+                return;
+            }
+        };
+
+        return new RestClient(info);
+    }
+
+    private static byte[] createAssetListJson(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"asset").append(i).append("\"}");
+        }
+        return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+        private boolean closed = false;
+
+        TrackingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.common.utils.internal;
+
+/**
+ * The hashes of the content of a file, as calculated by {@link HashUtils#getFileHashes(java.io.File)}, along with the size and modification time the file had when it
+ * was read.
+ */
+public final class FileHashes {
+
+    private final String sha256;
+    private final String md5;
+    private final long crc32;
+    private final long size;
+    private final long lastModified;
+
+    FileHashes(String sha256, String md5, long crc32, long size, long lastModified) {
+        this.sha256 = sha256;
+        this.md5 = md5;
+        this.crc32 = crc32;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the SHA-256 hash of the file as a lower case hex string
+     */
+    public String getSHA256() {
+        return sha256;
+    }
+
+    /**
+     * @return the MD5 hash of the file as a lower case hex string
+     */
+    public String getMD5() {
+        return md5;
+    }
+
+    /**
+     * @return the CRC32 checksum of the file
+     */
+    public long getCRC32() {
+        return crc32;
+    }
+
+    /**
+     * @return the size of the file when it was hashed
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the modification time of the file when it was hashed
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -17,13 +17,39 @@ package com.ibm.ws.repository.common.utils.internal;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 /**
  * HashUtils replaces the old MD5Utils to generate both the MD5 and SHA256 hash keys.
+ * <p>
+ * All of the hashes of a file are calculated in one pass over the file, and are remembered until the file changes, so asking for the SHA-256 of a file and then its
+ * CRC only reads the file once. A file is taken to have changed if its size, its modification time (to the full precision the file system records) or its file key
+ * (such as its inode) changes. As some file systems only record modification times to the second or worse, the hashes of a file which has been modified in the
+ * last few seconds aren't remembered, so a file rewritten at the same size straight after being hashed is always read again.
  */
 public class HashUtils {
 
@@ -31,6 +57,37 @@ public class HashUtils {
     private static final String SHA256 = "SHA-256";
     private static final String MD5 = "MD5";
 
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The most files whose hashes are remembered
+     */
+    private static final int MAX_CACHED_FILES = 1024;
+
+    /**
+     * The hashes of files modified more recently than this many milliseconds ago aren't remembered, as the file could change again without its modification time changing
+     */
+    private static final long MIN_CACHED_AGE_MILLIS = 2000;
+
+    /**
+     * Direct buffers which aren't in use, so the file can be read straight into memory that the CRC can be calculated from without copying. At most one buffer
+     * for each processor is kept, rather than one for every thread which has ever hashed a file, and the buffers belong to this class rather than to those
+     * threads.
+     */
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<ByteBuffer>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The hashes of the files hashed most recently, keyed by absolute path. Guarded by itself.
+     */
+    private static final Map<String, CachedHashes> CACHE = new LinkedHashMap<String, CachedHashes>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedHashes> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
     /**
      * Calculate MD5 hash of a File
      *
@@ -39,8 +96,7 @@ public class HashUtils {
      * @throws IOException
      */
     public static String getFileMD5String(File file) throws IOException {
-        MessageDigest messageDigest = getMessageDigest(MD5);
-        return getFileHashString(file, messageDigest);
+        return getFileHashes(file).getMD5();
     }
 
     /**
@@ -51,29 +107,157 @@ public class HashUtils {
      * @throws IOException
      */
     public static String getFileSHA256String(File file) throws IOException {
-        MessageDigest messageDigest = getMessageDigest(SHA256);
-        return getFileHashString(file, messageDigest);
+        return getFileHashes(file).getSHA256();
     }
 
-    private static String getFileHashString(File file, MessageDigest messagedigest) throws IOException {
-        InputStream fis = null;
+    /**
+     * Calculate the SHA-256 hash, MD5 hash and CRC32 checksum of a File in one pass over the file. If the file has been hashed before, and hasn't changed size or
+     * modification time since, the hashes aren't calculated again.
+     *
+     * @param file - the File to hash
+     * @return the hashes
+     * @throws IOException
+     */
+    public static FileHashes getFileHashes(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        BasicFileAttributes attributes;
         try {
-            fis = new FileInputStream(file);
+            attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path);
+        }
+
+        CachedHashes cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(path);
+        }
+        if (cached != null && cached.matches(attributes)) {
+            return cached.hashes;
+        }
+
+        // The attributes are from before the file is read, so if it changes while we're reading it we'll read it again next time
+        FileTime lastModified = attributes.lastModifiedTime();
+        FileHashes hashes = calculateFileHashes(file, attributes.size(), lastModified.toMillis());
+        synchronized (CACHE) {
+            if (System.currentTimeMillis() - lastModified.toMillis() >= MIN_CACHED_AGE_MILLIS) {
+                CACHE.put(path, new CachedHashes(hashes, attributes));
+            } else {
+                CACHE.remove(path);
+            }
+        }
+        return hashes;
+    }
 
-            byte[] buffer = new byte[1024];
-            int numRead = 0;
-            while ((numRead = fis.read(buffer)) > 0) {
-                messagedigest.update(buffer, 0, numRead);
+    /**
+     * Calculate the hashes of several files, using a thread for each processor
+     *
+     * @param files - the Files to hash
+     * @return the hashes of each file, in the same order as the files
+     * @throws IOException if any of the files can't be read
+     */
+    public static Map<File, FileHashes> getFileHashes(Collection<File> files) throws IOException {
+        Map<File, FileHashes> result = new LinkedHashMap<File, FileHashes>();
+        if (files.size() <= 1) {
+            for (File file : files) {
+                result.put(file, getFileHashes(file));
+            }
+            return result;
+        }
+
+        List<Callable<FileHashes>> tasks = new ArrayList<Callable<FileHashes>>();
+        for (final File file : files) {
+            tasks.add(new Callable<FileHashes>() {
+                @Override
+                public FileHashes call() throws IOException {
+                    return getFileHashes(file);
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<FileHashes>> futures = executor.invokeAll(tasks);
+            int i = 0;
+            for (File file : files) {
+                result.put(file, futures.get(i++).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while hashing files");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw (Error) cause;
             }
         } finally {
-            if (fis != null)
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private static FileHashes calculateFileHashes(File file, long size, long lastModified) throws IOException {
+        MessageDigest sha256 = getMessageDigest(SHA256);
+        MessageDigest md5 = getMessageDigest(MD5);
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            FileChannel channel = fis.getChannel();
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.rewind();
+                md5.update(buffer);
+                buffer.rewind();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            // If the pool is already full the buffer is dropped
+            BUFFERS.offer(buffer);
+            if (fis != null) {
                 try {
                     fis.close();
-                } catch (Exception e) {
+                } catch (IOException e) {
                 }
+            }
+        }
+
+        return new FileHashes(byteArrayToHexString(sha256.digest()), byteArrayToHexString(md5.digest()), crc.getValue(), size, lastModified);
+    }
+
+    /**
+     * The hashes of a file along with the attributes it had when it was hashed
+     */
+    private static class CachedHashes {
+        private final FileHashes hashes;
+        private final long size;
+        private final FileTime lastModified;
+        private final Object fileKey;
+
+        CachedHashes(FileHashes hashes, BasicFileAttributes attributes) {
+            this.hashes = hashes;
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime();
+            this.fileKey = attributes.fileKey();
         }
 
-        return byteArrayToHexString(messagedigest.digest());
+        /**
+         * @return true if a file with these attributes is the same as the file which was hashed
+         */
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime()) && Objects.equals(fileKey, attributes.fileKey());
+        }
     }
 
     private static String byteArrayToHexString(byte[] byteArray) {
@@ -27,6 +27,7 @@ import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 public class DirectoryRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection {
 
     private final File _root;
+    private volatile File _indexFile;
 
     /**
      * @param type
@@ -39,6 +40,21 @@ public class DirectoryRepositoryConnection extends AbstractRepositoryConnection
         return _root;
     }
 
+    public File getIndexFile() {
+        return _indexFile;
+    }
+
+    /**
+     * Keeps an index of the JSON files in the repository, so that listing the assets only reads the files which have
+     * changed since the last listing. This helps most when the repository is on a network drive. The index can be
+     * shared by any number of connections and processes.
+     *
+     * @param indexFile The file to keep the index in, or <code>null</code> to not keep an index, which is the default
+     */
+    public void setIndexFile(File indexFile) {
+        _indexFile = indexFile;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getRepositoryLocation() {
@@ -47,7 +63,7 @@ public class DirectoryRepositoryConnection extends AbstractRepositoryConnection
 
     @Override
     public RepositoryReadableClient createClient() {
-        return new DirectoryClient(getRoot());
+        return new DirectoryClient(getRoot(), getIndexFile());
     }
 
 }
@@ -17,6 +17,8 @@ package com.ibm.ws.repository.connections;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import com.ibm.ws.repository.common.enums.FilterPredicate;
@@ -65,6 +67,15 @@ public interface RepositoryConnection {
      */
     public RepositoryResource getResource(String id) throws RepositoryBackendException, RepositoryBadDataException;
 
+    /**
+     * Gets the resources specified by the supplied ids. Repositories which support it will fetch all of the resources with a single request.
+     *
+     * @param ids the ids of the resources to get
+     * @return The resources for the specified ids, in the same order as the ids. Ids for which no asset was found are omitted.
+     * @throws RepositoryBackendException
+     */
+    public List<RepositoryResource> getResourcesById(Collection<String> ids) throws RepositoryBackendException;
+
     /**
      * This will return any Samples that match the supplied <code>identifier</code>. The matching is done on the same attributes as can be used in the name on a string passed to
      * the {@link MassiveResolver#resolve(String)} method, namely it is either the short name or lower case short name of the resource.
@@ -98,6 +109,16 @@ public interface RepositoryConnection {
      */
     public Collection<RepositoryResource> getMatchingResources(FilterPredicate... predicate) throws RepositoryBackendException;
 
+    /**
+     * This method returns the resources that match the supplied filter logic in the same way as {@link #getMatchingResources(FilterPredicate...)}, but returns them from an
+     * iterator which reads them a page at a time if the repository supports paging.
+     *
+     * @param predicate The filters + logic to apply
+     * @return An iterator over the resources of any type that match the filters
+     * @throws RepositoryBackendException
+     */
+    public Iterator<RepositoryResource> getMatchingResourcesIterator(FilterPredicate... predicate) throws RepositoryBackendException;
+
     /**
      * This method gets all the resources in this repository
      *
@@ -106,6 +127,18 @@ public interface RepositoryConnection {
      */
     public Collection<? extends RepositoryResource> getAllResources() throws RepositoryBackendException;
 
+    /**
+     * This method gets all the resources in this repository in the same way as {@link #getAllResources()}, but returns them from an iterator. Repositories which support
+     * paging read the resources a page at a time as the iterator is used, so callers that don't need every resource don't have to wait for all of them to be read.
+     * <p>
+     * A problem reading from the repository once the iterator has been returned is thrown from the iterator as a
+     * {@link com.ibm.ws.repository.exceptions.RepositoryBackendUncheckedException}.
+     *
+     * @return An iterator over the resources
+     * @throws RepositoryBackendException
+     */
+    public Iterator<RepositoryResource> getAllResourcesIterator() throws RepositoryBackendException;
+
     /**
      * Gets all resources of the specified type from all the repositories specified
      *
@@ -164,4 +197,20 @@ public interface RepositoryConnection {
     public Collection<? extends RepositoryResource> findResources(String searchTerm, Collection<ProductDefinition> productDefinitions,
                                                                   Collection<ResourceType> types,
                                                                   Visibility visibility) throws RepositoryBackendException;
+
+    /**
+     * Searches for resources in the same way as {@link #findResources(String, Collection, Collection, Visibility)}, but returns them from an iterator which reads them a page
+     * at a time if the repository supports paging.
+     *
+     * @param searchTerm The word(s) to search for.
+     * @param productDefinitions The products that these resources will be installed into. Can be <code>null</code> or empty indicating resources for any product should be obtained
+     *            (they will just be filtered by type).
+     * @param types The {@link RepositoryResourceImpl.ResourceType} of resource to obtain. <code>null</code> indicates that all types should be obtained.
+     * @param visibility The {@link Visibility} of resources to obtain. <code>null</code> indicates that resources with any visibility should be obtained.
+     * @return An iterator over the resources that match the search term for this product, in the order returned from the repository
+     * @throws RepositoryBackendException If there is an error connecting to the repository.
+     */
+    public Iterator<RepositoryResource> findResourcesIterator(String searchTerm, Collection<ProductDefinition> productDefinitions,
+                                                              Collection<ResourceType> types,
+                                                              Visibility visibility) throws RepositoryBackendException;
 }
@@ -21,17 +21,27 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.ibm.ws.repository.common.enums.FilterPredicate;
 import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.LicenseType;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.Visibility;
-import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
 import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendUncheckedException;
 import com.ibm.ws.repository.exceptions.RepositoryException;
 import com.ibm.ws.repository.resources.AdminScriptResource;
 import com.ibm.ws.repository.resources.ConfigSnippetResource;
@@ -44,6 +54,7 @@ import com.ibm.ws.repository.resources.ToolResource;
 import com.ibm.ws.repository.resources.internal.ProductResourceImpl;
 import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
 import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl.MatchResult;
+import com.ibm.ws.repository.resources.internal.RepositoryResourceMatchingData;
 import com.ibm.ws.repository.resources.internal.ResourceCollector;
 import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolicy;
 
@@ -51,6 +62,11 @@ import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolic
  * This class represents a list of RepositoryConnection objects used to connect to repositories.
  * Do not use a RepositoryConnection inside multiple RepositoryConnectionList objects as setting a userAgent in the RepositoryConnectionList object
  * will update each RepositoryConnection it contains.
+ * <p>
+ * By default the repositories are queried one after another. If an executor is set with {@link #setExecutor(ExecutorService)}, they are queried concurrently
+ * instead, so that a query takes as long as the slowest repository rather than the sum of all of them. In either case the results are merged in the order of
+ * the repositories in this list, so where the same resource is found in more than one repository, the one from the repository nearest the start of the list is
+ * returned.
  */
 public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
 
@@ -59,6 +75,10 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
 
     private String _userAgent;
 
+    private transient ExecutorService _executor;
+
+    private long _timeoutMillis = 0;
+
     /**
      * Creates an empty RepositoryConnectionList
      */
@@ -117,6 +137,51 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         }
     }
 
+    /**
+     * @return the executor used to query the repositories concurrently, or <code>null</code> if they are queried one after another
+     */
+    public ExecutorService getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * Sets the executor used to query the repositories in this list concurrently. The executor is not shut down by this class.
+     *
+     * @param executor the executor to use, or <code>null</code> to query the repositories one after another on the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        _executor = executor;
+    }
+
+    /**
+     * @param unit the unit to return the timeout in
+     * @return the time to wait for each repository to respond when they are queried concurrently, or 0 to wait indefinitely
+     */
+    public long getConnectionTimeout(TimeUnit unit) {
+        return unit.convert(_timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets how long to wait for each repository to respond when the repositories are queried concurrently. If a repository does not respond in time, its query
+     * is cancelled and a {@link RepositoryBackendIOException} is thrown for that repository.
+     * <p>
+     * The timeout is only applied when an executor has been set with {@link #setExecutor(ExecutorService)}.
+     * <p>
+     * Cancelling a query doesn't interrupt a thread blocked reading from a repository, so a timed out query keeps its executor thread until the connection's
+     * own connect or read timeout fires. To stop those threads piling up, the connect and read timeouts of each {@link RestRepositoryConnection} in this list
+     * are lowered to this timeout, if they are longer, when the repositories are queried. The read timeout applies to each read rather than the whole response,
+     * so a repository which keeps sending data slowly can still hold a thread for longer.
+     *
+     * @param timeout the time to wait, or 0 to wait indefinitely
+     * @param unit the unit of <code>timeout</code>
+     */
+    public void setConnectionTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The timeout must not be negative: " + timeout);
+        }
+        _timeoutMillis = unit.toMillis(timeout);
+    }
+
     /*
      * ------------------------------------------------------------------------------------------------
      * The following methods all iterate through the list of repository connections and perform
@@ -128,6 +193,99 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         Collection<T> performActionOnRepository(RepositoryConnection connection) throws RepositoryBackendException;
     }
 
+    private interface ConnectionAction<R> {
+        R perform(RepositoryConnection connection) throws RepositoryBackendException;
+    }
+
+    /**
+     * Performs an action on each connection in this list, concurrently if an executor has been set, and returns the results in the order of the connections in
+     * the list.
+     */
+    private <R> List<R> performOnEachConnection(final ConnectionAction<R> action) throws RepositoryBackendException {
+        List<R> results = new ArrayList<R>(this.size());
+
+        ExecutorService executor = _executor;
+        if (executor == null) {
+            for (RepositoryConnection repoConnection : this) {
+                results.add(action.perform(repoConnection));
+            }
+            return results;
+        }
+
+        capConnectionTimeouts();
+        List<Future<R>> futures = new ArrayList<Future<R>>(this.size());
+        for (final RepositoryConnection repoConnection : this) {
+            futures.add(executor.submit(new Callable<R>() {
+                @Override
+                public R call() throws RepositoryBackendException {
+                    return action.perform(repoConnection);
+                }
+            }));
+        }
+
+        // Every query starts at the same time, so they all share the same deadline
+        long deadline = _timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_timeoutMillis) : 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(waitForResult(futures.get(i), this.get(i), deadline));
+            }
+        } finally {
+            // If one query failed there's no point waiting for the others
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lowers the connect and read timeouts of the REST connections in this list to the list's timeout, so that a thread blocked on a query which has timed out
+     * is released soon after
+     */
+    private void capConnectionTimeouts() {
+        if (_timeoutMillis <= 0) {
+            return;
+        }
+        int cap = (int) Math.min(_timeoutMillis, Integer.MAX_VALUE);
+        for (RepositoryConnection repoConnection : this) {
+            if (repoConnection instanceof RestRepositoryConnection) {
+                RestRepositoryConnection restConnection = (RestRepositoryConnection) repoConnection;
+                // A timeout of 0 means wait forever
+                if (restConnection.getConnectTimeout() == 0 || restConnection.getConnectTimeout() > cap) {
+                    restConnection.setConnectTimeout(cap);
+                }
+                if (restConnection.getReadTimeout() == 0 || restConnection.getReadTimeout() > cap) {
+                    restConnection.setReadTimeout(cap);
+                }
+            }
+        }
+    }
+
+    private static <R> R waitForResult(Future<R> future, RepositoryConnection connection, long deadline) throws RepositoryBackendException {
+        try {
+            if (deadline == 0) {
+                return future.get();
+            } else {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RepositoryBackendException) {
+                throw (RepositoryBackendException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RepositoryBackendIOException(cause, connection);
+        } catch (TimeoutException e) {
+            throw new RepositoryBackendIOException("Timed out waiting for the repository at " + connection.getRepositoryLocation(), e, connection);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryBackendIOException("Interrupted while waiting for the repository at " + connection.getRepositoryLocation(), e, connection);
+        }
+    }
+
     private <T extends RepositoryResource> Collection<T> cycleThroughRepositories(RepositoryInvoker<T> invoker) throws RepositoryBackendException {
         return performCycle(invoker, new ResourceCollector<T>(DuplicatePolicy.FORBID_DUPLICATES));
     }
@@ -136,13 +294,18 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         return performCycle(invoker, new ResourceCollector<T>(DuplicatePolicy.ALLOW_DUPLICATES));
     }
 
-    private <T extends RepositoryResource> Collection<T> performCycle(RepositoryInvoker<T> invoker, ResourceCollector<T> resources) throws RepositoryBackendException {
+    private <T extends RepositoryResource> Collection<T> performCycle(final RepositoryInvoker<T> invoker, ResourceCollector<T> resources) throws RepositoryBackendException {
         if (this.size() == 1) {
             // Nothing to iterate over, just return the first result directly
             return invoker.performActionOnRepository(this.get(0));
         }
-        for (RepositoryConnection repoConnection : this) {
-            Collection<T> reses = invoker.performActionOnRepository(repoConnection);
+        List<Collection<T>> results = performOnEachConnection(new ConnectionAction<Collection<T>>() {
+            @Override
+            public Collection<T> perform(RepositoryConnection connection) throws RepositoryBackendException {
+                return invoker.performActionOnRepository(connection);
+            }
+        });
+        for (Collection<T> reses : results) {
             for (T res : reses) {
                 resources.add(res);
             }
@@ -150,6 +313,75 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         return resources.getResourceCollection();
     }
 
+    /**
+     * Returns an iterator which works through each repository in turn, only asking a repository for its resources once the resources from the previous repositories
+     * have been returned. Resources which have already been returned from an earlier repository are skipped.
+     */
+    private Iterator<RepositoryResource> chainRepositories(ConnectionAction<Iterator<RepositoryResource>> action) throws RepositoryBackendException {
+        if (this.isEmpty()) {
+            return Collections.<RepositoryResource> emptyList().iterator();
+        }
+        return new ChainedResourceIterator(new ArrayList<RepositoryConnection>(this), action);
+    }
+
+    private static class ChainedResourceIterator implements Iterator<RepositoryResource> {
+
+        private final List<RepositoryConnection> _connections;
+        private final ConnectionAction<Iterator<RepositoryResource>> _action;
+        private final Set<RepositoryResourceMatchingData> _dupesChecker = new HashSet<RepositoryResourceMatchingData>();
+
+        private int _connectionIndex = 0;
+        private Iterator<RepositoryResource> _current;
+        private RepositoryResource _next;
+
+        /**
+         * Opens the iterator for the first repository straight away so that a problem connecting to it is thrown as a checked exception.
+         */
+        ChainedResourceIterator(List<RepositoryConnection> connections, ConnectionAction<Iterator<RepositoryResource>> action) throws RepositoryBackendException {
+            _connections = connections;
+            _action = action;
+            _current = action.perform(connections.get(0));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (_next == null) {
+                if (!_current.hasNext()) {
+                    if (++_connectionIndex >= _connections.size()) {
+                        return false;
+                    }
+                    try {
+                        _current = _action.perform(_connections.get(_connectionIndex));
+                    } catch (RepositoryBackendException e) {
+                        throw new RepositoryBackendUncheckedException(e);
+                    }
+                    continue;
+                }
+
+                RepositoryResource resource = _current.next();
+                if (_dupesChecker.add(((RepositoryResourceImpl) resource).createMatchingData())) {
+                    _next = resource;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public RepositoryResource next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RepositoryResource next = _next;
+            _next = null;
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Find the features that match the supplied search string, ProductDefinition and Visibility
      *
@@ -302,6 +534,41 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         return resources;
     }
 
+    /**
+     * Returns all resources which match the supplied set of FilterPredicate objects in the same way as {@link #getMatchingResources(FilterPredicate...)}, but reads
+     * them lazily. Each repository is only queried once the resources from the repositories before it in this list have been returned, and repositories that
+     * support paging are read a page at a time.
+     *
+     * @return An iterator over the matching resources
+     * @throws RepositoryBackendException if there is a problem connecting to the first repository. Later problems are thrown from the iterator as a
+     *             {@link RepositoryBackendUncheckedException}
+     */
+    public Iterator<RepositoryResource> getMatchingResourcesIterator(final FilterPredicate... predicates) throws RepositoryBackendException {
+        return chainRepositories(new ConnectionAction<Iterator<RepositoryResource>>() {
+            @Override
+            public Iterator<RepositoryResource> perform(RepositoryConnection connection) throws RepositoryBackendException {
+                return connection.getMatchingResourcesIterator(predicates);
+            }
+        });
+    }
+
+    /**
+     * This method gets all the resources in this list of repositories in the same way as {@link #getAllResources()}, but reads them lazily. Each repository is only
+     * queried once the resources from the repositories before it in this list have been returned, and repositories that support paging are read a page at a time.
+     *
+     * @return An iterator over the resources
+     * @throws RepositoryBackendException if there is a problem connecting to the first repository. Later problems are thrown from the iterator as a
+     *             {@link RepositoryBackendUncheckedException}
+     */
+    public Iterator<RepositoryResource> getAllResourcesIterator() throws RepositoryBackendException {
+        return chainRepositories(new ConnectionAction<Iterator<RepositoryResource>>() {
+            @Override
+            public Iterator<RepositoryResource> perform(RepositoryConnection connection) throws RepositoryBackendException {
+                return connection.getAllResourcesIterator();
+            }
+        });
+    }
+
     /**
      * This method gets all the resources in this list of repositories, this list may contain dupes if the same
      * asset is found in multiple repositories.
@@ -534,9 +801,9 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
      *         no assets of that type were found
      * @throws RepositoryBackendException
      */
-    public Map<ResourceType, Collection<? extends RepositoryResource>> getResources(Collection<ProductDefinition> productDefinitions,
-                                                                                    Collection<ResourceType> types,
-                                                                                    Visibility visibility) throws RepositoryBackendException {
+    public Map<ResourceType, Collection<? extends RepositoryResource>> getResources(final Collection<ProductDefinition> productDefinitions,
+                                                                                    final Collection<ResourceType> types,
+                                                                                    final Visibility visibility) throws RepositoryBackendException {
         // If there's only one connection, just return the result from it
         if (this.size() == 1) {
             return this.get(0).getResources(productDefinitions, types, visibility);
@@ -545,10 +812,14 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         // Otherwise, we need to merge the results
         Map<ResourceType, ResourceCollector<RepositoryResource>> combinedMap = new HashMap<ResourceType, ResourceCollector<RepositoryResource>>();
 
-        for (RepositoryConnection connection : this) {
-            AbstractRepositoryConnection conn = (AbstractRepositoryConnection) connection;
+        List<Map<ResourceType, Collection<? extends RepositoryResource>>> results = performOnEachConnection(new ConnectionAction<Map<ResourceType, Collection<? extends RepositoryResource>>>() {
+            @Override
+            public Map<ResourceType, Collection<? extends RepositoryResource>> perform(RepositoryConnection connection) throws RepositoryBackendException {
+                return connection.getResources(productDefinitions, types, visibility);
+            }
+        });
 
-            Map<ResourceType, Collection<? extends RepositoryResource>> singleRepo = conn.getResources(productDefinitions, types, visibility);
+        for (Map<ResourceType, Collection<? extends RepositoryResource>> singleRepo : results) {
             for (Entry<ResourceType, Collection<? extends RepositoryResource>> entry : singleRepo.entrySet()) {
 
                 Collection<? extends RepositoryResource> singleType = entry.getValue();
@@ -598,4 +869,24 @@ public class RepositoryConnectionList extends ArrayList<RepositoryConnection> {
         });
     }
 
+    /**
+     * Searches for resources in the same way as {@link #findResources(String, Collection, Collection, Visibility)}, but reads them lazily. Each repository is only
+     * queried once the resources from the repositories before it in this list have been returned, and repositories that support paging are read a page at a time.
+     *
+     * @return An iterator over the resources that match the search term for this product
+     * @throws RepositoryBackendException if there is a problem connecting to the first repository. Later problems are thrown from the iterator as a
+     *             {@link RepositoryBackendUncheckedException}
+     */
+    public Iterator<RepositoryResource> findResourcesIterator(final String searchTerm,
+                                                              final Collection<ProductDefinition> productDefinitions,
+                                                              final Collection<ResourceType> types,
+                                                              final Visibility visibility) throws RepositoryBackendException {
+        return chainRepositories(new ConnectionAction<Iterator<RepositoryResource>>() {
+            @Override
+            public Iterator<RepositoryResource> perform(RepositoryConnection connection) throws RepositoryBackendException {
+                return connection.findResourcesIterator(searchTerm, productDefinitions, types, visibility);
+            }
+        });
+    }
+
 }
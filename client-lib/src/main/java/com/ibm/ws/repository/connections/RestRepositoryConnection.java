@@ -16,12 +16,37 @@
 
 package com.ibm.ws.repository.connections;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.ibm.ws.repository.common.enums.FilterPredicate;
+import com.ibm.ws.repository.common.enums.FilterableAttribute;
+import com.ibm.ws.repository.common.enums.ResourceType;
+import com.ibm.ws.repository.common.enums.Visibility;
 import com.ibm.ws.repository.connections.internal.AbstractRepositoryConnection;
+import com.ibm.ws.repository.connections.internal.PagedResourceIterator;
+import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.resources.RepositoryResource;
+import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
+import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolicy;
+import com.ibm.ws.repository.transport.client.DataModelSerializer.JsonListIterator;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.RestClient;
+import com.ibm.ws.repository.transport.client.ValidatedResponseCache;
+import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.Asset;
 
 public class RestRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection {
 
+    /**
+     * The default number of assets that the resource iterators read from the repository at once
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
     private String repositoryUrl;
     private String userId;
     private String password;
@@ -37,6 +62,16 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
 
     private RestRepositoryConnectionProxy proxy;
 
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int connectTimeout = com.ibm.ws.repository.transport.client.ClientLoginInfo.DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = com.ibm.ws.repository.transport.client.ClientLoginInfo.DEFAULT_READ_TIMEOUT;
+
+    /**
+     * Responses to GET requests, kept here rather than in the clients as a new client is created for most operations
+     */
+    private final ValidatedResponseCache validatedResponses = new ValidatedResponseCache();
+
     public RestRepositoryConnection(String repositoryUrl) {
         this(null, null, null, repositoryUrl);
     }
@@ -134,6 +169,8 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
         if (proxy != null) {
             clientLogin.setProxy(proxy.getLoginInfoClientProxy());
         }
+        clientLogin.setConnectTimeout(connectTimeout);
+        clientLogin.setReadTimeout(readTimeout);
         return clientLogin;
     }
 
@@ -185,15 +222,127 @@ public class RestRepositoryConnection extends AbstractRepositoryConnection imple
         this.userAgent = userAgent;
     }
 
+    /**
+     * @return the time to wait for a connection to the repository to be established, in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets the time to wait for a connection to the repository to be established. Connections are kept alive and reused between requests to the same host, so
+     * this only applies when a new connection is needed. The number of idle connections kept for each host is set by the <code>http.maxConnections</code> system
+     * property.
+     *
+     * @param connectTimeout the timeout in milliseconds, 0 means wait forever
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the time to wait for data to be read from the repository, in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets the time to wait for data to be read from the repository
+     *
+     * @param readTimeout the timeout in milliseconds, 0 means wait forever
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return the number of assets that the resource iterators read from the repository at once
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of assets that the resource iterators, such as {@link #getAllResourcesIterator()}, read from the repository at once.
+     *
+     * @param pageSize the page size, which must be positive
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be positive: " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getRepositoryLocation() {
         return getRepositoryUrl();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<RepositoryResource> getAllResourcesIterator() throws RepositoryBackendException {
+        return createPagedIterator(null, null, DuplicatePolicy.FORBID_DUPLICATES).open();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<RepositoryResource> getMatchingResourcesIterator(FilterPredicate... predicates) throws RepositoryBackendException {
+        Map<FilterableAttribute, Collection<String>> filters = new HashMap<FilterableAttribute, Collection<String>>();
+        for (FilterPredicate predicate : predicates) {
+            filters.put(predicate.getAttribute(), predicate.getValues());
+        }
+        return createPagedIterator(filters, null, DuplicatePolicy.ALLOW_DUPLICATES).open();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<RepositoryResource> findResourcesIterator(final String searchTerm, final Collection<ProductDefinition> productDefinitions,
+                                                              Collection<ResourceType> types,
+                                                              final Visibility visibility) throws RepositoryBackendException {
+        // As with findResources, an empty search is answered by getResources which needs two queries and has to filter the results locally, so it isn't paged
+        if (searchTerm == null || searchTerm.isEmpty()) {
+            return super.findResourcesIterator(searchTerm, productDefinitions, types, visibility);
+        }
+
+        // The only indexed field that's useful to filter a search on is the type, the rest of the filtering has to be done here
+        final Map<FilterableAttribute, Collection<String>> filters = new HashMap<FilterableAttribute, Collection<String>>();
+        if (types != null && !types.isEmpty()) {
+            Collection<String> typeValues = new HashSet<String>();
+            for (ResourceType type : types) {
+                typeValues.add(type.getValue());
+            }
+            filters.put(FilterableAttribute.TYPE, typeValues);
+        }
+
+        PagedResourceIterator iterator = new PagedResourceIterator(this, pageSize, DuplicatePolicy.FORBID_DUPLICATES) {
+            @Override
+            protected JsonListIterator<Asset> readPage(int offset, int limit) throws IOException, RequestFailureException {
+                return createClient().getAssetsPage(filters, searchTerm, offset, limit);
+            }
+
+            @Override
+            protected boolean accept(RepositoryResourceImpl resource) {
+                return resource.doesResourceMatch(productDefinitions, visibility);
+            }
+        };
+        return iterator.open();
+    }
+
+    private PagedResourceIterator createPagedIterator(final Map<FilterableAttribute, Collection<String>> filters, final String searchTerm, DuplicatePolicy duplicatePolicy) {
+        return new PagedResourceIterator(this, pageSize, duplicatePolicy) {
+            @Override
+            protected JsonListIterator<Asset> readPage(int offset, int limit) throws IOException, RequestFailureException {
+                return createClient().getAssetsPage(filters, searchTerm, offset, limit);
+            }
+        };
+    }
+
     @Override
-    public RepositoryReadableClient createClient() {
-        return new RestClient(getClientLoginInfo());
+    public RestClient createClient() {
+        return new RestClient(getClientLoginInfo(), validatedResponses);
     }
 
 }
@@ -30,11 +30,27 @@ import com.ibm.ws.repository.transport.client.SingleFileClient;
 public class SingleFileRepositoryConnection extends AbstractRepositoryConnection implements RepositoryConnection {
 
     private final File jsonFile;
+    private volatile boolean journaled = false;
 
     public SingleFileRepositoryConnection(File jsonFile) {
         this.jsonFile = jsonFile;
     }
 
+    public boolean isJournaled() {
+        return journaled;
+    }
+
+    /**
+     * Sets whether clients from this connection append changes to a journal rather than rewriting the whole file each time an asset is added or deleted. This makes
+     * adding many assets much faster. The journal is read by all clients, and is compacted into the main file periodically.
+     *
+     * @param journaled <code>true</code> to write changes to the journal
+     * @see SingleFileClient
+     */
+    public void setJournaled(boolean journaled) {
+        this.journaled = journaled;
+    }
+
     @Override
     public String getRepositoryLocation() {
         return jsonFile.getAbsolutePath();
@@ -42,13 +58,14 @@ public class SingleFileRepositoryConnection extends AbstractRepositoryConnection
 
     @Override
     public RepositoryReadableClient createClient() {
-        return new SingleFileClient(jsonFile);
+        return new SingleFileClient(jsonFile, journaled);
     }
 
     /**
      * Create an empty single file Repository connection.
      * <p>
-     * Repository data will be stored in {@code jsonFile} which must not exist and will be created by this method.
+     * Repository data will be stored in {@code jsonFile} which must not exist and will be created by this method. Any journal left over from an earlier repository in
+     * the same location is deleted.
      *
      * @param jsonFile the location for the repository file
      * @return the repository connection
@@ -59,6 +76,11 @@ public class SingleFileRepositoryConnection extends AbstractRepositoryConnection
             throw new IOException("Cannot create empty repository as the file already exists: " + jsonFile.getAbsolutePath());
         }
 
+        File journal = SingleFileClient.getJournalFile(jsonFile);
+        if (journal.exists() && !journal.delete()) {
+            throw new IOException("Cannot delete the journal left over from an earlier repository: " + journal.getAbsolutePath());
+        }
+
         OutputStreamWriter writer = null;
         try {
             writer = new OutputStreamWriter(new FileOutputStream(jsonFile), "UTF-8");
@@ -16,12 +16,14 @@
 package com.ibm.ws.repository.connections.internal;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -45,7 +47,9 @@ import com.ibm.ws.repository.resources.internal.ResourceCollector;
 import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolicy;
 import com.ibm.ws.repository.resources.internal.ResourceFactory;
 import com.ibm.ws.repository.resources.internal.SampleResourceImpl;
+import com.ibm.ws.repository.transport.client.DataModelSerializer;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
+import com.ibm.ws.repository.transport.client.RestClient;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
 import com.ibm.ws.repository.transport.model.Asset;
@@ -95,6 +99,22 @@ public abstract class AbstractRepositoryConnection implements RepositoryConnecti
         return res;
     }
 
+    @Override
+    public List<RepositoryResource> getResourcesById(Collection<String> ids) throws RepositoryBackendException {
+        RepositoryReadableClient client = createClient();
+        List<RepositoryResource> resources = new ArrayList<RepositoryResource>();
+        try {
+            for (Asset ass : client.getAssetsById(ids)) {
+                resources.add(ResourceFactory.getInstance().createResourceFromAsset(ass, this));
+            }
+        } catch (IOException ioe) {
+            throw new RepositoryBackendIOException("Failed to create resources from Assets", ioe, this);
+        } catch (RequestFailureException bfe) {
+            throw new RepositoryBackendRequestFailureException(bfe, this);
+        }
+        return resources;
+    }
+
     @Override
     public Collection<RepositoryResource> getAllResources() throws RepositoryBackendException {
         return getAllResources(new ResourceCollector<RepositoryResource>(DuplicatePolicy.FORBID_DUPLICATES));
@@ -257,11 +277,17 @@ public abstract class AbstractRepositoryConnection implements RepositoryConnecti
 
         RepositoryReadableClient client = createClient();
         try {
-            Collection<Asset> assets = client.getFilteredAssets(filters);
-            for (Asset ass : assets) {
-                RepositoryResource res = ResourceFactory.getInstance().createResourceFromAsset(ass, this);
-                resources.add(res);
+            Iterator<Asset> assets = readAssets(client, filters);
+            try {
+                while (assets.hasNext()) {
+                    RepositoryResource res = ResourceFactory.getInstance().createResourceFromAsset(assets.next(), this);
+                    resources.add(res);
+                }
+            } finally {
+                closeAssets(assets);
             }
+        } catch (UncheckedIOException e) {
+            throw new RepositoryBackendIOException("Failed to obtain the assets from massive", e.getCause(), this);
         } catch (IOException ioe) {
             throw new RepositoryBackendIOException("Failed to obtain the assets from massive", ioe, this);
         } catch (RequestFailureException e) {
@@ -312,6 +338,38 @@ public abstract class AbstractRepositoryConnection implements RepositoryConnecti
         return resources.getResourceCollection();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads every resource before returning the iterator. Connections to repositories which support paging override it.
+     */
+    @Override
+    public Iterator<RepositoryResource> getAllResourcesIterator() throws RepositoryBackendException {
+        return Collections.unmodifiableCollection(getAllResources()).iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads every matching resource before returning the iterator. Connections to repositories which support paging override it.
+     */
+    @Override
+    public Iterator<RepositoryResource> getMatchingResourcesIterator(FilterPredicate... predicates) throws RepositoryBackendException {
+        return Collections.unmodifiableCollection(getMatchingResources(predicates)).iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads every matching resource before returning the iterator. Connections to repositories which support paging override it.
+     */
+    @Override
+    public Iterator<RepositoryResource> findResourcesIterator(String searchTerm, Collection<ProductDefinition> productDefinitions,
+                                                              Collection<ResourceType> types,
+                                                              Visibility visibility) throws RepositoryBackendException {
+        return Collections.<RepositoryResource> unmodifiableCollection(findResources(searchTerm, productDefinitions, types, visibility)).iterator();
+    }
+
     /**
      * Create client to the repository. This is implemented by the concrete types of connection
      *
@@ -319,14 +377,41 @@ public abstract class AbstractRepositoryConnection implements RepositoryConnecti
      */
     public abstract RepositoryReadableClient createClient();
 
+    /**
+     * Reads the assets which match the filters, or every asset if the filters are <code>null</code>. A {@link RestClient} returns the assets as they are read
+     * from the response, so each one can be turned into a resource without the whole list of assets being held in memory. Other clients read every asset
+     * first. The iterator must be passed to {@link #closeAssets(Iterator)} once the caller has finished with it.
+     */
+    private Iterator<Asset> readAssets(RepositoryReadableClient client, Map<FilterableAttribute, Collection<String>> filters) throws IOException, RequestFailureException {
+        if (client instanceof RestClient) {
+            RestClient restClient = (RestClient) client;
+            return filters == null ? restClient.getAllAssetsIterator(null) : restClient.getFilteredAssetsIterator(filters, null);
+        }
+        return (filters == null ? client.getAllAssets() : client.getFilteredAssets(filters)).iterator();
+    }
+
+    /**
+     * Closes an iterator returned by {@link #readAssets(RepositoryReadableClient, Map)}, which releases the connection if it was reading from a response.
+     */
+    private static void closeAssets(Iterator<Asset> assets) {
+        if (assets instanceof DataModelSerializer.JsonListIterator) {
+            ((DataModelSerializer.JsonListIterator<Asset>) assets).close();
+        }
+    }
+
     private Collection<RepositoryResource> getAllResources(ResourceCollector<RepositoryResource> resources) throws RepositoryBackendException {
         RepositoryReadableClient client = createClient();
-        Collection<Asset> assets;
         try {
-            assets = client.getAllAssets();
-            for (Asset ass : assets) {
-                resources.add(ResourceFactory.getInstance().createResourceFromAsset(ass, this));
+            Iterator<Asset> assets = readAssets(client, null);
+            try {
+                while (assets.hasNext()) {
+                    resources.add(ResourceFactory.getInstance().createResourceFromAsset(assets.next(), this));
+                }
+            } finally {
+                closeAssets(assets);
             }
+        } catch (UncheckedIOException e) {
+            throw new RepositoryBackendIOException("Failed to obtain the assets from massive", e.getCause(), this);
         } catch (IOException ioe) {
             throw new RepositoryBackendIOException("Failed to obtain the assets from massive", ioe, this);
         } catch (RequestFailureException e) {
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.connections.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.ibm.ws.repository.connections.RepositoryConnection;
+import com.ibm.ws.repository.exceptions.RepositoryBackendException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendIOException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendRequestFailureException;
+import com.ibm.ws.repository.exceptions.RepositoryBackendUncheckedException;
+import com.ibm.ws.repository.resources.RepositoryResource;
+import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
+import com.ibm.ws.repository.resources.internal.RepositoryResourceMatchingData;
+import com.ibm.ws.repository.resources.internal.ResourceCollector.DuplicatePolicy;
+import com.ibm.ws.repository.resources.internal.ResourceFactory;
+import com.ibm.ws.repository.transport.client.DataModelSerializer.JsonListIterator;
+import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
+import com.ibm.ws.repository.transport.model.Asset;
+
+/**
+ * An iterator over the resources in a repository which reads the assets from the repository a page at a time, only reading the next page once all of the resources
+ * from the previous page have been returned.
+ * <p>
+ * Subclasses supply the page reading with {@link #readPage(int, int)}, and may override {@link #accept(RepositoryResourceImpl)} to filter the resources on the client.
+ * Errors reading a page from {@link #hasNext()} or {@link #next()} are thrown as a {@link RepositoryBackendUncheckedException}; callers which want errors reading the first
+ * page to be thrown as a checked exception should call {@link #open()} before returning the iterator.
+ */
+public abstract class PagedResourceIterator implements Iterator<RepositoryResource> {
+
+    private final RepositoryConnection _connection;
+    private final int _pageSize;
+    private final Set<RepositoryResourceMatchingData> _dupesChecker;
+
+    private Iterator<Asset> _page = Collections.<Asset> emptyList().iterator();
+    private int _offset = 0;
+    private boolean _lastPage = false;
+    private RepositoryResourceImpl _next;
+
+    /**
+     * @param connection the connection the resources are read from
+     * @param pageSize the maximum number of assets to request from the repository at once
+     * @param duplicatePolicy whether resources with the same matching data as an earlier resource should be skipped
+     */
+    protected PagedResourceIterator(RepositoryConnection connection, int pageSize, DuplicatePolicy duplicatePolicy) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("The page size must be positive: " + pageSize);
+        }
+        _connection = connection;
+        _pageSize = pageSize;
+        _dupesChecker = duplicatePolicy == DuplicatePolicy.FORBID_DUPLICATES ? new HashSet<RepositoryResourceMatchingData>() : null;
+    }
+
+    /**
+     * Reads a page of assets from the repository.
+     *
+     * @param offset the number of assets to skip
+     * @param limit the maximum number of assets to return
+     * @return the assets in the page, which will be closed once the page has been read
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    protected abstract JsonListIterator<Asset> readPage(int offset, int limit) throws IOException, RequestFailureException;
+
+    /**
+     * Decides whether a resource read from the repository should be returned by this iterator. By default all resources are returned.
+     *
+     * @param resource the resource
+     * @return <code>true</code> if the resource should be returned
+     */
+    protected boolean accept(RepositoryResourceImpl resource) {
+        return true;
+    }
+
+    /**
+     * Reads from the repository until the first resource has been found, so that any problem connecting to the repository is thrown as a checked exception.
+     *
+     * @return this iterator
+     * @throws RepositoryBackendException if there is a problem reading from the repository
+     */
+    public PagedResourceIterator open() throws RepositoryBackendException {
+        findNext();
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        try {
+            return findNext();
+        } catch (RepositoryBackendException e) {
+            throw new RepositoryBackendUncheckedException(e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RepositoryResource next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        RepositoryResource next = _next;
+        _next = null;
+        return next;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private boolean findNext() throws RepositoryBackendException {
+        while (_next == null) {
+            if (!_page.hasNext()) {
+                if (_lastPage) {
+                    return false;
+                }
+                readNextPage();
+                continue;
+            }
+
+            RepositoryResourceImpl resource = ResourceFactory.getInstance().createResourceFromAsset(_page.next(), _connection);
+            if (accept(resource) && (_dupesChecker == null || _dupesChecker.add(resource.createMatchingData()))) {
+                _next = resource;
+            }
+        }
+        return true;
+    }
+
+    private void readNextPage() throws RepositoryBackendException {
+        List<Asset> assets = new ArrayList<Asset>();
+        int elementsRead;
+        try (JsonListIterator<Asset> page = readPage(_offset, _pageSize)) {
+            while (page.hasNext()) {
+                assets.add(page.next());
+            }
+            // Count what the server sent rather than the assets we kept, as assets at a version we can't read are skipped
+            elementsRead = page.getElementsRead();
+        } catch (UncheckedIOException e) {
+            throw new RepositoryBackendIOException("Failed to obtain the assets from massive", e.getCause(), _connection);
+        } catch (IOException ioe) {
+            throw new RepositoryBackendIOException("Failed to obtain the assets from massive", ioe, _connection);
+        } catch (RequestFailureException e) {
+            throw new RepositoryBackendRequestFailureException(e, _connection);
+        }
+        _offset += elementsRead;
+
+        // A short page means we've reached the end. A repository which doesn't understand the limit will have returned every asset,
+        // and asking it for the next page would just return them all again.
+        _lastPage = elementsRead != _pageSize;
+        _page = assets.iterator();
+    }
+
+}
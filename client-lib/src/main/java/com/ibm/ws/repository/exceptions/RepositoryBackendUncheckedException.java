@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.exceptions;
+
+/**
+ * Wraps a {@link RepositoryBackendException} which occurs where a checked exception can't be thrown, such as when an {@link java.util.Iterator} over resources reads the
+ * next page of results from a repository.
+ */
+public class RepositoryBackendUncheckedException extends RuntimeException {
+
+    private static final long serialVersionUID = 5290474342404736474L;
+
+    public RepositoryBackendUncheckedException(RepositoryBackendException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public RepositoryBackendException getCause() {
+        return (RepositoryBackendException) super.getCause();
+    }
+
+}
@@ -16,9 +16,7 @@
 
 package com.ibm.ws.repository.resources.internal;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -77,6 +75,7 @@ import com.ibm.ws.repository.resources.RepositoryResource;
 import com.ibm.ws.repository.resources.internal.AppliesToProcessor.AppliesToEntry;
 import com.ibm.ws.repository.resources.writeable.AttachmentResourceWritable;
 import com.ibm.ws.repository.resources.writeable.RepositoryResourceWritable;
+import com.ibm.ws.repository.strategies.writeable.BaseStrategy;
 import com.ibm.ws.repository.strategies.writeable.UploadStrategy;
 import com.ibm.ws.repository.transport.client.RepositoryReadableClient;
 import com.ibm.ws.repository.transport.client.RepositoryWriteableClient;
@@ -963,12 +962,17 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         @SuppressWarnings("unchecked")
         Collection<RepositoryResourceImpl> resources = (Collection<RepositoryResourceImpl>) getPotentiallyMatchingResources();
 
-        RepositoryResourceImpl resource = null;
+        List<String> matchingIds = new ArrayList<String>();
         for (RepositoryResourceImpl res : resources) {
             if (createMatchingData().equals(res.createMatchingData())) {
-                // found an asset on massive - get the full asset.
-                resource = (RepositoryResourceImpl) getAndCheckRepositoryConnection().getResource(res.getId());
-                matching.add(resource);
+                matchingIds.add(res.getId());
+            }
+        }
+
+        if (!matchingIds.isEmpty()) {
+            // found assets on massive - get the full assets in one go
+            for (RepositoryResource resource : getAndCheckRepositoryConnection().getResourcesById(matchingIds)) {
+                matching.add((RepositoryResourceImpl) resource);
             }
         }
 
@@ -1213,7 +1217,12 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
 
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Finding the matching resources and uploading this one is done while holding the lock for the vanity URL of this
+     * resource, so that resources which conflict with each other are not uploaded at the same time on different threads.
+     */
     @Override
     public synchronized void uploadToMassive(UploadStrategy strategy) throws RepositoryBackendException, RepositoryResourceException {
         updateGeneratedFields(strategy.performEditionChecking());
@@ -1222,8 +1231,12 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         if (getId() != null) {
             copyAttachments();
         }
-        List<RepositoryResourceImpl> matching = strategy.findMatchingResources(this);
-        strategy.uploadAsset(this, matching);
+        String vanityUrl = getVanityURL();
+        Object lock = vanityUrl == null ? new Object() : BaseStrategy.getVanityUrlLock(vanityUrl);
+        synchronized (lock) {
+            List<RepositoryResourceImpl> matching = strategy.findMatchingResources(this);
+            strategy.uploadAsset(this, matching);
+        }
     }
 
     /**
@@ -1549,8 +1562,8 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
      */
     private static long getCRC(InputStream is) throws IOException {
         CheckedInputStream check = new CheckedInputStream(is, new CRC32());
-        BufferedInputStream in = new BufferedInputStream(check);
-        while (in.read() != -1) {
+        byte[] buffer = new byte[8192];
+        while (check.read(buffer) != -1) {
             // Read file in completely
         }
         long crc = check.getChecksum().getValue();
@@ -1922,7 +1935,8 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
         }
 
         /**
-         * Gets the CRC value for the this attachment.
+         * Gets the CRC value for the this attachment. The SHA-256 and MD5 hashes are calculated at the same time, so
+         * {@link HashUtils} won't have to read the file again to get the SHA-256 of the main attachment.
          *
          * @return The CRC of the attachment or -1 if it wasn't found.
          * @throws RepositoryException
@@ -1932,34 +1946,17 @@ public abstract class RepositoryResourceImpl implements RepositoryResourceWritab
             if (_file == null) {
                 return 0l;
             }
-            InputStream is = null;
             try {
-                is = AccessController.doPrivileged(
-                                new PrivilegedExceptionAction<FileInputStream>() {
+                return AccessController.doPrivileged(
+                                new PrivilegedExceptionAction<Long>() {
                                     @Override
-                                    public FileInputStream run() throws FileNotFoundException {
-                                        return new FileInputStream(_file);
+                                    public Long run() throws IOException {
+                                        return HashUtils.getFileHashes(_file).getCRC32();
                                     }
                                 });
-                return RepositoryResourceImpl.getCRC(is);
             } catch (PrivilegedActionException e) {
-                // Creating a FileInputStream can only return a FileNotFoundException or NPE
-                Throwable cause = e.getCause();
-                if (cause instanceof IOException) {
-                    throw new RepositoryException(cause);
-                } else {
-                    throw (RuntimeException) cause;
-                }
-            } catch (IOException cause) {
-                throw new RepositoryException(cause);
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException e) {
-                        // do nothing;
-                    }
-                }
+                // Hashing the file can only throw an IOException
+                throw new RepositoryException(e.getCause());
             }
         }
 
@@ -15,8 +15,9 @@
  *******************************************************************************/
 package com.ibm.ws.repository.strategies.writeable;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.ibm.ws.repository.common.enums.State;
 import com.ibm.ws.repository.exceptions.RepositoryBackendException;
@@ -32,16 +33,22 @@ import com.ibm.ws.repository.resources.internal.RepositoryResourceImpl;
  */
 public abstract class BaseStrategy implements UploadStrategy {
 
-    private static List<String> _vanityUrlLocks = new ArrayList<String>();
+    private static Map<String, String> _vanityUrlLocks = new HashMap<String, String>();
 
-    protected static synchronized String getVanityUrlLock(String vanityUrl) {
-        int index = _vanityUrlLocks.indexOf(vanityUrl);
-        if (index == -1) {
-            _vanityUrlLocks.add(vanityUrl);
-            return vanityUrl;
-        } else {
-            return _vanityUrlLocks.get(index);
+    /**
+     * Gets the object to lock on while working with resources that have the specified vanity URL. The same object is
+     * returned for equal vanity URLs, so that uploads of conflicting resources on different threads happen one at a time.
+     *
+     * @param vanityUrl the vanity URL
+     * @return the lock for the vanity URL
+     */
+    public static synchronized String getVanityUrlLock(String vanityUrl) {
+        String lock = _vanityUrlLocks.get(vanityUrl);
+        if (lock == null) {
+            _vanityUrlLocks.put(vanityUrl, vanityUrl);
+            lock = vanityUrl;
         }
+        return lock;
     }
 
     /*
@@ -112,17 +112,7 @@ public abstract class AbstractFileClient extends AbstractRepositoryClient implem
      */
     protected Asset getAsset(final String assetId, final boolean includeAttachments) throws FileNotFoundException, IOException, BadVersionException {
         Asset ass = readJson(assetId);
-        ass.set_id(assetId);
-
-        // We always get a wlp info when read back from Massive so create one if there isnt already one
-        WlpInformation wlpInfo = ass.getWlpInformation();
-        if (wlpInfo == null) {
-            wlpInfo = new WlpInformation();
-            ass.setWlpInformation(wlpInfo);
-        }
-        if (wlpInfo.getAppliesToFilterInfo() == null) {
-            wlpInfo.setAppliesToFilterInfo(Collections.<AppliesToFilterInfo> emptyList());
-        }
+        setIdAndDefaults(assetId, ass);
 
         if (includeAttachments) {
             if (exists(assetId)) {
@@ -173,6 +163,27 @@ public abstract class AbstractFileClient extends AbstractRepositoryClient implem
         return ass;
     }
 
+    /**
+     * Sets the id of an asset which has just been read from its JSON file, and fills in the fields which are always
+     * set on assets read back from Massive
+     *
+     * @param assetId The id of the asset
+     * @param ass The asset read from its JSON file
+     */
+    protected void setIdAndDefaults(final String assetId, final Asset ass) {
+        ass.set_id(assetId);
+
+        // We always get a wlp info when read back from Massive so create one if there isnt already one
+        WlpInformation wlpInfo = ass.getWlpInformation();
+        if (wlpInfo == null) {
+            wlpInfo = new WlpInformation();
+            ass.setWlpInformation(wlpInfo);
+        }
+        if (wlpInfo.getAppliesToFilterInfo() == null) {
+            wlpInfo.setAppliesToFilterInfo(Collections.<AppliesToFilterInfo> emptyList());
+        }
+    }
+
     /**
      * Reads all assets under the specified location (so it can read a sub set of the repo).
      *
@@ -15,7 +15,9 @@
  *******************************************************************************/
 package com.ibm.ws.repository.transport.client;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +30,7 @@ import java.util.Map.Entry;
 import com.ibm.ws.repository.common.enums.FilterableAttribute;
 import com.ibm.ws.repository.common.enums.ResourceType;
 import com.ibm.ws.repository.common.enums.Visibility;
+import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
 import com.ibm.ws.repository.transport.model.AppliesToFilterInfo;
 import com.ibm.ws.repository.transport.model.Asset;
@@ -134,6 +137,40 @@ public abstract class AbstractRepositoryClient implements RepositoryReadableClie
         return filtered;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * By default the whole of each asset is returned, as there is no cost in reading extra fields once the asset has been loaded.
+     */
+    @Override
+    public Collection<Asset> getFilteredAssets(final Map<FilterableAttribute, Collection<String>> filters, final Collection<String> fields) throws IOException, RequestFailureException {
+        return getFilteredAssets(filters);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * By default each asset is retrieved individually.
+     */
+    @Override
+    public Collection<Asset> getAssetsById(final Collection<String> assetIds) throws IOException, RequestFailureException {
+        List<Asset> assets = new ArrayList<Asset>();
+        for (String assetId : assetIds) {
+            try {
+                assets.add(getAsset(assetId));
+            } catch (FileNotFoundException e) {
+                // Asset doesn't exist, omit it
+            } catch (BadVersionException e) {
+                // Asset can't be read by this client, omit it
+            } catch (RequestFailureException e) {
+                if (e.getResponseCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                    throw e;
+                }
+            }
+        }
+        return assets;
+    }
+
     @Override
     public List<Asset> findAssets(final String searchString, final Collection<ResourceType> types) throws IOException, RequestFailureException {
         Collection<Asset> assets = getAssets(types, null, null, null);
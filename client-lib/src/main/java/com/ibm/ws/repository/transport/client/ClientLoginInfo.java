@@ -18,6 +18,16 @@ package com.ibm.ws.repository.transport.client;
 
 public class ClientLoginInfo {
 
+    /**
+     * The default time to wait for a connection to the repository to be established, in milliseconds
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000;
+
+    /**
+     * The default time to wait for data to be read from the repository, in milliseconds
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 300 * 1000;
+
     private String userId;
     private String password;
     private String apiKey;
@@ -33,6 +43,9 @@ public class ClientLoginInfo {
 
     private LoginInfoClientProxy proxy;
 
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+
     public ClientLoginInfo(String userId, String password, String apiKey, String repositoryUrl,
                      String softlayerUserId, String softlayerPassword, String attachmentBasicAuthUserId, String attachmentBasicAuthPassword, String userAgent) {
         this.userId = userId;
@@ -145,4 +158,37 @@ public class ClientLoginInfo {
     public void setUserAgent(String userAgent) {
         this.userAgent = userAgent;
     }
+
+    /**
+     * @return the time to wait for a connection to the repository to be established, in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets the time to wait for a connection to the repository to be established. Connections to the repository are kept alive and reused between requests, so this
+     * is only paid when a new connection has to be made.
+     *
+     * @param connectTimeout the timeout in milliseconds, 0 means wait forever
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return the time to wait for data to be read from the repository, in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets the time to wait for data to be read from the repository
+     *
+     * @param readTimeout the timeout in milliseconds, 0 means wait forever
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
 }
@@ -16,9 +16,11 @@
 
 package com.ibm.ws.repository.transport.client;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
@@ -34,11 +36,14 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TimeZone;
@@ -59,6 +64,8 @@ import javax.json.JsonValue.ValueType;
 import javax.json.JsonWriter;
 import javax.json.JsonWriterFactory;
 import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
 
 import com.ibm.ws.repository.common.utils.internal.RepositoryCommonUtils;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
@@ -231,7 +238,6 @@ public class DataModelSerializer {
 
         // object wasn't a collection.. better see what we can do with it.
         JsonObjectBuilder mainObjectBuilder = Json.createObjectBuilder();
-        SortedMap<String, Method> gettersFromO = new TreeMap<String, Method>();
         Class<? extends Object> classOfO = o.getClass();
 
         // See if we have any breaking changes that need to go into a separate object
@@ -246,41 +252,11 @@ public class DataModelSerializer {
             }
         }
 
-        for (Method methodFromO : classOfO.getMethods()) {
-            if (methodFromO.getName().startsWith("get") && methodFromO.getName().length() > 3 && methodFromO.getParameterTypes().length == 0) {
-                Method old;
-                if ((old = gettersFromO.put(methodFromO.getName(), methodFromO)) != null) {
-                    throw new IllegalStateException(
-                                    "Data Model Error: duplicate getter for "
-                                                    + methodFromO + "(" + old + ") on "
-                                                    + o.getClass().getName());
-                }
-            }
-        }
-
-        for (Map.Entry<String, Method> entry : gettersFromO.entrySet()) {
-
-            String getterName = entry.getKey();
-
-            //not all getters are really for us ;p
-            if ("getClass".equals(getterName)) {
-                continue;
-            }
-
-            // If the field is marked as JSONIgnore then ignore it
-            if (entry.getValue().isAnnotationPresent(JSONIgnore.class)) {
-                continue;
-            }
-
-            String nameOfField = new StringBuilder()
-                            .append(getterName.substring(3, 4).toLowerCase())
-                            .append(getterName.substring(4))
-                            .toString();
-
-            if (haveIncompatibleFields && fieldsToPutInIncompatibleObject.contains(nameOfField)) {
-                addFieldToJsonObject(entry.getValue(), o, nameOfField, incompatibleFieldsObjectBuilder);
+        for (GetterBinding getter : GETTERS.get(classOfO)) {
+            if (haveIncompatibleFields && fieldsToPutInIncompatibleObject.contains(getter.fieldName)) {
+                addFieldToJsonObject(getter.method, o, getter.fieldName, incompatibleFieldsObjectBuilder);
             } else {
-                addFieldToJsonObject(entry.getValue(), o, nameOfField, mainObjectBuilder);
+                addFieldToJsonObject(getter.method, o, getter.fieldName, mainObjectBuilder);
             }
         }
         JsonObject mainObject = mainObjectBuilder.build();
@@ -381,14 +357,106 @@ public class DataModelSerializer {
         }
     }
 
+    /**
+     * A getter on a data model class, along with the name of the JSON field that it provides.
+     */
+    private static class GetterBinding {
+        final String fieldName;
+        final Method method;
+
+        GetterBinding(String fieldName, Method method) {
+            this.fieldName = fieldName;
+            this.method = method;
+        }
+    }
+
+    /**
+     * A setter on a data model class, along with whether it should be skipped because it is marked
+     * with {@link JSONIgnore}.
+     */
+    private static class SetterBinding {
+        final Method method;
+        final boolean ignored;
+
+        SetterBinding(Method method) {
+            this.method = method;
+            this.ignored = method.isAnnotationPresent(JSONIgnore.class);
+        }
+    }
+
     /**
      * Simple class to associate a Class and a Method for passing around.
      */
     private static class ClassAndMethod {
         Class<?> cls;
         Method m;
+        boolean ignored;
     }
 
+    /**
+     * The getters to serialize for each data model class, sorted by name and excluding any marked
+     * with {@link JSONIgnore}. Looking these up with reflection every time an object was
+     * serialized was a significant part of the cost of serializing large lists of assets.
+     */
+    private static final ClassValue<List<GetterBinding>> GETTERS = new ClassValue<List<GetterBinding>>() {
+        @Override
+        protected List<GetterBinding> computeValue(Class<?> type) {
+            SortedMap<String, Method> gettersFromType = new TreeMap<String, Method>();
+            for (Method method : type.getMethods()) {
+                if (method.getName().startsWith("get") && method.getName().length() > 3 && method.getParameterTypes().length == 0) {
+                    Method old;
+                    if ((old = gettersFromType.put(method.getName(), method)) != null) {
+                        throw new IllegalStateException(
+                                        "Data Model Error: duplicate getter for "
+                                                        + method + "(" + old + ") on "
+                                                        + type.getName());
+                    }
+                }
+            }
+
+            List<GetterBinding> getters = new ArrayList<GetterBinding>();
+            for (Map.Entry<String, Method> entry : gettersFromType.entrySet()) {
+                String getterName = entry.getKey();
+
+                //not all getters are really for us ;p
+                if ("getClass".equals(getterName)) {
+                    continue;
+                }
+
+                // If the field is marked as JSONIgnore then ignore it
+                if (entry.getValue().isAnnotationPresent(JSONIgnore.class)) {
+                    continue;
+                }
+
+                String nameOfField = new StringBuilder()
+                                .append(getterName.substring(3, 4).toLowerCase())
+                                .append(getterName.substring(4))
+                                .toString();
+                getters.add(new GetterBinding(nameOfField, entry.getValue()));
+            }
+            return Collections.unmodifiableList(getters);
+        }
+    };
+
+    /**
+     * The single argument setters of each data model class, keyed by method name. Where a setter
+     * is overloaded the first one returned by {@link Class#getMethods()} is used, which is the one
+     * that the search over all of the methods used to find.
+     */
+    private static final ClassValue<Map<String, SetterBinding>> SETTERS = new ClassValue<Map<String, SetterBinding>>() {
+        @Override
+        protected Map<String, SetterBinding> computeValue(Class<?> type) {
+            Map<String, SetterBinding> setters = new HashMap<String, SetterBinding>();
+            for (Method method : type.getMethods()) {
+                //eligible setters must only accept a single argument.
+                if (method.getParameterTypes().length == 1 && method.getName().startsWith("set") && !setters.containsKey(method.getName())) {
+                    setters.put(method.getName(), new SetterBinding(method));
+                }
+            }
+            return Collections.unmodifiableMap(setters);
+        }
+    };
+
     /**
      * A little utility to convert from Type to Class. <br>
      * The method is only complete enough for the usage within this class, it won't handle [] arrays, or primitive types, etc.
@@ -442,23 +510,12 @@ public class DataModelSerializer {
      * @return instance of ClassAndMethod associating the class and method for the setter.
      */
     private static ClassAndMethod internalGetClassForFieldName(String fieldName, Class<?> classToLookForFieldIn, boolean isForArray) {
-        Method found = null;
-
-        //precalc the field name as a setter to use for each method test.
         String fieldNameAsASetter = new StringBuilder("set")
                         .append(fieldName.substring(0, 1).toUpperCase()).append(fieldName.substring(1))
                         .toString();
 
-        //hunt for any matching setter in the object
-        for (Method m : classToLookForFieldIn.getMethods()) {
-            String methodName = m.getName();
-
-            //eligible setters must only accept a single argument.
-            if (m.getParameterTypes().length == 1 && methodName.equals(fieldNameAsASetter)) {
-                found = m;
-                break;
-            }
-        }
+        SetterBinding setter = SETTERS.get(classToLookForFieldIn).get(fieldNameAsASetter);
+        Method found = setter == null ? null : setter.method;
         //at the mo, if we don't match a setter, we sysout a warning, this will likely need to become a toggle.
         if (found == null) {
             if (DataModelSerializer.IGNORE_UNKNOWN_FIELDS) {
@@ -469,6 +526,7 @@ public class DataModelSerializer {
         } else {
             ClassAndMethod cm = new ClassAndMethod();
             cm.m = found;
+            cm.ignored = setter.ignored;
             if (isForArray) {
                 //for an array we return the type of the collection, eg String for List<String> instead of List.
                 Type t = found.getGenericParameterTypes()[0];
@@ -481,10 +539,11 @@ public class DataModelSerializer {
         }
     }
 
-    private static void invokeSetter(Method setter, Object targetObject, Object value) {
+    private static void invokeSetter(ClassAndMethod setterType, Object targetObject, Object value) {
+        Method setter = setterType.m;
         try {
             // Only invoke the setter if it is not annotated with @ignore
-            if (!setter.isAnnotationPresent(JSONIgnore.class)) {
+            if (!setterType.ignored) {
                 setter.invoke(targetObject, value);
             }
         } catch (IllegalAccessException e) {
@@ -565,7 +624,7 @@ public class DataModelSerializer {
                         }
                     }
                     Object newChild = processJsonObjectBackIntoDataModelInstance((JsonObject) value, fieldType.cls, verify);
-                    invokeSetter(fieldType.m, targetObject, newChild);
+                    invokeSetter(fieldType, targetObject, newChild);
                 }
             } else if (value instanceof JsonArray) {
                 //slightly more tricky, we must determine the type for the collection to hold the data, instantiate a collection
@@ -587,7 +646,7 @@ public class DataModelSerializer {
                         // Process the nested array and tell it to throw any bad version exceptions as this is a nested array so if this is a get single by ID we may want to throw it
                         processJsonArray((JsonArray) value, newList, listElementType.cls, verify, ListVersionHandling.THROW_EXCEPTION);
 
-                        invokeSetter(fieldType.m, targetObject, newList);
+                        invokeSetter(fieldType, targetObject, newList);
                     } else {
                         throw new IllegalStateException("Data Model Error: unable to deserialize a JSON array into a field that is not of type List/Collection " + keyString);
                     }
@@ -657,26 +716,26 @@ public class DataModelSerializer {
                         if (o == null) {
                             throw new IllegalStateException("Data Model Error: unable to handle Enum value of " + value + " for enum " + fieldType.cls.getName());
                         }
-                        invokeSetter(fieldType.m, targetObject, o);
+                        invokeSetter(fieldType, targetObject, o);
                     } else if (fieldType.cls.isPrimitive()) {
                         //primitives need more careful handling..
                         //all primitives in the current data model are numbers..
                         String type = fieldType.cls.getName();
                         if ("int".equals(type)) {
                             JsonNumber n = (JsonNumber) value;
-                            invokeSetter(fieldType.m, targetObject, n.intValue());
+                            invokeSetter(fieldType, targetObject, n.intValue());
                         } else if ("byte".equals(type)) {
                             JsonNumber n = (JsonNumber) value;
-                            invokeSetter(fieldType.m, targetObject, (byte) n.intValue());
+                            invokeSetter(fieldType, targetObject, (byte) n.intValue());
                         } else if ("short".equals(type)) {
                             JsonNumber n = (JsonNumber) value;
-                            invokeSetter(fieldType.m, targetObject, (short) n.intValue());
+                            invokeSetter(fieldType, targetObject, (short) n.intValue());
                         } else if ("long".equals(type)) {
                             JsonNumber n = (JsonNumber) value;
-                            invokeSetter(fieldType.m, targetObject, n.longValue());
+                            invokeSetter(fieldType, targetObject, n.longValue());
                         } else if ("boolean".equals(type)) {
                             Boolean b = Boolean.valueOf(valueString);
-                            invokeSetter(fieldType.m, targetObject, b);
+                            invokeSetter(fieldType, targetObject, b);
                         } else {
                             throw new IllegalStateException("Data Model Error: unsupported primitive type used " + type + " in setter " + fieldType.m.getName());
                         }
@@ -686,22 +745,22 @@ public class DataModelSerializer {
                             Date d = getDateFormat().parse(valueString);
                             Calendar c = Calendar.getInstance();
                             c.setTime(d);
-                            invokeSetter(fieldType.m, targetObject, c);
+                            invokeSetter(fieldType, targetObject, c);
                         } catch (ParseException e) {
                             throw new IllegalStateException("JSON Error: date was not correctly formatted, got " + value, e);
                         }
                     } else if (fieldType.cls.equals(Date.class)) {
                         try {
                             Date d = getDateFormat().parse(valueString);
-                            invokeSetter(fieldType.m, targetObject, d);
+                            invokeSetter(fieldType, targetObject, d);
                         } catch (ParseException e) {
                             throw new IllegalStateException("JSON Error: date was not correctly formatted, got " + value, e);
                         }
                     } else if (fieldType.cls.equals(Locale.class)) {
                         Locale l = RepositoryCommonUtils.localeForString(valueString);
-                        invokeSetter(fieldType.m, targetObject, l);
+                        invokeSetter(fieldType, targetObject, l);
                     } else if (fieldType.cls.equals(String.class)) {
-                        invokeSetter(fieldType.m, targetObject, valueString);
+                        invokeSetter(fieldType, targetObject, valueString);
                     } else {
                         throw new IllegalArgumentException("Data Model Error: unable to invoke setter for data model element "
                                                            + fieldType.m.getName() + " on "
@@ -798,18 +857,233 @@ public class DataModelSerializer {
     public static <T> List<T> deserializeList(InputStream i, Class<? extends T> listElementType) throws IOException {
         List<T> newT = new ArrayList<T>();
 
+        try (JsonListIterator<T> iterator = deserializeListIterator(i, listElementType)) {
+            while (iterator.hasNext()) {
+                newT.add(iterator.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return newT;
+    }
+
+    /**
+     * Reads a JSON array of objects from a stream one element at a time, so that only one element of the array is held in memory as JSON at once, rather than
+     * the whole array. Elements of the array which are at a version this client can't read are skipped, in the same way as {@link #deserializeList(InputStream, Class)}.
+     * <p>
+     * The stream is closed when the end of the array is reached, or when the iterator is closed.
+     *
+     * @param i the stream to read from, which must contain a JSON array
+     * @param listElementType the type of the elements of the array
+     * @return an iterator over the elements of the array. If the JSON can't be read while iterating, an {@link UncheckedIOException} is thrown.
+     * @throws IOException if the stream does not start with a JSON array
+     */
+    public static <T> JsonListIterator<T> deserializeListIterator(InputStream i, Class<? extends T> listElementType) throws IOException {
+        JsonParser parser = Json.createParser(i);
         try {
-            JsonReader jsonReader = Json.createReader(i);
-            JsonArray parsedArray = jsonReader.readArray();
-            jsonReader.close();
-            // Process the array, if it comes across any elements that are at an invalid version tell it to ignore them rather than throw an exception
-            processJsonArray(parsedArray, newT, listElementType, Verification.VERIFY, ListVersionHandling.IGNORE_ELEMENT);
-        } catch (BadVersionException e) {
-            // We've told the Array handle to ignore these exception so this should never happen but it is in the method signature for nested array processing
+            if (!parser.hasNext() || parser.next() != Event.START_ARRAY) {
+                throw new IOException("Failed to deserialize list, the JSON is not an array");
+            }
         } catch (JsonException e) {
+            parser.close();
             throw new IOException("Failed to deserialize list", e);
+        } catch (IOException e) {
+            parser.close();
+            throw e;
         }
-        return newT;
+        return new JsonListIterator<T>(parser, listElementType);
+    }
+
+    /**
+     * Iterates over the elements of a JSON array, converting each element into a data model object as it is read from the stream.
+     */
+    public static class JsonListIterator<T> implements Iterator<T>, Closeable {
+
+        private final JsonParser parser;
+        private final Class<? extends T> listElementType;
+        private boolean haveNext = false;
+        private boolean finished = false;
+        private int elementsRead = 0;
+        private T next;
+
+        private JsonListIterator(JsonParser parser, Class<? extends T> listElementType) {
+            this.parser = parser;
+            this.listElementType = listElementType;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            while (!haveNext && !finished) {
+                try {
+                    readElement();
+                } catch (JsonException e) {
+                    close();
+                    throw new UncheckedIOException(new IOException("Failed to deserialize list", e));
+                }
+            }
+            return haveNext;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            next = null;
+            haveNext = false;
+            return result;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return the number of elements of the array read so far, including any which were skipped because they are at a version this client can't read
+         */
+        public int getElementsRead() {
+            return elementsRead;
+        }
+
+        /**
+         * Closes the underlying stream. This only needs to be called if the caller stops iterating before reaching the end of the array.
+         */
+        @Override
+        public void close() {
+            finished = true;
+            parser.close();
+        }
+
+        /**
+         * Reads the next element of the array. This either sets the next element, skips an element at a bad version, or finds the end of the array.
+         */
+        private void readElement() {
+            if (!parser.hasNext()) {
+                throw new JsonException("Unexpected end of JSON array");
+            }
+            Event event = parser.next();
+            switch (event) {
+                case END_ARRAY:
+                    close();
+                    break;
+                case START_OBJECT:
+                    JsonObject element = readObject(parser);
+                    elementsRead++;
+                    try {
+                        next = processJsonObjectBackIntoDataModelInstance(element, listElementType, Verification.VERIFY);
+                        haveNext = true;
+                    } catch (BadVersionException e) {
+                        // Ignore elements we don't understand, in the same way as a top level list
+                    } catch (IOException e) {
+                        close();
+                        throw new UncheckedIOException(e);
+                    }
+                    break;
+                case VALUE_STRING:
+                    next = listElementType.cast(parser.getString());
+                    elementsRead++;
+                    haveNext = true;
+                    break;
+                case VALUE_NULL:
+                    next = null;
+                    elementsRead++;
+                    haveNext = true;
+                    break;
+                case VALUE_NUMBER:
+                    close();
+                    // message reads "Data Model Error: Simple parser does not understand numbers in arrays.";
+                    throw new IllegalStateException(DATA_MODEL_ERROR_NUMBER);
+                default:
+                    close();
+                    // array had another array as an element or a JSON true/false.
+                    throw new IllegalStateException(DATA_MODEL_ERROR_ARRAY);
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON object from a parser which has just returned {@link Event#START_OBJECT}, leaving the parser after the end of the object.
+     */
+    private static JsonObject readObject(JsonParser parser) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        String key = null;
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            switch (event) {
+                case KEY_NAME:
+                    key = parser.getString();
+                    break;
+                case START_OBJECT:
+                    builder.add(key, readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(key, readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(key, parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(key, parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(key, true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(key, false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull(key);
+                    break;
+                case END_OBJECT:
+                    return builder.build();
+                default:
+                    throw new JsonException("Unexpected JSON event " + event);
+            }
+        }
+        throw new JsonException("Unexpected end of JSON object");
+    }
+
+    /**
+     * Reads a JSON array from a parser which has just returned {@link Event#START_ARRAY}, leaving the parser after the end of the array.
+     */
+    private static JsonArray readArray(JsonParser parser) {
+        JsonArrayBuilder builder = Json.createArrayBuilder();
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            switch (event) {
+                case START_OBJECT:
+                    builder.add(readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    builder.add(parser.getBigDecimal());
+                    break;
+                case VALUE_TRUE:
+                    builder.add(true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull();
+                    break;
+                case END_ARRAY:
+                    return builder.build();
+                default:
+                    throw new JsonException("Unexpected JSON event " + event);
+            }
+        }
+        throw new JsonException("Unexpected end of JSON array");
     }
 
     /**
@@ -20,20 +20,36 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
 import org.apache.aries.util.manifest.ManifestProcessor;
 
+import com.ibm.ws.repository.transport.client.DataModelSerializer.Verification;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
 import com.ibm.ws.repository.transport.exceptions.RequestFailureException;
 import com.ibm.ws.repository.transport.model.Asset;
@@ -44,10 +60,48 @@ import com.ibm.ws.repository.transport.model.Attachment;
  */
 public class DirectoryClient extends AbstractFileClient {
 
+    /**
+     * When reading the JSON files in the repository, each thread reads this many files rather than splitting them up any further
+     */
+    private static final int FILES_PER_TASK = 16;
+
+    /**
+     * The most threads to read the JSON files with. Reading them is mostly waiting for the file system, particularly
+     * when the repository is on a network drive, so this can be more than the number of processors.
+     */
+    private static final int MAX_READ_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The pool the JSON files are read on, which is shared by every directory client and created the first time a repository is big enough to need it.
+     * Creating a pool needs the modifyThread permission, which the code calling the client may not have, so it is created in a doPrivileged block. Its
+     * threads are daemon threads which exit after they've been idle for a while, so it is never shut down.
+     */
+    private static class ReadPool {
+        static final ForkJoinPool POOL = AccessController.doPrivileged(new PrivilegedAction<ForkJoinPool>() {
+            @Override
+            public ForkJoinPool run() {
+                return new ForkJoinPool(MAX_READ_THREADS);
+            }
+        });
+    }
+
     private final File _root;
+    private final File _indexFile;
 
     public DirectoryClient(File root) {
+        this(root, null);
+    }
+
+    /**
+     * Create a directory client which keeps an index of the JSON files in the repository, so that listing the assets
+     * only has to read the files which have changed since the last listing.
+     *
+     * @param root The root directory of the repository
+     * @param indexFile The file to keep the index in, which is created if it doesn't exist, or <code>null</code> to not keep an index
+     */
+    public DirectoryClient(File root, File indexFile) {
         _root = root;
+        _indexFile = indexFile;
     }
 
     /*
@@ -118,33 +172,141 @@ public class DirectoryClient extends AbstractFileClient {
     }
 
     @Override
-    protected Collection<String> getChildren(final String relative) {
-        String[] fullPath = DirectoryUtils.list(createFromRelative(relative));
+    protected Collection<String> getChildren(final String relative) throws IOException {
+        List<String> children = new ArrayList<String>();
+        for (ScannedFile file : scan(relative)) {
+            children.add(file.path);
+        }
+        return children;
+    }
+
+    /**
+     * Reads all assets under the specified location. The directories are walked once, collecting the size and
+     * modification time of each file as we go, and then the JSON files are read on several threads. If there is an
+     * index then only the JSON files which aren't in it or have changed since it was written are read.
+     */
+    @Override
+    protected List<Asset> readAssetsRelative(final String relative) throws IOException, RequestFailureException {
+        List<ScannedFile> jsonFiles = new ArrayList<ScannedFile>();
+        for (ScannedFile file : scan(relative)) {
+            if (!file.isDirectory && isJson(file.path)) {
+                jsonFiles.add(file);
+            }
+        }
+
+        DirectoryIndex index = _indexFile == null ? null : DirectoryIndex.load(_indexFile);
 
-        // Return an empty list if there are no children
-        if (fullPath == null) {
-            return Collections.emptyList();
+        Asset[] assets = new Asset[jsonFiles.size()];
+        AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        ReadAssetsTask task = new ReadAssetsTask(jsonFiles, assets, index, failure, 0, jsonFiles.size());
+        if (jsonFiles.size() <= FILES_PER_TASK) {
+            task.compute();
+        } else {
+            ReadPool.POOL.invoke(task);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
         }
 
-        // If we are in a sub directory then prefix relative path to this point. Don't do this if we
-        // are at the root directory (relative is the empty string)
-        if (relative.length() > 0) {
-            for (int i = 0; i < fullPath.length; i++) {
-                fullPath[i] = relative + File.separator + fullPath[i];
+        if (index != null) {
+            if (relative.isEmpty()) {
+                // We've seen the whole repository so we can forget anything which has been deleted
+                Set<String> paths = new HashSet<String>();
+                for (ScannedFile file : jsonFiles) {
+                    paths.add(file.path);
+                }
+                index.retainAll(paths);
             }
+            index.save();
         }
-        ArrayList<String> children = new ArrayList<String>();
 
-        children.addAll(Arrays.asList(fullPath));
+        List<Asset> results = new ArrayList<Asset>();
+        for (Asset ass : assets) {
+            // Assets with unknown versions are left out
+            if (ass != null) {
+                results.add(ass);
+            }
+        }
+        return results;
+    }
 
-        for (String s : fullPath) {
-            if (hasChildren(s)) {
-                children.addAll(getChildren(s));
+    /**
+     * Walks the directory tree under the specified location
+     *
+     * @param relative The location to start from
+     * @return All of the files and directories under the location, not including the location itself
+     * @throws IOException
+     */
+    private List<ScannedFile> scan(final String relative) throws IOException {
+        final Path rootPath = _root.toPath();
+        final File start = createFromRelative(relative);
+        final Path startPath = start.toPath();
+        final List<ScannedFile> files = new ArrayList<ScannedFile>();
+
+        DirectoryUtils.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(startPath)) {
+                    files.add(new ScannedFile(rootPath.relativize(dir).toString(), attrs));
+                }
+                return FileVisitResult.CONTINUE;
             }
 
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!file.equals(startPath)) {
+                    files.add(new ScannedFile(rootPath.relativize(file).toString(), attrs));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // Leave out anything we can't read, as we always have done
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return files;
+    }
+
+    /**
+     * Reads an asset from its JSON file, or from the index if the file hasn't changed since it was indexed
+     *
+     * @param file The JSON file
+     * @param index The index, may be <code>null</code>
+     * @return The asset, or <code>null</code> if it has an unknown version
+     * @throws IOException
+     */
+    private Asset readAsset(ScannedFile file, DirectoryIndex index) throws IOException {
+        JsonObject json = index == null ? null : index.get(file.path, file.size, file.lastModified);
+        if (json == null) {
+            json = readJsonObject(file.path);
+            if (index != null) {
+                index.put(file.path, file.size, file.lastModified, json);
+            }
         }
 
-        return children;
+        try {
+            Asset ass = DataModelSerializer.deserializeObject(json, Asset.class, Verification.VERIFY);
+            setIdAndDefaults(getAssetIdFromJson(file.path), ass);
+            return ass;
+        } catch (BadVersionException e) {
+            // Ignore assets with unknown versions
+            return null;
+        }
+    }
+
+    private JsonObject readJsonObject(final String relative) throws IOException {
+        FileInputStream fis = DirectoryUtils.createFileInputStream(createFromRelative(relative));
+        JsonReader reader = Json.createReader(fis);
+        try {
+            return reader.readObject();
+        } catch (JsonException e) {
+            throw new IOException("Failed to read the JSON in " + relative, e);
+        } finally {
+            reader.close();
+        }
     }
 
     protected File createFromRelative(final String relative) {
@@ -298,4 +460,65 @@ public class DirectoryClient extends AbstractFileClient {
 
         return manifest;
     }
+
+    /**
+     * A file or directory found when walking the repository
+     */
+    private static class ScannedFile {
+        private final String path;
+        private final boolean isDirectory;
+        private final long size;
+        private final long lastModified;
+
+        ScannedFile(String path, BasicFileAttributes attrs) {
+            this.path = path;
+            this.isDirectory = attrs.isDirectory();
+            this.size = attrs.size();
+            this.lastModified = attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * Reads a range of the JSON files into the matching elements of an array of assets, splitting the range between
+     * threads if it is large. The first IOException stops the reading and is kept to be thrown once all the threads
+     * have finished.
+     */
+    private class ReadAssetsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ScannedFile> files;
+        private final Asset[] results;
+        private final DirectoryIndex index;
+        private final AtomicReference<IOException> failure;
+        private final int start;
+        private final int end;
+
+        ReadAssetsTask(List<ScannedFile> files, Asset[] results, DirectoryIndex index, AtomicReference<IOException> failure, int start, int end) {
+            this.files = files;
+            this.results = results;
+            this.index = index;
+            this.failure = failure;
+            this.start = start;
+            this.end = end;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            if (end - start <= FILES_PER_TASK) {
+                for (int i = start; i < end && failure.get() == null; i++) {
+                    try {
+                        results[i] = readAsset(files.get(i), index);
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ReadAssetsTask(files, results, index, failure, start, middle),
+                          new ReadAssetsTask(files, results, index, failure, middle, end));
+            }
+        }
+    }
 }
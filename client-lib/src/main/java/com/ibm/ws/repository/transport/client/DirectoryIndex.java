@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+/**
+ * An index of the JSON files in a directory repository, stored in a single file so that a listing can reuse the JSON it
+ * read last time rather than reading every file again.
+ * <p>
+ * Each entry is keyed by the path of the JSON file relative to the root of the repository, and records the size and
+ * modification time of the file when it was read. An entry is only used if the file still has the same size and
+ * modification time, so reading the assets from an unchanged repository only needs the file attributes, which are
+ * gathered when walking the directory anyway.
+ * <p>
+ * The index is only an optimisation. If it can't be read it is rebuilt, and if it can't be written the listing still
+ * succeeds.
+ */
+class DirectoryIndex {
+
+    private static final String VERSION = "version";
+    private static final String ENTRIES = "entries";
+    private static final String SIZE = "size";
+    private static final String MODIFIED = "modified";
+    private static final String ASSET = "asset";
+
+    /**
+     * Increment this if the format of the index changes, so that old indexes are rebuilt rather than misread
+     */
+    private static final int CURRENT_VERSION = 1;
+
+    private final File file;
+    private final ConcurrentMap<String, JsonObject> entries;
+    private volatile boolean changed = false;
+
+    private DirectoryIndex(File file, ConcurrentMap<String, JsonObject> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads an index file
+     *
+     * @param file the index file
+     * @return the index, which is empty if the file doesn't exist or can't be read
+     */
+    static DirectoryIndex load(File file) {
+        ConcurrentMap<String, JsonObject> entries = new ConcurrentHashMap<String, JsonObject>();
+        if (DirectoryUtils.exists(file)) {
+            try {
+                InputStream is = DirectoryUtils.createFileInputStream(file);
+                JsonReader reader = Json.createReader(is);
+                try {
+                    JsonObject index = reader.readObject();
+                    if (index.getInt(VERSION, 0) == CURRENT_VERSION) {
+                        for (Map.Entry<String, JsonValue> entry : index.getJsonObject(ENTRIES).entrySet()) {
+                            entries.put(entry.getKey(), (JsonObject) entry.getValue());
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                entries.clear();
+            } catch (RuntimeException e) {
+                // Not valid JSON or not laid out like an index, so start again
+                entries.clear();
+            }
+        }
+        return new DirectoryIndex(file, entries);
+    }
+
+    /**
+     * Gets the JSON which was read from a file the last time it was read
+     *
+     * @param path the path of the file relative to the root of the repository
+     * @param size the current size of the file
+     * @param modified the current modification time of the file
+     * @return the JSON from the file, or <code>null</code> if the file is not in the index or has changed since it was read
+     */
+    JsonObject get(String path, long size, long modified) {
+        JsonObject entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            if (entry.getJsonNumber(SIZE).longValue() != size || entry.getJsonNumber(MODIFIED).longValue() != modified) {
+                return null;
+            }
+            return entry.getJsonObject(ASSET);
+        } catch (RuntimeException e) {
+            // Not a valid entry, it'll be replaced when the file is read again
+            return null;
+        }
+    }
+
+    /**
+     * Records the JSON read from a file
+     *
+     * @param path the path of the file relative to the root of the repository
+     * @param size the size of the file when it was read
+     * @param modified the modification time of the file when it was read
+     * @param asset the JSON read from the file
+     */
+    void put(String path, long size, long modified, JsonObject asset) {
+        JsonObject entry = Json.createObjectBuilder()
+                        .add(SIZE, size)
+                        .add(MODIFIED, modified)
+                        .add(ASSET, asset)
+                        .build();
+        entries.put(path, entry);
+        changed = true;
+    }
+
+    /**
+     * Removes the entries for any files which aren't in the collection, e.g. because they have been deleted
+     *
+     * @param paths the paths of all of the files which should be kept
+     */
+    void retainAll(Collection<String> paths) {
+        if (entries.keySet().retainAll(paths)) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Writes the index back to its file if it has changed since it was loaded. The index is written to a temporary file
+     * first and then moved over the old index, so that another process reading the index never sees it half written.
+     */
+    void save() {
+        if (!changed) {
+            return;
+        }
+
+        JsonObjectBuilder entriesBuilder = Json.createObjectBuilder();
+        for (Map.Entry<String, JsonObject> entry : entries.entrySet()) {
+            entriesBuilder.add(entry.getKey(), entry.getValue());
+        }
+        JsonObject index = Json.createObjectBuilder()
+                        .add(VERSION, CURRENT_VERSION)
+                        .add(ENTRIES, entriesBuilder)
+                        .build();
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temp = null;
+        try {
+            DirectoryUtils.mkDirs(directory);
+            temp = DirectoryUtils.createTempFile(file.getName(), ".tmp", directory);
+            FileOutputStream fos = DirectoryUtils.createFileOutputStream(temp);
+            JsonWriter writer = Json.createWriter(fos);
+            try {
+                writer.writeObject(index);
+            } finally {
+                writer.close();
+            }
+            DirectoryUtils.move(temp, file);
+            temp = null;
+            changed = false;
+        } catch (IOException e) {
+            // The index is only an optimisation, so carry on without it and try to write it again next time
+        } catch (JsonException e) {
+            // As above
+        } finally {
+            if (temp != null) {
+                DirectoryUtils.delete(temp);
+            }
+        }
+    }
+}
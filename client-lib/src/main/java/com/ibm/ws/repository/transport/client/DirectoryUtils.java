@@ -20,10 +20,17 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.EnumSet;
 import java.util.zip.ZipFile;
 
 /**
@@ -93,6 +100,15 @@ public class DirectoryUtils {
         });
     }
 
+    public static long lastModified(final File file) {
+        return AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return file.lastModified();
+            }
+        });
+    }
+
     public static String[] list(final File file) {
         return AccessController.doPrivileged(new PrivilegedAction<String[]>() {
             @Override
@@ -141,4 +157,61 @@ public class DirectoryUtils {
             throw (IOException) e.getCause();
         }
     }
+
+    /**
+     * Walks a file tree, following symbolic links in the same way as {@link File#isDirectory()} does
+     *
+     * @param start the directory to start from
+     * @param visitor the visitor to call for each file
+     * @throws IOException if the visitor throws an IOException
+     */
+    public static void walkFileTree(final File start, final FileVisitor<? super Path> visitor) throws IOException {
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Path>() {
+                @Override
+                public Path run() throws IOException {
+                    return Files.walkFileTree(start.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    public static File createTempFile(final String prefix, final String suffix, final File directory) throws IOException {
+        try {
+            return AccessController.doPrivileged(new PrivilegedExceptionAction<File>() {
+                @Override
+                public File run() throws IOException {
+                    return File.createTempFile(prefix, suffix, directory);
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * Moves a file, replacing the target if it exists. The move is atomic if the file system supports it.
+     *
+     * @param source the file to move
+     * @param target where to move it to
+     * @throws IOException if the file can't be moved
+     */
+    public static void move(final File source, final File target) throws IOException {
+        try {
+            AccessController.doPrivileged(new PrivilegedExceptionAction<Path>() {
+                @Override
+                public Path run() throws IOException {
+                    try {
+                        return Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        return Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            });
+        } catch (PrivilegedActionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
 }
@@ -70,6 +70,21 @@ public class JSONAssetConverter {
         return DataModelSerializer.deserializeList(inputStream, Asset.class);
     }
 
+    /**
+     * Read a list of assets from an input stream one asset at a time, so that the whole
+     * list doesn't have to be parsed before the first asset is returned
+     * 
+     * @param inputStream
+     *            The stream to read from, which is closed when the end of the list is reached
+     *            or the iterator is closed
+     * @return An iterator over the assets
+     * @throws IOException
+     */
+    public static DataModelSerializer.JsonListIterator<Asset> readValuesIterator(InputStream inputStream)
+            throws IOException {
+        return DataModelSerializer.deserializeListIterator(inputStream, Asset.class);
+    }
+
     
     /**
      * Read a single assets from an input stream
@@ -40,6 +40,18 @@ public interface RepositoryReadableClient extends RepositoryClient {
      */
     public Asset getAsset(final String assetId) throws IOException, BadVersionException, RequestFailureException;
 
+    /**
+     * Gets several assets at once. Repositories which support it will return all of the assets from a single request.
+     * <p>
+     * Assets which do not exist, or which can't be read by this version of the client, are omitted from the result rather than causing an exception.
+     *
+     * @param assetIds The ids of the assets to get
+     * @return The assets represented by the supplied ids, in the same order as the ids
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public Collection<Asset> getAssetsById(final Collection<String> assetIds) throws IOException, RequestFailureException;
+
     /**
      * @return Gets a list of all the assets in this repository.
      */
@@ -126,6 +138,21 @@ public interface RepositoryReadableClient extends RepositoryClient {
     public Collection<Asset> getFilteredAssets(final Map<FilterableAttribute, Collection<String>> filters)
                     throws IOException, RequestFailureException;
 
+    /**
+     * This will obtain assets using the supplied filters in the same way as {@link #getFilteredAssets(Map)}, but the repository only needs to return the supplied
+     * <code>fields</code> of each asset. Repositories which can't restrict the fields they return may return complete assets, so callers must not rely on other fields
+     * being absent.
+     *
+     * @param filters A map of attributes to filter on mapped to the values to use
+     * @param fields The names of the JSON fields which the caller needs from each asset, or <code>null</code> to get the whole asset. The <code>_id</code> field is
+     *            always returned.
+     * @return The filtered assets
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public Collection<Asset> getFilteredAssets(final Map<FilterableAttribute, Collection<String>> filters, final Collection<String> fields)
+                    throws IOException, RequestFailureException;
+
     /**
      * Checks the repository availability
      *
@@ -16,6 +16,8 @@
 package com.ibm.ws.repository.transport.client;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 import com.ibm.ws.repository.common.enums.StateAction;
 import com.ibm.ws.repository.transport.exceptions.BadVersionException;
@@ -57,6 +59,22 @@ public interface RepositoryWriteableClient extends RepositoryClient {
      */
     public Asset addAsset(final Asset asset) throws IOException, BadVersionException, RequestFailureException, SecurityException, ClientFailureException;
 
+    /**
+     * Adds several assets into Massive. Repositories which support it will add all of the assets with a single request. As with {@link #addAsset(Asset)}, it is
+     * important to switch to the returned objects after calling this method.
+     * <p>
+     * This only creates assets, it doesn't update them, and a batch either succeeds or fails as a whole rather than giving a result for each asset. It suits
+     * callers which create many assets without attachments, such as copying asset metadata between repositories. Uploading ESAs doesn't use it: each ESA is
+     * matched against the existing resources on its own, and needs its asset id before its attachments can be added, so the cost of an upload is in the
+     * attachments and state changes rather than in creating the asset.
+     * 
+     * @param assets
+     *            The assets to add, they will not be modified by this method
+     * @return The assets with information added by Massive, in the same order as <code>assets</code>
+     * @throws IOException
+     */
+    public List<Asset> addAssets(final Collection<Asset> assets) throws IOException, BadVersionException, RequestFailureException, SecurityException, ClientFailureException;
+
     /**
      * Updates an asset in Massive. The {@link Asset#get_id()} must return the
      * correct ID for this asset. Note that Massive will set some fields (such
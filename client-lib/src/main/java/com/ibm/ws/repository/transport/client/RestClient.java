@@ -20,10 +20,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
@@ -36,11 +38,13 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import javax.json.Json;
 import javax.json.JsonException;
@@ -77,7 +81,41 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     private static final String ENCODED_BAR = "%7C";
 
-    private static final int REPOSITORY_SOCKET_READ_TIMEOUT = 300 * 1000;
+    /**
+     * The most unread data that will be read and thrown away when a response is closed so that its connection can be reused. If more than this is left, the
+     * connection is dropped instead.
+     */
+    private static final int MAX_DRAINED_BYTES = 64 * 1024;
+
+    /**
+     * The largest response body kept so that a GET request can be made conditional. Larger bodies are streamed to the caller without being read into memory.
+     */
+    private static final int MAX_VALIDATED_RESPONSE_BODY_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The number of times a download of attachment content will be resumed after the connection fails
+     */
+    private static final int MAX_ATTACHMENT_RESUMES = 3;
+
+    /**
+     * The largest number of assets which the server will accept in one batch request
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * The header a server sends in response to deleting an asset to say that it has deleted the asset's attachments as well
+     */
+    private static final String DELETES_ATTACHMENTS_HEADER = "deletesAttachments";
+
+    /**
+     * Set once the server has said that deleting an asset also deletes its attachments, so they no longer need deleting one at a time
+     */
+    private volatile boolean serverDeletesAttachments = false;
+
+    /**
+     * The response bodies kept so that GET requests can be made conditional, which may be shared with other clients
+     */
+    private final ValidatedResponseCache validatedResponses;
 
     /**
      * Create a new instance of the client using the supplied userId and
@@ -89,8 +127,22 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      *            The password to use in Massive
      */
     public RestClient(ClientLoginInfo loginInfo) {
+        this(loginInfo, new ValidatedResponseCache());
+    }
+
+    /**
+     * Create a new instance of the client which keeps the responses to GET requests in a cache that
+     * outlives it, so that requests made by later clients can be made conditional
+     *
+     * @param loginInfo
+     *            The details used to connect to the repository
+     * @param validatedResponses
+     *            The cache, which may be shared with clients for other repositories or users
+     */
+    public RestClient(ClientLoginInfo loginInfo, ValidatedResponseCache validatedResponses) {
         super();
         this.loginInfo = loginInfo;
+        this.validatedResponses = validatedResponses;
     }
 
     /**
@@ -102,10 +154,43 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     @Override
     public List<Asset> getAllAssets() throws IOException, RequestFailureException {
-        HttpURLConnection connection = createHttpURLConnectionToMassive("/assets");
-        connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        return JSONAssetConverter.readValues(connection.getInputStream());
+        return getAllAssets(null);
+    }
+
+    /**
+     * This method will issue a GET to all of the assets in massive, asking the server to only
+     * return the supplied fields of each asset.
+     *
+     * @param fields The names of the JSON fields to return for each asset, or <code>null</code> to return
+     *            the whole of each asset
+     * @return A list of all of the assets in Massive
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public List<Asset> getAllAssets(Collection<String> fields) throws IOException, RequestFailureException {
+        return JSONAssetConverter.readValues(doConditionalGet(getAllAssetsPath(fields)));
+    }
+
+    /**
+     * This method will issue a GET to all of the assets in massive in the same way as {@link #getAllAssets(Collection)}, but returns the assets one at a time as
+     * they are read from the response rather than reading the whole response first. The iterator should be closed if the caller doesn't read all of the assets.
+     *
+     * @param fields The names of the JSON fields to return for each asset, or <code>null</code> to return
+     *            the whole of each asset
+     * @return An iterator over all of the assets in Massive
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public DataModelSerializer.JsonListIterator<Asset> getAllAssetsIterator(Collection<String> fields) throws IOException, RequestFailureException {
+        return JSONAssetConverter.readValuesIterator(doStreamingGet(getAllAssetsPath(fields)));
+    }
+
+    private String getAllAssetsPath(Collection<String> fields) {
+        StringBuilder url = new StringBuilder("/assets");
+        if (fields != null && !fields.isEmpty()) {
+            url.append("?").append(createFieldsParameter(fields));
+        }
+        return url.toString();
     }
 
     /**
@@ -176,11 +261,65 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         connection.setDoOutput(true);
         JSONAssetConverter.writeValue(connection.getOutputStream(), asset);
         testResponseCode(connection);
-        Asset returnedAsset = JSONAssetConverter.readValue(connection.getInputStream());
+        Asset returnedAsset = JSONAssetConverter.readValue(getInputStream(connection));
         returnedAsset = getAsset(returnedAsset.get_id());
         return returnedAsset;
     }
 
+    /**
+     * Adds several assets to Massive. Assets are sent to the server in batches, so adding many assets takes few requests. Servers which don't support adding
+     * assets in a batch have each asset added in turn.
+     *
+     * @param assets
+     *            The assets to add, they will not be modified by this method
+     * @return The assets with information added by Massive, in the same order as <code>assets</code>
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    @Override
+    public List<Asset> addAssets(final Collection<Asset> assets) throws IOException, BadVersionException, RequestFailureException {
+        List<Asset> toAdd = new ArrayList<Asset>(assets);
+        List<Asset> added = new ArrayList<Asset>();
+        for (int start = 0; start < toAdd.size(); start += MAX_BATCH_SIZE) {
+            List<Asset> batch = toAdd.subList(start, Math.min(start + MAX_BATCH_SIZE, toAdd.size()));
+            HttpURLConnection connection = createBatchConnection("/assets/batchCreate", batch);
+            if (connection == null) {
+                // An older server which doesn't have the batch endpoint, add the rest one at a time
+                for (Asset asset : toAdd.subList(start, toAdd.size())) {
+                    added.add(addAsset(asset));
+                }
+                return added;
+            }
+            added.addAll(JSONAssetConverter.readValues(getInputStream(connection)));
+        }
+        return added;
+    }
+
+    /**
+     * POST a batch of objects to the server as a JSON array.
+     *
+     * @param path the path within massive to POST to
+     * @param batch the objects to send
+     * @return the connection, with a successful response ready to be read, or <code>null</code> if the server doesn't support the batch request
+     * @throws IOException
+     * @throws RequestFailureException if the server rejected the request
+     */
+    private HttpURLConnection createBatchConnection(String path, List<?> batch) throws IOException, RequestFailureException {
+        HttpURLConnection connection = createHttpURLConnectionToMassive(path);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setDoOutput(true);
+        JSONAssetConverter.writeValue(connection.getOutputStream(), batch);
+
+        int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_BAD_METHOD) {
+            clearErrorStream(connection);
+            return null;
+        }
+        testResponseCode(connection);
+        return connection;
+    }
+
     /**
      * Updates an asset in Massive. The {@link Asset#get_id()} must return the
      * correct ID for this asset. Note that Massive will set some fields (such
@@ -216,21 +355,23 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
     }
 
     /**
-     * Deletes an asset with the given ID. Note, this will not delete any
+     * Deletes an asset with the given ID. Some servers also delete any
      * attachments associated with the asset.
      *
      * @see #deleteAssetAndAttachments(String)
      * @param id
      *            The ID to delete
-     * @return <code>true</code> if the delete is successful
+     * @return <code>true</code> if the server said that it also deleted the
+     *         asset's attachments
      * @throws IOException
      * @throws RequestFailureException
      */
-    private void deleteAsset(String id) throws IOException, RequestFailureException {
+    private boolean deleteAsset(String id) throws IOException, RequestFailureException {
         HttpURLConnection connection = createHttpURLConnectionToMassive("/assets/"
                                                                         + id);
         connection.setRequestMethod("DELETE");
         testResponseCode(connection, true);
+        return Boolean.parseBoolean(connection.getHeaderField(DELETES_ATTACHMENTS_HEADER));
     }
 
     /**
@@ -261,10 +402,7 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         }
 
         // Call massive to run the query
-        HttpURLConnection connection = createHttpURLConnectionToMassive(url.toString());
-        connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        InputStream is = connection.getInputStream();
+        InputStream is = doConditionalGet(url.toString());
 
         // take the returned input stream and convert it to assets
         List<Asset> assets = JSONAssetConverter.readValues(is);
@@ -352,7 +490,7 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         testResponseCode(connection);
-        InputStream is = connection.getInputStream();
+        InputStream is = getInputStream(connection);
         int len = 0;
         while ((len = is.read()) != -1) {
             baos.write((byte) len);
@@ -470,6 +608,37 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     @Override
     public InputStream getAttachment(final Asset asset, final Attachment attachment) throws IOException, BadVersionException, RequestFailureException {
+        return getAttachment(asset, attachment, 0);
+    }
+
+    /**
+     * Returns the contents of an attachment, starting from the given offset.
+     * <p>
+     * If the connection fails while the content is being read, the returned stream reconnects and
+     * asks for the rest of the content with a Range header, so that a large download does not have
+     * to start again from the beginning. If the server does not support ranges, the content before
+     * the current position is read and discarded.
+     *
+     * @param asset
+     *            The asset owning the attachment
+     * @param attachment
+     *            The attachment
+     * @param offset
+     *            The number of bytes at the start of the content to skip
+     * @return The input stream for the attachment
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public InputStream getAttachment(final Asset asset, final Attachment attachment, long offset) throws IOException, BadVersionException, RequestFailureException {
+        InputStream content = openAttachment(asset, attachment, offset);
+        return new ResumingAttachmentInputStream(asset, attachment, content, offset);
+    }
+
+    /**
+     * Opens a connection to the content of an attachment and returns its input stream, positioned
+     * at the given offset
+     */
+    private InputStream openAttachment(final Asset asset, final Attachment attachment, long offset) throws IOException, RequestFailureException {
 
         // accept license for type CONTENT
         HttpURLConnection connection;
@@ -489,9 +658,29 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
             }
         }
 
+        if (offset > 0) {
+            connection.setRequestProperty("Range", "bytes=" + offset + "-");
+        }
+
         connection.setRequestMethod("GET");
         testResponseCode(connection);
-        return connection.getInputStream();
+        InputStream is = connection.getInputStream();
+        if (offset > 0 && connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            // The range was ignored and we've been sent the whole of the content
+            long remaining = offset;
+            while (remaining > 0) {
+                long skipped = is.skip(remaining);
+                if (skipped <= 0) {
+                    if (is.read() == -1) {
+                        is.close();
+                        throw new IOException("The content of attachment " + attachment.get_id() + " is shorter than " + offset + " bytes");
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+        return is;
     }
 
     /**
@@ -539,27 +728,32 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
     }
 
     /**
-     * This will delete an asset and all its attachments
+     * This will delete an asset and all its attachments.
+     * <p>
+     * Servers which remove the attachments as part of deleting the asset say so in their response,
+     * after which each delete takes a single request. Until then, and always for servers such as
+     * Massive which leave the attachments behind, each attachment is deleted before the asset.
      *
      * @param assetId
      *            The id of the asset
-     * @return <code>true</code> if the asset and all its attachments are
-     *         deleted. Note this is not atomic so some attachments may be
-     *         deleted and <code>false</code> returned.
      * @throws IOException
      * @throws RequestFailureException
      */
     @Override
     public void deleteAssetAndAttachments(final String assetId) throws IOException, RequestFailureException {
-        Asset ass = getUnverifiedAsset(assetId);
-        List<Attachment> attachments = ass.getAttachments();
-        if (attachments != null) {
-            for (Attachment attachment : attachments) {
-                deleteAttachment(assetId, attachment.get_id());
+        if (!serverDeletesAttachments) {
+            Asset ass = getUnverifiedAsset(assetId);
+            List<Attachment> attachments = ass.getAttachments();
+            if (attachments != null) {
+                for (Attachment attachment : attachments) {
+                    deleteAttachment(assetId, attachment.get_id());
+                }
             }
         }
         // Now delete the asset
-        deleteAsset(assetId);
+        if (deleteAsset(assetId)) {
+            serverDeletesAttachments = true;
+        }
     }
 
     /**
@@ -573,19 +767,40 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     @Override
     public Asset getAsset(final String assetId) throws IOException, BadVersionException, RequestFailureException {
-        HttpURLConnection connection = createHttpURLConnectionToMassive("/assets/"
-                                                                        + assetId);
-        connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        return JSONAssetConverter.readValue(connection.getInputStream());
+        return JSONAssetConverter.readValue(doConditionalGet("/assets/" + assetId));
+    }
+
+    /**
+     * Gets several assets from a single request to the repository. Servers which don't support fetching assets in a batch are queried for each asset in
+     * turn.
+     *
+     * @param assetIds
+     *            The IDs of the assets to obtain
+     * @return The assets which exist, in the same order as the IDs
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    @Override
+    public Collection<Asset> getAssetsById(final Collection<String> assetIds) throws IOException, RequestFailureException {
+        List<String> ids = new ArrayList<String>(assetIds);
+        List<Asset> assets = new ArrayList<Asset>();
+        for (int start = 0; start < ids.size(); start += MAX_BATCH_SIZE) {
+            List<String> batch = ids.subList(start, Math.min(start + MAX_BATCH_SIZE, ids.size()));
+            HttpURLConnection connection = createBatchConnection("/assets/batchGet", batch);
+            if (connection == null) {
+                // An older server which doesn't have the batch endpoint, get the rest one at a time
+                assets.addAll(super.getAssetsById(ids.subList(start, ids.size())));
+                return assets;
+            }
+            assets.addAll(JSONAssetConverter.readValues(getInputStream(connection)));
+        }
+        return assets;
     }
 
     /**
      * Get an asset without verififying it (e.g., checking it has the right version)
      *
-     * @param localName
-     * @param provider
-     * @param type
+     * @param assetId
      * @return
      * @throws IOException
      * @throws RequestFailureException
@@ -595,7 +810,7 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
                                                                         + assetId);
         connection.setRequestMethod("GET");
         testResponseCode(connection);
-        return JSONAssetConverter.readUnverifiedValue(connection.getInputStream());
+        return JSONAssetConverter.readUnverifiedValue(getInputStream(connection));
     }
 
     /**
@@ -625,6 +840,97 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         testResponseCode(connection, true);
     }
 
+    /**
+     * Issue a GET request to massive and return the response body.
+     * <p>
+     * If an earlier response for the same path carried an ETag or Last-Modified header, the request
+     * is made conditional and the earlier body is returned if the server responds with 304 Not
+     * Modified.
+     * <p>
+     * Bodies larger than {@link #MAX_VALIDATED_RESPONSE_BODY_BYTES} aren't kept, and are returned
+     * as they are read from the connection rather than being read into memory first.
+     *
+     * @param path
+     *            The path within massive to GET
+     * @return The response body
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    private InputStream doConditionalGet(String path) throws IOException, RequestFailureException {
+        // The cache may be shared, so the key says which repository and user the response was for
+        String cacheKey = loginInfo.getRepositoryUrl() + path + " " + loginInfo.getUserId();
+        ValidatedResponseCache.Entry cached = validatedResponses.get(cacheKey);
+
+        HttpURLConnection connection = createHttpURLConnectionToMassive(path);
+        connection.setRequestMethod("GET");
+        if (cached != null) {
+            if (cached.eTag != null) {
+                connection.setRequestProperty("If-None-Match", cached.eTag);
+            }
+            if (cached.lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+            }
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                clearInputStream(connection);
+                return new ByteArrayInputStream(cached.body);
+            }
+        }
+        testResponseCode(connection);
+
+        String eTag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        if ((eTag == null && lastModified == null) || connection.getContentLengthLong() > MAX_VALIDATED_RESPONSE_BODY_BYTES) {
+            validatedResponses.remove(cacheKey);
+            return getInputStream(connection);
+        }
+
+        // The length isn't always known in advance, for example when the response is compressed,
+        // so stop buffering and hand over the rest of the stream as soon as the body is too big
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        InputStream is = getInputStream(connection);
+        boolean tooBig = false;
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while (!tooBig && (read = is.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+                tooBig = body.size() > MAX_VALIDATED_RESPONSE_BODY_BYTES;
+            }
+        } finally {
+            if (!tooBig) {
+                is.close();
+            }
+        }
+
+        if (tooBig) {
+            validatedResponses.remove(cacheKey);
+            return new SequenceInputStream(new ByteArrayInputStream(body.toByteArray()), is);
+        }
+
+        byte[] bodyBytes = body.toByteArray();
+        validatedResponses.put(cacheKey, new ValidatedResponseCache.Entry(eTag, lastModified, bodyBytes));
+        return new ByteArrayInputStream(bodyBytes);
+    }
+
+    /**
+     * Issue a GET request to massive and return the response body as it is read from the connection.
+     * <p>
+     * Unlike {@link #doConditionalGet(String)} the body is never read into memory or kept, so this is
+     * used when the caller reads the response one element at a time.
+     *
+     * @param path
+     *            The path within massive to GET
+     * @return The response body
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    private InputStream doStreamingGet(String path) throws IOException, RequestFailureException {
+        HttpURLConnection connection = createHttpURLConnectionToMassive(path);
+        connection.setRequestMethod("GET");
+        testResponseCode(connection);
+        return getInputStream(connection);
+    }
+
     /**
      * Create an {@link HttpURLConnection} that is set up with the security
      * information to connect to massive using the versioned URL as the base URL
@@ -636,7 +942,10 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      * @throws IOException
      */
     private HttpURLConnection createHttpURLConnectionToMassive(String path) throws IOException {
-        return createHttpURLConnection(loginInfo.getRepositoryUrl() + path);
+        HttpURLConnection connection = createHttpURLConnection(loginInfo.getRepositoryUrl() + path);
+        // Asset lists compress very well. Attachments aren't asked for compressed as they are usually compressed already and ranges of them must refer to the real content
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        return connection;
     }
 
     /**
@@ -716,7 +1025,8 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
             connection = (HttpURLConnection) url.openConnection();
         }
 
-        connection.setReadTimeout(REPOSITORY_SOCKET_READ_TIMEOUT);
+        connection.setConnectTimeout(loginInfo.getConnectTimeout());
+        connection.setReadTimeout(loginInfo.getReadTimeout());
 
         addAuthToConnection(connection);
 
@@ -804,9 +1114,72 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
      */
     @Override
     public Collection<Asset> getFilteredAssets(final Map<FilterableAttribute, Collection<String>> filters) throws IOException, RequestFailureException {
+        return getFilteredAssets(filters, null);
+    }
+
+    /**
+     * This will obtain assets from Massive using the supplied filters, asking the server to only return the supplied fields of each asset. The map can contain
+     * <code>null</code> or empty collections of values, in which case they will not be used in the filter.
+     *
+     * @param filters A map of attributes to filter on mapped to the values to use
+     * @param fields The names of the JSON fields to return for each asset, or <code>null</code> to return the whole of each asset
+     * @return The filtered assets
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    @Override
+    public Collection<Asset> getFilteredAssets(final Map<FilterableAttribute, Collection<String>> filters, final Collection<String> fields) throws IOException,
+                    RequestFailureException {
+        return JSONAssetConverter.readValues(doConditionalGet(getFilteredAssetsPath(filters, fields)));
+    }
+
+    /**
+     * This will obtain assets from Massive using the supplied filters in the same way as {@link #getFilteredAssets(Map, Collection)}, but returns the assets one at a time
+     * as they are read from the response rather than reading the whole response first. The iterator should be closed if the caller doesn't read all of the assets.
+     *
+     * @param filters A map of attributes to filter on mapped to the values to use
+     * @param fields The names of the JSON fields to return for each asset, or <code>null</code> to return the whole of each asset
+     * @return An iterator over the filtered assets
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public DataModelSerializer.JsonListIterator<Asset> getFilteredAssetsIterator(final Map<FilterableAttribute, Collection<String>> filters, final Collection<String> fields)
+                    throws IOException, RequestFailureException {
+        return JSONAssetConverter.readValuesIterator(doStreamingGet(getFilteredAssetsPath(filters, fields)));
+    }
+
+    /**
+     * Obtains a single page of the assets which match the supplied filters and search term, using the <code>limit</code> and <code>offset</code> parameters to
+     * ask the server for a slice of the results. Repositories which don't support paging will return every matching asset.
+     *
+     * @param filters A map of attributes to filter on mapped to the values to use, may be <code>null</code>
+     * @param searchTerm The string to search for, or <code>null</code> to return every asset which matches the filters
+     * <p>
+     * The results are sorted by id, so that the pages don't overlap or leave gaps if the order the server would otherwise return the assets in changes between
+     * requests. The iterator returned skips assets at a version this client can't read, so callers working out whether this was the last page should use
+     * {@link DataModelSerializer.JsonListIterator#getElementsRead()} rather than counting the assets returned.
+     *
+     * @param offset The number of matching assets to skip
+     * @param limit The maximum number of assets to return
+     * @return An iterator over the assets in the page, which should be closed if the caller doesn't read all of the assets
+     * @throws IOException
+     * @throws RequestFailureException
+     */
+    public DataModelSerializer.JsonListIterator<Asset> getAssetsPage(Map<FilterableAttribute, Collection<String>> filters, String searchTerm, int offset,
+                                                                     int limit) throws IOException, RequestFailureException {
+        StringBuilder url = new StringBuilder(getFilteredAssetsPath(filters, null));
+        url.append(url.indexOf("?") == -1 ? "?" : "&");
+        if (searchTerm != null && !searchTerm.isEmpty()) {
+            url.append("q=").append(URLEncoder.encode(searchTerm, "UTF-8")).append("&");
+        }
+        url.append("sortBy=_id&limit=").append(limit).append("&offset=").append(offset);
+        return JSONAssetConverter.readValuesIterator(doStreamingGet(url.toString()));
+    }
+
+    private String getFilteredAssetsPath(Map<FilterableAttribute, Collection<String>> filters, Collection<String> fields) {
         // Were any filters defined?
         if (filters == null || allFiltersAreEmpty(filters)) {
-            return getAllAssets();
+            return getAllAssetsPath(fields);
         }
 
         // Build up a filter string
@@ -829,11 +1202,36 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
             filterString.append(filter);
         }
 
-        // Now do the filtered call into massive
-        HttpURLConnection connection = createHttpURLConnectionToMassive("/assets" + filterString.toString());
-        connection.setRequestMethod("GET");
-        testResponseCode(connection);
-        return JSONAssetConverter.readValues(connection.getInputStream());
+        if (fields != null && !fields.isEmpty()) {
+            filterString.append("&").append(createFieldsParameter(fields));
+        }
+
+        return "/assets" + filterString.toString();
+    }
+
+    /**
+     * Creates the URL parameter which asks the server to only return the supplied fields of each asset.
+     *
+     * @param fields The names of the fields to return. Must not be <code>null</code> or empty
+     * @return The fields parameter
+     */
+    private String createFieldsParameter(Collection<String> fields) {
+        StringBuilder parameter = new StringBuilder("fields=");
+        boolean isFirst = true;
+        for (String field : fields) {
+            try {
+                field = URLEncoder.encode(field, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                // If UTF-8 encoding isn't supported we'll just have to try the unencoded string
+            }
+            if (isFirst) {
+                isFirst = false;
+            } else {
+                parameter.append(",");
+            }
+            parameter.append(field);
+        }
+        return parameter.toString();
     }
 
     /**
@@ -939,14 +1337,19 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         }
 
         // Not one of the OK response codes so get the message off the error stream and throw an exception
-        InputStream errorStream = connection.getErrorStream();
+        InputStream errorStream = getErrorStream(connection);
         String errorStreamString = null;
         String message = null;
         if (errorStream != null) {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            int read = -1;
-            while ((read = errorStream.read()) != -1) {
-                outputStream.write(read);
+            try {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = errorStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } finally {
+                errorStream.close();
             }
             errorStreamString = outputStream.toString(getCharset(connection.getContentType()));
 
@@ -973,7 +1376,7 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         InputStream is = null;
         byte[] buffer = new byte[1024];
         try {
-            is = conn.getInputStream();
+            is = getInputStream(conn);
             while (is.read(buffer) != -1) {
                 continue;
             }
@@ -990,6 +1393,83 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
         }
     }
 
+    /**
+     * Read the error stream from the connection, throw it away and close it, swallowing all exceptions. This lets the connection be reused after an error
+     * response that we don't need the details of.
+     *
+     * @param conn
+     */
+    private void clearErrorStream(HttpURLConnection conn) {
+        try {
+            InputStream is = getErrorStream(conn);
+            if (is != null) {
+                is.close();
+            }
+        } catch (IOException e) {
+            // Don't care.
+        }
+    }
+
+    /**
+     * Gets the body of a successful response, decompressing it if the server compressed it. Closing the returned stream reads any of the body which is left
+     * so that the connection can be kept alive and used for another request.
+     *
+     * @param connection
+     * @return the response body
+     * @throws IOException
+     */
+    private InputStream getInputStream(HttpURLConnection connection) throws IOException {
+        return decode(connection, connection.getInputStream());
+    }
+
+    /**
+     * Gets the body of an error response in the same way as {@link #getInputStream(HttpURLConnection)}
+     *
+     * @param connection
+     * @return the error response body, or <code>null</code> if there isn't one
+     * @throws IOException
+     */
+    private InputStream getErrorStream(HttpURLConnection connection) throws IOException {
+        InputStream errorStream = connection.getErrorStream();
+        return errorStream == null ? null : decode(connection, errorStream);
+    }
+
+    private InputStream decode(HttpURLConnection connection, InputStream body) throws IOException {
+        InputStream drained = new DrainOnCloseInputStream(body);
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            return new GZIPInputStream(drained);
+        }
+        return drained;
+    }
+
+    /**
+     * Reads any unread data from the response before closing it. {@link HttpURLConnection} only returns a connection to its pool of kept alive connections
+     * once the whole of the response has been read, so without this any response which wasn't read to the end, such as an iterator over assets which was
+     * closed early, would cost a new connection (and for HTTPS a new handshake) on the next request.
+     */
+    private static class DrainOnCloseInputStream extends FilterInputStream {
+
+        private DrainOnCloseInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                byte[] buffer = new byte[8192];
+                long drained = 0;
+                int read;
+                while (drained < MAX_DRAINED_BYTES && (read = in.read(buffer)) != -1) {
+                    drained += read;
+                }
+            } catch (IOException e) {
+                // The connection won't be reused, but there's nothing else wrong
+            } finally {
+                in.close();
+            }
+        }
+    }
+
     /**
      * Utility method to get the charset from a url connection's content type
      *
@@ -1053,4 +1533,90 @@ public class RestClient extends AbstractRepositoryClient implements RepositoryRe
             return errorObject;
         }
     }
+
+    /**
+     * An input stream over the content of an attachment which keeps track of how much of the
+     * content has been read, and which reconnects and continues from that point if reading from
+     * the connection fails.
+     */
+    private class ResumingAttachmentInputStream extends InputStream {
+
+        private final Asset asset;
+        private final Attachment attachment;
+        private InputStream delegate;
+        private long position;
+        private int resumesRemaining = MAX_ATTACHMENT_RESUMES;
+
+        private ResumingAttachmentInputStream(Asset asset, Attachment attachment, InputStream delegate, long position) {
+            this.asset = asset;
+            this.attachment = attachment;
+            this.delegate = delegate;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (true) {
+                try {
+                    int b = delegate.read();
+                    if (b != -1) {
+                        position++;
+                    }
+                    return b;
+                } catch (IOException e) {
+                    resume(e);
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                try {
+                    int read = delegate.read(b, off, len);
+                    if (read > 0) {
+                        position += read;
+                    }
+                    return read;
+                } catch (IOException e) {
+                    resume(e);
+                }
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        /**
+         * Reopen the content at the current position, or rethrow the failure if we've run out of
+         * attempts
+         */
+        private void resume(IOException failure) throws IOException {
+            if (resumesRemaining <= 0) {
+                throw failure;
+            }
+            resumesRemaining--;
+
+            try {
+                delegate.close();
+            } catch (IOException e) {
+                // The connection has already failed
+            }
+
+            try {
+                delegate = openAttachment(asset, attachment, position);
+            } catch (RequestFailureException | IOException e) {
+                failure.addSuppressed(e);
+                throw failure;
+            }
+        }
+    }
+
 }
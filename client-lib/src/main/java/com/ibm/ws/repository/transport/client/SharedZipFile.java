@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.repository.transport.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An open zip file which is shared by everything reading the same file, along with a catalogue of its entries.
+ * <p>
+ * Opening a {@link ZipFile} reads the whole of its central directory, and looking through its entries means going through all of them, so for a large repository zip
+ * doing either for every asset is very slow. Instead, {@link #open(File)} returns the zip that is already open if there is one, and the catalogue of entries is built
+ * once for each version of the file, identified by its modification time and length in the same way as {@link SingleFileClient} does. Details read from inside the
+ * entries, such as the manifest of an ESA, can also be kept with the catalogue so that they are only read once.
+ * <p>
+ * Each call to {@link #open(File)} must be matched with a call to {@link #release()}. The zip file is closed when it is released by everything using it, so the file
+ * isn't held open, and can be replaced, while nothing is reading it. The catalogue is kept, and used again if the file is reopened without having changed.
+ */
+class SharedZipFile {
+
+    /**
+     * The latest version of each zip file which has been opened, keyed by the absolute file. Guarded by itself.
+     */
+    private static final Map<File, SharedZipFile> ZIPS = new HashMap<File, SharedZipFile>();
+
+    /**
+     * Stands in for a <code>null</code> detail, as a {@link ConcurrentMap} can't hold <code>null</code> values
+     */
+    private static final Object NULL_DETAIL = new Object();
+
+    private final File file;
+    private final long lastModified;
+    private final long length;
+
+    /** The open zip file, or <code>null</code> if it has been closed. Guarded by ZIPS. */
+    private ZipFile zip;
+    /** The number of users of the open zip file. Guarded by ZIPS. */
+    private int references = 0;
+
+    private final Map<String, ZipEntry> entries = new LinkedHashMap<String, ZipEntry>();
+    private final Map<String, List<String>> filesUnderDirectory = new HashMap<String, List<String>>();
+    private final Set<String> nonEmptyDirectories = new HashSet<String>();
+    private final ConcurrentMap<String, Object> details = new ConcurrentHashMap<String, Object>();
+
+    private SharedZipFile(File file, long lastModified, long length, ZipFile zip) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.zip = zip;
+
+        // Entry names use the file separator, see AbstractFileClient.getChildren
+        Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry entry = zipEntries.nextElement();
+            String name = entry.getName();
+            entries.put(name, entry);
+
+            for (int i = name.indexOf(File.separatorChar); i != -1; i = name.indexOf(File.separatorChar, i + 1)) {
+                String directory = name.substring(0, i);
+                nonEmptyDirectories.add(directory);
+                if (!entry.isDirectory()) {
+                    catalogueFilesUnder(directory).add(name);
+                }
+            }
+            if (!entry.isDirectory()) {
+                catalogueFilesUnder("").add(name);
+            }
+        }
+    }
+
+    /**
+     * Opens a zip file, or returns the zip file that is already open if it hasn't changed since it was opened
+     *
+     * @param file the zip file
+     * @return the open zip file, which must be released when it is no longer needed
+     * @throws IOException if the file can't be opened as a zip
+     */
+    static SharedZipFile open(File file) throws IOException {
+        File key = file.getAbsoluteFile();
+        long lastModified = DirectoryUtils.lastModified(key);
+        long length = DirectoryUtils.length(key);
+
+        synchronized (ZIPS) {
+            SharedZipFile shared = ZIPS.get(key);
+            if (shared != null && shared.lastModified == lastModified && shared.length == length) {
+                if (shared.zip == null) {
+                    shared.zip = DirectoryUtils.createZipFile(key);
+                }
+            } else {
+                shared = new SharedZipFile(key, lastModified, length, DirectoryUtils.createZipFile(key));
+                ZIPS.put(key, shared);
+            }
+            shared.references++;
+            return shared;
+        }
+    }
+
+    /**
+     * Releases the zip file, closing it if nothing else is using it
+     */
+    void release() {
+        ZipFile toClose = null;
+        synchronized (ZIPS) {
+            if (--references == 0) {
+                toClose = zip;
+                zip = null;
+            }
+        }
+        if (toClose != null) {
+            try {
+                toClose.close();
+            } catch (IOException e) {
+                // Exception on closing, not a lot we can do
+            }
+        }
+    }
+
+    /**
+     * @return the name of the zip file
+     */
+    String getName() {
+        return file.getPath();
+    }
+
+    /**
+     * @param name the name of the entry
+     * @return the entry, or <code>null</code> if there is no entry with that name
+     */
+    ZipEntry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * @param name the name of the entry
+     * @return an input stream to the content of the entry, or <code>null</code> if there is no entry with that name
+     * @throws IOException
+     */
+    InputStream getInputStream(String name) throws IOException {
+        ZipEntry entry = entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        ZipFile openZip;
+        synchronized (ZIPS) {
+            openZip = zip;
+        }
+        if (openZip == null) {
+            throw new IOException("The zip file " + file + " has been closed");
+        }
+        return openZip.getInputStream(entry);
+    }
+
+    /**
+     * @param directory a directory in the zip, or an empty string for the root of the zip
+     * @return <code>true</code> if there are any entries, including directories, under the directory
+     */
+    boolean hasEntriesUnder(String directory) {
+        return directory.isEmpty() ? !entries.isEmpty() : nonEmptyDirectories.contains(directory);
+    }
+
+    /**
+     * @param directory a directory in the zip, or an empty string for the root of the zip
+     * @return the names of the files under the directory, including those in sub directories, in the order they are in the zip
+     */
+    Collection<String> getFilesUnder(String directory) {
+        List<String> files = filesUnderDirectory.get(directory);
+        return files == null ? Collections.<String> emptyList() : Collections.unmodifiableList(files);
+    }
+
+    private List<String> catalogueFilesUnder(String directory) {
+        List<String> files = filesUnderDirectory.get(directory);
+        if (files == null) {
+            files = new ArrayList<String>();
+            filesUnderDirectory.put(directory, files);
+        }
+        return files;
+    }
+
+    /**
+     * @param key identifies the detail
+     * @return <code>true</code> if the detail has been stored, even if its value was <code>null</code>
+     */
+    boolean hasDetail(String key) {
+        return details.containsKey(key);
+    }
+
+    /**
+     * @param key identifies the detail
+     * @return the value of the detail, or <code>null</code> if it hasn't been stored or its value was <code>null</code>
+     */
+    Object getDetail(String key) {
+        Object value = details.get(key);
+        return value == NULL_DETAIL ? null : value;
+    }
+
+    /**
+     * Stores a detail read from inside one of the entries of this zip, which will be kept until the zip file changes
+     *
+     * @param key identifies the detail
+     * @param value the value, which may be <code>null</code>
+     */
+    void putDetail(String key, Object value) {
+        details.put(key, value == null ? NULL_DETAIL : value);
+    }
+}
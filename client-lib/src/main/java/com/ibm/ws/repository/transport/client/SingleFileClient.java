@@ -21,17 +21,26 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.json.JsonValue;
@@ -61,13 +70,38 @@ import com.ibm.ws.repository.transport.model.WlpInformation;
  * <li>The JSON is only converted to an Asset when required. This allows us to throw a {@link BadVersionException} in response to a call to {@link #getAsset(String)}</li>
  * <li>The asset id is its index within the JSON file. This means we don't have to actually store an ID in the JSON file, but does mean we need to maintain the order of the file
  * and leave spaces in the file if an asset is deleted.</li>
+ * <li>A journaled client doesn't rewrite the file every time an asset is added or deleted. Instead it appends the change to a journal file next to the main file, and
+ * clients reading the repository apply the journal on top of the main file, only reading the entries added to the journal since they last read it. Every
+ * {@link #COMPACTION_THRESHOLD} changes, the journal is compacted by writing the assets back to the main file and emptying the journal. Clients which aren't journaled
+ * still read the journal, but write the whole file and empty the journal each time they make a change, so they shouldn't write to a repository at the same time as a
+ * journaled client in another process.</li>
  * </ul>
  */
 public class SingleFileClient extends AbstractRepositoryClient implements RepositoryWriteableClient {
 
+    /**
+     * The number of changes which can be made to the journal before it is compacted into the main file
+     */
+    public static final int COMPACTION_THRESHOLD = 1000;
+
+    private static final String JOURNAL_OP = "op";
+    private static final String JOURNAL_ID = "id";
+    private static final String JOURNAL_ASSET = "asset";
+    private static final String JOURNAL_ADD = "add";
+    private static final String JOURNAL_DELETE = "delete";
+
+    /**
+     * Threads in this JVM writing to the same journal synchronize on the same object from this map, as a file lock can only be held once per JVM
+     */
+    private static final ConcurrentMap<File, Object> JOURNAL_LOCKS = new ConcurrentHashMap<File, Object>();
+
     private final File file;
+    private final File journal;
+    private final boolean journaled;
     private long fileLastModified = 0;
     private long fileLastSize = 0;
+    private long journalOffset = 0;
+    private int journalEntries = 0;
     private Map<String, JsonObject> assets;
     private AtomicInteger idCounter;
 
@@ -81,20 +115,49 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
      * @param jsonFile the JSON file which holds all the asset metadata
      */
     public SingleFileClient(File jsonFile) {
+        this(jsonFile, false);
+    }
+
+    /**
+     * Create a SingleFileClient instance which may write changes to a journal rather than rewriting the whole file
+     * <p>
+     * The file will not be read and parsed until it's needed.
+     *
+     * @param jsonFile the JSON file which holds all the asset metadata
+     * @param journaled <code>true</code> if changes should be appended to the journal
+     * @see #getJournalFile(File)
+     */
+    public SingleFileClient(File jsonFile, boolean journaled) {
         this.file = jsonFile;
+        this.journal = getJournalFile(jsonFile);
+        this.journaled = journaled;
+    }
+
+    /**
+     * Gets the journal file for a repository, which holds the changes which haven't yet been written to the main file
+     *
+     * @param jsonFile the JSON file which holds all the asset metadata
+     * @return the journal file, which may not exist
+     */
+    public static File getJournalFile(File jsonFile) {
+        return new File(jsonFile.getPath() + ".journal");
     }
 
     /**
      * Return a map from id to JsonObject representing an Asset
      * <p>
-     * This method will re-read the json file if it has not yet been read, or if it has changed since we last read it.
+     * This method will re-read the json file if it has not yet been read, or if it has changed since we last read it, and then apply any entries which have been added to the
+     * journal since we last read it.
      */
     private synchronized Map<String, JsonObject> getAssetMap() throws IOException {
         if (!file.canRead()) {
             throw new IOException("Cannot read repository file: " + file.getAbsolutePath());
-        } else if (assets == null || file.lastModified() != fileLastModified || file.length() != fileLastSize) {
-            // Re-read the file if either we've never read it or it's changed length since we last read it
+        } else if (assets == null || file.lastModified() != fileLastModified || file.length() != fileLastSize || journal.length() < journalOffset) {
+            // Re-read the file if either we've never read it or it's changed length since we last read it, or the journal has been emptied without us noticing the
+            // main file change
             assets = null;
+            journalOffset = 0;
+            journalEntries = 0;
             fileLastModified = file.lastModified();
             fileLastSize = file.length();
 
@@ -118,9 +181,70 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
             }
         }
 
+        readJournal();
+
         return assets;
     }
 
+    /**
+     * Applies the entries which have been added to the journal since we last read it to {@link #assets}
+     * <p>
+     * Only complete entries are read. Anything after the last newline is an entry which is still being written and will be read next time.
+     */
+    private void readJournal() throws IOException {
+        long length = journal.length();
+        if (length <= journalOffset) {
+            return;
+        }
+
+        byte[] bytes = new byte[(int) (length - journalOffset)];
+        RandomAccessFile in = new RandomAccessFile(journal, "r");
+        try {
+            in.seek(journalOffset);
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                if (i > start) {
+                    applyJournalEntry(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                }
+                start = i + 1;
+            }
+        }
+        journalOffset += start;
+    }
+
+    private void applyJournalEntry(String line) throws IOException {
+        JsonObject entry;
+        JsonReader reader = Json.createReader(new StringReader(line));
+        try {
+            entry = reader.readObject();
+        } catch (JsonException e) {
+            throw new IOException("Invalid entry in repository journal " + journal.getAbsolutePath() + ": " + line, e);
+        } finally {
+            reader.close();
+        }
+
+        String id = entry.getString(JOURNAL_ID);
+        String op = entry.getString(JOURNAL_OP);
+        if (JOURNAL_ADD.equals(op)) {
+            assets.put(id, entry.getJsonObject(JOURNAL_ASSET));
+        } else if (JOURNAL_DELETE.equals(op)) {
+            assets.remove(id);
+        }
+
+        // Keep the ids in step with the position the asset will have in the file when the journal is compacted
+        int nextId = Integer.parseInt(id) + 1;
+        if (nextId > idCounter.get()) {
+            idCounter.set(nextId);
+        }
+        journalEntries++;
+    }
+
     @Override
     public Asset getAsset(String assetId) throws IOException, BadVersionException, RequestFailureException {
         JsonObject assetJson = getAssetMap().get(assetId);
@@ -177,11 +301,8 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
         }
 
         try {
-            Map<String, JsonObject> assetMap = getAssetMap();
             JsonObject json = (JsonObject) DataModelSerializer.serializeAsJson(asset.createMinimalAssetForJSON());
-            String id = Integer.toString(idCounter.getAndIncrement());
-            assetMap.put(id, json);
-            rewriteFile();
+            String id = writeChanges(Collections.singletonList(json), null).get(0);
 
             return getAsset(id);
         } catch (IllegalAccessException ex) {
@@ -189,6 +310,36 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The file is only rewritten once, after all of the assets have been added, or for a journaled client the journal is only written to once.
+     */
+    @Override
+    public List<Asset> addAssets(Collection<Asset> assets) throws IOException, BadVersionException, RequestFailureException, SecurityException, ClientFailureException {
+        for (Asset asset : assets) {
+            if (asset.get_id() != null) {
+                throw new ClientFailureException("Asset id is not null when adding a new asset", asset.get_id());
+            }
+        }
+
+        try {
+            List<JsonObject> jsons = new ArrayList<JsonObject>();
+            for (Asset asset : assets) {
+                jsons.add((JsonObject) DataModelSerializer.serializeAsJson(asset.createMinimalAssetForJSON()));
+            }
+            List<String> ids = writeChanges(jsons, null);
+
+            List<Asset> added = new ArrayList<Asset>();
+            for (String id : ids) {
+                added.add(getAsset(id));
+            }
+            return added;
+        } catch (IllegalAccessException ex) {
+            throw new IOException("Unable to create JSON for asset", ex);
+        }
+    }
+
     @Override
     public Asset updateAsset(Asset asset) throws IOException, BadVersionException, RequestFailureException, SecurityException, ClientFailureException {
         throw new UnsupportedOperationException("Single file repositories do not support updates");
@@ -211,11 +362,155 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
 
     @Override
     public void deleteAssetAndAttachments(String assetId) throws IOException, RequestFailureException {
-        Map<String, JsonObject> assets = getAssetMap();
-        if (assets.containsKey(assetId)) {
-            assets.remove(assetId);
+        writeChanges(Collections.<JsonObject> emptyList(), assetId);
+    }
+
+    /**
+     * Writes any changes in the journal to the main file and empties the journal.
+     * <p>
+     * Journaled clients do this automatically every {@link #COMPACTION_THRESHOLD} changes.
+     *
+     * @throws IOException if the repository can't be read or written
+     */
+    public synchronized void compact() throws IOException {
+        synchronized (getJournalLock()) {
+            RandomAccessFile journalFile = new RandomAccessFile(journal, "rw");
+            try {
+                FileLock lock = journalFile.getChannel().lock();
+                try {
+                    getAssetMap();
+                    compact(journalFile);
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                journalFile.close();
+            }
         }
+    }
+
+    /**
+     * Adds and deletes assets, then either appends the changes to the journal or rewrites the file
+     * <p>
+     * When appending to the journal, the journal is locked and any entries written by other clients are read before the ids of the new assets are chosen, so that two
+     * clients can't give different assets the same id.
+     *
+     * @param added the JSON for the assets to add
+     * @param deletedId the id of an asset to delete, or <code>null</code> if none should be deleted
+     * @return the ids of the added assets, in the same order as the JSON
+     */
+    private synchronized List<String> writeChanges(List<JsonObject> added, String deletedId) throws IOException {
+        if (!journaled) {
+            Map<String, JsonObject> assetMap = getAssetMap();
+            List<String> ids = new ArrayList<String>();
+            for (JsonObject json : added) {
+                String id = Integer.toString(idCounter.getAndIncrement());
+                assetMap.put(id, json);
+                ids.add(id);
+            }
+            if (deletedId != null) {
+                assetMap.remove(deletedId);
+            }
+            rewriteFile();
+            clearJournal();
+            return ids;
+        }
+
+        synchronized (getJournalLock()) {
+            RandomAccessFile journalFile = new RandomAccessFile(journal, "rw");
+            try {
+                FileLock lock = journalFile.getChannel().lock();
+                try {
+                    Map<String, JsonObject> assetMap = getAssetMap();
+
+                    // Anything after the last complete entry was left by a client which failed while writing it, so it can never be completed
+                    journalFile.setLength(journalOffset);
+
+                    StringWriter entries = new StringWriter();
+                    List<String> ids = new ArrayList<String>();
+                    for (JsonObject json : added) {
+                        String id = Integer.toString(idCounter.getAndIncrement());
+                        ids.add(id);
+                        writeJournalEntry(entries, Json.createObjectBuilder().add(JOURNAL_OP, JOURNAL_ADD).add(JOURNAL_ID, id).add(JOURNAL_ASSET, json).build());
+                    }
+                    boolean deleting = deletedId != null && assetMap.containsKey(deletedId);
+                    if (deleting) {
+                        writeJournalEntry(entries, Json.createObjectBuilder().add(JOURNAL_OP, JOURNAL_DELETE).add(JOURNAL_ID, deletedId).build());
+                    }
+
+                    byte[] bytes = entries.toString().getBytes(StandardCharsets.UTF_8);
+                    journalFile.seek(journalOffset);
+                    journalFile.write(bytes);
+                    journalOffset += bytes.length;
+
+                    for (int i = 0; i < ids.size(); i++) {
+                        assetMap.put(ids.get(i), added.get(i));
+                    }
+                    if (deleting) {
+                        assetMap.remove(deletedId);
+                    }
+                    journalEntries += ids.size() + (deleting ? 1 : 0);
+
+                    if (journalEntries >= COMPACTION_THRESHOLD) {
+                        compact(journalFile);
+                    }
+                    return ids;
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                journalFile.close();
+            }
+        }
+    }
+
+    private static void writeJournalEntry(StringWriter out, JsonObject entry) {
+        JsonWriter writer = Json.createWriter(out);
+        writer.writeObject(entry);
+        writer.close();
+        out.write('\n');
+    }
+
+    /**
+     * Writes the assets to the main file and empties the journal. The caller must hold the lock on the journal and have read all of it.
+     * <p>
+     * The main file is written first, so a client which reads the new main file and then the old journal will apply the journal a second time, which leaves the assets
+     * unchanged as each entry gives the id it applies to.
+     */
+    private void compact(RandomAccessFile journalFile) throws IOException {
         rewriteFile();
+        journalFile.setLength(0);
+        journalOffset = 0;
+        journalEntries = 0;
+    }
+
+    /**
+     * Empties the journal, if there is one, after the whole file has been written
+     */
+    private void clearJournal() throws IOException {
+        if (journal.length() > 0) {
+            RandomAccessFile journalFile = new RandomAccessFile(journal, "rw");
+            try {
+                journalFile.setLength(0);
+            } finally {
+                journalFile.close();
+            }
+        }
+        journalOffset = 0;
+        journalEntries = 0;
+    }
+
+    private Object getJournalLock() {
+        File key = journal.getAbsoluteFile();
+        Object lock = JOURNAL_LOCKS.get(key);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = JOURNAL_LOCKS.putIfAbsent(key, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
     }
 
     /**
@@ -269,6 +564,10 @@ public class SingleFileClient extends AbstractRepositoryClient implements Reposi
                 streamWriter.close();
             }
         }
+
+        // We've just written everything we know about, so there's no need to read it back
+        fileLastModified = file.lastModified();
+        fileLastSize = file.length();
     }
 
 }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.repository.transport.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Remembers the bodies of responses which carried validators (an ETag or Last-Modified header), so
+ * that later requests for the same path can be made conditional and the body reused if the server
+ * responds with 304 Not Modified.
+ * <p>
+ * The cache is bounded by the total size of the stored bodies, evicting the least recently used
+ * entries first.
+ * <p>
+ * A new {@link RestClient} is created for most operations on a repository connection, so the
+ * connection owns the cache and passes it to each client it creates. The clients key their entries
+ * by repository URL and user as well as path, so a cache is never used for the wrong repository or
+ * user.
+ */
+public class ValidatedResponseCache {
+
+    /**
+     * The default maximum total size of the response bodies to store
+     */
+    private static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * A response body along with the validators that were sent with it
+     */
+    static class Entry {
+        final String eTag;
+        final String lastModified;
+        final byte[] body;
+
+        Entry(String eTag, String lastModified, byte[] body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+
+    private final long maxBytes;
+    private long totalBytes = 0;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    public ValidatedResponseCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes the maximum total size of the response bodies to store
+     */
+    ValidatedResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key the key the response was stored under
+     * @return the entry for the key, or <code>null</code> if there isn't one
+     */
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Store a response, replacing any previous response with the same key
+     *
+     * @param key the key to store the response under
+     * @param entry the response
+     */
+    synchronized void put(String key, Entry entry) {
+        remove(key);
+        if (entry.body.length > maxBytes) {
+            return;
+        }
+
+        entries.put(key, entry);
+        totalBytes += entry.body.length;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().body.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Remove any response stored under a key
+     *
+     * @param key the key the response was stored under
+     */
+    synchronized void remove(String key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            totalBytes -= old.body.length;
+        }
+    }
+
+}
@@ -22,12 +22,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.apache.aries.util.manifest.ManifestProcessor;
@@ -72,9 +71,9 @@ public class ZipClient extends AbstractFileClient {
             throw new FileNotFoundException("Could not find " + _zip);
         }
         // This will throw an exception if the file is not a zip
-        ZipFile zip = DirectoryUtils.createZipFile(_zip);
-        // if the creation of the zip file is successful ensure it is closed to release the lock
-        zip.close();
+        SharedZipFile zip = SharedZipFile.open(_zip);
+        // if opening the zip file is successful ensure it is released so it can be closed
+        zip.release();
     }
 
     /**
@@ -82,7 +81,7 @@ public class ZipClient extends AbstractFileClient {
      */
     @Override
     public InputStream getAttachment(final Asset asset, final Attachment attachment) throws IOException, BadVersionException, RequestFailureException {
-        final ZipFile repoZip = createZipFile();
+        final SharedZipFile repoZip = openZip();
 
         if (null == repoZip) {
             return null;
@@ -96,40 +95,41 @@ public class ZipClient extends AbstractFileClient {
                 String assetId = asset.get_id();
                 // new funky code to get an input stream to the license *inside* the main attachment. The start of
                 // the assetId will point to the main attachment file.
-                ZipEntry entry = createFromRelative(assetId);
+                InputStream innerZip = repoZip.getInputStream(assetId);
 
                 // If the entry wasn't found return null
-                if (null == entry) {
+                if (null == innerZip) {
                     return null;
                 }
 
                 // Get zip input stream to the asset inside the zip
-                ZipInputStream zis = new ZipInputStream(repoZip.getInputStream(entry));
+                ZipInputStream zis = new ZipInputStream(innerZip);
 
                 // Get the input stream to the attachment inside the zip
                 retInputStream = getInputStreamToLicenseInsideZip(zis, assetId, attachmentId);
 
             } else {
                 // Get input stream to the attachment
-                ZipEntry entry = createFromRelative(attachmentId);
-                retInputStream = repoZip.getInputStream(entry);
+                retInputStream = repoZip.getInputStream(attachmentId);
             }
         } finally {
             // If we are throwing an exception the InputStream is never created so the logic below
-            // to close the ZipFile when the InputStream is closed will never be called. So lets close
-            // the ZipFile now as there is no InputStream to read from.
+            // to release the zip when the InputStream is closed will never be called. So lets release
+            // the zip now as there is no InputStream to read from.
             if (retInputStream == null) {
-                repoZip.close();
+                repoZip.release();
             }
         }
 
-        // When the input stream gets closed we also need to close the ZipFile, however
+        // When the input stream gets closed we also need to release the zip, however
         // the caller only has the input stream. So lets wrap the input stream and close
-        // both the inputStream and the ZipFile when the caller calls close on the wrapped
-        // input stream
+        // the inputStream and release the zip when the caller calls close on the wrapped
+        // input stream. Releasing closes the ZipFile if nothing else is reading it.
         final InputStream is = retInputStream;
         InputStream wrappedIs = new InputStream() {
 
+            private boolean closed = false;
+
             /** {@inheritDoc} */
             @Override
             public int read(byte[] b) throws IOException {
@@ -181,9 +181,15 @@ public class ZipClient extends AbstractFileClient {
             /** {@inheritDoc} */
             @Override
             public void close() throws IOException {
-                // When the input stream is closed, also close the zip file
-                is.close();
-                repoZip.close();
+                // When the input stream is closed, also release the zip file, but only once
+                if (!closed) {
+                    closed = true;
+                    try {
+                        is.close();
+                    } finally {
+                        repoZip.release();
+                    }
+                }
             }
         };
         return wrappedIs;
@@ -195,6 +201,37 @@ public class ZipClient extends AbstractFileClient {
      * ------------------------------------------------------------------------------------------------------------------
      */
 
+    /**
+     * Reads all of the assets under the specified location, keeping the zip open until they have all been read rather than
+     * opening it again for each asset.
+     */
+    @Override
+    protected List<Asset> readAssetsRelative(final String relative) throws IOException, RequestFailureException {
+        SharedZipFile zip = openZip();
+        try {
+            return super.readAssetsRelative(relative);
+        } finally {
+            if (zip != null) {
+                zip.release();
+            }
+        }
+    }
+
+    /**
+     * Gets the specified asset, keeping the zip open until the asset and all of its attachments have been read.
+     */
+    @Override
+    protected Asset getAsset(final String assetId, final boolean includeAttachments) throws FileNotFoundException, IOException, BadVersionException {
+        SharedZipFile zip = openZip();
+        try {
+            return super.getAsset(assetId, includeAttachments);
+        } finally {
+            if (zip != null) {
+                zip.release();
+            }
+        }
+    }
+
     /**
      * Read the zip file to see if the relative path exists
      */
@@ -208,20 +245,15 @@ public class ZipClient extends AbstractFileClient {
      */
     @Override
     protected boolean hasChildren(final String relative) throws IOException {
-        ZipFile zip = createZipFile();
+        SharedZipFile zip = openZip();
         if (null == zip) {
             return false;
         }
-        Enumeration<? extends ZipEntry> entries = zip.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if ((relative.equals("")) || entry.getName().startsWith(relative + File.separator)) {
-                return true;
-            }
+        try {
+            return zip.hasEntriesUnder(relative);
+        } finally {
+            zip.release();
         }
-
-        zip.close();
-        return false;
     }
 
     /**
@@ -232,26 +264,15 @@ public class ZipClient extends AbstractFileClient {
      */
     @Override
     protected Collection<String> getChildren(final String relative) throws IOException {
-
-        ZipFile zip = createZipFile();
+        SharedZipFile zip = openZip();
         if (null == zip) {
             return Collections.emptyList();
         }
-
-        Collection<String> children = new ArrayList<String>();
-        Enumeration<? extends ZipEntry> entries = zip.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if (entry.isDirectory()) {
-                continue;
-            }
-            if ((relative.equals("")) || entry.getName().startsWith(relative + File.separator)) {
-                children.add(entry.getName());
-            }
+        try {
+            return new ArrayList<String>(zip.getFilesUnder(relative));
+        } finally {
+            zip.release();
         }
-
-        zip.close();
-        return children;
     }
 
     /**
@@ -264,21 +285,15 @@ public class ZipClient extends AbstractFileClient {
     }
 
     protected ZipEntry createFromRelative(final String relative) {
-        ZipFile zip = null;
-        ZipEntry entry = null;
-        zip = createZipFile();
+        SharedZipFile zip = openZip();
         if (null == zip) {
             return null;
         }
-
-        entry = zip.getEntry(relative);
-
         try {
-            zip.close();
-        } catch (IOException e) {
-            // Exception on closing, not a lot we can do
+            return zip.getEntry(relative);
+        } finally {
+            zip.release();
         }
-        return entry;
     }
 
     /**
@@ -289,52 +304,71 @@ public class ZipClient extends AbstractFileClient {
      */
     @Override
     protected Asset readJson(final String assetId) throws IOException, BadVersionException {
-        ZipFile zip = createZipFile();
-
-        ZipEntry entry = createFromRelative(assetId + ".json");
+        SharedZipFile zip = openZip();
+        if (null == zip) {
+            throw new IOException("The asset " + assetId + " does not exist");
+        }
 
-        if (entry != null) {
-            InputStream is = null;
-            try {
-                is = zip.getInputStream(entry);
-                Asset ass = processJSON(is);
-                return ass;
-            } finally {
-                if (is != null) {
-                    is.close();
-                }
-                zip.close();
+        InputStream is = null;
+        try {
+            is = zip.getInputStream(assetId + ".json");
+            if (is == null) {
+                throw new IOException("The asset " + assetId + " does not exist");
             }
-        } else {
-            zip.close();
-            throw new IOException("The asset " + assetId + " does not exist");
+            return processJSON(is);
+        } finally {
+            if (is != null) {
+                is.close();
+            }
+            zip.release();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The licenses in each asset are only read once for each version of the repository zip.
+     */
     @Override
     protected Map<String, Long> getLicenses(final String assetId) throws IOException {
-
-        boolean isEsa = assetId.toLowerCase().endsWith(".esa");
-
-        // Return map containing the license info.
-        Map<String, Long> licenses = new HashMap<String, Long>();
-
         // Create a zip file (this is the whole repo contents).
-        ZipFile repoZip = createZipFile();
+        SharedZipFile repoZip = openZip();
 
         // We can't read the repo so return an empty map
         if (repoZip == null) {
-            return licenses;
+            return new HashMap<String, Long>();
         }
 
-        // Get the entry from the repo zip that points to the asset we are interested in
-        ZipEntry innerZip = createFromRelative(assetId);
+        try {
+            String key = "licenses:" + assetId;
+            @SuppressWarnings("unchecked")
+            Map<String, Long> licenses = (Map<String, Long>) repoZip.getDetail(key);
+            if (licenses == null) {
+                licenses = readLicenses(repoZip, assetId);
+                repoZip.putDetail(key, licenses);
+            }
+            // Return a copy so the cached licenses can't be changed by the caller
+            return new HashMap<String, Long>(licenses);
+        } finally {
+            repoZip.release();
+        }
+    }
+
+    private Map<String, Long> readLicenses(SharedZipFile repoZip, String assetId) throws IOException {
+        boolean isEsa = assetId.toLowerCase().endsWith(".esa");
+
+        // Return map containing the license info.
+        Map<String, Long> licenses = new HashMap<String, Long>();
 
         String liLocation = getHeader(assetId, isEsa ? LI_HEADER_FEATURE : LI_HEADER_PRODUCT);
         String laLocation = getHeader(assetId, isEsa ? LA_HEADER_FEATURE : LA_HEADER_PRODUCT);
         if (liLocation != null || laLocation != null) {
             // Input stream to the inner zip
-            ZipInputStream zis = new ZipInputStream(repoZip.getInputStream(innerZip));
+            InputStream innerZip = repoZip.getInputStream(assetId);
+            if (innerZip == null) {
+                return licenses;
+            }
+            ZipInputStream zis = new ZipInputStream(innerZip);
             try {
                 ZipEntry ze = zis.getNextEntry();
                 while (ze != null) {
@@ -349,11 +383,8 @@ public class ZipClient extends AbstractFileClient {
                     ze = zis.getNextEntry();
                 }
             } finally {
-                if (zis != null) {
-                    zis.closeEntry();
-                    zis.close();
-                }
-                repoZip.close();
+                zis.closeEntry();
+                zis.close();
             }
         }
 
@@ -367,22 +398,39 @@ public class ZipClient extends AbstractFileClient {
         if (null == mf) {
             return null;
         }
-        return getManifest(assetId).getMainAttributes().getValue(type);
+        return mf.getMainAttributes().getValue(type);
     }
 
     /**
-     * Gets the manifest for the specified asset
+     * Gets the manifest for the specified asset. The manifest of each asset is only read once for each version of the
+     * repository zip, so the manifest returned is shared and must not be modified.
      *
      * @param assetId
      * @return
      * @throws IOException
      */
     protected Manifest getManifest(String assetId) throws IOException {
-        boolean isEsa = assetId.toLowerCase().endsWith(".esa");
-        if (isEsa) {
-            return getSubsystemManifest(assetId);
-        } else {
-            return getJarManifest(assetId);
+        SharedZipFile repoZip = openZip();
+        if (null == repoZip) {
+            return null;
+        }
+        try {
+            String key = "manifest:" + assetId;
+            if (repoZip.hasDetail(key)) {
+                return (Manifest) repoZip.getDetail(key);
+            }
+
+            Manifest manifest;
+            boolean isEsa = assetId.toLowerCase().endsWith(".esa");
+            if (isEsa) {
+                manifest = getSubsystemManifest(assetId);
+            } else {
+                manifest = getJarManifest(assetId);
+            }
+            repoZip.putDetail(key, manifest);
+            return manifest;
+        } finally {
+            repoZip.release();
         }
     }
 
@@ -394,36 +442,43 @@ public class ZipClient extends AbstractFileClient {
      * @throws IOException
      */
     protected Manifest getSubsystemManifest(String assetId) throws IOException {
-        ZipFile repoZip = null;
+        SharedZipFile repoZip = openZip();
+
+        // Empty / non exisstent zip
+        if (null == repoZip) {
+            return null;
+        }
+
         try {
-            repoZip = createZipFile();
-            ZipEntry entry = createFromRelative(assetId);
+            InputStream innerZip = repoZip.getInputStream(assetId);
 
-            // Empty / non exisstent zip or manifest can't be found
-            if (null == repoZip || null == entry) {
+            // Manifest can't be found
+            if (null == innerZip) {
                 return null;
             }
 
             // Input stream to the inner zip
-            ZipInputStream zis = new ZipInputStream(repoZip.getInputStream(entry));
-            ZipEntry innerEntry = zis.getNextEntry();
-            ZipEntry subsystemEntry = null;
-            while (null != innerEntry) {
-                if ("OSGI-INF/SUBSYSTEM.MF".equalsIgnoreCase(innerEntry.getName())) {
-                    subsystemEntry = innerEntry;
-                    break;
+            ZipInputStream zis = new ZipInputStream(innerZip);
+            try {
+                ZipEntry innerEntry = zis.getNextEntry();
+                ZipEntry subsystemEntry = null;
+                while (null != innerEntry) {
+                    if ("OSGI-INF/SUBSYSTEM.MF".equalsIgnoreCase(innerEntry.getName())) {
+                        subsystemEntry = innerEntry;
+                        break;
+                    }
+                    innerEntry = zis.getNextEntry();
                 }
-                innerEntry = zis.getNextEntry();
-            }
-            if (subsystemEntry == null) {
-                return null;
-            } else {
-                return ManifestProcessor.parseManifest(zis);
+                if (subsystemEntry == null) {
+                    return null;
+                } else {
+                    return ManifestProcessor.parseManifest(zis);
+                }
+            } finally {
+                zis.close();
             }
         } finally {
-            if (repoZip != null) {
-                repoZip.close();
-            }
+            repoZip.release();
         }
     }
 
@@ -433,38 +488,48 @@ public class ZipClient extends AbstractFileClient {
      * @throws IOException
      */
     protected Manifest getJarManifest(String assetId) throws IOException {
-        ZipFile repoZip = null;
+        SharedZipFile repoZip = openZip();
+        if (null == repoZip) {
+            return null;
+        }
+
         Manifest manifest = new Manifest();
         try {
-            repoZip = createZipFile();
-            ZipEntry entry = createFromRelative(assetId);
+            InputStream innerZip = repoZip.getInputStream(assetId);
 
-            if (null == entry) {
+            if (null == innerZip) {
                 return null;
             }
 
             // Input stream to the inner zip
-            ZipInputStream zis = new ZipInputStream(repoZip.getInputStream(entry));
-            ZipEntry innerEntry = zis.getNextEntry();
-            while (null != innerEntry) {
-                if ("meta-inf/manifest.mf".equalsIgnoreCase(innerEntry.getName())) {
-                    manifest.read(zis);
-                    break;
+            ZipInputStream zis = new ZipInputStream(innerZip);
+            try {
+                ZipEntry innerEntry = zis.getNextEntry();
+                while (null != innerEntry) {
+                    if ("meta-inf/manifest.mf".equalsIgnoreCase(innerEntry.getName())) {
+                        manifest.read(zis);
+                        break;
+                    }
+                    innerEntry = zis.getNextEntry();
                 }
-                innerEntry = zis.getNextEntry();
+            } finally {
+                zis.close();
             }
         } finally {
-            if (repoZip != null) {
-                repoZip.close();
-            }
+            repoZip.release();
         }
         return manifest;
     }
 
-    protected ZipFile createZipFile() {
+    /**
+     * Opens the repository zip, sharing it with anything else which already has it open. The zip must be released when
+     * it is no longer needed.
+     *
+     * @return the zip, or <code>null</code> if it can't be read
+     */
+    private SharedZipFile openZip() {
         try {
-            ZipFile zip = DirectoryUtils.createZipFile(_zip);
-            return zip;
+            return SharedZipFile.open(_zip);
         } catch (IOException e) {
             return null;
         }
@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -39,9 +40,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
+import org.apache.http.Header;
 import org.apache.http.ParseException;
 import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -146,6 +151,66 @@ public class ApiTest {
         assertEquals("The wrong asset was retrieved", publishedAsset.get_id(), userAssets.get(0).get_id());
     }
 
+    @Test
+    public void testBatchGetAssets() throws Exception {
+        Asset draftAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        Asset publishedAsset = repository.addAssetNoAttachmentsWithState(AssetUtils.getTestAsset(), Asset.State.PUBLISHED);
+        Attachment attachment = repository.doPostAttachmentNoContent(publishedAsset.get_id(), "nocontent.txt", AssetUtils.getTestAttachmentNoContent());
+
+        List<String> ids = Arrays.asList(publishedAsset.get_id(), NON_EXISTENT_ID, draftAsset.get_id());
+        AssetList assets = repository.doBatchGetAssets(ids, 200);
+        assertEquals("Wrong number of assets", 2, assets.size());
+        assertEquals("Assets should be in the requested order", publishedAsset.get_id(), assets.get(0).get_id());
+        assertEquals("Assets should be in the requested order", draftAsset.get_id(), assets.get(1).get_id());
+        assertEquals("Attachments should be included", 1, assets.get(0).getAttachments().size());
+        assertEquals("Attachments should be included", attachment.get_id(), assets.get(0).getAttachments().get(0).get_id());
+        assertEquals("Attachments should be included", 0, assets.get(1).getAttachments().size());
+
+        RepositoryContext userRepository = RepositoryContext.toUserContext(repository);
+        AssetList userAssets = userRepository.doBatchGetAssets(ids, 200);
+        assertEquals("Wrong number of assets", 1, userAssets.size());
+        assertEquals("The wrong asset was retrieved", publishedAsset.get_id(), userAssets.get(0).get_id());
+
+        String message = repository.doPost("/assets/batchGet", "[\"foo_bar_asset_id\"]", 400);
+        assertEquals("Unexpected error message returned from server", "Invalid asset id: foo_bar_asset_id", repository.parseErrorObject(message));
+    }
+
+    @Test
+    public void testBatchCreateAssets() throws Exception {
+        Asset asset1 = AssetUtils.getTestAsset();
+        Asset asset2 = AssetUtils.getTestAsset();
+        asset2.setProperty("name", "second asset");
+
+        AssetList created = repository.doBatchCreateAssets(Arrays.asList(asset1, asset2));
+        assertEquals("Wrong number of assets", 2, created.size());
+        assertEquals("Assets should be in the requested order", "second asset", created.get(1).getProperty("name"));
+        for (Asset asset : created) {
+            assertEquals("Created asset should be a draft", Asset.State.DRAFT, asset.getState());
+            assertEquals("Created asset should be stored", asset.get_id(), repository.getAsset(asset.get_id()).get_id());
+        }
+
+        // If any asset is invalid, nothing should be created
+        Asset assetWithId = AssetUtils.getTestAsset();
+        assetWithId.set_id(NON_EXISTENT_ID);
+        List<Map<String, Object>> states = Arrays.asList(asset1.getProperties(), assetWithId.getProperties());
+        repository.doPost("/assets/batchCreate", new ObjectMapper().writeValueAsString(states), 400);
+        assertEquals("Invalid batch should not create any assets", 2, repository.doGetAllAssets().size());
+
+        repository.doPost("/assets/batchCreate", "{\"name\":\"not an array\"}", 400);
+        RepositoryContext.toUserContext(repository).doPost("/assets/batchCreate", "[]", RepositoryContext.RC_REJECT);
+    }
+
+    @Test
+    public void testExplainAssetQuery() throws Exception {
+        repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+
+        String plan = repository.doGet("/assets/explain?type=com.ibm.websphere.Feature&state=published", 200);
+        assertTrue("Filtered query should use an index: " + plan, plan.contains("IXSCAN"));
+
+        repository.doGet("/assets/explain?sortOrder=ASCENDING", 400);
+        RepositoryContext.toUserContext(repository).doGet("/assets/explain", RepositoryContext.RC_REJECT);
+    }
+
     @Test
     public void testGetAssetInvalid() throws Exception {
         String message = repository.getBadAsset("foo_bar_asset_id", 400);
@@ -343,6 +408,73 @@ public class ApiTest {
         assertTrue(repository.repositoryIsEmpty());
     }
 
+    /**
+     * Tests that asset and asset list responses carry an ETag, and that a conditional GET returns
+     * 304 until the asset is changed
+     */
+    @Test
+    public void testConditionalGet() throws Exception {
+        Asset testAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String assetUrl = "/assets/" + testAsset.get_id();
+
+        String assetETag = getETag(assetUrl);
+        String listETag = getETag("/assets");
+        doGetIfNoneMatch(assetUrl, assetETag, 304);
+        doGetIfNoneMatch("/assets", listETag, 304);
+
+        repository.updateAssetState(testAsset.get_id(), Asset.StateAction.PUBLISH, 200);
+        doGetIfNoneMatch(assetUrl, assetETag, 200);
+        doGetIfNoneMatch("/assets", listETag, 200);
+    }
+
+    private String getETag(String url) throws IOException {
+        try (CloseableHttpResponse response = repository.doRawGet(url)) {
+            EntityUtils.consume(response.getEntity());
+            Header etagHeader = response.getFirstHeader("ETag");
+            assertNotNull("No ETag returned for " + url, etagHeader);
+            return etagHeader.getValue();
+        }
+    }
+
+    private void doGetIfNoneMatch(String url, String etag, int expectedStatusCode) throws IOException {
+        HttpGet get = new HttpGet(repository.getFullURL() + url);
+        get.setHeader("If-None-Match", etag);
+        repository.doRequest(get, expectedStatusCode);
+    }
+
+    /**
+     * Tests retrieving part of the content of an attachment with a Range header
+     */
+    @Test
+    public void testAttachmentContentRange() throws Exception {
+        Asset returnedAsset = repository.addAssetNoAttachments(AssetUtils.getTestAsset());
+        String attachmentName = "attachment.txt";
+        byte[] content = "0123456789abcdefghij".getBytes("UTF-8");
+
+        Attachment createdAttachment = repository.doPostAttachmentWithContent(returnedAsset.get_id(),
+                                                                              attachmentName,
+                                                                              AssetUtils.getTestAttachmentWithContent(),
+                                                                              content,
+                                                                              ContentType.APPLICATION_OCTET_STREAM);
+        String assetId = returnedAsset.get_id();
+        String attachmentId = createdAttachment.get_id();
+
+        byte[] middle = repository.doGetAttachmentContentRange(assetId, attachmentId, attachmentName, "bytes=5-9", 206);
+        assertArrayEquals("56789".getBytes("UTF-8"), middle);
+
+        byte[] tail = repository.doGetAttachmentContentRange(assetId, attachmentId, attachmentName, "bytes=15-", 206);
+        assertArrayEquals("fghij".getBytes("UTF-8"), tail);
+
+        byte[] suffix = repository.doGetAttachmentContentRange(assetId, attachmentId, attachmentName, "bytes=-3", 206);
+        assertArrayEquals("hij".getBytes("UTF-8"), suffix);
+
+        repository.doGetAttachmentContentRange(assetId, attachmentId, attachmentName, "bytes=20-", 416);
+
+        // Multiple ranges are not supported, so the whole content is returned
+        byte[] whole = repository.doGetAttachmentContentRange(assetId, attachmentId, attachmentName, "bytes=0-1,5-6", 200);
+        assertArrayEquals(content, whole);
+    }
+
     /**
      * Tests taking an attachment through create -> retrieve -> delete lifecycle.
      */
@@ -156,6 +156,8 @@ public class AssetUtils {
         clone.getProperties().remove(Attachment.GRIDFS_ID);
         assertEquals("attachment size should match size of uploaded content", size, actual.getSize());
         clone.getProperties().remove(Attachment.SIZE);
+        assertNotNull("attachment should have a SHA-256 hash", actual.getSha256());
+        clone.getProperties().remove(Attachment.SHA256);
         clone.getProperties().remove(Attachment.UPLOAD_ON);
 
         assertEquals(message, expected, clone);
@@ -22,6 +22,7 @@ import static com.ibm.ws.lars.rest.matchers.ServerAssetByIdMatcher.assetsWithIds
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -35,8 +36,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -44,15 +51,18 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.ibm.ws.lars.rest.Condition.Operation;
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
 import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.mongo.GridFSContentStore;
 import com.ibm.ws.lars.rest.mongo.PersistenceBean;
 import com.ibm.ws.lars.testutils.BasicChecks;
 import com.ibm.ws.lars.testutils.FatUtils;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
 import com.mongodb.MongoClient;
 import com.mongodb.WriteConcern;
@@ -67,6 +77,7 @@ public class PersistenceBeanTest {
 
     private MongoClient mongoClient;
     private PersistenceBean persistenceBean;
+    private GridFSContentStore contentStore;
     private DB db;
 
     // We needed to mock the logger here because something about running other jmockit tests
@@ -98,14 +109,14 @@ public class PersistenceBeanTest {
         dbField.setAccessible(true);
         dbField.set(persistenceBean, db);
 
-        // This is a @PostConstruct method so must call it
-        persistenceBean.createGridFS();
+        contentStore = new GridFSContentStore(db);
 
         // Ensure we start the test with nothing in the DB
         db.dropDatabase();
 
         // Mainly to make sure there is text index for the search tests.
         persistenceBean.initialize();
+        contentStore.initialize();
 
     }
 
@@ -164,6 +175,39 @@ public class PersistenceBeanTest {
 
     }
 
+    /**
+     * Tests that some fields of an asset can be updated, but only while the asset has the expected
+     * values.
+     */
+    @Test
+    public void testUpdateAssetFields() throws Exception {
+        Asset asset = new Asset();
+        asset.getProperties().put("name", "my name");
+        asset.getProperties().put("state", "draft");
+        String id = persistenceBean.createAsset(asset).get_id();
+
+        Map<String, Object> expected = Collections.<String, Object> singletonMap("state", "draft");
+        Asset updated = persistenceBean.updateAssetFields(id, expected, Collections.<String, Object> singletonMap("state", "awaiting_approval"));
+        assertEquals("The field should have been updated", "awaiting_approval", updated.getProperty("state"));
+        assertEquals("Other fields should be unchanged", "my name", updated.getProperty("name"));
+        assertEquals("The update should be stored", updated, persistenceBean.retrieveAsset(id));
+
+        try {
+            persistenceBean.updateAssetFields(id, expected, Collections.<String, Object> singletonMap("state", "published"));
+            fail("The update should fail as the asset no longer has the expected state");
+        } catch (AssetConflictException e) {
+            // expected
+        }
+        assertEquals("A failed update should not change the asset", "awaiting_approval", persistenceBean.retrieveAsset(id).getProperty("state"));
+
+        try {
+            persistenceBean.updateAssetFields(ApiTest.NON_EXISTENT_ID, expected, Collections.<String, Object> singletonMap("state", "published"));
+            fail("The update should fail as the asset doesn't exist");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+    }
+
     /**
      * Tests that attachment (JSON) metadata can be stored in and retrieved from the
      * PersistenceBean.
@@ -190,18 +234,114 @@ public class PersistenceBeanTest {
     @Test
     public void testStoreAndRetrieveAttachmentContent() throws IOException, NonExistentArtefactException {
         byte[] content = "This is a very small amount of content".getBytes();
-        AttachmentContentMetadata contentMetadata = persistenceBean.createAttachmentContent("MrAttachment.txt",
+        AttachmentContentMetadata contentMetadata = contentStore.createAttachmentContent("MrAttachment.txt",
                                                                                             "test/plain",
                                                                                             new ByteArrayInputStream(content));
         assertNotNull(contentMetadata.filename);
         assertEquals(content.length, contentMetadata.length);
+        assertEquals(ContentHash.toHex(ContentHash.newSha256().digest(content)), contentMetadata.sha256);
 
-        try (InputStream contentStream = persistenceBean.retrieveAttachmentContent(contentMetadata.filename).getContentStream()) {
+        try (InputStream contentStream = contentStore.retrieveAttachmentContent(contentMetadata.filename).getContentStream()) {
             byte[] returnedContent = BasicChecks.slurp(contentStream);
             assertTrue(Arrays.equals(content, returnedContent));
         }
     }
 
+    /**
+     * Tests that identical attachment content is only stored once, and is only removed when it has
+     * been deleted by every attachment which shares it.
+     */
+    @Test
+    public void testSharedAttachmentContent() throws IOException, NonExistentArtefactException {
+        byte[] content = "This content is uploaded twice".getBytes();
+        AttachmentContentMetadata first = contentStore.createAttachmentContent("first.txt", "text/plain", new ByteArrayInputStream(content));
+        AttachmentContentMetadata second = contentStore.createAttachmentContent("second.txt", "text/plain", new ByteArrayInputStream(content));
+        AttachmentContentMetadata different = contentStore.createAttachmentContent("different.txt", "text/plain",
+                                                                                      new ByteArrayInputStream("Different content".getBytes()));
+
+        assertEquals("Identical content should be shared", first.filename, second.filename);
+        assertFalse("Different content should not be shared", first.filename.equals(different.filename));
+        assertEquals(content.length, second.length);
+
+        contentStore.deleteAttachmentContent(first.filename);
+        try (InputStream contentStream = contentStore.retrieveAttachmentContent(second.filename).getContentStream()) {
+            assertTrue("Content should remain while it is still referenced", Arrays.equals(content, BasicChecks.slurp(contentStream)));
+        }
+
+        contentStore.deleteAttachmentContent(second.filename);
+        try {
+            contentStore.retrieveAttachmentContent(second.filename);
+            fail("Content should be removed when the last reference is deleted");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that identical content uploaded at the same time on several threads is still only
+     * stored once.
+     */
+    @Test
+    public void testConcurrentSharedAttachmentContent() throws Exception {
+        final byte[] content = "This content is uploaded on several threads at once".getBytes();
+        final int uploads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Callable<AttachmentContentMetadata>> tasks = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                tasks.add(new Callable<AttachmentContentMetadata>() {
+                    @Override
+                    public AttachmentContentMetadata call() {
+                        return contentStore.createAttachmentContent("concurrent.txt", "text/plain", new ByteArrayInputStream(content));
+                    }
+                });
+            }
+            Set<String> filenames = new HashSet<>();
+            for (Future<AttachmentContentMetadata> future : executor.invokeAll(tasks)) {
+                filenames.add(future.get().filename);
+            }
+            assertEquals("Identical content should be shared", 1, filenames.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String hash = ContentHash.toHex(ContentHash.newSha256().digest(content));
+        assertEquals("Only one copy of the content should be stored", 1, db.getCollection("fs.files").count(new BasicDBObject(Attachment.SHA256, hash)));
+    }
+
+    /**
+     * Tests that deleting several pieces of content at once releases one reference for each id
+     * given, including ids which are given more than once.
+     */
+    @Test
+    public void testDeleteAttachmentContents() throws IOException, NonExistentArtefactException {
+        byte[] sharedContent = "This content is shared three times".getBytes();
+        AttachmentContentMetadata first = contentStore.createAttachmentContent("first.txt", "text/plain", new ByteArrayInputStream(sharedContent));
+        AttachmentContentMetadata second = contentStore.createAttachmentContent("second.txt", "text/plain", new ByteArrayInputStream(sharedContent));
+        AttachmentContentMetadata third = contentStore.createAttachmentContent("third.txt", "text/plain", new ByteArrayInputStream(sharedContent));
+        AttachmentContentMetadata single = contentStore.createAttachmentContent("single.txt", "text/plain",
+                                                                                   new ByteArrayInputStream("Unshared content".getBytes()));
+
+        contentStore.deleteAttachmentContents(Arrays.asList(first.filename, second.filename, single.filename));
+        try (InputStream contentStream = contentStore.retrieveAttachmentContent(third.filename).getContentStream()) {
+            assertTrue("Content should remain while it is still referenced", Arrays.equals(sharedContent, BasicChecks.slurp(contentStream)));
+        }
+        try {
+            contentStore.retrieveAttachmentContent(single.filename);
+            fail("Unshared content should have been removed");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+
+        contentStore.deleteAttachmentContents(Collections.singletonList(third.filename));
+        try {
+            contentStore.retrieveAttachmentContent(third.filename);
+            fail("Content should be removed when the last reference is deleted");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+    }
+
     /**
      * Verifies that an exception is thrown when we attempt to retrieve a non-existent asset.
      */
@@ -225,7 +365,33 @@ public class PersistenceBeanTest {
      */
     @Test(expected = NonExistentArtefactException.class)
     public void testRetrieveNonExistentAttachmentContent() throws NonExistentArtefactException {
-        persistenceBean.retrieveAttachmentContent("123456789012345678901234");
+        contentStore.retrieveAttachmentContent("123456789012345678901234");
+    }
+
+    /**
+     * Tests that the filters used by the client to find the assets for a product are answered
+     * from an index, and that an asset which has both of the array fields which are indexed can be
+     * stored.
+     */
+    @Test
+    public void testFilteredQueryUsesIndex() throws Exception {
+        Asset feature = persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"feature\", \"type\":\"com.ibm.websphere.Feature\", \"state\":\"published\","
+                                                                                   + " \"wlpInformation\":{\"provideFeature\":[\"feature-1.0\"],"
+                                                                                   + " \"appliesToFilterInfo\":[{\"productId\":\"com.ibm.websphere.appserver\"},"
+                                                                                   + " {\"productId\":\"com.ibm.websphere.other\"}]}}"));
+
+        List<AssetFilter> filters = new ArrayList<>();
+        filters.add(new AssetFilter("type", Arrays.asList(eq("com.ibm.websphere.Feature"))));
+        filters.add(new AssetFilter("state", Arrays.asList(eq("published"))));
+        filters.add(new AssetFilter("wlpInformation.appliesToFilterInfo.productId", Arrays.asList(eq("com.ibm.websphere.appserver"))));
+
+        List<Asset> assets = readAll(persistenceBean.retrieveAllAssets(filters, null, null, null));
+        assertEquals(1, assets.size());
+        assertEquals(feature.get_id(), assets.get(0).get_id());
+
+        Map<String, Object> plan = persistenceBean.explainQuery(filters, null, null);
+        assertTrue("Query should use an index: " + plan, plan.toString().contains("IXSCAN"));
+        assertFalse("Query should not scan the collection: " + plan, plan.toString().contains("COLLSCAN"));
     }
 
     @Test
@@ -436,6 +602,53 @@ public class PersistenceBeanTest {
         assertThat("Wrong list of possible names with searchTerm=hot", searchNames, containsInAnyOrder((Object) "hot and flat", "hot and hilly"));
     }
 
+    @Test
+    public void testGetDistinctValueCounts() throws InvalidJsonAssetException {
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"weather\":\"hot\", \"ground\":\"flat\", \"name\":\"hot and flat\"}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"weather\":\"hot\", \"ground\":\"hilly\", \"name\":\"hot and hilly\"}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"weather\":\"cold\", \"ground\":\"flat\"}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"weather\":\"warm\", \"ground\":\"flat\", \"name\":\"warm and flat\", \"tags\":[\"sunny\", \"dry\"]}"));
+
+        List<String> fields = Arrays.asList("weather", "name", "tags");
+        List<AssetFilter> filters = Collections.emptyList();
+        Map<String, Map<Object, Integer>> counts = persistenceBean.getDistinctValueCounts(fields, filters, null);
+
+        Map<Object, Integer> expectedWeathers = new HashMap<>();
+        expectedWeathers.put("hot", 2);
+        expectedWeathers.put("cold", 1);
+        expectedWeathers.put("warm", 1);
+        assertEquals("Wrong weather counts", expectedWeathers, counts.get("weather"));
+
+        Map<Object, Integer> expectedTags = new HashMap<>();
+        expectedTags.put("sunny", 1);
+        expectedTags.put("dry", 1);
+        assertEquals("Wrong tag counts", expectedTags, counts.get("tags"));
+        assertThat("Wrong list of possible names", counts.get("name").keySet(), containsInAnyOrder((Object) "hot and flat", "hot and hilly", "warm and flat"));
+
+        filters = new ArrayList<>();
+        filters.add(new AssetFilter("ground", Arrays.asList(eq("flat"))));
+        counts = persistenceBean.getDistinctValueCounts(fields, filters, "hot");
+        assertEquals("Wrong weather counts with ground=flat and searchTerm=hot", Collections.singletonMap((Object) "hot", 1), counts.get("weather"));
+        assertEquals("Wrong tag counts with ground=flat and searchTerm=hot", Collections.emptyMap(), counts.get("tags"));
+    }
+
+    @Test
+    public void testGetDistinctValueCountsThroughArray() throws InvalidJsonAssetException {
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"wlpInformation\":{\"appliesToFilterInfo\":["
+                                                                   + "{\"minVersion\":{\"value\":\"8.5.5.6\"}},{\"minVersion\":{\"value\":\"8.5.5.7\"}}]}}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"wlpInformation\":{\"appliesToFilterInfo\":["
+                                                                   + "{\"minVersion\":{\"value\":\"8.5.5.6\"}}]}}"));
+        persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"no appliesTo\"}"));
+
+        String field = "wlpInformation.appliesToFilterInfo.minVersion.value";
+        List<AssetFilter> filters = Collections.emptyList();
+        Map<String, Map<Object, Integer>> counts = persistenceBean.getDistinctValueCounts(Collections.singletonList(field), filters, null);
+
+        assertThat("Values inside the array should be found", counts.get(field).keySet(), containsInAnyOrder((Object) "8.5.5.6", "8.5.5.7"));
+        assertThat("The values should be the same as distinct returns", counts.get(field).keySet(),
+                   containsInAnyOrder(persistenceBean.getDistinctValues(field, filters, null).toArray()));
+    }
+
     @Test
     public void testPagination() throws Exception {
         Asset asset1 = persistenceBean.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"asset1\"}"));
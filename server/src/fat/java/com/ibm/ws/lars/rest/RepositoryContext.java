@@ -409,6 +409,20 @@ public class RepositoryContext extends ExternalResource {
         return AssetList.jsonArrayToAssetList(response);
     }
 
+    protected AssetList doBatchGetAssets(List<String> assetIds, int expectedRC) throws IOException, InvalidJsonAssetException {
+        String response = doPost("/assets/batchGet", jsonReader.writeValueAsString(assetIds), expectedRC);
+        return AssetList.jsonArrayToAssetList(response);
+    }
+
+    protected AssetList doBatchCreateAssets(List<Asset> assets) throws IOException, InvalidJsonAssetException {
+        List<Map<String, Object>> assetStates = new ArrayList<>();
+        for (Asset asset : assets) {
+            assetStates.add(asset.getProperties());
+        }
+        String response = doPost("/assets/batchCreate", jsonReader.writeValueAsString(assetStates), 200);
+        return AssetList.jsonArrayToAssetList(response);
+    }
+
     protected AssetList doGetAllAssets() throws IOException, InvalidJsonAssetException, ParseException {
         return doGetAllAssets(200);
     }
@@ -627,6 +641,20 @@ public class RepositoryContext extends ExternalResource {
         return doGetAttachmentContent(assetId, attachmentId, attachmentName, 200);
     }
 
+    /**
+     * Retrieves part of the content of an attachment by sending a <code>Range</code> header.
+     */
+    protected byte[] doGetAttachmentContentRange(String assetId, String attachmentId, String attachmentName, String range, int expectedRC) throws IOException {
+        HttpGet get = new HttpGet(fullURL + "/assets/" + assetId + "/attachments/" + attachmentId + "/" + attachmentName);
+        get.setConfig(requestConfig);
+        get.setHeader("Range", range);
+
+        try (CloseableHttpResponse response = httpClient.execute(targetHost, get, httpClientContext)) {
+            assertStatusCode(expectedRC, response);
+            return response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+        }
+    }
+
     protected void doDeleteAttachment(String assetId, String attachmentId) throws ClientProtocolException, IOException {
         doDeleteAttachment(assetId, attachmentId, 204);
     }
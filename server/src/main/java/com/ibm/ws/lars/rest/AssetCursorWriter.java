@@ -25,6 +25,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 
@@ -36,6 +37,11 @@ public class AssetCursorWriter implements MessageBodyWriter<AssetCursor> {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    /**
+     * The number of assets to write between each flush of the response
+     */
+    private static final int FLUSH_INTERVAL = 100;
+
     /** {@inheritDoc} */
     @Override
     public long getSize(AssetCursor arg0, Class<?> arg1, Type arg2, Annotation[] arg3, MediaType arg4) {
@@ -52,8 +58,9 @@ public class AssetCursorWriter implements MessageBodyWriter<AssetCursor> {
     @Override
     public void writeTo(AssetCursor cursor, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
                         OutputStream entityStream) throws IOException {
-        try (AssetCursor cursorToBeClosed = cursor) {
-            MAPPER.writeValue(entityStream, cursorToBeClosed);
+        try (AssetCursor cursorToBeClosed = cursor;
+                JsonGenerator generator = MAPPER.getFactory().createGenerator(entityStream)) {
+            cursorToBeClosed.writeJson(generator, FLUSH_INTERVAL);
         }
     }
 }
@@ -46,6 +46,7 @@ public class AssetQueryParameters {
 
     private static final String LIMIT_PARAM = "limit";
     private static final String OFFSET_PARAM = "offset";
+    private static final String CONTINUATION_PARAM = "continuation";
     private static final String FIELDS_PARAM = "fields";
     private static final String APIKEY_PARAM = "apiKey";
     private static final String SEARCH_PARAM = "q";
@@ -57,7 +58,7 @@ public class AssetQueryParameters {
     private static final String SORT_BY_DESC = "DESC";
 
     private static final Set<String> NON_QUERY_PARAMS = new HashSet<>(
-            Arrays.asList(LIMIT_PARAM, OFFSET_PARAM, FIELDS_PARAM, APIKEY_PARAM, SEARCH_PARAM, SORT_ORDER_PARAM, SORT_BY_PARAM));
+            Arrays.asList(LIMIT_PARAM, OFFSET_PARAM, CONTINUATION_PARAM, FIELDS_PARAM, APIKEY_PARAM, SEARCH_PARAM, SORT_ORDER_PARAM, SORT_BY_PARAM));
 
     private AssetQueryParameters(Map<String, String> params) {
         this.params = params;
@@ -165,14 +166,24 @@ public class AssetQueryParameters {
      * <p>
      * If both parameters are present but are not both integers, an InvalidParameterException is
      * thrown
+     * <p>
+     * If the continuation parameter is present, keyset pagination is used instead and the limit
+     * parameter must be provided without the offset parameter. An empty continuation parameter
+     * requests the first page.
      *
-     * @return a PaginationOptions if both limit and offset parameters are provided, otherwise null
+     * @return a PaginationOptions if both limit and offset parameters are provided, or if limit and
+     *         continuation parameters are provided, otherwise null
      * @throws InvalidParameterException if limit and offset parameters are provided but are not
-     *             integers
+     *             integers, or if the continuation parameter is not valid
      */
     public PaginationOptions getPagination() throws InvalidParameterException {
         String limitString = params.get(LIMIT_PARAM);
         String offsetString = params.get(OFFSET_PARAM);
+        String continuationString = params.get(CONTINUATION_PARAM);
+
+        if (continuationString != null) {
+            return getKeysetPagination(limitString, offsetString, continuationString);
+        }
 
         if (limitString == null && offsetString == null) {
             return null;
@@ -200,6 +211,34 @@ public class AssetQueryParameters {
         return new PaginationOptions(offset, limit);
     }
 
+    private PaginationOptions getKeysetPagination(String limitString, String offsetString, String continuationString) throws InvalidParameterException {
+        if (offsetString != null) {
+            throw new InvalidParameterException(OFFSET_PARAM + " must not be provided if " + CONTINUATION_PARAM + " is provided");
+        }
+
+        if (limitString == null) {
+            throw new InvalidParameterException("If " + CONTINUATION_PARAM + " is provided then " + LIMIT_PARAM + " must also be provided");
+        }
+
+        if (getSearchTerm() != null && params.get(SORT_BY_PARAM) == null) {
+            throw new InvalidParameterException(CONTINUATION_PARAM + " may only be used with " + SEARCH_PARAM + " if " + SORT_BY_PARAM + " is also provided");
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(limitString);
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException(LIMIT_PARAM + " must be an integer");
+        }
+
+        ContinuationToken continuation = null;
+        if (!continuationString.isEmpty()) {
+            continuation = ContinuationToken.decode(continuationString);
+        }
+
+        return new PaginationOptions(limit, continuation);
+    }
+
     /**
      * @return the search term parameter, or null if it was not set or is blank
      */
@@ -220,6 +259,27 @@ public class AssetQueryParameters {
         return params.get(FIELDS_PARAM);
     }
 
+    /**
+     * Parses the fields parameter as a comma separated list of field names.
+     *
+     * @return the list of field names, or null if the fields parameter was not set or is blank
+     */
+    public List<String> getFieldList() {
+        String fieldsString = params.get(FIELDS_PARAM);
+
+        if (fieldsString == null || fieldsString.isEmpty()) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        for (String field : fieldsString.split(",")) {
+            if (!field.isEmpty()) {
+                fields.add(field);
+            }
+        }
+        return fields.isEmpty() ? null : fields;
+    }
+
     /**
      * @return SortOptions describing how the results should be sorted or null if the results should
      *         not be sorted
@@ -21,6 +21,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -31,10 +32,10 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.ws.rs.core.UriInfo;
 
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
-import com.ibm.ws.lars.rest.exceptions.RepositoryException;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
@@ -53,9 +54,15 @@ import com.ibm.ws.lars.rest.model.RepositoryResourceLifecycleException;
 @ApplicationScoped
 public class AssetServiceLayer {
 
+    /** How many times a state change is attempted when the asset is being changed concurrently */
+    static final int MAX_UPDATE_ATTEMPTS = 5;
+
     @Inject
     private Persistor persistenceBean;
 
+    @Inject
+    private AttachmentContentStore contentStore;
+
     @Inject
     private Configuration configuration;
 
@@ -73,6 +80,13 @@ public class AssetServiceLayer {
         return persistenceBean.retrieveAllAssets(filters, searchTerm, pagination, sortOptions);
     }
 
+    /**
+     * @see Persistor#retrieveAllAssets(Collection,String, PaginationOptions, SortOptions, List)
+     */
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions, List<String> fields) {
+        return persistenceBean.retrieveAllAssets(filters, searchTerm, pagination, sortOptions, fields);
+    }
+
     /**
      * @see Persistor#countAllAssets(Collection, String)
      */
@@ -80,6 +94,20 @@ public class AssetServiceLayer {
         return persistenceBean.countAllAssets(filters, searchTerm);
     }
 
+    /**
+     * @see Persistor#explainQuery(Collection, String, SortOptions)
+     */
+    public Map<String, Object> explainAssetQuery(Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions) {
+        return persistenceBean.explainQuery(filters, searchTerm, sortOptions);
+    }
+
+    /**
+     * @see Persistor#getAssetListVersion()
+     */
+    public long getAssetListVersion() {
+        return persistenceBean.getAssetListVersion();
+    }
+
     /**
      * Summarizes a list of fields from the assets matched by the given filters and search term.
      * <p>
@@ -106,8 +134,9 @@ public class AssetServiceLayer {
     public List<Map<String, Object>> summarizeAssets(List<String> fields, Collection<AssetFilter> filters, String searchTerm) {
         List<Map<String, Object>> result = new ArrayList<>();
 
+        Map<String, Map<Object, Integer>> valueCounts = persistenceBean.getDistinctValueCounts(fields, filters, searchTerm);
         for (String field : fields) {
-            List<Object> values = persistenceBean.getDistinctValues(field, filters, searchTerm);
+            List<Object> values = new ArrayList<>(valueCounts.get(field).keySet());
             Map<String, Object> resultMap = new HashMap<>();
             resultMap.put("filterName", field);
             resultMap.put("filterValue", values);
@@ -136,6 +165,40 @@ public class AssetServiceLayer {
         return persistenceBean.createAsset(newAsset);
     }
 
+    /**
+     * Create many assets with a single write to the database.
+     * <p>
+     * Every asset is checked before any are created, so if any of the assets is invalid then none
+     * of them are created.
+     *
+     * @param assets the assets to create
+     * @param creatorName the name of the user creating the assets
+     * @return the created assets, in the same order as <code>assets</code>
+     * @throws InvalidJsonAssetException if any of the assets can't be created
+     */
+    public List<Asset> createAssets(List<Asset> assets, String creatorName) throws InvalidJsonAssetException {
+        String now = IsoDate.format(new Date());
+        List<Asset> newAssets = new ArrayList<>(assets.size());
+        for (int i = 0; i < assets.size(); i++) {
+            Asset newAsset = new Asset(assets.get(i));
+            try {
+                verifyNewAsset(newAsset);
+            } catch (InvalidJsonAssetException e) {
+                throw new InvalidJsonAssetException("asset " + i + ": " + e.getMessage());
+            }
+            newAsset.setCreatedOn(now);
+            newAsset.setLastUpdatedOn(now);
+            newAsset.setCreatedBy(creatorName);
+            newAsset.getProperties().put("state", Asset.State.DRAFT.getValue());
+            newAssets.add(newAsset);
+        }
+
+        if (newAssets.isEmpty()) {
+            return newAssets;
+        }
+        return persistenceBean.createAssets(newAssets);
+    }
+
     /**
      * @param assetId
      * @return
@@ -154,6 +217,44 @@ public class AssetServiceLayer {
         return asset;
     }
 
+    /**
+     * Retrieve many assets, each with its attachments, using one query for the assets and one for
+     * their attachments.
+     *
+     * @param assetIds the ids of the assets to retrieve
+     * @return the assets which exist, in the order in which their ids were given
+     */
+    public List<Asset> retrieveAssets(Collection<String> assetIds, UriInfo uriInfo) {
+        Map<String, Asset> assetsById = new HashMap<>();
+        for (Asset asset : persistenceBean.retrieveAssets(assetIds)) {
+            assetsById.put(asset.get_id(), asset);
+        }
+
+        Map<String, List<Map<String, Object>>> attachmentsByAsset = new HashMap<>();
+        if (!assetsById.isEmpty()) {
+            for (Attachment attachment : persistenceBean.findAttachmentsForAssets(assetsById.keySet())) {
+                computeAttachmentURL(attachment, uriInfo);
+                List<Map<String, Object>> attachments = attachmentsByAsset.get(attachment.getAssetId());
+                if (attachments == null) {
+                    attachments = new ArrayList<>();
+                    attachmentsByAsset.put(attachment.getAssetId(), attachments);
+                }
+                attachments.add(attachment.getProperties());
+            }
+        }
+
+        List<Asset> results = new ArrayList<>(assetsById.size());
+        for (String assetId : assetIds) {
+            // remove, so that an id which is requested twice is only returned once
+            Asset asset = assetsById.remove(assetId);
+            if (asset != null) {
+                asset.setAttachments(AttachmentList.createAttachmentListFromMaps(attachmentsByAsset.get(assetId)));
+                results.add(asset);
+            }
+        }
+        return results;
+    }
+
     /**
      * @param assetId
      * @param asset
@@ -162,36 +263,43 @@ public class AssetServiceLayer {
      * @throws NonExistentArtefactException
      */
     public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException {
-        Asset existingAsset = persistenceBean.retrieveAsset(assetId);
-        if (existingAsset == null) {
-            throw new NonExistentArtefactException(assetId, RepositoryRESTResource.ArtefactType.ASSET);
-        }
+        // The persistence layer checks that the asset exists as part of the update
         return persistenceBean.updateAsset(assetId, asset);
     }
 
     /**
      * Throws an exception if the state transition is invalid.
+     * <p>
+     * Only the state and last updated date of the asset are written, and only if the state hasn't
+     * been changed since the asset was read. If another request changes the state first, the
+     * action is checked again against the new state.
      *
      * @param action
      * @param id
      *
      * @throws RepositoryResourceLifecycleException
+     * @throws AssetConflictException if the asset kept being changed by other requests
      */
-    public void updateAssetState(Asset.StateAction action, String id) throws RepositoryResourceLifecycleException, NonExistentArtefactException {
-        Asset existingAsset = persistenceBean.retrieveAsset(id);
-
-        action.performAction(existingAsset);
-        existingAsset.setLastUpdatedOn(IsoDate.format(new Date()));
-
-        try {
-            persistenceBean.updateAsset(id, existingAsset);
-        } catch (InvalidJsonAssetException e) {
-            // This should never happen, as the asset was retrieved from the persistence layer,
-            // and the only changes were by us. Don't percolate the json exception, as that would
-            // make it look like user error.
-            throw new RepositoryException("JSON retrieved from asset store could not be save back again", e);
+    public void updateAssetState(Asset.StateAction action, String id) throws RepositoryResourceLifecycleException, NonExistentArtefactException, AssetConflictException {
+        for (int attempt = 1;; attempt++) {
+            Asset existingAsset = persistenceBean.retrieveAsset(id);
+            String originalState = existingAsset.getState().getValue();
+
+            action.performAction(existingAsset);
+
+            Map<String, Object> newValues = new HashMap<>();
+            newValues.put(Asset.STATE, existingAsset.getState().getValue());
+            newValues.put(Asset.LAST_UPDATED_ON, IsoDate.format(new Date()));
+
+            try {
+                persistenceBean.updateAssetFields(id, Collections.<String, Object> singletonMap(Asset.STATE, originalState), newValues);
+                return;
+            } catch (AssetConflictException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
         }
-
     }
 
     /**
@@ -203,9 +311,20 @@ public class AssetServiceLayer {
         // Retrieve the asset to ensure it exists
         persistenceBean.retrieveAsset(assetId);
 
-        // Delete all attachments belonging to the asset
-        for (Attachment attachment : persistenceBean.findAttachmentsForAsset(assetId)) {
-            deleteAttachment(attachment.get_id());
+        // Delete all attachments belonging to the asset, releasing their content together and
+        // then removing their metadata together
+        AttachmentList attachments = persistenceBean.findAttachmentsForAsset(assetId);
+        if (attachments.size() > 0) {
+            List<String> contentIds = new ArrayList<>();
+            for (Attachment attachment : attachments) {
+                if (attachment.getGridFSId() != null) {
+                    contentIds.add(attachment.getGridFSId());
+                }
+            }
+            if (!contentIds.isEmpty()) {
+                contentStore.deleteAttachmentContents(contentIds);
+            }
+            persistenceBean.deleteAttachmentMetadataForAsset(assetId);
         }
 
         // Delete the asset itself
@@ -239,7 +358,7 @@ public class AssetServiceLayer {
 
         // Create the attachment content
         if (attachmentContentStream != null) {
-            AttachmentContentMetadata contentMetadata = persistenceBean.createAttachmentContent(name, contentType, attachmentContentStream);
+            AttachmentContentMetadata contentMetadata = contentStore.createAttachmentContent(name, contentType, attachmentContentStream);
 
             // TODO perhaps we should try to clean up after ourselves and delete the attachmentMetadata
             // TODO seriously, this is one of the places where we reaslise that using a DB that doesn't
@@ -247,6 +366,7 @@ public class AssetServiceLayer {
 
             attachmentMetadata.setGridFSId(contentMetadata.filename);
             attachmentMetadata.setSize(contentMetadata.length);
+            attachmentMetadata.setSha256(contentMetadata.sha256);
         }
 
         Attachment returnedAttachment = persistenceBean.createAttachmentMetadata(attachmentMetadata);
@@ -316,7 +436,7 @@ public class AssetServiceLayer {
         try {
             Attachment attachment = persistenceBean.retrieveAttachmentMetadata(attachmentId);
             if (attachment.getGridFSId() != null) {
-                persistenceBean.deleteAttachmentContent(attachment.getGridFSId());
+                contentStore.deleteAttachmentContent(attachment.getGridFSId());
             }
             persistenceBean.deleteAttachmentMetadata(attachmentId);
         } catch (NonExistentArtefactException ex) {
@@ -343,7 +463,14 @@ public class AssetServiceLayer {
 
         String gridFSId = attachmentMetadata.getGridFSId();
 
-        return persistenceBean.retrieveAttachmentContent(gridFSId);
+        AttachmentContentResponse content = contentStore.retrieveAttachmentContent(gridFSId);
+
+        // The content may be shared with an attachment that was uploaded with a different type
+        String contentType = attachmentMetadata.getContentType();
+        if (content != null && contentType != null && !contentType.equals(content.getContentType())) {
+            content.setContentType(contentType);
+        }
+        return content;
     }
 
     /**
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.InputStream;
+import java.util.Collection;
+
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+
+/**
+ * Interface to a store for the content of attachments.
+ * <p>
+ * The metadata of assets and attachments is held by a {@link Persistor}, which records the id of
+ * each attachment's content in the attachment's gridFSId field. The store which holds the content
+ * is chosen by {@link AttachmentContentStoreProducer}.
+ */
+public interface AttachmentContentStore {
+
+    /**
+     * Creates attachment content (ie file contents) in the store.
+     * <p>
+     * Identical content may be shared between attachments, in which case the returned metadata
+     * refers to content that already exists.
+     *
+     * @throws AssetPersistenceException
+     */
+    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException;
+
+    /**
+     * Returns the content of the specified attachment.
+     * <p>
+     * Writing a range of bytes from the middle of the content with
+     * {@link AttachmentContentResponse#write(java.io.OutputStream, long, long)} should be cheap,
+     * so that part of a large attachment can be returned efficiently.
+     *
+     * @throws NonExistentArtefactException
+     */
+    public AttachmentContentResponse retrieveAttachmentContent(String contentId) throws NonExistentArtefactException;
+
+    /**
+     * Deletes the attachment content with the given id. Caller should also delete the attachment
+     * metadata.
+     * <p>
+     * If the content is shared with other attachments, it is only removed once it has been deleted
+     * for each of them.
+     */
+    public void deleteAttachmentContent(String contentId);
+
+    /**
+     * Deletes the attachment content with each of the given ids, in the same way as
+     * {@link #deleteAttachmentContent(String)}. Stores should delete the content with as few
+     * operations as they can, as this is used to delete all of the attachments of an asset.
+     * <p>
+     * An id which appears more than once is deleted once for each time it appears.
+     */
+    public void deleteAttachmentContents(Collection<String> contentIds);
+
+    /**
+     * Do any work that should be done to initialize the store
+     */
+    public void initialize();
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Produces;
+
+import com.ibm.ws.lars.rest.file.FileContentStore;
+import com.ibm.ws.lars.rest.mongo.GridFSContentStore;
+import com.mongodb.DB;
+
+/**
+ * Creates the {@link AttachmentContentStore} selected by the <code>lars.attachments.store</code>
+ * property.
+ * <ul>
+ * <li><code>gridfs</code> (the default) stores content in GridFS in the LARS database</li>
+ * <li><code>file</code> stores content in the directory given by
+ * <code>lars.attachments.dir</code>. Content already stored in GridFS is still read from there, so
+ * an existing repository can be switched to this store.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class AttachmentContentStoreProducer {
+
+    private static final Logger logger = Logger.getLogger(AttachmentContentStoreProducer.class.getCanonicalName());
+
+    static final String STORE_PROPERTY = "lars.attachments.store";
+    static final String DIR_PROPERTY = "lars.attachments.dir";
+
+    static final String STORE_GRIDFS = "gridfs";
+    static final String STORE_FILE = "file";
+
+    @Produces
+    @ApplicationScoped
+    public AttachmentContentStore createContentStore(DB db) {
+        String store = System.getProperty(STORE_PROPERTY, STORE_GRIDFS).trim();
+
+        if (STORE_FILE.equalsIgnoreCase(store)) {
+            String dir = System.getProperty(DIR_PROPERTY);
+            if (dir == null || dir.trim().isEmpty()) {
+                throw new IllegalStateException(DIR_PROPERTY + " must be set when " + STORE_PROPERTY + "=" + STORE_FILE);
+            }
+            logger.info("createContentStore: storing attachment content in directory " + dir);
+            return new FileContentStore(Paths.get(dir.trim()), new GridFSContentStore(db));
+        } else if (STORE_GRIDFS.equalsIgnoreCase(store)) {
+            logger.info("createContentStore: storing attachment content in GridFS");
+            return new GridFSContentStore(db);
+        } else {
+            throw new IllegalStateException("Unknown value for " + STORE_PROPERTY + ": " + store);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+/**
+ * A single range of bytes requested with an HTTP <code>Range</code> header.
+ * <p>
+ * Only a single range in the <code>bytes</code> unit is supported. Requests for multiple ranges,
+ * or in other units, are ignored and the whole of the content is returned, as permitted by RFC
+ * 7233.
+ */
+public class ByteRange {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long totalLength;
+
+    /**
+     * @param start the offset of the first byte in the range
+     * @param end the offset of the last byte in the range, inclusive
+     * @param totalLength the length of the whole of the content
+     */
+    public ByteRange(long start, long end, long totalLength) {
+        this.start = start;
+        this.end = end;
+        this.totalLength = totalLength;
+    }
+
+    /**
+     * Parse the value of a <code>Range</code> header for content of the given length.
+     * <p>
+     * A range which ends beyond the end of the content is truncated to the end of the content. A
+     * range which starts beyond the end of the content is returned, but is not
+     * {@link #isSatisfiable() satisfiable}.
+     *
+     * @param rangeHeader the value of the Range header, may be null
+     * @param totalLength the length of the content
+     * @return the requested range, or null if the whole of the content should be returned
+     */
+    public static ByteRange parse(String rangeHeader, long totalLength) {
+        if (rangeHeader == null || totalLength < 0) {
+            return null;
+        }
+
+        String header = rangeHeader.trim();
+        if (!header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1 || spec.indexOf(',') != -1) {
+            return null;
+        }
+
+        String startString = spec.substring(0, dash).trim();
+        String endString = spec.substring(dash + 1).trim();
+        try {
+            if (startString.isEmpty()) {
+                // A suffix range, requesting the last N bytes
+                long suffixLength = Long.parseLong(endString);
+                if (suffixLength <= 0) {
+                    return new ByteRange(totalLength, totalLength - 1, totalLength);
+                }
+                return new ByteRange(Math.max(0, totalLength - suffixLength), totalLength - 1, totalLength);
+            }
+
+            long start = Long.parseLong(startString);
+            long end = endString.isEmpty() ? Long.MAX_VALUE : Long.parseLong(endString);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= totalLength) {
+                return new ByteRange(start, start, totalLength);
+            }
+            return new ByteRange(start, Math.min(end, totalLength - 1), totalLength);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the offset of the first byte in the range
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * @return the offset of the last byte in the range, inclusive
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the number of bytes in the range
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return true if at least one byte of the range lies within the content
+     */
+    public boolean isSatisfiable() {
+        return start < totalLength && end >= start;
+    }
+
+    /**
+     * @return the value of the <code>Content-Range</code> header which describes this range
+     */
+    public String toContentRange() {
+        if (isSatisfiable()) {
+            return "bytes " + start + "-" + end + "/" + totalLength;
+        } else {
+            return "bytes */" + totalLength;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return toContentRange();
+    }
+
+}
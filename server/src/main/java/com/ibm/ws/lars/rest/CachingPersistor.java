@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
+import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetCursor;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+
+/**
+ * Decorates the {@link Persistor} with a read-through cache of assets, attachment metadata and the
+ * list of attachments belonging to each asset, so that repeated requests for the same asset, such as
+ * downloads of its attachments, don't need to go to the database each time.
+ * <p>
+ * Every write made through the Persistor invalidates the cached entries it affects. Queries over
+ * many assets are not cached.
+ * <p>
+ * Cached objects are copied on the way in and out, including any maps and lists nested inside them,
+ * as callers are free to modify the objects they are given.
+ * <p>
+ * The cache only sees writes made through this server, so it is only safe to enable when a single
+ * LARS server uses the database. See {@link PersistorCache}.
+ */
+@Decorator
+public class CachingPersistor implements Persistor {
+
+    @Inject
+    @Delegate
+    @Any
+    private Persistor delegate;
+
+    @Inject
+    private PersistorCache cache;
+
+    public CachingPersistor() {}
+
+    /**
+     * Create a CachingPersistor outside of CDI, for tests
+     */
+    CachingPersistor(Persistor delegate, PersistorCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    private static Asset copy(Asset asset) {
+        return new Asset(copyState(asset.getProperties()));
+    }
+
+    private static Attachment copy(Attachment attachment) {
+        return new Attachment(copyState(attachment.getProperties()));
+    }
+
+    private static AttachmentList copy(AttachmentList attachments) {
+        List<Map<String, Object>> state = new ArrayList<>(attachments.size());
+        for (Map<String, Object> attachment : attachments.getState()) {
+            state.add(copyState(attachment));
+        }
+        return AttachmentList.createAttachmentListFromMaps(state);
+    }
+
+    /**
+     * Copies the properties of an object, along with all of the maps and lists nested in them, so
+     * that nothing is shared between the copy and the original.
+     */
+    private static Map<String, Object> copyState(Map<String, Object> state) {
+        Map<String, Object> copy = new LinkedHashMap<>(state.size() * 2);
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyState((Map<String, Object>) value);
+        } else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        } else if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        } else {
+            // Strings, numbers, booleans and the like are immutable
+            return value;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AssetCursor retrieveAllAssets() {
+        return delegate.retrieveAllAssets();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions) {
+        return delegate.retrieveAllAssets(filters, searchTerm, pagination, sortOptions);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions, List<String> fields) {
+        return delegate.retrieveAllAssets(filters, searchTerm, pagination, sortOptions, fields);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
+        return delegate.countAllAssets(filters, searchTerm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> explainQuery(Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions) {
+        return delegate.explainQuery(filters, searchTerm, sortOptions);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm) {
+        return delegate.getDistinctValues(field, filters, searchTerm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(List<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        return delegate.getDistinctValueCounts(fields, filters, searchTerm);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getAssetListVersion() {
+        return delegate.getAssetListVersion();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Asset retrieveAsset(String assetId) throws NonExistentArtefactException {
+        LruCache<String, Asset> assets = cache.getAssets();
+        Asset cached = assets.get(assetId);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long generation = assets.getGeneration();
+        Asset asset = delegate.retrieveAsset(assetId);
+        assets.put(assetId, copy(asset), generation);
+        return asset;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Assets which are cached are returned from the cache, and the rest are retrieved in a single
+     * query.
+     */
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        LruCache<String, Asset> assets = cache.getAssets();
+        List<Asset> results = new ArrayList<>(assetIds.size());
+        Set<String> missing = new LinkedHashSet<>();
+        for (String assetId : new LinkedHashSet<>(assetIds)) {
+            Asset cached = assets.get(assetId);
+            if (cached != null) {
+                results.add(copy(cached));
+            } else {
+                missing.add(assetId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long generation = assets.getGeneration();
+            for (Asset asset : delegate.retrieveAssets(missing)) {
+                assets.put(asset.get_id(), copy(asset), generation);
+                results.add(asset);
+            }
+        }
+        return results;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException {
+        return delegate.createAsset(newAsset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Asset> createAssets(List<Asset> newAssets) throws InvalidJsonAssetException {
+        return delegate.createAssets(newAssets);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException {
+        try {
+            return delegate.updateAsset(assetId, asset);
+        } finally {
+            cache.getAssets().invalidate(assetId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws NonExistentArtefactException, AssetConflictException {
+        try {
+            return delegate.updateAssetFields(assetId, expectedValues, newValues);
+        } finally {
+            // Also invalidate on a conflict, so that a retry reads the asset's current state
+            cache.getAssets().invalidate(assetId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAsset(String assetId) {
+        try {
+            delegate.deleteAsset(assetId);
+        } finally {
+            cache.getAssets().invalidate(assetId);
+            cache.getAssetAttachments().invalidate(assetId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAttachmentMetadataForAsset(String assetId) {
+        // Callers normally list the attachments before deleting them, so they can usually be
+        // found in the cache
+        AttachmentList cached = cache.getAssetAttachments().peek(assetId);
+        try {
+            delegate.deleteAttachmentMetadataForAsset(assetId);
+        } finally {
+            cache.getAssetAttachments().invalidate(assetId);
+            if (cached != null) {
+                for (Attachment attachment : cached) {
+                    cache.getAttachments().invalidate(attachment.get_id());
+                }
+            } else {
+                cache.getAttachments().invalidateAll();
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AttachmentList findAttachmentsForAsset(String assetId) {
+        LruCache<String, AttachmentList> assetAttachments = cache.getAssetAttachments();
+        AttachmentList cached = assetAttachments.get(assetId);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long generation = assetAttachments.getGeneration();
+        AttachmentList attachments = delegate.findAttachmentsForAsset(assetId);
+        assetAttachments.put(assetId, copy(attachments), generation);
+        return attachments;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attachments of assets whose attachments are cached are returned from the cache, and the
+     * rest are retrieved in a single query.
+     */
+    @Override
+    public AttachmentList findAttachmentsForAssets(Collection<String> assetIds) {
+        LruCache<String, AttachmentList> assetAttachments = cache.getAssetAttachments();
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, List<Map<String, Object>>> missing = new LinkedHashMap<>();
+        for (String assetId : new LinkedHashSet<>(assetIds)) {
+            AttachmentList cached = assetAttachments.get(assetId);
+            if (cached != null) {
+                results.addAll(copy(cached).getState());
+            } else {
+                missing.put(assetId, new ArrayList<Map<String, Object>>());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long generation = assetAttachments.getGeneration();
+            AttachmentList found = delegate.findAttachmentsForAssets(missing.keySet());
+            for (Attachment attachment : found) {
+                List<Map<String, Object>> forAsset = missing.get(attachment.getAssetId());
+                if (forAsset != null) {
+                    forAsset.add(attachment.getProperties());
+                }
+            }
+            // Cache the list for every asset that was looked up, including those with no attachments
+            for (Map.Entry<String, List<Map<String, Object>>> entry : missing.entrySet()) {
+                AttachmentList attachments = AttachmentList.createAttachmentListFromMaps(entry.getValue());
+                assetAttachments.put(entry.getKey(), copy(attachments), generation);
+            }
+            results.addAll(found.getState());
+        }
+        return AttachmentList.createAttachmentListFromMaps(results);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Attachment createAttachmentMetadata(Attachment attachment) {
+        try {
+            return delegate.createAttachmentMetadata(attachment);
+        } finally {
+            if (attachment.get_id() != null) {
+                cache.getAttachments().invalidate(attachment.get_id());
+            }
+            if (attachment.getAssetId() != null) {
+                cache.getAssetAttachments().invalidate(attachment.getAssetId());
+            } else {
+                cache.getAssetAttachments().invalidateAll();
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Attachment retrieveAttachmentMetadata(String attachmentId) throws NonExistentArtefactException {
+        LruCache<String, Attachment> attachments = cache.getAttachments();
+        Attachment cached = attachments.get(attachmentId);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        long generation = attachments.getGeneration();
+        Attachment attachment = delegate.retrieveAttachmentMetadata(attachmentId);
+        attachments.put(attachmentId, copy(attachment), generation);
+        return attachment;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAttachmentMetadata(String attachmentId) {
+        // Callers normally retrieve the attachment before deleting it, so the asset it belongs to
+        // can usually be found in the cache
+        Attachment cached = cache.getAttachments().peek(attachmentId);
+        try {
+            delegate.deleteAttachmentMetadata(attachmentId);
+        } finally {
+            cache.getAttachments().invalidate(attachmentId);
+            if (cached != null && cached.getAssetId() != null) {
+                cache.getAssetAttachments().invalidate(cached.getAssetId());
+            } else {
+                cache.getAssetAttachments().invalidateAll();
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String allocateNewId() {
+        return delegate.allocateNewId();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void initialize() {
+        delegate.initialize();
+    }
+
+}
@@ -0,0 +1,451 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Compresses JSON responses from the REST API with gzip when the client says that it accepts
+ * gzip encoded responses.
+ * <p>
+ * Asset lists are large and compress well, so this saves a lot of time for clients on slow
+ * connections. Attachment content is not compressed, as it is usually already compressed and
+ * range requests for it have to refer to the unencoded bytes.
+ * <p>
+ * A compressed body is a different representation from the uncompressed one, so it can't share
+ * its strong ETag. {@link #GZIP_ETAG_SUFFIX} is added to strong ETags on compressed responses,
+ * and removed from the If-None-Match header before the request reaches the REST resources.
+ */
+@WebFilter(urlPatterns = "/ma/v1/*")
+public class CompressionFilter implements Filter {
+
+    /**
+     * Responses whose length is known to be smaller than this are not worth compressing
+     */
+    static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Added to the end of the opaque part of a strong ETag when the body is compressed
+     */
+    static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private static final String IF_NONE_MATCH = "If-None-Match";
+
+    /** {@inheritDoc} */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {}
+
+    /** {@inheritDoc} */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+            || !acceptsGzip(((HttpServletRequest) request).getHeader("Accept-Encoding"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String ifNoneMatch = httpRequest.getHeader(IF_NONE_MATCH);
+        boolean gzipTagRequested = ifNoneMatch != null && ifNoneMatch.contains(GZIP_ETAG_SUFFIX + "\"");
+        if (gzipTagRequested) {
+            httpRequest = new GzipETagRequestWrapper(httpRequest);
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper((HttpServletResponse) response, gzipTagRequested);
+        chain.doFilter(httpRequest, wrapper);
+        wrapper.finish();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void destroy() {}
+
+    /**
+     * Checks whether an Accept-Encoding header allows a gzip encoded response
+     *
+     * @param acceptEncoding the value of the header, may be <code>null</code>
+     * @return <code>true</code> if the response may be gzip encoded
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && !isAcceptableQuality(parameter.substring(2).trim())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param quality the value of a q parameter in an Accept-Encoding header
+     * @return <code>true</code> if the quality allows the coding to be used, <code>false</code> if it
+     *         is zero or isn't a number
+     */
+    private static boolean isAcceptableQuality(String quality) {
+        try {
+            return Double.parseDouble(quality) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param eTag the value of an ETag header
+     * @return the ETag for the compressed body, which is the same as the given ETag if it is weak
+     */
+    static String toGzipETag(String eTag) {
+        if (eTag.startsWith("W/") || eTag.length() < 2 || !eTag.endsWith("\"")) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch the value of an If-None-Match header
+     * @return the header with the ETags of compressed bodies changed back into the ETags the REST
+     *         resources gave them
+     */
+    static String stripGzipETags(String ifNoneMatch) {
+        return ifNoneMatch.replace(GZIP_ETAG_SUFFIX + "\"", "\"");
+    }
+
+    /**
+     * Removes {@link #GZIP_ETAG_SUFFIX} from the ETags in the If-None-Match header, so that the
+     * REST resources compare them against the ETags they generate
+     */
+    private static class GzipETagRequestWrapper extends HttpServletRequestWrapper {
+
+        GzipETagRequestWrapper(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return value != null && IF_NONE_MATCH.equalsIgnoreCase(name) ? stripGzipETags(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (values == null || !IF_NONE_MATCH.equalsIgnoreCase(name)) {
+                return values;
+            }
+            List<String> stripped = new ArrayList<>();
+            while (values.hasMoreElements()) {
+                stripped.add(stripGzipETags(values.nextElement()));
+            }
+            return Collections.enumeration(stripped);
+        }
+    }
+
+    /**
+     * Wraps the response so that its body is compressed if it turns out to be JSON. Whether to compress
+     * is decided when the first byte of the body is written, by which point the content type has been
+     * set. Any content length set before then is held back, as it won't be right for the compressed body.
+     * <p>
+     * Attachments can be larger than 2GB, so the length is held as a long and passed on as a header
+     * rather than with {@link #setContentLength(int)} when it doesn't fit in an int.
+     * <p>
+     * The ETag is held back in the same way, so that {@link #GZIP_ETAG_SUFFIX} can be added to it if
+     * the body is compressed. A 304 response has no body, so it gets the ETag the client asked about.
+     */
+    private static class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final boolean gzipTagRequested;
+        private CompressingOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+        private String eTag;
+        private boolean decided = false;
+        private boolean compressing = false;
+
+        /**
+         * @param gzipTagRequested whether the request's If-None-Match header held the ETag of a
+         *            compressed body
+         */
+        CompressingResponseWrapper(HttpServletResponse response, boolean gzipTagRequested) {
+            super(response);
+            this.gzipTagRequested = gzipTagRequested;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return getCompressingStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(getCompressingStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setLength(len);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setLengthHeader(value);
+            } else if ("ETag".equalsIgnoreCase(name)) {
+                setETag(value);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setLengthHeader(value);
+            } else if ("ETag".equalsIgnoreCase(name)) {
+                setETag(value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setLength(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setLength(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            // Flushing commits the headers, so we can't put off the decision any longer
+            if (!decided) {
+                decide();
+            }
+            if (writer != null) {
+                writer.flush();
+            } else if (stream != null) {
+                stream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        private void setLengthHeader(String value) {
+            try {
+                setLength(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                // Not a length we understand, so leave the length unknown
+            }
+        }
+
+        /**
+         * Holds on to the length until we know whether the body will be compressed, after which it is
+         * only passed on if the body isn't being compressed
+         */
+        private void setLength(long len) {
+            if (!decided) {
+                contentLength = len;
+            } else if (!compressing) {
+                sendLength(len);
+            }
+        }
+
+        /**
+         * Holds on to the ETag until we know whether the body will be compressed
+         */
+        private void setETag(String value) {
+            if (!decided) {
+                eTag = value;
+            } else {
+                super.setHeader("ETag", compressing ? toGzipETag(value) : value);
+            }
+        }
+
+        private void sendETag() {
+            if (eTag != null) {
+                boolean gzipVariant = compressing || (gzipTagRequested && getStatus() == HttpServletResponse.SC_NOT_MODIFIED);
+                super.setHeader("ETag", gzipVariant ? toGzipETag(eTag) : eTag);
+            }
+        }
+
+        private void sendLength(long len) {
+            if (len <= Integer.MAX_VALUE) {
+                super.setContentLength((int) len);
+            } else {
+                super.setHeader("Content-Length", Long.toString(len));
+            }
+        }
+
+        private CompressingOutputStream getCompressingStream() {
+            if (stream == null) {
+                stream = new CompressingOutputStream();
+            }
+            return stream;
+        }
+
+        /**
+         * Decides whether to compress the body and sets the headers to match
+         */
+        private void decide() {
+            decided = true;
+            String contentType = getContentType();
+            int status = getStatus();
+            compressing = contentType != null
+                               && contentType.toLowerCase().startsWith("application/json")
+                               && status != HttpServletResponse.SC_NO_CONTENT
+                               && status != HttpServletResponse.SC_NOT_MODIFIED
+                               && (contentLength == -1 || contentLength >= MIN_COMPRESSED_LENGTH);
+            if (compressing) {
+                super.setHeader("Content-Encoding", "gzip");
+                super.addHeader("Vary", "Accept-Encoding");
+            } else if (contentLength != -1) {
+                sendLength(contentLength);
+            }
+            sendETag();
+        }
+
+        /**
+         * Completes the response once the rest of the filter chain has finished with it
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.close();
+            } else if (stream != null) {
+                stream.close();
+            } else if (!decided) {
+                sendUncompressed();
+            }
+        }
+
+        /**
+         * Used when no body is written, in which case there's nothing to compress but we may still be holding on to the content length
+         */
+        private void sendUncompressed() {
+            decided = true;
+            if (contentLength != -1) {
+                sendLength(contentLength);
+            }
+            sendETag();
+        }
+
+        private class CompressingOutputStream extends ServletOutputStream {
+
+            private OutputStream out;
+            private boolean closed = false;
+
+            private OutputStream getTarget() throws IOException {
+                if (out == null) {
+                    if (!decided) {
+                        decide();
+                    }
+                    if (compressing) {
+                        // Sync flush so that flushing a partly written response, such as a long asset list, sends what has been compressed so far
+                        out = new GZIPOutputStream(getResponse().getOutputStream(), BUFFER_SIZE, true);
+                    } else {
+                        out = getResponse().getOutputStream();
+                    }
+                }
+                return out;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                getTarget().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                getTarget().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (!closed) {
+                    getTarget().flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (out == null) {
+                    if (!decided) {
+                        sendUncompressed();
+                    } else if (compressing) {
+                        // The headers already say the body is compressed, so send an empty gzip stream
+                        getTarget();
+                    }
+                }
+                if (out != null) {
+                    out.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.ws.lars.rest.exceptions.InvalidParameterException;
+import com.ibm.ws.lars.rest.exceptions.RepositoryException;
+
+/**
+ * Identifies the position of the last asset in a page of results, so that the next page can be
+ * retrieved by asking for the assets which sort after it.
+ * <p>
+ * The token records the value of the sort field and the id of the last asset. It is passed to and
+ * from the client as an opaque string, created with {@link #encode()} and parsed with
+ * {@link #decode(String)}.
+ */
+public class ContinuationToken {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String SORT_VALUE_KEY = "v";
+    private static final String ID_KEY = "id";
+
+    /** Marks a date sort value, in milliseconds since the epoch, as in MongoDB extended JSON */
+    public static final String DATE_TYPE = "$date";
+
+    /** Marks an ObjectId sort value, in hex, as in MongoDB extended JSON */
+    public static final String OBJECT_ID_TYPE = "$oid";
+
+    private static final Pattern OBJECT_ID_PATTERN = Pattern.compile("[0-9a-fA-F]{24}");
+
+    private final Object sortValue;
+    private final String id;
+
+    /**
+     * Create a ContinuationToken for the asset with the given sort value and id
+     *
+     * @param sortValue the value of the sort field in the last asset, may be null if the results
+     *            were not sorted or the asset had no value for the sort field. It must be a
+     *            string, number or boolean, or a date or ObjectId wrapped in a single entry map
+     *            from {@link #DATE_TYPE} or {@link #OBJECT_ID_TYPE}.
+     * @param id the id of the last asset
+     */
+    public ContinuationToken(Object sortValue, String id) {
+        super();
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * @return the value of the sort field in the last asset, may be null
+     */
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    /**
+     * @return the id of the last asset
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return this token encoded as a URL-safe string
+     */
+    public String encode() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(SORT_VALUE_KEY, sortValue);
+        state.put(ID_KEY, id);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(state));
+        } catch (IOException e) {
+            throw new RepositoryException("Unable to encode continuation token", e);
+        }
+    }
+
+    /**
+     * Parse a token which was created by {@link #encode()}
+     *
+     * @param token the encoded token
+     * @return the ContinuationToken
+     * @throws InvalidParameterException if the token is not valid
+     */
+    public static ContinuationToken decode(String token) throws InvalidParameterException {
+        Map<String, Object> state;
+        try {
+            state = MAPPER.readValue(Base64.getUrlDecoder().decode(token), new TypeReference<Map<String, Object>>() {});
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidParameterException("The continuation token is not valid");
+        }
+
+        Object idObject = state.get(ID_KEY);
+        if (!(idObject instanceof String) || !isValidSortValue(state.get(SORT_VALUE_KEY))) {
+            throw new InvalidParameterException("The continuation token is not valid");
+        }
+
+        return new ContinuationToken(state.get(SORT_VALUE_KEY), (String) idObject);
+    }
+
+    /**
+     * The token comes from the client and its sort value is used in a database query, so only the
+     * kinds of value that a token is created with are accepted. Anything else, such as a map of
+     * query operators, could change the meaning of the query.
+     */
+    private static boolean isValidSortValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return true;
+        }
+        if (value instanceof Map && ((Map<?, ?>) value).size() == 1) {
+            Map<?, ?> typed = (Map<?, ?>) value;
+            if (typed.containsKey(DATE_TYPE)) {
+                return typed.get(DATE_TYPE) instanceof Number;
+            }
+            if (typed.containsKey(OBJECT_ID_TYPE)) {
+                Object objectId = typed.get(OBJECT_ID_TYPE);
+                return objectId instanceof String && OBJECT_ID_PATTERN.matcher((String) objectId).matches();
+            }
+        }
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((id == null) ? 0 : id.hashCode());
+        result = prime * result + ((sortValue == null) ? 0 : sortValue.hashCode());
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ContinuationToken other = (ContinuationToken) obj;
+        if (id == null) {
+            if (other.id != null)
+                return false;
+        } else if (!id.equals(other.id))
+            return false;
+        if (sortValue == null) {
+            if (other.sortValue != null)
+                return false;
+        } else if (!sortValue.equals(other.sortValue))
+            return false;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "sortValue: " + sortValue + ", id: " + id;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2015 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.util.Date;
+
+import javax.ws.rs.core.EntityTag;
+
+/**
+ * Contains utility methods for creating the validators used for conditional GET requests
+ */
+public class EntityTags {
+
+    private EntityTags() {
+        // utility class
+    }
+
+    /**
+     * Create a strong entity tag from the exact content of a response
+     *
+     * @param content the response body
+     * @return the entity tag
+     */
+    public static EntityTag forContent(String content) {
+        return new EntityTag(digest(content));
+    }
+
+    /**
+     * Create a weak entity tag from a set of values which together identify the version of a
+     * response
+     *
+     * @param parts the values identifying the response
+     * @return the entity tag
+     */
+    public static EntityTag forVersion(Object... parts) {
+        return new EntityTag(digest(parts), true);
+    }
+
+    /**
+     * Parse a date stored in an asset or attachment for use as a Last-Modified date
+     *
+     * @param isoDate the ISO 8601 date, may be null
+     * @return the date, or null if isoDate is null or can't be parsed
+     */
+    public static Date parseLastModified(String isoDate) {
+        if (isoDate == null) {
+            return null;
+        }
+        try {
+            return IsoDate.parse(isoDate);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static String digest(Object... parts) {
+        MessageDigest digest = ContentHash.newSha256();
+        for (Object part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            // Separate the parts so that ("ab", "c") and ("a", "bc") give different tags
+            digest.update((byte) 0);
+        }
+        return ContentHash.toHex(digest.digest());
+    }
+
+}
@@ -49,6 +49,10 @@ public class FrontPage extends HttpServlet {
     @SuppressFBWarnings(value = "SE_BAD_FIELD", justification = "CDI normal scoped injected field")
     private AssetServiceLayer serviceLayer;
 
+    @Inject
+    @SuppressFBWarnings(value = "SE_BAD_FIELD", justification = "CDI normal scoped injected field")
+    private PersistorCache persistorCache;
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType(MediaType.APPLICATION_JSON);
@@ -65,6 +69,8 @@ public class FrontPage extends HttpServlet {
         frontPageJsonGenerator.writeStartObject();
         frontPageJsonGenerator.writeStringField("serverName", "LARS");
         frontPageJsonGenerator.writeNumberField("assetCount", assetCount);
+        frontPageJsonGenerator.writeNumberField("cacheHits", persistorCache.getHitCount());
+        frontPageJsonGenerator.writeNumberField("cacheMisses", persistorCache.getMissCount());
         frontPageJsonGenerator.writeEndObject();
 
         frontPageJsonGenerator.flush();
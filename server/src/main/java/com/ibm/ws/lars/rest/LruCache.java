@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe map which evicts the least recently used entry when it is full, and counts
+ * hits and misses.
+ * <p>
+ * A value read from the backing store can be stale by the time it is added to the cache if it was
+ * changed in between. To stop such values being cached, callers take a {@link #getGeneration()
+ * generation} before reading from the backing store and pass it to {@link #put(Object, Object,
+ * long)}, which ignores the value if anything has been invalidated since.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final LinkedHashMap<K, V> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private long generation = 0;
+
+    /**
+     * @param maxSize the maximum number of entries to hold, or 0 to disable the cache
+     */
+    @SuppressWarnings("serial")
+    public LruCache(final int maxSize) {
+        this.maxSize = maxSize;
+        // Access order, so that iteration starts with the least recently used entry
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for a key, and records a hit or a miss.
+     *
+     * @return the cached value or null if there is none
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value for a key without recording a hit or a miss.
+     *
+     * @return the cached value or null if there is none
+     */
+    public synchronized V peek(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @return a value to pass to {@link #put(Object, Object, long)}, which changes whenever an
+     *         entry is invalidated
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Adds a value to the cache, unless an entry has been invalidated since
+     * <code>generation</code> was obtained.
+     *
+     * @param key the key
+     * @param value the value, which must not be modified once it is in the cache
+     * @param generation the result of calling {@link #getGeneration()} before the value was read
+     */
+    public synchronized void put(K key, V value, long generation) {
+        if (maxSize > 0 && value != null && generation == this.generation) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Removes any cached value for a key.
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+}
@@ -20,11 +20,17 @@ package com.ibm.ws.lars.rest;
  * <p>
  * Generally, a method which returns multiple results in a predictable order should accept a
  * PaginationsOptions as a parameter.
+ * <p>
+ * There are two forms of pagination. Offset pagination skips a number of results before returning
+ * a page. Keyset pagination returns the page of results which sort after the asset identified by a
+ * {@link ContinuationToken}, which avoids the cost of skipping over results for deep pages.
  */
 public class PaginationOptions {
 
     private final int offset;
     private final int limit;
+    private final boolean keyset;
+    private final ContinuationToken continuation;
 
     /**
      * Create a new PaginationOptions with the given offset and limit parameters.
@@ -36,6 +42,24 @@ public class PaginationOptions {
         super();
         this.offset = offset;
         this.limit = limit;
+        this.keyset = false;
+        this.continuation = null;
+    }
+
+    /**
+     * Create a new PaginationOptions for keyset pagination, returning up to <code>limit</code>
+     * results which sort after the asset identified by <code>continuation</code>.
+     *
+     * @param limit the maximum number of results to return
+     * @param continuation the token identifying the last asset of the previous page, or null to
+     *            return the first page
+     */
+    public PaginationOptions(int limit, ContinuationToken continuation) {
+        super();
+        this.offset = 0;
+        this.limit = limit;
+        this.keyset = true;
+        this.continuation = continuation;
     }
 
     /**
@@ -52,9 +76,27 @@ public class PaginationOptions {
         return limit;
     }
 
+    /**
+     * @return true if keyset pagination should be used, false if offset pagination should be used
+     */
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * @return the token identifying the last asset of the previous page, or null if this is not
+     *         keyset pagination or this is the first page
+     */
+    public ContinuationToken getContinuation() {
+        return continuation;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
+        if (keyset) {
+            return "limit = " + limit + ", continuation = " + continuation;
+        }
         return "limit = " + limit + ", offset = " + offset;
     }
 
@@ -65,6 +107,8 @@ public class PaginationOptions {
         int result = 1;
         result = prime * result + limit;
         result = prime * result + offset;
+        result = prime * result + (keyset ? 1231 : 1237);
+        result = prime * result + ((continuation == null) ? 0 : continuation.hashCode());
         return result;
     }
 
@@ -82,6 +126,13 @@ public class PaginationOptions {
             return false;
         if (offset != other.offset)
             return false;
+        if (keyset != other.keyset)
+            return false;
+        if (continuation == null) {
+            if (other.continuation != null)
+                return false;
+        } else if (!continuation.equals(other.continuation))
+            return false;
         return true;
     }
 
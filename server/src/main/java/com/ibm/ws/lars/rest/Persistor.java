@@ -16,22 +16,21 @@
 
 package com.ibm.ws.lars.rest;
 
-import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
-import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.Attachment;
-import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
-import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
 import com.ibm.ws.lars.rest.model.AttachmentList;
 
 /**
- * Interface to a persistent data store for assets and attachments
+ * Interface to a persistent data store for the metadata of assets and attachments. The content of
+ * attachments is held in an {@link AttachmentContentStore}.
  */
 public interface Persistor {
 
@@ -46,6 +45,10 @@ public interface Persistor {
      * <p>
      * If the filter list is empty, and the searchTerm is null, all entries in the store will be
      * returned.
+     * <p>
+     * If keyset pagination is requested, the results are sorted by the sort field and then by id,
+     * rather than by relevance to the search term, and the returned cursor provides a
+     * {@link AssetCursor#getContinuationToken() continuation token} for the following page.
      *
      * @see AssetFilter
      *
@@ -58,6 +61,24 @@ public interface Persistor {
      */
     public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions);
 
+    /**
+     * Retrieve a list of assets as
+     * {@link #retrieveAllAssets(Collection, String, PaginationOptions, SortOptions)} does, but only
+     * return the given fields of each asset.
+     * <p>
+     * The <code>_id</code> field is always returned. If <code>fields</code> is null, the whole of
+     * each asset is returned.
+     *
+     * @param filters filters to apply to the results, may be empty to not filter
+     * @param searchTerm search to match against the results, may be null to not search
+     * @param pagination pagination options to apply to the results, may be null to not apply
+     *            pagination
+     * @param sortOptions options describing how to sort the results, may be null if the results are
+     *            not to be sorted
+     * @param fields the fields to include in each returned asset, may be null to return all fields
+     */
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions, List<String> fields);
+
     /**
      * Retrieve the number of assets which match the given set of filters.
      * <p>
@@ -70,6 +91,20 @@ public interface Persistor {
      */
     public int countAllAssets(Collection<AssetFilter> filters, String searchTerm);
 
+    /**
+     * Describes how the data store would run a query for the assets which match the given filters,
+     * for example which index it would use.
+     * <p>
+     * <code>filters</code>, <code>searchTerm</code> and <code>sortOptions</code> have the same
+     * meaning as in {@link #retrieveAllAssets(Collection, String, PaginationOptions, SortOptions)}
+     *
+     * @param filters filters to apply to the results, may be empty to not filter
+     * @param searchTerm search to match against the results, may be null to not search
+     * @param sortOptions options for sorting the results, may be null to not sort
+     * @return the query plan, in a form which can be serialized as JSON
+     */
+    public Map<String, Object> explainQuery(Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions);
+
     /**
      * Gets the list of distinct values of the given field in all assets which match the given
      * filters and searchTerm.
@@ -89,6 +124,33 @@ public interface Persistor {
      */
     public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm);
 
+    /**
+     * Gets the distinct values of each of the given fields in all assets which match the given
+     * filters and searchTerm, along with the number of times each value occurs.
+     * <p>
+     * This returns the same values as calling
+     * {@link #getDistinctValues(String, Collection, String)} for each field, but the filters and
+     * search term only need to be evaluated once.
+     *
+     * @param fields the fields to look at
+     * @param filters the filters
+     * @param searchTerm the search term
+     * @return a map from each field name to a map from each distinct value of that field to the
+     *         number of times it occurs within assets which match filters and searchTerm
+     */
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(List<String> fields, Collection<AssetFilter> filters, String searchTerm);
+
+    /**
+     * Gets the version of the assets and attachments in the repository.
+     * <p>
+     * The version increases every time an asset or attachment is created, updated or deleted, so
+     * if it hasn't changed then the result of any query hasn't changed either. It is cheap to
+     * read, unlike running the query.
+     *
+     * @return the version of the assets and attachments
+     */
+    public long getAssetListVersion();
+
     /**
      * Retrieve a single asset by its id.
      *
@@ -96,6 +158,15 @@ public interface Persistor {
      */
     public Asset retrieveAsset(String assetId) throws NonExistentArtefactException;
 
+    /**
+     * Retrieve many assets by their ids in a single query. Ids which do not identify an asset are
+     * ignored.
+     *
+     * @param assetIds the ids of the assets to retrieve
+     * @return the assets which were found, in no particular order
+     */
+    public List<Asset> retrieveAssets(Collection<String> assetIds);
+
     /**
      * Create a single asset.
      *
@@ -105,15 +176,42 @@ public interface Persistor {
      */
     public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException;
 
+    /**
+     * Create many assets with a single write.
+     *
+     * The ids need not be set on the assets that are passed in.
+     *
+     * @return the created assets, in the same order as <code>newAssets</code>
+     * @throws InvalidJsonAssetException
+     */
+    public List<Asset> createAssets(List<Asset> newAssets) throws InvalidJsonAssetException;
+
     /**
      * Update an existing asset.
      *
-     * @return the updated asset, or if the id didn't previously exist, returns null
+     * @return the updated asset
      * @throws InvalidJsonAssetException
-     * @throws NonExistentArtefactException
+     * @throws NonExistentArtefactException if the asset doesn't exist
      */
     public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException;
 
+    /**
+     * Set some of the fields of an existing asset, leaving its other fields alone.
+     * <p>
+     * The update is only made if the asset still has all of the <code>expectedValues</code>, and
+     * the check and update are made atomically. Callers which read the asset, decide on a change
+     * and then write it back should pass the values which their decision depended on, so that a
+     * concurrent change to those values is detected rather than overwritten.
+     *
+     * @param assetId the id of the asset to update
+     * @param expectedValues the fields which must have the given values for the update to be made
+     * @param newValues the fields to set
+     * @return the updated asset
+     * @throws NonExistentArtefactException if the asset doesn't exist
+     * @throws AssetConflictException if the asset doesn't have the expected values
+     */
+    public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws NonExistentArtefactException, AssetConflictException;
+
     /**
      * Delete the asset with the specified id.
      */
@@ -125,11 +223,10 @@ public interface Persistor {
     public AttachmentList findAttachmentsForAsset(String assetId);
 
     /**
-     * Creates attachment content (ie file contents) in the persistence store.
-     *
-     * @throws AssetPersistenceException
+     * Returns the list of all the attachments on any of the objects with the specified assetIds,
+     * in a single query.
      */
-    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException;
+    public AttachmentList findAttachmentsForAssets(Collection<String> assetIds);
 
     /**
      * Creates the (JSON) metadata for an attachment in the persistence store.
@@ -143,12 +240,6 @@ public interface Persistor {
      */
     public Attachment retrieveAttachmentMetadata(String attachmentId) throws NonExistentArtefactException;
 
-    /**
-     * Deletes the attachment content associated with the given gridFsId. Caller should also delete
-     * the attachment metadata.
-     */
-    public void deleteAttachmentContent(String gridFsId);
-
     /**
      * Deletes the metadata for the specified attachment. Callers should have already deleted
      * attachment content (if it exists).
@@ -156,11 +247,9 @@ public interface Persistor {
     public void deleteAttachmentMetadata(String attachmentId);
 
     /**
-     * Returns an input stream of the content of the specified attachment.
-     *
-     * @throws NonExistentArtefactException
+     * Delete the metadata of all the attachments which belong to an asset, with a single operation.
      */
-    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException;
+    public void deleteAttachmentMetadataForAsset(String assetId);
 
     /**
      * Allocates and returns a new unique id. This is useful if the id of an object has to be set
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import java.util.logging.Logger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentList;
+
+/**
+ * Holds the caches used by {@link CachingPersistor}.
+ * <p>
+ * The size of each cache is set with the <code>lars.cache.size</code> property. Caching is disabled
+ * by default, as a cache is only kept up to date by the writes made through the same server, so
+ * with more than one LARS server sharing a database each server would serve assets that another
+ * server has since changed. Only enable it when a single LARS server uses the database.
+ */
+@ApplicationScoped
+public class PersistorCache {
+
+    private static final Logger logger = Logger.getLogger(PersistorCache.class.getCanonicalName());
+
+    static final String SIZE_PROPERTY = "lars.cache.size";
+
+    static final int DEFAULT_SIZE = 0;
+
+    private final LruCache<String, Asset> assets;
+    private final LruCache<String, Attachment> attachments;
+    private final LruCache<String, AttachmentList> assetAttachments;
+
+    public PersistorCache() {
+        this(readSize());
+    }
+
+    PersistorCache(int size) {
+        assets = new LruCache<>(size);
+        attachments = new LruCache<>(size);
+        assetAttachments = new LruCache<>(size);
+    }
+
+    private static int readSize() {
+        String sizeString = System.getProperty(SIZE_PROPERTY);
+        if (sizeString == null) {
+            return DEFAULT_SIZE;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(sizeString.trim()));
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid value for " + SIZE_PROPERTY + ": " + sizeString + ", using " + DEFAULT_SIZE);
+            return DEFAULT_SIZE;
+        }
+    }
+
+    /**
+     * @return the cache of assets, keyed by asset id
+     */
+    public LruCache<String, Asset> getAssets() {
+        return assets;
+    }
+
+    /**
+     * @return the cache of attachment metadata, keyed by attachment id
+     */
+    public LruCache<String, Attachment> getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * @return the cache of the attachments which belong to each asset, keyed by asset id
+     */
+    public LruCache<String, AttachmentList> getAssetAttachments() {
+        return assetAttachments;
+    }
+
+    /**
+     * @return the total number of lookups which were found in the caches
+     */
+    public long getHitCount() {
+        return assets.getHitCount() + attachments.getHitCount() + assetAttachments.getHitCount();
+    }
+
+    /**
+     * @return the total number of lookups which were not found in the caches
+     */
+    public long getMissCount() {
+        return assets.getMissCount() + attachments.getMissCount() + assetAttachments.getMissCount();
+    }
+
+}
@@ -24,8 +24,9 @@ import javax.ws.rs.core.Application;
 public class RESTApplication extends Application {
 
     @Inject
-    RESTApplication(Persistor persistor) {
+    RESTApplication(Persistor persistor, AttachmentContentStore contentStore) {
         persistor.initialize();
+        contentStore.initialize();
     }
 
 }
@@ -16,13 +16,20 @@
 
 package com.ibm.ws.lars.rest;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +44,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -45,13 +53,16 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
-import org.apache.wink.common.model.multipart.BufferedInMultiPart;
+import org.apache.wink.common.model.multipart.InMultiPart;
 import org.apache.wink.common.model.multipart.InPart;
 
 import com.fasterxml.jackson.core.JsonParseException;
@@ -60,6 +71,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ibm.ws.lars.rest.Condition.Operation;
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidIdException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
@@ -92,6 +104,22 @@ public class RepositoryRESTResource {
     private static final String USER_ROLE = "User";
     private static final String ADMIN_ROLE = "Administrator";
 
+    /** Response header containing the token to pass back to get the next page of assets */
+    private static final String CONTINUATION_HEADER = "continuation";
+
+    /** Tells clients that deleting an asset also deleted its attachments, so they needn't delete them first */
+    private static final String DELETES_ATTACHMENTS_HEADER = "deletesAttachments";
+
+    /** The largest number of assets which can be requested from /assets/batchGet at once */
+    static final int MAX_BATCH_GET_SIZE = 1000;
+
+    /** The largest number of assets which can be created by /assets/batchCreate at once */
+    static final int MAX_BATCH_CREATE_SIZE = 1000;
+
+    /** HTTP status codes for range requests, which JAX-RS 1.1 does not define */
+    private static final int PARTIAL_CONTENT = 206;
+    private static final int REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
     private static final Logger logger = Logger.getLogger(RepositoryRESTResource.class.getCanonicalName());
 
     private static final ObjectMapper jsonMapper = new ObjectMapper();
@@ -122,7 +150,7 @@ public class RepositoryRESTResource {
     @GET
     @Path("/assets")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAssets(@Context UriInfo info, @Context SecurityContext context) throws JsonProcessingException, InvalidParameterException {
+    public Response getAssets(@Context UriInfo info, @Context SecurityContext context, @Context Request request) throws JsonProcessingException, InvalidParameterException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAssets called with query parameters: " + info.getRequestUri().getRawQuery());
@@ -130,13 +158,30 @@ public class RepositoryRESTResource {
 
         AssetQueryParameters params = AssetQueryParameters.create(info);
 
+        boolean isAdmin = context.isUserInRole(ADMIN_ROLE);
         Collection<AssetFilter> filters = params.getFilters();
-        if (!context.isUserInRole(ADMIN_ROLE)) {
+        if (!isAdmin) {
             filters.add(ASSET_IS_PUBLISHED);
         }
 
-        AssetCursor assets = assetService.retrieveAllAssets(filters, params.getSearchTerm(), params.getPagination(), params.getSortOptions());
-        return Response.ok(assets).build();
+        // The response can only change if an asset or attachment changes, so the version of the
+        // repository identifies the response for a given query and role. Reading the version is
+        // much cheaper than working out which assets the query matches.
+        long version = assetService.getAssetListVersion();
+        EntityTag etag = EntityTags.forVersion(version, info.getRequestUri().getRawQuery(), isAdmin);
+        ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        AssetCursor assets = assetService.retrieveAllAssets(filters, params.getSearchTerm(), params.getPagination(), params.getSortOptions(), params.getFieldList());
+
+        ResponseBuilder builder = Response.ok(assets).tag(etag);
+        ContinuationToken continuation = assets.getContinuationToken();
+        if (continuation != null) {
+            builder.header(CONTINUATION_HEADER, continuation.encode());
+        }
+        return builder.build();
     }
 
     @HEAD
@@ -183,10 +228,67 @@ public class RepositoryRESTResource {
         return Response.ok(asset.toJson()).build();
     }
 
+    /**
+     * Creates many assets in one request. The request body is a JSON array of assets, and the
+     * response is a JSON array of the created assets in the same order. If any of the assets is
+     * invalid then none of them are created.
+     * <p>
+     * Only creation is supported. Updates still go through PUT /assets/{id}, as each one has to be
+     * checked against the stored asset.
+     */
+    @POST
+    @Path("/assets/batchCreate")
+    @Produces(MediaType.APPLICATION_JSON)
+    @RolesAllowed(ADMIN_ROLE)
+    public Response postAssetsBatch(String assetsJSON, @Context SecurityContext context) throws JsonProcessingException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("postAssetsBatch called with json content:\n" + assetsJSON);
+        }
+
+        List<Map<String, Object>> assetStates;
+        try {
+            assetStates = jsonMapper.readValue(assetsJSON, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (IOException e) {
+            assetStates = null;
+        }
+        if (assetStates == null || assetStates.contains(null)) {
+            String body = getErrorJson(Response.Status.BAD_REQUEST, "The request body must be a JSON array of assets");
+            return Response.status(Response.Status.BAD_REQUEST).entity(body).build();
+        }
+        if (assetStates.size() > MAX_BATCH_CREATE_SIZE) {
+            String body = getErrorJson(Response.Status.BAD_REQUEST, "No more than " + MAX_BATCH_CREATE_SIZE + " assets can be created at once");
+            return Response.status(Response.Status.BAD_REQUEST).entity(body).build();
+        }
+
+        String name = "";
+        Principal principal = context.getUserPrincipal();
+        if (principal != null) {
+            name = principal.getName();
+        }
+
+        List<Asset> assets = new ArrayList<Asset>(assetStates.size());
+        for (Map<String, Object> assetState : assetStates) {
+            assets.add(Asset.createAssetFromMap(assetState));
+        }
+
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        try {
+            for (Asset asset : assetService.createAssets(assets, name)) {
+                result.add(asset.getProperties());
+            }
+        } catch (InvalidJsonAssetException e) {
+            String body = getErrorJson(Response.Status.BAD_REQUEST, "Invalid asset definition: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(body).build();
+        }
+
+        return Response.ok(jsonMapper.writeValueAsString(result)).build();
+    }
+
     @GET
     @Path("/assets/{assetId}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAsset(@PathParam("assetId") String assetId, @Context UriInfo uriInfo, @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+    public Response getAsset(@PathParam("assetId") String assetId, @Context UriInfo uriInfo, @Context SecurityContext sc,
+                             @Context Request request) throws InvalidIdException, NonExistentArtefactException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAsset called with id of '" + assetId + "'");
@@ -202,7 +304,58 @@ public class RepositoryRESTResource {
             }
         }
 
-        return Response.ok(asset.toJson()).build();
+        String latestUpdate = asset.getLastUpdatedOn();
+        for (Attachment attachment : asset.getAttachments()) {
+            latestUpdate = later(latestUpdate, attachment.getUploadOn());
+        }
+
+        return conditionalResponse(request, asset.toJson(), latestUpdate);
+    }
+
+    /**
+     * Returns many assets, including their attachments, in one request. The request body is a JSON
+     * array of asset ids, and the response is a JSON array of the assets in the same order. Assets
+     * which do not exist, or which the user is not allowed to see, are left out of the response.
+     */
+    @POST
+    @Path("/assets/batchGet")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAssetsById(String idsJSON, @Context UriInfo uriInfo, @Context SecurityContext sc) throws InvalidIdException, JsonProcessingException {
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("getAssetsById called with ids: " + idsJSON);
+        }
+
+        List<String> assetIds;
+        try {
+            assetIds = jsonMapper.readValue(idsJSON, new TypeReference<List<String>>() {});
+        } catch (IOException e) {
+            assetIds = null;
+        }
+        if (assetIds == null) {
+            String body = getErrorJson(Response.Status.BAD_REQUEST, "The request body must be a JSON array of asset ids");
+            return Response.status(Response.Status.BAD_REQUEST).entity(body).build();
+        }
+        if (assetIds.size() > MAX_BATCH_GET_SIZE) {
+            String body = getErrorJson(Response.Status.BAD_REQUEST, "No more than " + MAX_BATCH_GET_SIZE + " assets can be requested at once");
+            return Response.status(Response.Status.BAD_REQUEST).entity(body).build();
+        }
+        for (String assetId : assetIds) {
+            if (assetId == null) {
+                throw new InvalidIdException(ArtefactType.ASSET.getValue(), assetId);
+            }
+            sanitiseId(assetId, ArtefactType.ASSET);
+        }
+
+        boolean isAdmin = sc.isUserInRole(ADMIN_ROLE);
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for (Asset asset : assetService.retrieveAssets(assetIds, uriInfo)) {
+            if (isAdmin || asset.getState() == Asset.State.PUBLISHED) {
+                result.add(asset.getProperties());
+            }
+        }
+
+        return Response.ok(jsonMapper.writeValueAsString(result)).build();
     }
 
     @DELETE
@@ -219,7 +372,7 @@ public class RepositoryRESTResource {
         assetService.deleteAsset(assetId);
         // TODO This could produce a 202 (rather than a 204 no content), to
         // reflect that there is no guarantee that mongo's delete is complete
-        return Response.noContent().build();
+        return Response.noContent().header(DELETES_ATTACHMENTS_HEADER, "true").build();
     }
 
     @GET
@@ -255,6 +408,35 @@ public class RepositoryRESTResource {
         return Response.ok(resultJson).build();
     }
 
+    /**
+     * Reports how the database would run the query for a GET of /assets with the same query
+     * parameters, so that administrators can check whether a query is using an index. The state
+     * filter which is added for non-administrators is not added here, so it must be included in
+     * the query parameters to see the plan that those users get.
+     */
+    @GET
+    @Path("/assets/explain")
+    @Produces(MediaType.APPLICATION_JSON)
+    @RolesAllowed(ADMIN_ROLE)
+    public Response explainAssetQuery(@Context UriInfo uriInfo) throws InvalidParameterException {
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("explainAssetQuery called with query parameters: " + uriInfo.getRequestUri().getRawQuery());
+        }
+
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        Map<String, Object> plan = assetService.explainAssetQuery(params.getFilters(), params.getSearchTerm(), params.getSortOptions());
+
+        String resultJson;
+        try {
+            resultJson = jsonMapper.writeValueAsString(plan);
+        } catch (JsonProcessingException e) {
+            throw new RepositoryException("Could not serialize query plan", e);
+        }
+
+        return Response.ok(resultJson).build();
+    }
+
     @POST
     @Path("/assets/{assetId}/attachments")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -263,7 +445,7 @@ public class RepositoryRESTResource {
     public Response createAttachmentWithContent(@QueryParam("name") String name,
                                                 @PathParam("assetId") String assetId,
                                                 @Context HttpServletRequest request,
-                                                BufferedInMultiPart inMultiPart,
+                                                InMultiPart inMultiPart,
                                                 @Context UriInfo uriInfo) throws InvalidJsonAssetException, InvalidIdException, AssetPersistenceException, NonExistentArtefactException {
 
         if (logger.isLoggable(Level.FINE)) {
@@ -272,29 +454,71 @@ public class RepositoryRESTResource {
 
         sanitiseId(assetId, ArtefactType.ASSET);
 
-        List<InPart> parts = inMultiPart.getParts();
-
+        // The parts are read from the request as we go, so each part must be dealt with before
+        // moving on to the next. Clients send the attachmentInfo first, which means the content
+        // can be streamed straight into the store without being held in memory.
         Attachment attachmentMetadata = null;
-        InputStream contentStream = null;
         String contentType = null;
+        Attachment result = null;
+        File spooledContent = null;
 
-        for (InPart part : parts) {
-            String partName = part.getPartName();
-            if ("attachmentInfo".equals(partName)) {
-
-                attachmentMetadata = Attachment.jsonToAttachment(part.getInputStream());
-            } else if (partName != null && partName.equals(name)) {
-                contentType = part.getContentType();
+        try {
+            while (inMultiPart.hasNext()) {
+                InPart part = inMultiPart.next();
+                String partName = part.getPartName();
+                if ("attachmentInfo".equals(partName)) {
+                    attachmentMetadata = Attachment.jsonToAttachment(readPart(part));
+                } else if (partName != null && partName.equals(name) && result == null && spooledContent == null) {
+                    contentType = part.getContentType();
+
+                    if (attachmentMetadata != null) {
+                        result = assetService.createAttachmentWithContent(assetId, name, attachmentMetadata, contentType, part.getInputStream(), uriInfo);
+                    } else {
+                        // The content came before the metadata, so hold it on disk until we have both
+                        spooledContent = File.createTempFile("lars-attachment", null);
+                        Files.copy(part.getInputStream(), spooledContent.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
 
-                contentStream = part.getInputStream();
+            if (result == null) {
+                if (spooledContent != null) {
+                    try (InputStream contentStream = new FileInputStream(spooledContent)) {
+                        result = assetService.createAttachmentWithContent(assetId, name, attachmentMetadata, contentType, contentStream, uriInfo);
+                    }
+                } else {
+                    result = assetService.createAttachmentWithContent(assetId, name, attachmentMetadata, contentType, null, uriInfo);
+                }
+            }
+        } catch (IOException e) {
+            throw new AssetPersistenceException(e);
+        } finally {
+            if (spooledContent != null) {
+                try {
+                    Files.deleteIfExists(spooledContent.toPath());
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Unable to delete temporary file " + spooledContent, e);
+                }
             }
         }
 
-        Attachment result = assetService.createAttachmentWithContent(assetId, name, attachmentMetadata, contentType, contentStream, uriInfo);
-
         return Response.ok(result.toJson()).build();
     }
 
+    /**
+     * Read the whole of a small part, such as the attachmentInfo, without closing the part's stream
+     */
+    private static byte[] readPart(InPart part) throws IOException {
+        InputStream partStream = part.getInputStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = partStream.read(buffer)) != -1) {
+            bytes.write(buffer, 0, len);
+        }
+        return bytes.toByteArray();
+    }
+
     @POST
     @Path("/assets/{assetId}/attachments")
     @Consumes(MediaType.APPLICATION_JSON)
@@ -325,7 +549,7 @@ public class RepositoryRESTResource {
     @Produces(MediaType.APPLICATION_JSON)
     @RolesAllowed({ ADMIN_ROLE, USER_ROLE })
     public Response getAttachments(@PathParam("assetId") String assetId, @Context UriInfo uriInfo,
-                                   @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException, JsonProcessingException {
+                                   @Context SecurityContext sc, @Context Request request) throws InvalidIdException, NonExistentArtefactException, JsonProcessingException {
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAttachments called for assetId: " + assetId);
         }
@@ -341,7 +565,12 @@ public class RepositoryRESTResource {
         }
 
         AttachmentList attachments = asset.getAttachments();
-        return Response.ok(attachments.toJson()).build();
+        String latestUpload = null;
+        for (Attachment attachment : attachments) {
+            latestUpload = later(latestUpload, attachment.getUploadOn());
+        }
+
+        return conditionalResponse(request, attachments.toJson(), latestUpload);
     }
 
     @DELETE
@@ -369,7 +598,8 @@ public class RepositoryRESTResource {
                                          @PathParam("attachmentId") String attachmentId,
                                          @PathParam("name") String name,
                                          @Context UriInfo uriInfo,
-                                         @Context SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+                                         @Context SecurityContext sc,
+                                         @HeaderParam("Range") String rangeHeader) throws InvalidIdException, NonExistentArtefactException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("getAttachmentContent called for assetId: " + assetId
@@ -387,10 +617,37 @@ public class RepositoryRESTResource {
 
         AttachmentContentResponse contentResponse = assetService.retrieveAttachmentContent(assetId, attachmentId, name, uriInfo);
         if (contentResponse != null) {
-            final InputStream contentInputStream = contentResponse.getContentStream();
-            StreamingOutput stream = new InputStreamStreamingOutput(contentInputStream);
+            long length = contentResponse.getLength();
+
+            // Attachment content never changes once uploaded, so a range can always be served
+            // without checking If-Range
+            ByteRange range = ByteRange.parse(rangeHeader, length);
+            if (range == null) {
+                ResponseBuilder builder = Response.ok(new AttachmentContentStreamingOutput(contentResponse, 0, length));
+                if (length >= 0) {
+                    builder.header("Content-Length", length);
+                }
+                return builder.header("Content-Type", contentResponse.getContentType())
+                        .header("Accept-Ranges", "bytes")
+                        .build();
+            }
+
+            if (!range.isSatisfiable()) {
+                closeQuietly(contentResponse);
+                return Response.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", range.toContentRange())
+                        .header("Accept-Ranges", "bytes")
+                        .build();
+            }
 
-            return Response.ok(stream).header("Content-Type", contentResponse.getContentType()).build();
+            StreamingOutput stream = new AttachmentContentStreamingOutput(contentResponse, range.getStart(), range.getLength());
+            return Response.status(PARTIAL_CONTENT)
+                    .entity(stream)
+                    .header("Content-Type", contentResponse.getContentType())
+                    .header("Content-Range", range.toContentRange())
+                    .header("Content-Length", range.getLength())
+                    .header("Accept-Ranges", "bytes")
+                    .build();
         } else {
             String body = getErrorJson(Response.Status.NOT_FOUND, "Could not find attachment for id " + attachmentId);
             return Response.status(Response.Status.NOT_FOUND).entity(body).build();
@@ -401,7 +658,7 @@ public class RepositoryRESTResource {
     @Path("/assets/{assetId}/state")
     @Produces(MediaType.APPLICATION_JSON)
     @RolesAllowed(ADMIN_ROLE)
-    public Response updateAssetState(@PathParam("assetId") String assetId, String actionJSON) throws NonExistentArtefactException, RepositoryResourceLifecycleException {
+    public Response updateAssetState(@PathParam("assetId") String assetId, String actionJSON) throws NonExistentArtefactException, RepositoryResourceLifecycleException, AssetConflictException {
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("updateAssetState called for assetId: " + assetId + " action: " + actionJSON);
         }
@@ -519,31 +776,81 @@ public class RepositoryRESTResource {
     }
 
     /**
-     * Implementation of {@link StreamingOutput} to put the input stream onto the output stream.
+     * Build a response for a JSON entity which carries a strong entity tag computed from the JSON,
+     * or a 304 Not Modified response if the request's If-None-Match header matches that tag.
+     * <p>
+     * A Last-Modified header is also sent, but If-Modified-Since is not evaluated, because deleting
+     * an attachment does not change any of the dates recorded on an asset.
+     *
+     * @param request the request
+     * @param json the JSON entity
+     * @param lastModified the ISO 8601 date when the entity was last modified, may be null
+     * @return the response
+     */
+    private Response conditionalResponse(Request request, String json, String lastModified) {
+        EntityTag etag = EntityTags.forContent(json);
+        ResponseBuilder builder = request.evaluatePreconditions(etag);
+        if (builder == null) {
+            builder = Response.ok(json);
+        }
+
+        builder.tag(etag);
+        Date lastModifiedDate = EntityTags.parseLastModified(lastModified);
+        if (lastModifiedDate != null) {
+            builder.lastModified(lastModifiedDate);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the later of two ISO 8601 dates, either of which may be null
+     */
+    private static String later(String date1, String date2) {
+        if (date1 == null) {
+            return date2;
+        }
+        if (date2 == null) {
+            return date1;
+        }
+        // Dates are always formatted with the same pattern in UTC, so they sort lexically
+        return date1.compareTo(date2) >= 0 ? date1 : date2;
+    }
+
+    /**
+     * Implementation of {@link StreamingOutput} to write attachment content onto the output stream.
      */
-    private static class InputStreamStreamingOutput implements StreamingOutput {
-        /**  */
-        private final InputStream contentInputStream;
+    private static class AttachmentContentStreamingOutput implements StreamingOutput {
+        private final AttachmentContentResponse content;
+        private final long offset;
+        private final long length;
 
         /**
-         * @param contentInputStream
+         * @param content the attachment content to write
+         * @param offset the number of bytes to skip before writing
+         * @param length the number of bytes to write, or -1 to write the remainder of the content
          */
-        private InputStreamStreamingOutput(InputStream contentInputStream) {
-            this.contentInputStream = contentInputStream;
+        private AttachmentContentStreamingOutput(AttachmentContentResponse content, long offset, long length) {
+            this.content = content;
+            this.offset = offset;
+            this.length = length;
         }
 
         @Override
         public void write(OutputStream os) throws IOException {
             try {
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = contentInputStream.read(buffer)) != -1) {
-                    os.write(buffer, 0, len);
-                }
+                content.write(os, offset, length);
             } finally {
-                contentInputStream.close();
+                closeQuietly(content);
             }
         }
     }
 
+    private static void closeQuietly(AttachmentContentResponse content) {
+        try {
+            content.close();
+        } catch (Exception e) {
+            // The content has been written, or it isn't going to be
+        }
+    }
+
 }
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+
+package com.ibm.ws.lars.rest.exceptions;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Thrown when an asset can't be updated because it was changed by another request after it was
+ * read.
+ */
+public class AssetConflictException extends RepositoryClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AssetConflictException(String assetId) {
+        super("asset " + assetId + " was modified by another request");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Status getResponseStatus() {
+        return Response.Status.CONFLICT;
+    }
+}
@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.ibm.ws.lars.rest.AttachmentContentStore;
+import com.ibm.ws.lars.rest.ContentHash;
+import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.exceptions.RepositoryException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+
+/**
+ * Stores attachment content as files in a directory on the local disk.
+ * <p>
+ * Each piece of content is stored in its own file, named with a random UUID, in a subdirectory
+ * named with the first two characters of the UUID so that no single directory grows too large. The
+ * content type is kept alongside the content in a file with the same name and a
+ * <code>.type</code> extension.
+ * <p>
+ * Content is written to the response a chunk at a time with {@link FileChannel#transferTo(long,
+ * long, WritableByteChannel)}, so memory use doesn't grow with the size of the file. The servlet
+ * output stream isn't a socket channel, so the copy still goes through a small buffer rather than
+ * being done by the operating system. Unlike {@link
+ * com.ibm.ws.lars.rest.mongo.GridFSContentStore}, identical content is not shared.
+ * <p>
+ * A repository which already has content in another store, such as GridFS, can be switched to
+ * this store by passing the old store to {@link #FileContentStore(Path, AttachmentContentStore)}.
+ * New content is written to files, while content ids which didn't come from this store are read
+ * and deleted through the old store.
+ */
+public class FileContentStore implements AttachmentContentStore {
+
+    private static final Logger logger = Logger.getLogger(FileContentStore.class.getCanonicalName());
+
+    private static final String CONTENT_TYPE_SUFFIX = ".type";
+
+    /** Content ids are UUIDs, anything else can't have come from this store */
+    private static final Pattern CONTENT_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+
+    private final AttachmentContentStore previousStore;
+
+    /**
+     * @param root the directory in which to store content, which will be created by
+     *            {@link #initialize()} if it does not exist
+     */
+    public FileContentStore(Path root) {
+        this(root, null);
+    }
+
+    /**
+     * @param root the directory in which to store content, which will be created by
+     *            {@link #initialize()} if it does not exist
+     * @param previousStore the store which held content before this one, used for any content id
+     *            which didn't come from this store, may be <code>null</code>
+     */
+    public FileContentStore(Path root, AttachmentContentStore previousStore) {
+        this.root = root;
+        this.previousStore = previousStore;
+    }
+
+    private Path getContentPath(String contentId) {
+        return root.resolve(contentId.substring(0, 2)).resolve(contentId);
+    }
+
+    private Path getContentTypePath(String contentId) {
+        return root.resolve(contentId.substring(0, 2)).resolve(contentId + CONTENT_TYPE_SUFFIX);
+    }
+
+    private static boolean isValidContentId(String contentId) {
+        return contentId != null && CONTENT_ID.matcher(contentId).matches();
+    }
+
+    /**
+     * Streams the content into a new file, computing its length and SHA-256 hash as it goes.
+     */
+    @Override
+    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) throws AssetPersistenceException {
+        String contentId = UUID.randomUUID().toString();
+        Path contentPath = getContentPath(contentId);
+        Path contentTypePath = getContentTypePath(contentId);
+
+        MessageDigest sha256 = ContentHash.newSha256();
+        long length = 0;
+        try {
+            Files.createDirectories(contentPath.getParent());
+            try (FileChannel out = FileChannel.open(contentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ReadableByteChannel in = Channels.newChannel(attachmentContentStream);
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    sha256.update(buffer.array(), 0, buffer.limit());
+                    while (buffer.hasRemaining()) {
+                        length += out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            if (contentType != null) {
+                Files.write(contentTypePath, contentType.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            deleteAttachmentContent(contentId);
+            throw new AssetPersistenceException(e);
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("createAttachmentContent: stored " + length + " bytes for " + name + " in " + contentPath);
+        }
+
+        return new AttachmentContentMetadata(contentId, length, ContentHash.toHex(sha256.digest()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String contentId) throws NonExistentArtefactException {
+        if (!isValidContentId(contentId)) {
+            if (previousStore != null && contentId != null) {
+                return previousStore.retrieveAttachmentContent(contentId);
+            }
+            throw new NonExistentArtefactException();
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(getContentPath(contentId), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new NonExistentArtefactException();
+        } catch (IOException e) {
+            throw new RepositoryException("Attachment content could not be opened", e);
+        }
+
+        try {
+            String contentType = null;
+            Path contentTypePath = getContentTypePath(contentId);
+            if (Files.exists(contentTypePath)) {
+                contentType = new String(Files.readAllBytes(contentTypePath), StandardCharsets.UTF_8);
+            }
+            return new FileChannelContentResponse(channel, contentType);
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException e1) {
+                // Already failing
+            }
+            throw new RepositoryException("Attachment content could not be opened", e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAttachmentContent(String contentId) {
+        if (!isValidContentId(contentId)) {
+            if (previousStore != null && contentId != null) {
+                previousStore.deleteAttachmentContent(contentId);
+            }
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(getContentPath(contentId));
+            Files.deleteIfExists(getContentTypePath(contentId));
+        } catch (IOException e) {
+            throw new RepositoryException("Attachment content could not be deleted", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content isn't shared between attachments, so each file is simply removed. Content from the
+     * previous store is left to that store, which may share it.
+     */
+    @Override
+    public void deleteAttachmentContents(Collection<String> contentIds) {
+        List<String> previousIds = new ArrayList<>();
+        for (String contentId : contentIds) {
+            if (isValidContentId(contentId)) {
+                deleteAttachmentContent(contentId);
+            } else if (contentId != null) {
+                previousIds.add(contentId);
+            }
+        }
+        if (previousStore != null && !previousIds.isEmpty()) {
+            previousStore.deleteAttachmentContents(previousIds);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void initialize() {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RepositoryException("Attachment content directory " + root + " could not be created", e);
+        }
+        logger.info("initialize: storing attachment content in " + root);
+        if (previousStore != null) {
+            previousStore.initialize();
+        }
+    }
+
+    /**
+     * Attachment content backed by a FileChannel, which writes ranges of the content with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. The target wraps an
+     * OutputStream, so transferTo copies through a small buffer rather than sending the file
+     * directly, but the content is never read into memory all at once.
+     */
+    static class FileChannelContentResponse extends AttachmentContentResponse {
+
+        private final FileChannel channel;
+
+        FileChannelContentResponse(FileChannel channel, String contentType) throws IOException {
+            super(Channels.newInputStream(channel), contentType, channel.size());
+            this.channel = channel;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(OutputStream os, long offset, long count) throws IOException {
+            long size = channel.size();
+            long end = count < 0 ? size : offset + count;
+            if (end > size) {
+                throw new IOException("Unexpected end of attachment content");
+            }
+            WritableByteChannel target = Channels.newChannel(os);
+            long position = offset;
+            while (position < end) {
+                // transferTo may copy fewer bytes than requested
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Unexpected end of attachment content");
+                }
+                position += transferred;
+            }
+        }
+    }
+
+}
@@ -16,9 +16,12 @@
 package com.ibm.ws.lars.rest.model;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.util.Iterator;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.ibm.ws.lars.rest.ContinuationToken;
 
 /**
  * An iterator over a set of Assets
@@ -51,4 +54,39 @@ public interface AssetCursor extends Iterator<Asset>, Closeable {
      * @param op the operation to add
      */
     public void addOperation(AssetOperation op);
+
+    /**
+     * Get the token which identifies the last asset in this cursor, so that the following page of
+     * assets can be requested.
+     *
+     * @return the continuation token, or null if keyset pagination was not requested or there are
+     *         no more assets
+     */
+    public default ContinuationToken getContinuationToken() {
+        return null;
+    }
+
+    /**
+     * Write the remaining assets in this cursor to the given generator as a JSON array.
+     * <p>
+     * The generator is flushed each time <code>flushInterval</code> assets have been written so
+     * that the client starts receiving data before the whole list has been serialized.
+     * Implementations may override this to write their underlying data directly, without creating
+     * an {@link Asset} for each entry.
+     *
+     * @param generator the generator to write to, which must have an ObjectCodec set
+     * @param flushInterval the number of assets to write between each flush of the generator
+     * @throws IOException if there is a problem writing to the generator
+     */
+    public default void writeJson(JsonGenerator generator, int flushInterval) throws IOException {
+        generator.writeStartArray();
+        int written = 0;
+        while (hasNext()) {
+            generator.writeObject(next());
+            if (++written % flushInterval == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+    }
 }
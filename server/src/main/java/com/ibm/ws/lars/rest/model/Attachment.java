@@ -82,6 +82,7 @@ public class Attachment extends RepositoryObject {
     public static final String LOCALE = "locale";
     public static final String NAME = "name";
     public static final String SIZE = "size";
+    public static final String SHA256 = "sha256";
     public static final String TYPE = "type";
     public static final String UPLOAD_ON = "uploadOn";
     public static final String URL = "url";
@@ -149,6 +150,14 @@ public class Attachment extends RepositoryObject {
         }
     }
 
+    public void setSha256(String sha256) {
+        put(SHA256, sha256);
+    }
+
+    public String getSha256() {
+        return get(SHA256);
+    }
+
     public void setType(String type) {
         put(TYPE, type);
     }
@@ -22,9 +22,12 @@ package com.ibm.ws.lars.rest.model;
 public class AttachmentContentMetadata {
     public String filename;
     public long length;
+    /** the SHA-256 hash of the content in hex */
+    public String sha256;
 
-    public AttachmentContentMetadata(String filename, long length) {
+    public AttachmentContentMetadata(String filename, long length, String sha256) {
         this.filename = filename;
         this.length = length;
+        this.sha256 = sha256;
     }
 }
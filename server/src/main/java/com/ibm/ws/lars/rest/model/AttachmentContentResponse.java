@@ -16,18 +16,27 @@
 
 package com.ibm.ws.lars.rest.model;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
- *
+ * The content of an attachment, as returned from an attachment content store
  */
 public class AttachmentContentResponse implements AutoCloseable {
     private final InputStream contentStream;
-    private final String contentType;
+    private String contentType;
+    private final long length;
 
-    public AttachmentContentResponse(InputStream contentStream, String contentType) {
+    /**
+     * @param contentStream the content
+     * @param contentType the MIME type of the content
+     * @param length the length of the content in bytes, or -1 if it is not known
+     */
+    public AttachmentContentResponse(InputStream contentStream, String contentType, long length) {
         this.contentStream = contentStream;
         this.contentType = contentType;
+        this.length = length;
     }
 
     public InputStream getContentStream() {
@@ -38,6 +47,52 @@ public class AttachmentContentResponse implements AutoCloseable {
         return contentType;
     }
 
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the length of the content in bytes, or -1 if it is not known
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Write part of the content to an output stream. The content must not have been read before
+     * this is called.
+     *
+     * @param os the stream to write to
+     * @param offset the number of bytes to skip before writing
+     * @param count the number of bytes to write, or -1 to write the remainder of the content
+     * @throws IOException if the content can't be read or written
+     */
+    public void write(OutputStream os, long offset, long count) throws IOException {
+        skipFully(contentStream, offset);
+        byte[] buffer = new byte[8192];
+        long remaining = count < 0 ? Long.MAX_VALUE : count;
+        int len;
+        while (remaining > 0 && (len = contentStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            os.write(buffer, 0, len);
+            remaining -= len;
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                // skip may legitimately return 0, so check for the end of the stream
+                if (in.read() == -1) {
+                    throw new IOException("Unexpected end of attachment content");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() throws Exception {
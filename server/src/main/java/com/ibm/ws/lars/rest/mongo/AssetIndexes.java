@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ibm.ws.lars.rest.model.Asset;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+/**
+ * The compound indexes which are created on the assets collection to support the queries that
+ * clients make.
+ * <p>
+ * The fields come from the attributes that the client library lets callers filter on (its
+ * <code>FilterableAttribute</code> enum), together with the asset state, which is added to
+ * every query made by a user who is not an administrator. Filters on the type and state are
+ * equality matches which are shared by most queries, so they are included in every index after
+ * the most selective field.
+ * <p>
+ * MongoDB will not index a document if more than one field in a compound index holds an array,
+ * so each index contains fields from at most one of the array valued fields
+ * (<code>wlpInformation.provideFeature</code> and <code>wlpInformation.appliesToFilterInfo</code>).
+ */
+public class AssetIndexes {
+
+    private static final String TYPE = "type";
+    private static final String PRODUCT_ID = "wlpInformation.appliesToFilterInfo.productId";
+    private static final String VISIBILITY = "wlpInformation.visibility";
+    private static final String SECONDARY_VISIBILITY = "wlpInformation2.visibility";
+    private static final String PRODUCT_MIN_VERSION = "wlpInformation.appliesToFilterInfo.minVersion.value";
+    private static final String PRODUCT_HAS_MAX_VERSION = "wlpInformation.appliesToFilterInfo.hasMaxVersion";
+    private static final String SYMBOLIC_NAME = "wlpInformation.provideFeature";
+    private static final String SHORT_NAME = "wlpInformation.shortName";
+    private static final String LOWER_CASE_SHORT_NAME = "wlpInformation.lowerCaseShortName";
+    private static final String VANITY_URL = "wlpInformation.vanityRelativeURL";
+
+    private static final List<DBObject> INDEXES;
+
+    static {
+        List<DBObject> indexes = new ArrayList<>();
+
+        // Finding the assets which apply to a product, e.g. by installUtility
+        indexes.add(ascending(TYPE, Asset.STATE, PRODUCT_ID, VISIBILITY, PRODUCT_MIN_VERSION, PRODUCT_HAS_MAX_VERSION));
+
+        // Assets whose visibility is stored in the newer wlpInformation2 object
+        indexes.add(ascending(SECONDARY_VISIBILITY, TYPE, Asset.STATE));
+
+        // Finding a feature by symbolic name
+        indexes.add(ascending(SYMBOLIC_NAME, TYPE, Asset.STATE));
+
+        // Finding a feature by short name
+        indexes.add(ascending(SHORT_NAME, TYPE, Asset.STATE));
+        indexes.add(ascending(LOWER_CASE_SHORT_NAME, TYPE, Asset.STATE));
+
+        // Finding the assets which share a vanity URL when an asset is replaced
+        indexes.add(ascending(VANITY_URL, Asset.STATE));
+
+        INDEXES = Collections.unmodifiableList(indexes);
+    }
+
+    private AssetIndexes() {
+        // Not instantiated
+    }
+
+    /**
+     * @return the key documents of the compound indexes to create on the assets collection
+     */
+    public static List<DBObject> getIndexes() {
+        return INDEXES;
+    }
+
+    private static DBObject ascending(String... fields) {
+        BasicDBObject keys = new BasicDBObject();
+        for (String field : fields) {
+            keys.put(field, 1);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.mongo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bson.types.ObjectId;
+
+import com.ibm.ws.lars.rest.AttachmentContentStore;
+import com.ibm.ws.lars.rest.ContentHash;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.exceptions.RepositoryException;
+import com.ibm.ws.lars.rest.model.Attachment;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoException;
+import com.mongodb.gridfs.GridFS;
+import com.mongodb.gridfs.GridFSDBFile;
+import com.mongodb.gridfs.GridFSInputFile;
+
+/**
+ * Stores attachment content in GridFS, in the same database as the asset metadata.
+ * <p>
+ * Content is stored once for each distinct SHA-256 hash, and shared between the attachments which
+ * have that content.
+ */
+public class GridFSContentStore implements AttachmentContentStore {
+
+    private static final Logger logger = Logger.getLogger(GridFSContentStore.class.getCanonicalName());
+
+    /**
+     * Field in a GridFS file document which counts the attachments sharing that content. Content
+     * is removed when the count reaches zero.
+     */
+    private static final String REF_COUNT = "refCount";
+
+    /** The name of the index on the hash of files with a live reference */
+    private static final String SHA256_INDEX = "sha256_live";
+
+    private final GridFS gridFS;
+    private final DB db;
+
+    public GridFSContentStore(DB db) {
+        this.db = db;
+        // Do not specify a bucket (so the data will be stored in fs.files and fs.chunks)
+        this.gridFS = new GridFS(db);
+    }
+
+    private DBCollection getFilesCollection() {
+        return db.getCollection(GridFS.DEFAULT_BUCKET + ".files");
+    }
+
+    private DBCollection getChunksCollection() {
+        return db.getCollection(GridFS.DEFAULT_BUCKET + ".chunks");
+    }
+
+    /**
+     * Streams the content into GridFS one chunk at a time, computing its SHA-256 hash as it goes,
+     * so that the whole of the content is never held in memory or written anywhere else.
+     * <p>
+     * If content with the same hash is already stored, the new chunks are discarded and the
+     * existing file is shared, with its reference count incremented. The hash index is unique
+     * among files with a live reference, so if two uploads of the same new content race, one of
+     * them fails to save its file document and shares the other's content instead.
+     */
+    @Override
+    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) {
+        MessageDigest sha256 = ContentHash.newSha256();
+        DigestInputStream digestStream = new DigestInputStream(attachmentContentStream, sha256);
+
+        GridFSInputFile gfsFile = gridFS.createFile(digestStream);
+        ObjectId id = new ObjectId();
+        gfsFile.setContentType(contentType);
+        gfsFile.setId(id);
+        String filename = id.toString();
+        gfsFile.setFilename(filename);
+
+        // Write the chunks first, so that the hash is known when the file document is saved
+        try {
+            gfsFile.saveChunks();
+        } catch (IOException e) {
+            throw new RepositoryException("Attachment content could not be read", e);
+        }
+        String hash = ContentHash.toHex(sha256.digest());
+        gfsFile.put(Attachment.SHA256, hash);
+        gfsFile.put(REF_COUNT, 1);
+
+        // Only match files with a live reference, so that we never share content which is
+        // in the middle of being deleted
+        DBObject existingQuery = new BasicDBObject(Attachment.SHA256, hash).append(REF_COUNT, new BasicDBObject("$gte", 1));
+        DBObject increment = new BasicDBObject("$inc", new BasicDBObject(REF_COUNT, 1));
+        while (true) {
+            DBObject existing = getFilesCollection().findAndModify(existingQuery, null, null, false, increment, true, false);
+            if (existing != null) {
+                getChunksCollection().remove(new BasicDBObject("files_id", id));
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("createAttachmentContent: sharing existing content " + existing.get("filename") + " with hash " + hash);
+                }
+                return new AttachmentContentMetadata((String) existing.get("filename"), ((Number) existing.get("length")).longValue(), hash);
+            }
+
+            try {
+                gfsFile.save();
+                return new AttachmentContentMetadata(filename, gfsFile.getLength(), hash);
+            } catch (DuplicateKeyException e) {
+                // Another upload of the same content saved its file document since we looked, so
+                // go round again and share it
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("createAttachmentContent: content with hash " + hash + " was stored concurrently");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an InputStream of the content of the attachment.
+     * <p>
+     * Calling <code>skip</code> on the returned stream moves directly to the GridFS chunk which
+     * contains the new position, so a range from the middle of the file can be served without
+     * reading the chunks before it.
+     *
+     * @throws NonExistentArtefactException
+     */
+    @Override
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException {
+        GridFSDBFile file = gridFS.findOne(gridFSId);
+
+        if (file != null) {
+            InputStream contentStream = file.getInputStream();
+            String contentType = file.getContentType();
+            return new AttachmentContentResponse(contentStream, contentType, file.getLength());
+        } else {
+            throw new NonExistentArtefactException();
+        }
+    }
+
+    /**
+     * Releases one reference to the content, and removes it from GridFS if that was the last
+     * reference.
+     */
+    @Override
+    public void deleteAttachmentContent(String gridFsId) {
+        // Content stored before reference counting was introduced has no count, and is
+        // decremented to -1 and removed here
+        DBObject query = new BasicDBObject("filename", gridFsId);
+        DBObject decrement = new BasicDBObject("$inc", new BasicDBObject(REF_COUNT, -1));
+        DBObject file = getFilesCollection().findAndModify(query, null, null, false, decrement, true, false);
+        if (file == null) {
+            return;
+        }
+
+        Object refCount = file.get(REF_COUNT);
+        if (!(refCount instanceof Number) || ((Number) refCount).intValue() <= 0) {
+            gridFS.remove(gridFsId);
+        }
+    }
+
+    /**
+     * Releases one reference to each piece of content, and removes the content which has no
+     * references left. However many ids there are, this takes a handful of bulk operations.
+     */
+    @Override
+    public void deleteAttachmentContents(Collection<String> gridFsIds) {
+        // Group the content by the number of references to release from it, which is almost
+        // always one
+        Map<String, Integer> releaseCounts = new HashMap<String, Integer>();
+        for (String gridFsId : gridFsIds) {
+            Integer count = releaseCounts.get(gridFsId);
+            releaseCounts.put(gridFsId, count == null ? 1 : count + 1);
+        }
+        Map<Integer, List<String>> idsByReleaseCount = new HashMap<Integer, List<String>>();
+        for (Map.Entry<String, Integer> entry : releaseCounts.entrySet()) {
+            List<String> ids = idsByReleaseCount.get(entry.getValue());
+            if (ids == null) {
+                ids = new ArrayList<String>();
+                idsByReleaseCount.put(entry.getValue(), ids);
+            }
+            ids.add(entry.getKey());
+        }
+
+        DBCollection files = getFilesCollection();
+        for (Map.Entry<Integer, List<String>> entry : idsByReleaseCount.entrySet()) {
+            DBObject query = new BasicDBObject("filename", new BasicDBObject("$in", entry.getValue()));
+            DBObject decrement = new BasicDBObject("$inc", new BasicDBObject(REF_COUNT, -entry.getKey()));
+            files.updateMulti(query, decrement);
+        }
+
+        // Content stored before reference counting was introduced has no count, and has just
+        // been decremented below zero
+        DBObject unreferenced = new BasicDBObject("filename", new BasicDBObject("$in", new ArrayList<String>(releaseCounts.keySet())))
+                        .append(REF_COUNT, new BasicDBObject("$lte", 0));
+        List<Object> fileIds = new ArrayList<Object>();
+        try (DBCursor cursor = files.find(unreferenced, new BasicDBObject("_id", 1))) {
+            for (DBObject file : cursor) {
+                fileIds.add(file.get("_id"));
+            }
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("deleteAttachmentContents: released " + gridFsIds.size() + " references and removed " + fileIds.size() + " files");
+        }
+
+        if (!fileIds.isEmpty()) {
+            files.remove(new BasicDBObject("_id", new BasicDBObject("$in", fileIds)));
+            getChunksCollection().remove(new BasicDBObject("files_id", new BasicDBObject("$in", fileIds)));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void initialize() {
+        DBCollection files = getFilesCollection();
+        DBObject keys = new BasicDBObject(Attachment.SHA256, 1);
+
+        // Earlier versions created a plain index on the hash, which has the same keys and so has
+        // to go before the unique one can be created
+        for (DBObject index : files.getIndexInfo()) {
+            if (keys.equals(index.get("key")) && !SHA256_INDEX.equals(index.get("name"))) {
+                files.dropIndex((String) index.get("name"));
+            }
+        }
+
+        // Add index to find existing attachment content by its hash, which makes sure only one
+        // file with a live reference has each hash
+        DBObject options = new BasicDBObject("name", SHA256_INDEX)
+                        .append("unique", true)
+                        .append("partialFilterExpression", new BasicDBObject(REF_COUNT, new BasicDBObject("$gte", 1)));
+        try {
+            files.createIndex(keys, options);
+        } catch (MongoException e) {
+            // Content stored by concurrent uploads before the index was unique may have the same
+            // hash more than once. It still needs to be found by its hash, but concurrent uploads
+            // of the same content may each store a copy until the duplicates are removed.
+            logger.log(Level.WARNING, "The attachment content hash index could not be made unique", e);
+            files.createIndex(keys, new BasicDBObject("name", SHA256_INDEX));
+        }
+    }
+
+}
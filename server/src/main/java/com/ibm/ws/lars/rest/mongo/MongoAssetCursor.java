@@ -15,35 +15,96 @@
  *******************************************************************************/
 package com.ibm.ws.lars.rest.mongo;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.bson.types.ObjectId;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.ibm.ws.lars.rest.ContinuationToken;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.model.AssetOperation;
 import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
 
 /**
- * An {@link AssetCursor} implementation which streams Assets from a Mongo {@link DBCursor}.
+ * An {@link AssetCursor} implementation which streams Assets from a Mongo {@link DBCursor}, or
+ * returns Assets from documents which have already been read from the database.
+ * <p>
+ * The <code>_id</code> of each asset is converted from an ObjectId to its hex string form, and any
+ * fields which have been excluded with {@link #excludeField(String)} are removed.
  */
 public class MongoAssetCursor implements AssetCursor {
 
+    private static final String ID = "_id";
+
+    /** The cursor the documents are read from, or null if they have already been read */
     private final DBCursor cursor;
+    private final Iterator<DBObject> documents;
+    private final int size;
     private final List<AssetOperation> operations = new ArrayList<>();
+    private final Set<String> excludedFields = new HashSet<>();
+    private ContinuationToken continuationToken;
 
     public MongoAssetCursor(DBCursor cursor) {
         this.cursor = cursor;
+        this.documents = cursor;
+        this.size = -1;
+    }
+
+    /**
+     * @param documents documents which have already been read from the database
+     */
+    public MongoAssetCursor(List<DBObject> documents) {
+        this.cursor = null;
+        this.documents = documents.iterator();
+        this.size = documents.size();
+    }
+
+    /**
+     * Exclude a top level field from the assets returned by this cursor. This is useful for fields
+     * such as the text search score which have to be requested from the database but should not be
+     * returned to the user.
+     *
+     * @param field the name of the field to exclude
+     */
+    public void excludeField(String field) {
+        excludedFields.add(field);
+    }
+
+    /**
+     * Set the token which identifies the last asset in this cursor
+     *
+     * @param continuationToken the token, may be null if there are no more assets
+     */
+    public void setContinuationToken(ContinuationToken continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    @Override
+    public ContinuationToken getContinuationToken() {
+        return continuationToken;
     }
 
     @Override
     public boolean hasNext() {
-        return cursor.hasNext();
+        return documents.hasNext();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public Asset next() {
-        Asset next = Asset.createAssetFromMap(cursor.next().toMap());
+        Asset next = Asset.createAssetFromMap(documents.next().toMap());
+        Object id = next.getProperty(ID);
+        if (id instanceof ObjectId) {
+            next.setProperty(ID, ((ObjectId) id).toHexString());
+        }
+        next.getProperties().keySet().removeAll(excludedFields);
         for (AssetOperation op : operations) {
             op.perform(next);
         }
@@ -57,7 +118,7 @@ public class MongoAssetCursor implements AssetCursor {
 
     @Override
     public int size() {
-        return cursor.size();
+        return cursor == null ? size : cursor.size();
     }
 
     @Override
@@ -65,9 +126,52 @@ public class MongoAssetCursor implements AssetCursor {
         operations.add(op);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If no operations have been added to this cursor, the documents returned from the database are
+     * written straight to the generator, without being copied into an {@link Asset}.
+     */
+    @Override
+    public void writeJson(JsonGenerator generator, int flushInterval) throws IOException {
+        if (!operations.isEmpty()) {
+            AssetCursor.super.writeJson(generator, flushInterval);
+            return;
+        }
+
+        generator.writeStartArray();
+        int written = 0;
+        while (documents.hasNext()) {
+            writeDocument(generator, documents.next());
+            if (++written % flushInterval == 0) {
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeDocument(JsonGenerator generator, DBObject document) throws IOException {
+        generator.writeStartObject();
+        for (String key : document.keySet()) {
+            if (excludedFields.contains(key)) {
+                continue;
+            }
+            Object value = document.get(key);
+            generator.writeFieldName(key);
+            if (ID.equals(key) && value instanceof ObjectId) {
+                generator.writeString(((ObjectId) value).toHexString());
+            } else {
+                generator.writeObject(value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
     @Override
     public void close() {
-        cursor.close();
+        if (cursor != null) {
+            cursor.close();
+        }
     }
 
 }
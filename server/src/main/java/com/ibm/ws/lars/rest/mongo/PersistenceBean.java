@@ -16,17 +16,19 @@
 
 package com.ibm.ws.lars.rest.mongo;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.enterprise.context.ApplicationScoped;
 
@@ -36,30 +38,31 @@ import org.bson.types.ObjectId;
 
 import com.ibm.ws.lars.rest.AssetFilter;
 import com.ibm.ws.lars.rest.Condition;
+import com.ibm.ws.lars.rest.ContinuationToken;
 import com.ibm.ws.lars.rest.PaginationOptions;
 import com.ibm.ws.lars.rest.Persistor;
 import com.ibm.ws.lars.rest.RepositoryRESTResource;
 import com.ibm.ws.lars.rest.SortOptions;
 import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
 import com.ibm.ws.lars.rest.exceptions.RepositoryException;
 import com.ibm.ws.lars.rest.model.Asset;
 import com.ibm.ws.lars.rest.model.AssetCursor;
-import com.ibm.ws.lars.rest.model.AssetOperation;
 import com.ibm.ws.lars.rest.model.Attachment;
-import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
-import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
 import com.ibm.ws.lars.rest.model.AttachmentList;
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.Cursor;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
-import com.mongodb.gridfs.GridFS;
-import com.mongodb.gridfs.GridFSDBFile;
-import com.mongodb.gridfs.GridFSInputFile;
+import com.mongodb.MongoCommandException;
+import com.mongodb.WriteResult;
 
 /**
  * Bean through which supports CRUD operations. All accesses to the database should go through this
@@ -83,21 +86,29 @@ public class PersistenceBean implements Persistor {
 
     private static final String ATTACHMENTS_COLLECTION = "attachments";
 
+    /** The collection holding the version of the assets and attachments, see {@link #getAssetListVersion()} */
+    private static final String VERSIONS_COLLECTION = "versions";
+
+    /** The field of the version document which holds the version number */
+    private static final String VERSION = "version";
+
     private static final List<String> searchIndexFields =
         Arrays.asList(new String[] { "name", "description", "shortDescription", "tags" });
 
+    /** Prefix for the names of the sub-pipelines in a $facet aggregation stage */
+    private static final String FACET_PREFIX = "facet";
+
+    /** The error code MongoDB returns for an aggregation stage it doesn't know, such as $facet before 3.4 */
+    private static final int UNRECOGNIZED_PIPELINE_STAGE = 40324;
+
     /** The _id field of a MongoDB object */
     private static final String ID = "_id";
 
     @Inject
     private com.mongodb.DB db;
 
-    private GridFS gridFS;
-
-    @PostConstruct
-    public void createGridFS() {
-        gridFS = new GridFS(db);
-    }
+    /** Set once the database has been found not to support the $facet aggregation stage */
+    private volatile boolean facetUnsupported = false;
 
     private DBCollection getAssetCollection() {
         return db.getCollection(ASSETS_COLLECTION);
@@ -107,6 +118,19 @@ public class PersistenceBean implements Persistor {
         return db.getCollection(ATTACHMENTS_COLLECTION);
     }
 
+    private DBCollection getVersionCollection() {
+        return db.getCollection(VERSIONS_COLLECTION);
+    }
+
+    /**
+     * Increase the version returned by {@link #getAssetListVersion()}. This must be called after
+     * every write to the assets or attachments has completed, never before, so that a response
+     * read while the write is happening is never given the new version.
+     */
+    private void incrementAssetListVersion() {
+        getVersionCollection().update(new BasicDBObject(ID, ASSETS_COLLECTION), new BasicDBObject("$inc", new BasicDBObject(VERSION, 1L)), true, false);
+    }
+
     private DBObject makeQueryById(ObjectId id) {
         return new BasicDBObject(ID, id);
     }
@@ -120,25 +144,6 @@ public class PersistenceBean implements Persistor {
         }
     }
 
-    private static AssetOperation CONVERT_OID_TO_HEX = new AssetOperation() {
-        @Override
-        public void perform(Asset asset) {
-            Object objectIdObject = asset.getProperty(ID);
-            if ((objectIdObject != null) && (objectIdObject instanceof ObjectId)) {
-                ObjectId objId = (ObjectId) objectIdObject;
-                String hex = objId.toHexString();
-                asset.setProperty(ID, hex);
-            }
-        }
-    };
-
-    private static AssetOperation REMOVE_SCORE = new AssetOperation() {
-        @Override
-        public void perform(Asset asset) {
-            asset.getProperties().remove("score");
-        }
-    };
-
     private static void convertHexIdToObjectId(DBObject obj) {
         Object idObject = obj.get(ID);
         if ((idObject != null) && (idObject instanceof String)) {
@@ -154,24 +159,31 @@ public class PersistenceBean implements Persistor {
             logger.fine("retrieveAllAssets: found " + cursor.count() + " assets.");
         }
 
-        AssetCursor assetCursor = new MongoAssetCursor(cursor);
-        assetCursor.addOperation(CONVERT_OID_TO_HEX);
-
-        return assetCursor;
+        return new MongoAssetCursor(cursor);
     }
 
     /** {@inheritDoc} */
     @Override
     public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions) {
+        return retrieveAllAssets(filters, searchTerm, pagination, sortOptions, null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions, List<String> fields) {
 
-        if (filters.size() == 0 && searchTerm == null && pagination == null && sortOptions == null) {
+        if (filters.size() == 0 && searchTerm == null && pagination == null && sortOptions == null && fields == null) {
             return retrieveAllAssets();
         }
 
         BasicDBObject filterObject = createFilterObject(filters, searchTerm);
+        BasicDBObject projectionObject = createProjectionObject(fields);
+
+        if (pagination != null && pagination.isKeyset()) {
+            return keysetQuery(filterObject, sortOptions, projectionObject, pagination);
+        }
 
         DBObject sortObject = null;
-        DBObject projectionObject = null;
         boolean textScoreAdded = false;
 
         if (sortOptions != null) {
@@ -181,16 +193,20 @@ public class PersistenceBean implements Persistor {
         } else {
             // If no sort options are provided but there is a search term, sort on relevance to the search term
             if (searchTerm != null) {
-                sortObject = new BasicDBObject("score", new BasicDBObject("$meta", "textScore"));
-                projectionObject = sortObject;
+                DBObject textScore = new BasicDBObject("$meta", "textScore");
+                sortObject = new BasicDBObject("score", textScore);
+                if (projectionObject == null) {
+                    projectionObject = new BasicDBObject();
+                }
+                projectionObject.put("score", textScore);
                 textScoreAdded = true;
             }
         }
 
-        AssetCursor results = query(filterObject, sortObject, projectionObject, pagination);
+        MongoAssetCursor results = query(filterObject, sortObject, projectionObject, pagination);
 
         if (textScoreAdded) {
-            results.addOperation(REMOVE_SCORE);
+            results.excludeField("score");
         }
 
         return results;
@@ -203,6 +219,23 @@ public class PersistenceBean implements Persistor {
         return queryCount(filterObject);
     }
 
+    /** {@inheritDoc} */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<String, Object> explainQuery(Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions) {
+        BasicDBObject filterObject = createFilterObject(filters, searchTerm);
+        DBCursor cursor = getAssetCollection().find(filterObject);
+        if (sortOptions != null) {
+            cursor.sort(new BasicDBObject(sortOptions.getField(), getMongoSortOrder(sortOptions.getSortOrder())));
+        }
+
+        DBObject plan = cursor.explain();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("explainQuery: plan for query object " + filterObject + " is " + plan);
+        }
+        return plan.toMap();
+    }
+
     /** {@inheritDoc} */
     @SuppressWarnings("unchecked")
     @Override
@@ -210,6 +243,129 @@ public class PersistenceBean implements Persistor {
         return getAssetCollection().distinct(field, createFilterObject(filters, searchTerm));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The values of every field are counted in a single aggregation using a <code>$facet</code>
+     * stage, which needs MongoDB 3.4 or later. Older servers don't understand <code>$facet</code>,
+     * so for them each field is counted with its own aggregation instead.
+     */
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(List<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        Map<String, Map<Object, Integer>> result = new HashMap<>();
+        if (fields.isEmpty()) {
+            return result;
+        }
+
+        BasicDBObject match = new BasicDBObject("$match", createFilterObject(filters, searchTerm));
+
+        if (!facetUnsupported) {
+            // Each field is grouped in its own sub-pipeline of a single $facet stage, so the filter
+            // and search are only evaluated once. Facet names can't contain dots so use the index.
+            BasicDBObject facets = new BasicDBObject();
+            for (int i = 0; i < fields.size(); i++) {
+                BasicDBList facetPipeline = new BasicDBList();
+                facetPipeline.addAll(createValueCountStages(fields.get(i)));
+                facets.put(FACET_PREFIX + i, facetPipeline);
+            }
+
+            List<DBObject> pipeline = new ArrayList<>();
+            pipeline.add(match);
+            pipeline.add(new BasicDBObject("$facet", facets));
+
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("getDistinctValueCounts: aggregating with pipeline " + pipeline);
+            }
+
+            try {
+                DBObject facetResults;
+                try (Cursor cursor = getAssetCollection().aggregate(pipeline, AggregationOptions.builder().build())) {
+                    facetResults = cursor.hasNext() ? cursor.next() : new BasicDBObject();
+                }
+                for (int i = 0; i < fields.size(); i++) {
+                    result.put(fields.get(i), readValueCounts(facetResults.get(FACET_PREFIX + i)));
+                }
+                return result;
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != UNRECOGNIZED_PIPELINE_STAGE) {
+                    throw e;
+                }
+                logger.info("getDistinctValueCounts: the database does not support $facet, counting each field separately");
+                facetUnsupported = true;
+            }
+        }
+
+        for (String field : fields) {
+            List<DBObject> pipeline = new ArrayList<>();
+            pipeline.add(match);
+            pipeline.addAll(createValueCountStages(field));
+
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("getDistinctValueCounts: aggregating with pipeline " + pipeline);
+            }
+
+            List<DBObject> groups = new ArrayList<>();
+            try (Cursor cursor = getAssetCollection().aggregate(pipeline, AggregationOptions.builder().build())) {
+                while (cursor.hasNext()) {
+                    groups.add(cursor.next());
+                }
+            }
+            result.put(field, readValueCounts(groups));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the aggregation stages which count the number of times each value of a field occurs.
+     * <p>
+     * Like <code>distinct</code>, a value inside an array counts as a value of the field, and so
+     * does a value reached through an array of sub-documents. For example
+     * <code>wlpInformation.appliesToFilterInfo.minVersion.value</code> goes through the
+     * <code>appliesToFilterInfo</code> array. <code>$unwind</code> only unwinds the last element of
+     * its path, so every prefix of the path is unwound in turn. Unwinding a value which isn't an
+     * array leaves it as it is.
+     */
+    private static List<DBObject> createValueCountStages(String field) {
+        List<DBObject> stages = new ArrayList<>();
+        int dot = field.indexOf('.');
+        while (dot != -1) {
+            stages.add(new BasicDBObject("$unwind", "$" + field.substring(0, dot)));
+            dot = field.indexOf('.', dot + 1);
+        }
+        stages.add(new BasicDBObject("$unwind", "$" + field));
+        stages.add(new BasicDBObject("$group", new BasicDBObject(ID, "$" + field).append("count", new BasicDBObject("$sum", 1))));
+        return stages;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Integer> readValueCounts(Object groups) {
+        Map<Object, Integer> counts = new LinkedHashMap<>();
+        if (groups != null) {
+            for (DBObject group : (List<DBObject>) groups) {
+                counts.put(group.get(ID), ((Number) group.get("count")).intValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The version is a counter held in its own collection, so it is shared by every server using
+     * the same database. Changes made to the database other than through this class don't
+     * change it.
+     */
+    @Override
+    public long getAssetListVersion() {
+        DBObject version = getVersionCollection().findOne(new BasicDBObject(ID, ASSETS_COLLECTION));
+        if (version == null) {
+            // Nothing has been written since the repository was created
+            return 0;
+        }
+        return ((Number) version.get(VERSION)).longValue();
+    }
+
     /**
      * Create a filter object for a mongodb query from a filtermap and search term
      *
@@ -251,6 +407,26 @@ public class PersistenceBean implements Persistor {
         return filterObject;
     }
 
+    /**
+     * Create a projection object for a mongodb query which includes only the given fields
+     *
+     * @param fields the fields to include, may be null to include all fields
+     * @return a projection object which can be passed to mongodb find(), or null if all fields
+     *         should be returned
+     */
+    private BasicDBObject createProjectionObject(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+
+        // Mongo always returns the _id unless it is explicitly excluded
+        BasicDBObject projectionObject = new BasicDBObject();
+        for (String field : fields) {
+            projectionObject.put(field, 1);
+        }
+        return projectionObject;
+    }
+
     private BasicDBObject createFilterObject(String field, Condition condition) {
         Object value = null;
         switch (condition.getOperation()) {
@@ -265,7 +441,7 @@ public class PersistenceBean implements Persistor {
         return new BasicDBObject(field, value);
     }
 
-    private AssetCursor query(DBObject filterObject, DBObject sortObject, DBObject projectionObject, PaginationOptions pagination) {
+    private MongoAssetCursor query(DBObject filterObject, DBObject sortObject, DBObject projectionObject, PaginationOptions pagination) {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("query: Querying database with query object " + filterObject);
@@ -288,12 +464,176 @@ public class PersistenceBean implements Persistor {
             cursor.sort(sortObject);
         }
 
-        AssetCursor result = new MongoAssetCursor(cursor);
-        result.addOperation(CONVERT_OID_TO_HEX);
+        return new MongoAssetCursor(cursor);
+    }
 
+    /**
+     * Query for a page of assets using keyset pagination.
+     * <p>
+     * Results are sorted by the sort field and then by _id, so that every asset has a unique
+     * position. Rather than skipping over the earlier pages, the query only matches assets which
+     * sort after the asset identified by the continuation token.
+     * <p>
+     * The continuation token is sent in the response headers, before any of the assets, so the
+     * page is read from the database before the cursor is returned. One more asset than the page
+     * holds is asked for, so the same query shows whether there is a following page. If there is,
+     * a continuation token identifying the last asset of this page is set on the returned cursor.
+     */
+    private MongoAssetCursor keysetQuery(DBObject filterObject, SortOptions sortOptions, DBObject projectionObject, PaginationOptions pagination) {
+        String sortField = sortOptions == null ? null : sortOptions.getField();
+        int sortOrder = sortOptions == null ? 1 : getMongoSortOrder(sortOptions.getSortOrder());
+
+        BasicDBObject sortObject = new BasicDBObject();
+        if (sortField != null) {
+            sortObject.put(sortField, sortOrder);
+        }
+        sortObject.put(ID, sortOrder);
+
+        ContinuationToken continuation = pagination.getContinuation();
+        if (continuation != null) {
+            BasicDBList andList = new BasicDBList();
+            andList.add(filterObject);
+            andList.add(createKeysetFilterObject(sortField, sortOrder, continuation));
+            filterObject = new BasicDBObject("$and", andList);
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("keysetQuery: Querying database with query object " + filterObject);
+            logger.fine("keysetQuery: sort object " + sortObject);
+            logger.fine("keysetQuery: projection object " + projectionObject);
+            logger.fine("keysetQuery: pagination object " + pagination);
+        }
+
+        int limit = pagination.getLimit();
+        DBCursor cursor = getAssetCollection().find(filterObject, projectionObject);
+        cursor.sort(sortObject);
+
+        // A limit of zero means no limit, so there is never a following page
+        if (limit <= 0) {
+            return new MongoAssetCursor(cursor);
+        }
+
+        cursor.limit(limit + 1);
+        List<DBObject> page = new ArrayList<>();
+        try {
+            while (page.size() <= limit && cursor.hasNext()) {
+                page.add(cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
+
+        ContinuationToken continuation = null;
+        if (page.size() > limit) {
+            page.remove(limit);
+            DBObject last = page.get(limit - 1);
+            Object sortValue = sortField == null ? null : toTokenValue(getFieldValue(last, sortField));
+            continuation = new ContinuationToken(sortValue, getIdString(last.get(ID)));
+        }
+
+        MongoAssetCursor result = new MongoAssetCursor(page);
+        result.setContinuationToken(continuation);
         return result;
     }
 
+    /**
+     * Create a filter object which matches the assets which sort after the asset identified by a
+     * continuation token.
+     * <p>
+     * Mongo sorts null and missing values before any other value, so they need to be handled
+     * separately.
+     */
+    private DBObject createKeysetFilterObject(String sortField, int sortOrder, ContinuationToken continuation) {
+        String after = sortOrder == 1 ? "$gt" : "$lt";
+        BasicDBObject afterId = new BasicDBObject(after, convertHexToObjectId(continuation.getId()));
+
+        if (sortField == null) {
+            return new BasicDBObject(ID, afterId);
+        }
+
+        Object sortValue = fromTokenValue(continuation.getSortValue());
+        BasicDBList orList = new BasicDBList();
+        if (sortValue == null) {
+            if (sortOrder == 1) {
+                orList.add(new BasicDBObject(sortField, new BasicDBObject("$ne", null)));
+            }
+            orList.add(new BasicDBObject(sortField, null).append(ID, afterId));
+        } else {
+            orList.add(new BasicDBObject(sortField, new BasicDBObject(after, sortValue)));
+            orList.add(new BasicDBObject(sortField, sortValue).append(ID, afterId));
+            if (sortOrder != 1) {
+                orList.add(new BasicDBObject(sortField, null));
+            }
+        }
+        return new BasicDBObject("$or", orList);
+    }
+
+    /**
+     * Get the value of a possibly dotted field name from an object, or null if the field isn't
+     * present
+     */
+    private static Object getFieldValue(DBObject obj, String field) {
+        Object value = obj;
+        for (String part : field.split("\\.")) {
+            if (!(value instanceof DBObject) || value instanceof List) {
+                return null;
+            }
+            value = ((DBObject) value).get(part);
+        }
+        return value;
+    }
+
+    /**
+     * Continuation tokens are passed to the client as JSON, which has no types for dates or object
+     * ids. Sort values of those types are wrapped in a map naming their type, in the same way as
+     * MongoDB extended JSON, so that {@link #fromTokenValue(Object)} can turn them back into values
+     * which compare correctly with the values in the database.
+     */
+    private static Object toTokenValue(Object value) {
+        if (value instanceof Date) {
+            return Collections.singletonMap(ContinuationToken.DATE_TYPE, ((Date) value).getTime());
+        } else if (value instanceof ObjectId) {
+            return Collections.singletonMap(ContinuationToken.OBJECT_ID_TYPE, ((ObjectId) value).toHexString());
+        }
+        return value;
+    }
+
+    /**
+     * Reverses {@link #toTokenValue(Object)}.
+     * <p>
+     * The sort value came from the client, and anything other than a plain value or one of the
+     * wrapped types could be taken as query operators, so anything else is rejected. Tokens from
+     * {@link ContinuationToken#decode(String)} have already been checked.
+     */
+    private static Object fromTokenValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Map && ((Map<?, ?>) value).size() == 1) {
+            Map<?, ?> typed = (Map<?, ?>) value;
+            Object date = typed.get(ContinuationToken.DATE_TYPE);
+            if (date instanceof Number) {
+                return new Date(((Number) date).longValue());
+            }
+            Object objectId = typed.get(ContinuationToken.OBJECT_ID_TYPE);
+            if (objectId instanceof String && ObjectId.isValid((String) objectId)) {
+                return new ObjectId((String) objectId);
+            }
+        }
+        throw new IllegalArgumentException("The continuation token sort value is not valid: " + value);
+    }
+
+    private static String getIdString(Object idObject) {
+        if (idObject instanceof ObjectId) {
+            return ((ObjectId) idObject).toHexString();
+        }
+        return String.valueOf(idObject);
+    }
+
+    private static Object convertHexToObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
     private int queryCount(DBObject filterObject) {
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("queryCount: Querying database with query object " + filterObject);
@@ -325,6 +665,37 @@ public class PersistenceBean implements Persistor {
         return retrieveAsset(new ObjectId(assetId));
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        List<ObjectId> objectIds = new ArrayList<ObjectId>(assetIds.size());
+        for (String assetId : assetIds) {
+            if (ObjectId.isValid(assetId)) {
+                objectIds.add(new ObjectId(assetId));
+            }
+        }
+
+        List<Asset> results = new ArrayList<Asset>(objectIds.size());
+        if (objectIds.isEmpty()) {
+            return results;
+        }
+
+        BasicDBObject query = new BasicDBObject(ID, new BasicDBObject("$in", objectIds));
+        try (DBCursor cursor = getAssetCollection().find(query)) {
+            for (DBObject resultObj : cursor) {
+                convertObjectIdToHexString(resultObj);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> asset = resultObj.toMap();
+                results.add(Asset.createAssetFromMap(asset));
+            }
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("retrieveAssets: found " + results.size() + " of " + assetIds.size() + " requested assets");
+        }
+        return results;
+    }
+
     /**
      * Retrieve a single asset by its id.
      *
@@ -337,12 +708,7 @@ public class PersistenceBean implements Persistor {
         if (resultObj == null) {
             throw new NonExistentArtefactException(assetId.toString(), RepositoryRESTResource.ArtefactType.ASSET);
         }
-        convertObjectIdToHexString(resultObj);
-        // All entries in a Mongo document have string keys, this is part of
-        // the BSON spec, so this should be safe. Not very nice though.
-        @SuppressWarnings("unchecked")
-        Map<String, Object> asset = resultObj.toMap();
-        return Asset.createAssetFromMap(asset);
+        return convertToAsset(resultObj);
     }
 
     @Override
@@ -358,6 +724,7 @@ public class PersistenceBean implements Persistor {
         }
 
         coll.insert(obj);
+        incrementAssetListVersion();
 
         Asset createdAsset = null;
         try {
@@ -370,6 +737,54 @@ public class PersistenceBean implements Persistor {
         return createdAsset;
     }
 
+    @Override
+    public List<Asset> createAssets(List<Asset> newAssets) throws InvalidJsonAssetException {
+        DBCollection coll = getAssetCollection();
+        BulkWriteOperation bulkWrite = coll.initializeOrderedBulkOperation();
+
+        List<ObjectId> ids = new ArrayList<ObjectId>(newAssets.size());
+        for (Asset newAsset : newAssets) {
+            DBObject obj = new BasicDBObject(newAsset.getProperties());
+            convertHexIdToObjectId(obj);
+            ObjectId id = (ObjectId) obj.get(ID);
+            if (id == null) {
+                id = new ObjectId();
+                obj.put(ID, id);
+            }
+            ids.add(id);
+            bulkWrite.insert(obj);
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("createAssets: inserting " + ids.size() + " objects into the database");
+        }
+
+        bulkWrite.execute();
+        incrementAssetListVersion();
+
+        Map<ObjectId, Asset> createdAssets = new HashMap<ObjectId, Asset>();
+        try (DBCursor cursor = coll.find(new BasicDBObject(ID, new BasicDBObject("$in", ids)))) {
+            for (DBObject resultObj : cursor) {
+                ObjectId id = (ObjectId) resultObj.get(ID);
+                convertObjectIdToHexString(resultObj);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> asset = resultObj.toMap();
+                createdAssets.put(id, Asset.createAssetFromMap(asset));
+            }
+        }
+
+        List<Asset> results = new ArrayList<Asset>(ids.size());
+        for (ObjectId id : ids) {
+            Asset createdAsset = createdAssets.get(id);
+            if (createdAsset == null) {
+                // This should not happen. If it does it is a repository bug
+                throw new RepositoryException("Created asset " + id + " could not be retrieved from the database.");
+            }
+            results.add(createdAsset);
+        }
+        return results;
+    }
+
     @Override
     public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException {
         if (!Objects.equals(assetId, asset.get_id())) {
@@ -389,9 +804,51 @@ public class PersistenceBean implements Persistor {
             logger.fine(msg);
         }
 
-        coll.update(query, obj);
+        DBObject resultObj = coll.findAndModify(query, null, null, false, obj, true, false);
+        if (resultObj == null) {
+            throw new NonExistentArtefactException(assetId, RepositoryRESTResource.ArtefactType.ASSET);
+        }
+        incrementAssetListVersion();
 
-        return retrieveAsset(objId);
+        return convertToAsset(resultObj);
+    }
+
+    @Override
+    public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws NonExistentArtefactException, AssetConflictException {
+        DBCollection coll = getAssetCollection();
+
+        ObjectId objId = new ObjectId(assetId);
+        BasicDBObject query = new BasicDBObject(ID, objId);
+        query.putAll(expectedValues);
+        DBObject update = new BasicDBObject("$set", new BasicDBObject(newValues));
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("updateAssetFields: query object: " + query + "\nupdate object:" + update);
+        }
+
+        DBObject resultObj = coll.findAndModify(query, null, null, false, update, true, false);
+        if (resultObj == null) {
+            // Either the asset doesn't exist, or it no longer has the expected values
+            if (coll.findOne(makeQueryById(objId), new BasicDBObject(ID, 1)) == null) {
+                throw new NonExistentArtefactException(assetId, RepositoryRESTResource.ArtefactType.ASSET);
+            }
+            throw new AssetConflictException(assetId);
+        }
+        incrementAssetListVersion();
+
+        return convertToAsset(resultObj);
+    }
+
+    /**
+     * Convert an asset read from the database into an Asset
+     */
+    private static Asset convertToAsset(DBObject resultObj) {
+        convertObjectIdToHexString(resultObj);
+        // All entries in a Mongo document have string keys, this is part of
+        // the BSON spec, so this should be safe. Not very nice though.
+        @SuppressWarnings("unchecked")
+        Map<String, Object> asset = resultObj.toMap();
+        return Asset.createAssetFromMap(asset);
     }
 
     /**
@@ -402,24 +859,7 @@ public class PersistenceBean implements Persistor {
         DBCollection coll = getAssetCollection();
         DBObject query = new BasicDBObject(ID, new ObjectId(assetId));
         coll.remove(query);
-    }
-
-    /**
-     * @param attachmentContentStream
-     * @return
-     */
-    @Override
-    public AttachmentContentMetadata createAttachmentContent(String name, String contentType, InputStream attachmentContentStream) {
-        // Do not specify a bucket (so the data will be stored in fs.files and fs.chunks)
-        GridFSInputFile gfsFile = gridFS.createFile(attachmentContentStream);
-        ObjectId id = new ObjectId();
-        gfsFile.setContentType(contentType);
-        gfsFile.setId(id);
-        String filename = id.toString();
-        gfsFile.setFilename(filename);
-        gfsFile.save();
-
-        return new AttachmentContentMetadata(gfsFile.getFilename(), gfsFile.getLength());
+        incrementAssetListVersion();
     }
 
     /**
@@ -436,6 +876,7 @@ public class PersistenceBean implements Persistor {
             logger.fine("createAttachmentMetadata: inserting new attachment " + state);
         }
         coll.insert(state);
+        incrementAssetListVersion();
         Object idObject = state.get(ID);
         String id;
         if (idObject instanceof String) {
@@ -468,15 +909,21 @@ public class PersistenceBean implements Persistor {
         return Attachment.createAttachmentFromMap(map);
     }
 
-    @Override
-    public void deleteAttachmentContent(String gridFsId) {
-        gridFS.remove(gridFsId);
-    }
-
     @Override
     public void deleteAttachmentMetadata(String attachmentId) {
         DBObject query = new BasicDBObject(ID, new ObjectId(attachmentId));
         getAttachmentCollection().remove(query);
+        incrementAssetListVersion();
+    }
+
+    @Override
+    public void deleteAttachmentMetadataForAsset(String assetId) {
+        DBObject query = new BasicDBObject("assetId", assetId);
+        WriteResult result = getAttachmentCollection().remove(query);
+        incrementAssetListVersion();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("deleteAttachmentMetadataForAsset: deleted " + result.getN() + " attachments for asset " + assetId);
+        }
     }
 
     @Override
@@ -499,23 +946,24 @@ public class PersistenceBean implements Persistor {
         return AttachmentList.createAttachmentListFromMaps(results);
     }
 
-    /**
-     * Returns an InputStream of the content of the attachment or null if the attachment does not
-     * exist.
-     *
-     * @throws NonExistentArtefactException
-     */
+    /** {@inheritDoc} */
     @Override
-    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException {
-        GridFSDBFile file = gridFS.findOne(gridFSId);
+    public AttachmentList findAttachmentsForAssets(Collection<String> assetIds) {
+        BasicDBObject query = new BasicDBObject("assetId", new BasicDBObject("$in", new ArrayList<String>(assetIds)));
+        ArrayList<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+        try (DBCursor cursor = getAttachmentCollection().find(query)) {
+            for (DBObject attachment : cursor) {
+                convertObjectIdToHexString(attachment);
+                @SuppressWarnings("unchecked")
+                Map<String, Object> oneResult = attachment.toMap();
+                results.add(oneResult);
+            }
+        }
 
-        if (file != null) {
-            InputStream contentStream = file.getInputStream();
-            String contentType = file.getContentType();
-            return new AttachmentContentResponse(contentStream, contentType);
-        } else {
-            throw new NonExistentArtefactException();
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("findAttachmentsForAssets: found " + results.size() + " attachments for " + assetIds.size() + " assets");
         }
+        return AttachmentList.createAttachmentListFromMaps(results);
     }
 
     /** {@inheritDoc} */
@@ -538,6 +986,11 @@ public class PersistenceBean implements Persistor {
         }
         assets.createIndex(textIndex.get());
 
+        // Add the compound indexes used by filtered queries
+        for (DBObject index : AssetIndexes.getIndexes()) {
+            assets.createIndex(index);
+        }
+
         // Add Attachment(assetId) index
         attachments.createIndex(new BasicDBObject("assetId", 1));
     }
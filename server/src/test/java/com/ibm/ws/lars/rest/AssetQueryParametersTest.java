@@ -20,10 +20,16 @@ import static com.ibm.ws.lars.rest.Condition.Operation.NOT_EQUALS;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.UriInfo;
 
@@ -102,6 +108,72 @@ public class AssetQueryParametersTest {
         AssetQueryParameters.create(uriInfo).getPagination();
     }
 
+    @Test
+    public void testGetKeysetPagination() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&continuation=");
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        assertEquals(new PaginationOptions(2, null), params.getPagination());
+
+        ContinuationToken token = new ContinuationToken("foo", "0123456789abcdef01234567");
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&sortBy=name&continuation=" + token.encode());
+        params = AssetQueryParameters.create(uriInfo);
+        assertEquals(new PaginationOptions(2, token), params.getPagination());
+        assertEquals(asList(), params.getFilters());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetKeysetPaginationWithOffset() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&offset=5&continuation=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetKeysetPaginationNoLimit() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?continuation=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetKeysetPaginationBadToken() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&continuation=wibble");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    /**
+     * A hand-made token whose sort value is a query operator must be rejected, as the sort value is
+     * used in the query
+     */
+    @Test(expected = InvalidParameterException.class)
+    public void testGetKeysetPaginationOperatorInToken() throws Exception {
+        String json = "{\"v\":{\"$ne\":null},\"id\":\"0123456789abcdef01234567\"}";
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&sortBy=name&continuation=" + token);
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
+    @Test
+    public void testGetKeysetPaginationTypedSortValues() throws Exception {
+        ContinuationToken token = new ContinuationToken(Collections.singletonMap(ContinuationToken.DATE_TYPE, 1000L), "0123456789abcdef01234567");
+        assertEquals(1000, ((Number) ((Map<?, ?>) ContinuationToken.decode(token.encode()).getSortValue()).get(ContinuationToken.DATE_TYPE)).intValue());
+
+        token = new ContinuationToken(Collections.singletonMap(ContinuationToken.OBJECT_ID_TYPE, "76543210fedcba9876543210"), "0123456789abcdef01234567");
+        assertEquals(token, ContinuationToken.decode(token.encode()));
+
+        token = new ContinuationToken(Collections.singletonMap(ContinuationToken.OBJECT_ID_TYPE, "wibble"), "0123456789abcdef01234567");
+        try {
+            ContinuationToken.decode(token.encode());
+            fail("A token with an invalid ObjectId should be rejected");
+        } catch (InvalidParameterException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testGetKeysetPaginationSearchWithoutSort() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?limit=2&q=foo&continuation=");
+        AssetQueryParameters.create(uriInfo).getPagination();
+    }
+
     @Test
     public void testGetSortOptions() throws Exception {
         // Valid options for sortOrder are "ASC" and "DESC" case insensitive
@@ -160,4 +232,19 @@ public class AssetQueryParametersTest {
         assertEquals("a,b,c", params.getFields());
     }
 
+    @Test
+    public void testGetFieldList() throws Exception {
+        UriInfo uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=field1,,field2");
+        AssetQueryParameters params = AssetQueryParameters.create(uriInfo);
+        assertEquals(asList("field1", "field2"), params.getFieldList());
+
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?fields=");
+        params = AssetQueryParameters.create(uriInfo);
+        assertNull(params.getFieldList());
+
+        uriInfo = new DummyUriInfo("http://example.org/test", "/foobar?q=TEST");
+        params = AssetQueryParameters.create(uriInfo);
+        assertNull(params.getFieldList());
+    }
+
 }
@@ -16,16 +16,22 @@
 
 package com.ibm.ws.lars.rest;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.UriInfo;
 
@@ -34,6 +40,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidIdException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
@@ -63,7 +70,7 @@ public class AssetServiceLayerTest {
     private UriInfo dummyUriInfo;
 
     private AssetServiceLayer service;
-    Persistor memoryPersistor = new MemoryPersistor();
+    MemoryPersistor memoryPersistor = new MemoryPersistor();
 
     @Before
     public void setUp() throws Exception {
@@ -78,13 +85,14 @@ public class AssetServiceLayerTest {
 
         AssetServiceLayerInjection.setConfiguration(service, new Configuration());
         AssetServiceLayerInjection.setPersistenceBean(service, memoryPersistor);
+        AssetServiceLayerInjection.setContentStore(service, memoryPersistor);
 
         dummyUriInfo = new DummyUriInfo(new URI("http://localhost:9080/ma/v1/"));
 
     }
 
     @Test
-    public void badStateTransitionTest() throws InvalidJsonAssetException, NonExistentArtefactException, RepositoryResourceLifecycleException {
+    public void badStateTransitionTest() throws InvalidJsonAssetException, NonExistentArtefactException, RepositoryResourceLifecycleException, AssetConflictException {
         thrown.expect(RepositoryResourceLifecycleException.class);
         thrown.expectMessage("Invalid action approve performed on the asset with state draft");
         Asset simpleAsset = service.createAsset(simpleObject, TEST_USERNAME);
@@ -133,6 +141,74 @@ public class AssetServiceLayerTest {
         assertEquals("There should be no assets stored", 0, emptyAssets.size());
     }
 
+    /**
+     * Tests that a state action is checked again if the state is changed between reading the asset
+     * and writing the new state.
+     */
+    @Test
+    public void concurrentStateChangeTest() throws Exception {
+        MemoryPersistor racingPersistor = new MemoryPersistor() {
+            private boolean raced = false;
+
+            @Override
+            public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws NonExistentArtefactException, AssetConflictException {
+                if (!raced) {
+                    // Another request publishes the asset first
+                    raced = true;
+                    super.updateAssetFields(assetId, Collections.<String, Object> emptyMap(),
+                                            Collections.<String, Object> singletonMap(Asset.STATE, Asset.State.PUBLISHED.getValue()));
+                }
+                return super.updateAssetFields(assetId, expectedValues, newValues);
+            }
+        };
+        AssetServiceLayerInjection.setPersistenceBean(service, racingPersistor);
+
+        Asset asset = service.createAsset(simpleObject, TEST_USERNAME);
+        thrown.expect(RepositoryResourceLifecycleException.class);
+        thrown.expectMessage("Invalid action publish performed on the asset with state published");
+        service.updateAssetState(Asset.StateAction.PUBLISH, asset.get_id());
+    }
+
+    @Test
+    public void repeatedConflictTest() throws Exception {
+        MemoryPersistor conflictingPersistor = new MemoryPersistor() {
+            @Override
+            public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws AssetConflictException {
+                throw new AssetConflictException(assetId);
+            }
+        };
+        AssetServiceLayerInjection.setPersistenceBean(service, conflictingPersistor);
+
+        Asset asset = service.createAsset(simpleObject, TEST_USERNAME);
+        thrown.expect(AssetConflictException.class);
+        service.updateAssetState(Asset.StateAction.PUBLISH, asset.get_id());
+    }
+
+    @Test
+    public void createAssetsTest() throws Exception {
+        List<Asset> created = service.createAssets(Arrays.asList(assetWithState, simpleObject), TEST_USERNAME);
+        assertEquals("Wrong number of assets created", 2, created.size());
+        for (Asset asset : created) {
+            assertNotNull("Created asset should have an id", asset.get_id());
+            assertEquals("State should have been overwritten with draft", Asset.State.DRAFT, asset.getState());
+            assertEquals("CreatedBy user is wrong", TEST_USERNAME, asset.getCreatedBy());
+            assertEquals("Asset is not stored", asset.get_id(), service.retrieveAsset(asset.get_id(), dummyUriInfo).get_id());
+        }
+        assertEquals("Too many assets", 2, service.retrieveAllAssets().size());
+    }
+
+    @Test
+    public void createAssetsWithInvalidAssetTest() throws Exception {
+        Asset assetWithId = Asset.deserializeAssetFromJson("{\"_id\":\"" + MemoryPersistor.getNextId() + "\",\"name\":\"foo\"}");
+        try {
+            service.createAssets(Arrays.asList(simpleObject, assetWithId), TEST_USERNAME);
+            fail("An asset with an id should not be created");
+        } catch (InvalidJsonAssetException e) {
+            assertTrue("The message should identify the invalid asset: " + e.getMessage(), e.getMessage().startsWith("asset 1:"));
+        }
+        assertEquals("No assets should have been created", 0, service.retrieveAllAssets().size());
+    }
+
     /**
      * Tests creating and retrieving an attachment with no content.
      */
@@ -256,6 +332,9 @@ public class AssetServiceLayerTest {
         assertEquals("Attachment should have correct size", attachmentContent.length, returnedAttachment.getSize());
         returnedAttachment.getProperties().remove(Attachment.SIZE);
 
+        assertEquals("Attachment should have correct hash", ContentHash.toHex(ContentHash.newSha256().digest(attachmentContent)), returnedAttachment.getSha256());
+        returnedAttachment.getProperties().remove(Attachment.SHA256);
+
         assertEquals("Returned attachment should have same contents that were POSTed", attachmentWithContent, returnedAttachment);
 
         try (InputStream is = service.retrieveAttachmentContent(returnedAsset.get_id(), createdAttachment.get_id(), "AttachmentWithContent.txt", dummyUriInfo)
@@ -268,6 +347,44 @@ public class AssetServiceLayerTest {
         assertEquals(fetchedAsset.getAttachments().get(0), createdAttachment);
     }
 
+    /**
+     * Tests that deleting an asset also deletes all of its attachments and their content, but
+     * leaves the attachments of other assets alone.
+     */
+    @Test
+    public void testDeleteAssetDeletesAttachments() throws Exception {
+        String assetId = service.createAsset(new Asset(simpleObject), TEST_USERNAME).get_id();
+        String otherAssetId = service.createAsset(new Asset(simpleObject), TEST_USERNAME).get_id();
+
+        Attachment withContent = service.createAttachmentWithContent(assetId, "AttachmentWithContent.txt", new Attachment(attachmentWithContent),
+                                                                     "text/plain", new ByteArrayInputStream(attachmentContent), dummyUriInfo);
+        Attachment linked = service.createAttachmentNoContent(assetId, "Linked",
+                                                              Attachment.jsonToAttachment("{\"url\":\"http://example.com\", \"linkType\":\"direct\"}"),
+                                                              dummyUriInfo);
+        Attachment otherAttachment = service.createAttachmentWithContent(otherAssetId, "Other.txt", new Attachment(attachmentWithContent),
+                                                                         "text/plain", new ByteArrayInputStream("Other content".getBytes()), dummyUriInfo);
+
+        service.deleteAsset(assetId);
+
+        for (String attachmentId : Arrays.asList(withContent.get_id(), linked.get_id())) {
+            try {
+                memoryPersistor.retrieveAttachmentMetadata(attachmentId);
+                fail("Attachment " + attachmentId + " should have been deleted with its asset");
+            } catch (NonExistentArtefactException e) {
+                // expected
+            }
+        }
+        try {
+            memoryPersistor.retrieveAttachmentContent(withContent.getGridFSId());
+            fail("Attachment content should have been deleted with its asset");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+
+        assertEquals(otherAttachment.get_id(), service.retrieveAttachmentMetadata(otherAssetId, otherAttachment.get_id(), dummyUriInfo).get_id());
+        assertNotNull(memoryPersistor.retrieveAttachmentContent(otherAttachment.getGridFSId()));
+    }
+
     /**
      * Verifies that an exceptino is thrown when we attempt to create an attachment that has both
      * content and a url.
@@ -343,4 +460,24 @@ public class AssetServiceLayerTest {
     public void testRetrieveNonExistentAttachmentContent() throws NonExistentArtefactException, InvalidIdException {
         service.retrieveAttachmentContent("01234", "67864", "a name that does not exist.", dummyUriInfo);
     }
+
+    /**
+     * Tests that summarizeAssets returns the distinct values of each field, including values inside
+     * lists and nested objects
+     */
+    @Test
+    public void testSummarizeAssets() throws Exception {
+        service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"foo\", \"tags\":[\"a\", \"b\"], \"info\":{\"type\":\"x\"}}"), TEST_USERNAME);
+        service.createAsset(Asset.deserializeAssetFromJson("{\"name\":\"bar\", \"tags\":[\"b\", \"c\"], \"info\":{\"type\":\"x\"}}"), TEST_USERNAME);
+
+        List<Map<String, Object>> summary = service.summarizeAssets(Arrays.asList("name", "tags", "info.type"), Collections.<AssetFilter> emptyList(), null);
+        assertEquals("Wrong number of summaries", 3, summary.size());
+
+        assertEquals("name", summary.get(0).get("filterName"));
+        assertThat((List<?>) summary.get(0).get("filterValue"), containsInAnyOrder((Object) "foo", "bar"));
+        assertEquals("tags", summary.get(1).get("filterName"));
+        assertThat((List<?>) summary.get(1).get("filterValue"), containsInAnyOrder((Object) "a", "b", "c"));
+        assertEquals("info.type", summary.get(2).get("filterName"));
+        assertEquals(Arrays.asList("x"), summary.get(2).get("filterValue"));
+    }
 }
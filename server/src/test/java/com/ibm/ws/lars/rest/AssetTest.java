@@ -47,7 +47,7 @@ public class AssetTest {
     private static final String complexObject = "{\"name\":\"foo\", \"arrayField\": " + jsonArray + "}";
 
     AssetServiceLayer service;
-    Persistor memoryPersistor = new MemoryPersistor();
+    MemoryPersistor memoryPersistor = new MemoryPersistor();
 
     Map<String, Object> simpleAssetMap = new HashMap<>();
     {
@@ -60,6 +60,7 @@ public class AssetTest {
 
         AssetServiceLayerInjection.setConfiguration(service, new Configuration());
         AssetServiceLayerInjection.setPersistenceBean(service, memoryPersistor);
+        AssetServiceLayerInjection.setContentStore(service, memoryPersistor);
     }
 
     /**
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ByteRange} class
+ */
+public class ByteRangeTest {
+
+    @Test
+    public void testParseRange() {
+        ByteRange range = ByteRange.parse("bytes=10-19", 100);
+        assertEquals(10, range.getStart());
+        assertEquals(19, range.getEnd());
+        assertEquals(10, range.getLength());
+        assertTrue(range.isSatisfiable());
+        assertEquals("bytes 10-19/100", range.toContentRange());
+    }
+
+    @Test
+    public void testParseOpenEndedRange() {
+        ByteRange range = ByteRange.parse("bytes=90-", 100);
+        assertEquals(90, range.getStart());
+        assertEquals(99, range.getEnd());
+        assertEquals("bytes 90-99/100", range.toContentRange());
+    }
+
+    @Test
+    public void testParseSuffixRange() {
+        ByteRange range = ByteRange.parse("bytes=-30", 100);
+        assertEquals(70, range.getStart());
+        assertEquals(99, range.getEnd());
+
+        range = ByteRange.parse("bytes=-300", 100);
+        assertEquals(0, range.getStart());
+        assertEquals(99, range.getEnd());
+    }
+
+    @Test
+    public void testRangeTruncatedToContent() {
+        ByteRange range = ByteRange.parse("bytes=50-500", 100);
+        assertEquals(50, range.getStart());
+        assertEquals(99, range.getEnd());
+        assertEquals(50, range.getLength());
+    }
+
+    @Test
+    public void testUnsatisfiableRange() {
+        ByteRange range = ByteRange.parse("bytes=100-", 100);
+        assertFalse(range.isSatisfiable());
+        assertEquals("bytes */100", range.toContentRange());
+
+        assertFalse(ByteRange.parse("bytes=-0", 100).isSatisfiable());
+        assertFalse(ByteRange.parse("bytes=0-", 0).isSatisfiable());
+    }
+
+    @Test
+    public void testIgnoredRanges() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("bytes=0-10", -1));
+        assertNull(ByteRange.parse("items=0-10", 100));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 100));
+        assertNull(ByteRange.parse("bytes=10-5", 100));
+        assertNull(ByteRange.parse("bytes=a-b", 100));
+        assertNull(ByteRange.parse("bytes=", 100));
+    }
+
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.Attachment;
+
+/**
+ * Unit tests for the {@link CachingPersistor} class
+ */
+public class CachingPersistorTest {
+
+    private CountingPersistor memoryPersistor;
+    private PersistorCache cache;
+    private CachingPersistor cachingPersistor;
+
+    @Before
+    public void setUp() {
+        memoryPersistor = new CountingPersistor();
+        cache = new PersistorCache(10);
+        cachingPersistor = new CachingPersistor(memoryPersistor, cache);
+    }
+
+    @Test
+    public void testRetrieveAssetIsCached() throws Exception {
+        Asset asset = createAsset("cached");
+
+        assertEquals("cached", cachingPersistor.retrieveAsset(asset.get_id()).getProperties().get(Asset.NAME));
+        assertEquals("cached", cachingPersistor.retrieveAsset(asset.get_id()).getProperties().get(Asset.NAME));
+
+        assertEquals(1, memoryPersistor.assetRetrievals);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCachedAssetIsCopied() throws Exception {
+        Asset asset = createAsset("original");
+
+        cachingPersistor.retrieveAsset(asset.get_id()).getProperties().put(Asset.NAME, "changed");
+        cachingPersistor.retrieveAsset(asset.get_id()).getProperties().put(Asset.NAME, "changed");
+
+        assertEquals("original", cachingPersistor.retrieveAsset(asset.get_id()).getProperties().get(Asset.NAME));
+    }
+
+    @Test
+    public void testCachedAssetNestedFieldsAreCopied() throws Exception {
+        Asset asset = new Asset();
+        asset.getProperties().put(Asset.NAME, "nested");
+        Map<String, Object> wlpInformation = new HashMap<>();
+        wlpInformation.put("provideFeature", Collections.singletonList("original"));
+        asset.getProperties().put("wlpInformation", wlpInformation);
+        String id = cachingPersistor.createAsset(asset).get_id();
+
+        cachingPersistor.retrieveAsset(id);
+        Map<String, Object> retrievedInformation = cachingPersistor.retrieveAsset(id).get("wlpInformation");
+        retrievedInformation.put("provideFeature", Collections.singletonList("changed"));
+
+        Map<String, Object> cachedInformation = cachingPersistor.retrieveAsset(id).get("wlpInformation");
+        assertEquals(Collections.singletonList("original"), cachedInformation.get("provideFeature"));
+    }
+
+    /**
+     * The ETag of an asset is taken from its JSON, so a cached asset must serialise in the same
+     * order as one which has just been read from the database
+     */
+    @Test
+    public void testCachedAssetKeepsFieldOrder() throws Exception {
+        MemoryPersistor ordered = new MemoryPersistor() {
+            @Override
+            public Asset retrieveAsset(String assetId) {
+                return Asset.createAssetFromMap(createOrderedState(assetId));
+            }
+        };
+        CachingPersistor persistor = new CachingPersistor(ordered, new PersistorCache(10));
+
+        String uncached = ordered.retrieveAsset("1234").toJson();
+        assertEquals(uncached, persistor.retrieveAsset("1234").toJson());
+        assertEquals(uncached, persistor.retrieveAsset("1234").toJson());
+    }
+
+    @Test
+    public void testUpdateInvalidatesAsset() throws Exception {
+        Asset asset = createAsset("before");
+        cachingPersistor.retrieveAsset(asset.get_id());
+
+        Asset updated = cachingPersistor.retrieveAsset(asset.get_id());
+        updated.getProperties().put(Asset.NAME, "after");
+        cachingPersistor.updateAsset(asset.get_id(), updated);
+
+        assertEquals("after", cachingPersistor.retrieveAsset(asset.get_id()).getProperties().get(Asset.NAME));
+        assertEquals(2, memoryPersistor.assetRetrievals);
+    }
+
+    @Test
+    public void testUpdateFieldsInvalidatesAsset() throws Exception {
+        Asset asset = createAsset("before");
+        cachingPersistor.retrieveAsset(asset.get_id());
+
+        cachingPersistor.updateAssetFields(asset.get_id(), Collections.<String, Object> singletonMap(Asset.NAME, "before"),
+                                           Collections.<String, Object> singletonMap(Asset.NAME, "after"));
+
+        assertEquals("after", cachingPersistor.retrieveAsset(asset.get_id()).getProperties().get(Asset.NAME));
+        assertEquals(2, memoryPersistor.assetRetrievals);
+    }
+
+    @Test(expected = NonExistentArtefactException.class)
+    public void testDeleteInvalidatesAsset() throws Exception {
+        Asset asset = createAsset("deleted");
+        cachingPersistor.retrieveAsset(asset.get_id());
+
+        cachingPersistor.deleteAsset(asset.get_id());
+        cachingPersistor.retrieveAsset(asset.get_id());
+    }
+
+    @Test
+    public void testAttachmentChangesInvalidateAttachmentList() throws Exception {
+        Asset asset = createAsset("withAttachments");
+        assertEquals(0, cachingPersistor.findAttachmentsForAsset(asset.get_id()).size());
+
+        Attachment attachment = new Attachment();
+        attachment.setAssetId(asset.get_id());
+        attachment.setName("attachment.txt");
+        cachingPersistor.createAttachmentMetadata(attachment);
+
+        assertEquals(1, cachingPersistor.findAttachmentsForAsset(asset.get_id()).size());
+        assertEquals(1, cachingPersistor.findAttachmentsForAsset(asset.get_id()).size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testDeleteAttachmentsForAssetInvalidatesAttachments() throws Exception {
+        Asset asset = createAsset("withAttachments");
+        Attachment attachment = new Attachment();
+        attachment.setAssetId(asset.get_id());
+        attachment.setName("attachment.txt");
+        String attachmentId = cachingPersistor.createAttachmentMetadata(attachment).get_id();
+
+        assertEquals(1, cachingPersistor.findAttachmentsForAsset(asset.get_id()).size());
+        cachingPersistor.retrieveAttachmentMetadata(attachmentId);
+
+        cachingPersistor.deleteAttachmentMetadataForAsset(asset.get_id());
+
+        assertEquals(0, cachingPersistor.findAttachmentsForAsset(asset.get_id()).size());
+        try {
+            cachingPersistor.retrieveAttachmentMetadata(attachmentId);
+            fail("Cached attachment should have been invalidated");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStaleValueNotCached() {
+        LruCache<String, String> lruCache = new LruCache<>(10);
+        long generation = lruCache.getGeneration();
+        lruCache.invalidate("key");
+        lruCache.put("key", "stale", generation);
+        assertNull(lruCache.get("key"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        LruCache<String, String> lruCache = new LruCache<>(2);
+        lruCache.put("a", "1", lruCache.getGeneration());
+        lruCache.put("b", "2", lruCache.getGeneration());
+        lruCache.get("a");
+        lruCache.put("c", "3", lruCache.getGeneration());
+
+        assertEquals("1", lruCache.get("a"));
+        assertNull(lruCache.get("b"));
+        assertEquals("3", lruCache.get("c"));
+    }
+
+    @Test
+    public void testDisabledCache() throws Exception {
+        cache = new PersistorCache(0);
+        cachingPersistor = new CachingPersistor(memoryPersistor, cache);
+        Asset asset = createAsset("uncached");
+
+        cachingPersistor.retrieveAsset(asset.get_id());
+        cachingPersistor.retrieveAsset(asset.get_id());
+
+        assertEquals(2, memoryPersistor.assetRetrievals);
+    }
+
+    private Asset createAsset(String name) throws Exception {
+        Asset asset = new Asset();
+        asset.getProperties().put(Asset.NAME, name);
+        return cachingPersistor.createAsset(asset);
+    }
+
+    /**
+     * Creates asset state in the order fields are returned from the database, which isn't the order
+     * a HashMap would put them in
+     */
+    private static Map<String, Object> createOrderedState(String id) {
+        Map<String, Object> wlpInformation = new LinkedHashMap<>();
+        wlpInformation.put("typeLabel", "Feature");
+        wlpInformation.put("provideFeature", Collections.singletonList("feature-1.0"));
+        wlpInformation.put("appliesTo", "com.ibm.websphere.appserver");
+        wlpInformation.put("visibility", "PUBLIC");
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("_id", id);
+        state.put(Asset.NAME, "ordered");
+        state.put("type", "com.ibm.websphere.Feature");
+        state.put("wlpInformation", wlpInformation);
+        state.put("shortDescription", "short");
+        state.put("description", "long");
+        state.put("version", "1.0");
+        state.put("createdOn", "2017-01-01T00:00:00.000+0000");
+        state.put("provider", Collections.singletonMap("name", "IBM"));
+        state.put("attachments", Collections.emptyList());
+        return state;
+    }
+
+    /**
+     * MemoryPersistor which counts the number of times assets are retrieved from it
+     */
+    private static class CountingPersistor extends MemoryPersistor {
+        int assetRetrievals = 0;
+
+        @Override
+        public Asset retrieveAsset(String assetId) throws NonExistentArtefactException {
+            assetRetrievals++;
+            return super.retrieveAsset(assetId);
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CompressionFilter} class
+ */
+public class CompressionFilterTest {
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(CompressionFilter.acceptsGzip("gzip"));
+        assertTrue(CompressionFilter.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertFalse(CompressionFilter.acceptsGzip(null));
+        assertFalse(CompressionFilter.acceptsGzip("identity"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=0"));
+        assertFalse("A quality which isn't a number should not allow gzip", CompressionFilter.acceptsGzip("gzip;q=x"));
+    }
+
+    @Test
+    public void testJsonIsCompressed(@Mocked final HttpServletRequest request, @Mocked final HttpServletResponse response) throws Exception {
+        final byte[] json = createJson();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        new Expectations() {
+            {
+                request.getHeader("Accept-Encoding");
+                result = "gzip";
+                response.getContentType();
+                result = "application/json";
+                response.getStatus();
+                result = HttpServletResponse.SC_OK;
+                response.getOutputStream();
+                result = new CapturingOutputStream(body);
+            }
+        };
+
+        new CompressionFilter().doFilter(request, response, new WritingFilterChain(json));
+
+        new Verifications() {
+            {
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(anyInt);
+                times = 0;
+            }
+        };
+        assertArrayEquals(json, gunzip(body.toByteArray()));
+    }
+
+    @Test
+    public void testOtherContentIsNotCompressed(@Mocked final HttpServletRequest request, @Mocked final HttpServletResponse response) throws Exception {
+        final byte[] content = createJson();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        new Expectations() {
+            {
+                request.getHeader("Accept-Encoding");
+                result = "gzip";
+                response.getContentType();
+                result = "application/octet-stream";
+                response.getStatus();
+                result = HttpServletResponse.SC_OK;
+                response.getOutputStream();
+                result = new CapturingOutputStream(body);
+            }
+        };
+
+        new CompressionFilter().doFilter(request, response, new WritingFilterChain(content));
+
+        new Verifications() {
+            {
+                response.setHeader("Content-Encoding", anyString);
+                times = 0;
+                response.setContentLength(content.length);
+            }
+        };
+        assertArrayEquals(content, body.toByteArray());
+    }
+
+    @Test
+    public void testLargeContentLengthIsPassedThrough(@Mocked final HttpServletRequest request, @Mocked final HttpServletResponse response) throws Exception {
+        final String length = Long.toString(3L * 1024 * 1024 * 1024);
+
+        new Expectations() {
+            {
+                request.getHeader("Accept-Encoding");
+                result = "gzip";
+            }
+        };
+
+        new CompressionFilter().doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                ((HttpServletResponse) response).setHeader("Content-Length", length);
+            }
+        });
+
+        new Verifications() {
+            {
+                response.setHeader("Content-Length", length);
+                response.setContentLength(anyInt);
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void testGzipETags() {
+        assertEquals("\"abc-gzip\"", CompressionFilter.toGzipETag("\"abc\""));
+        assertEquals("A weak ETag can be shared by both bodies", "W/\"abc\"", CompressionFilter.toGzipETag("W/\"abc\""));
+        assertEquals("\"abc\", W/\"def\"", CompressionFilter.stripGzipETags("\"abc-gzip\", W/\"def\""));
+    }
+
+    @Test
+    public void testCompressedBodyHasDifferentETag(@Mocked final HttpServletRequest request, @Mocked final HttpServletResponse response) throws Exception {
+        final byte[] json = createJson();
+
+        new Expectations() {
+            {
+                request.getHeader("Accept-Encoding");
+                result = "gzip";
+                response.getContentType();
+                result = "application/json";
+                response.getStatus();
+                result = HttpServletResponse.SC_OK;
+                response.getOutputStream();
+                result = new CapturingOutputStream(new ByteArrayOutputStream());
+            }
+        };
+
+        new CompressionFilter().doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                ((HttpServletResponse) response).setHeader("ETag", "\"abc\"");
+                response.getOutputStream().write(json);
+            }
+        });
+
+        new Verifications() {
+            {
+                response.setHeader("ETag", "\"abc-gzip\"");
+                response.setHeader("ETag", "\"abc\"");
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void testGzipETagIsRevalidated(@Mocked final HttpServletRequest request, @Mocked final HttpServletResponse response) throws Exception {
+        new Expectations() {
+            {
+                request.getHeader("Accept-Encoding");
+                result = "gzip";
+                request.getHeader("If-None-Match");
+                result = "\"abc-gzip\"";
+                response.getStatus();
+                result = HttpServletResponse.SC_NOT_MODIFIED;
+            }
+        };
+
+        new CompressionFilter().doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                assertEquals("The resources should see the ETag they generated", "\"abc\"", ((HttpServletRequest) request).getHeader("If-None-Match"));
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                ((HttpServletResponse) response).setHeader("ETag", "\"abc\"");
+            }
+        });
+
+        new Verifications() {
+            {
+                response.setHeader("ETag", "\"abc-gzip\"");
+            }
+        };
+    }
+
+    private static byte[] createJson() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"asset").append(i).append("\"}");
+        }
+        return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A filter chain which writes a response the way the REST resources do, setting the length before writing the body
+     */
+    private static class WritingFilterChain implements FilterChain {
+        private final byte[] content;
+
+        WritingFilterChain(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
+        }
+    }
+
+    private static class CapturingOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream out;
+
+        CapturingOutputStream(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+    }
+}
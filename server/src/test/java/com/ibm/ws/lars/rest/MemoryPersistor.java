@@ -23,11 +23,15 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
 import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
@@ -41,7 +45,7 @@ import com.ibm.ws.lars.rest.model.AttachmentList;
 /**
  *
  */
-public class MemoryPersistor implements Persistor {
+public class MemoryPersistor implements Persistor, AttachmentContentStore {
 
     static private long lastId = 0;
 
@@ -58,6 +62,8 @@ public class MemoryPersistor implements Persistor {
 
     private final Map<String, AttachmentContent> gridFS = new HashMap<>();
 
+    private long assetListVersion = 0;
+
     /*
      * (non-Javadoc)
      *
@@ -74,17 +80,83 @@ public class MemoryPersistor implements Persistor {
         throw new UnsupportedOperationException("Filtering is not supported in this test facade");
     }
 
+    @Override
+    public AssetCursor retrieveAllAssets(Collection<AssetFilter> filters, String searchTerm, PaginationOptions pagination, SortOptions sortOptions, List<String> fields) {
+        throw new UnsupportedOperationException("Filtering is not supported in this test facade");
+    }
+
     @Override
     public List<Object> getDistinctValues(String field, Collection<AssetFilter> filters, String searchTerm) {
         throw new UnsupportedOperationException("Filtering is not supported in this test facade");
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only supported when there are no filters and no search term.
+     */
+    @Override
+    public Map<String, Map<Object, Integer>> getDistinctValueCounts(List<String> fields, Collection<AssetFilter> filters, String searchTerm) {
+        if (!filters.isEmpty() || searchTerm != null) {
+            throw new UnsupportedOperationException("Filtering is not supported in this test facade");
+        }
+
+        Map<String, Map<Object, Integer>> result = new HashMap<>();
+        for (String field : fields) {
+            Map<Object, Integer> counts = new LinkedHashMap<>();
+            for (Map<String, Object> asset : assets.values()) {
+                for (Object value : getFieldValues(asset, field)) {
+                    Integer count = counts.get(value);
+                    counts.put(value, count == null ? 1 : count + 1);
+                }
+            }
+            result.put(field, counts);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values of a possibly dotted field name from an asset, expanding any lists found along
+     * the way in the same way that mongo does
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> getFieldValues(Object object, String field) {
+        List<Object> values = new ArrayList<>();
+        if (object instanceof List) {
+            for (Object element : (List<Object>) object) {
+                values.addAll(getFieldValues(element, field));
+            }
+        } else if (field.isEmpty()) {
+            if (object != null) {
+                values.add(object);
+            }
+        } else if (object instanceof Map) {
+            int dot = field.indexOf('.');
+            String key = dot == -1 ? field : field.substring(0, dot);
+            String rest = dot == -1 ? "" : field.substring(dot + 1);
+            values.addAll(getFieldValues(((Map<String, Object>) object).get(key), rest));
+        }
+        return values;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getAssetListVersion() {
+        return assetListVersion;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int countAllAssets(Collection<AssetFilter> filters, String searchTerm) {
         throw new UnsupportedOperationException("Filtering is not supported in this test facade");
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Object> explainQuery(Collection<AssetFilter> filters, String searchTerm, SortOptions sortOptions) {
+        throw new UnsupportedOperationException("Query plans are not supported in this test facade");
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -98,15 +170,38 @@ public class MemoryPersistor implements Persistor {
         return Asset.createAssetFromMap(new HashMap<>(assets.get(assetId)));
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Asset> retrieveAssets(Collection<String> assetIds) {
+        List<Asset> results = new ArrayList<>();
+        for (String assetId : new LinkedHashSet<>(assetIds)) {
+            if (assets.containsKey(assetId)) {
+                results.add(Asset.createAssetFromMap(new HashMap<>(assets.get(assetId))));
+            }
+        }
+        return results;
+    }
+
     @Override
     public Asset createAsset(Asset newAsset) throws InvalidJsonAssetException {
         Map<String, Object> props = newAsset.getProperties();
         String id = getNextId();
         props.put("_id", id);
         assets.put(id, props);
+        assetListVersion++;
         return Asset.createAssetFromMap(props);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Asset> createAssets(List<Asset> newAssets) throws InvalidJsonAssetException {
+        List<Asset> results = new ArrayList<>();
+        for (Asset newAsset : newAssets) {
+            results.add(createAsset(newAsset));
+        }
+        return results;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -115,6 +210,7 @@ public class MemoryPersistor implements Persistor {
     @Override
     public void deleteAsset(String assetId) {
         assets.remove(assetId);
+        assetListVersion++;
     }
 
     /*
@@ -126,9 +222,27 @@ public class MemoryPersistor implements Persistor {
     @Override
     public Asset updateAsset(String assetId, Asset asset) throws InvalidJsonAssetException, NonExistentArtefactException {
         assets.put(assetId, asset.getProperties());
+        assetListVersion++;
         return asset;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Asset updateAssetFields(String assetId, Map<String, Object> expectedValues, Map<String, Object> newValues) throws NonExistentArtefactException, AssetConflictException {
+        Map<String, Object> props = assets.get(assetId);
+        if (props == null) {
+            throw new NonExistentArtefactException();
+        }
+        for (Entry<String, Object> expected : expectedValues.entrySet()) {
+            if (!Objects.equals(expected.getValue(), props.get(expected.getKey()))) {
+                throw new AssetConflictException(assetId);
+            }
+        }
+        props.putAll(newValues);
+        assetListVersion++;
+        return Asset.createAssetFromMap(new HashMap<>(props));
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -147,10 +261,24 @@ public class MemoryPersistor implements Persistor {
         return AttachmentList.createAttachmentListFromMaps(resultList);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public AttachmentList findAttachmentsForAssets(Collection<String> assetIds) {
+        List<Map<String, Object>> resultList = new ArrayList<>();
+        for (Entry<String, Map<String, Object>> e : attachments.entrySet()) {
+            Map<String, Object> attachmentState = e.getValue();
+            if (assetIds.contains(attachmentState.get(ASSET_ID))) {
+                resultList.add(attachmentState);
+            }
+        }
+
+        return AttachmentList.createAttachmentListFromMaps(resultList);
+    }
+
     /*
      * (non-Javadoc)
      *
-     * @see com.ibm.ws.lars.rest.Persistor#createAttachmentContent(java.lang.String,
+     * @see com.ibm.ws.lars.rest.AttachmentContentStore#createAttachmentContent(java.lang.String,
      * java.lang.String, java.io.InputStream)
      */
     @Override
@@ -172,7 +300,8 @@ public class MemoryPersistor implements Persistor {
 
             gridFS.put(id, attachmentContent);
 
-            return new AttachmentContentMetadata(id, contentBytes.length);
+            String sha256 = ContentHash.toHex(ContentHash.newSha256().digest(contentBytes));
+            return new AttachmentContentMetadata(id, contentBytes.length, sha256);
         } catch (IOException e) {
             throw new AssetPersistenceException(e);
         }
@@ -195,6 +324,7 @@ public class MemoryPersistor implements Persistor {
             attachment.set_id(id);
         }
         attachments.put(id, props);
+        assetListVersion++;
         return Attachment.createAttachmentFromMap(props);
     }
 
@@ -214,13 +344,33 @@ public class MemoryPersistor implements Persistor {
     /*
      * (non-Javadoc)
      *
-     * @see com.ibm.ws.lars.rest.Persistor#deleteAttachmentContent(java.lang.String)
+     * @see com.ibm.ws.lars.rest.AttachmentContentStore#deleteAttachmentContent(java.lang.String)
      */
     @Override
     public void deleteAttachmentContent(String attachmentId) {
         throw new RuntimeException("not implemented");
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAttachmentContents(Collection<String> contentIds) {
+        for (String contentId : contentIds) {
+            gridFS.remove(contentId);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deleteAttachmentMetadataForAsset(String assetId) {
+        Iterator<Map<String, Object>> iterator = attachments.values().iterator();
+        while (iterator.hasNext()) {
+            if (Objects.equals(assetId, iterator.next().get(ASSET_ID))) {
+                iterator.remove();
+            }
+        }
+        assetListVersion++;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -234,15 +384,17 @@ public class MemoryPersistor implements Persistor {
     /*
      * (non-Javadoc)
      *
-     * @see com.ibm.ws.lars.rest.Persistor#retrieveAttachmentContent(java.lang.String,
-     * java.lang.String, java.lang.String)
+     * @see com.ibm.ws.lars.rest.AttachmentContentStore#retrieveAttachmentContent(java.lang.String)
      */
     @Override
-    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) {
+    public AttachmentContentResponse retrieveAttachmentContent(String gridFSId) throws NonExistentArtefactException {
         AttachmentContent content = gridFS.get(gridFSId);
+        if (content == null) {
+            throw new NonExistentArtefactException();
+        }
         InputStream contentStream = new ByteArrayInputStream(content.content);
         String contentType = content.contentType;
-        return new AttachmentContentResponse(contentStream, contentType);
+        return new AttachmentContentResponse(contentStream, contentType, content.content.length);
     }
 
     /*
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import mockit.Expectations;
+import mockit.Injectable;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.ws.lars.rest.model.Asset;
+import com.ibm.ws.lars.rest.model.AssetOperation;
+import com.ibm.ws.lars.rest.mongo.MongoAssetCursor;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+
+/**
+ * Tests for the JSON streaming done by {@link MongoAssetCursor}
+ */
+public class MongoAssetCursorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final ObjectId ID1 = new ObjectId("0123456789abcdef01234567");
+    private static final ObjectId ID2 = new ObjectId("76543210fedcba9876543210");
+
+    private void expectTwoDocuments(final DBCursor dbCursor) {
+        new Expectations() {
+            {
+                dbCursor.hasNext();
+                returns(true, true, false);
+                dbCursor.next();
+                returns(new BasicDBObject("_id", ID1).append("name", "foo").append("score", 1.5),
+                        new BasicDBObject("_id", ID2).append("name", "bar").append("score", 0.5));
+            }
+        };
+    }
+
+    private String writeJson(MongoAssetCursor cursor) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            cursor.writeJson(generator, 1);
+        }
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Test that documents are written directly, with the _id converted and excluded fields removed
+     */
+    @Test
+    public void testWriteJson(final @Injectable DBCursor dbCursor) throws IOException {
+        expectTwoDocuments(dbCursor);
+
+        MongoAssetCursor cursor = new MongoAssetCursor(dbCursor);
+        cursor.excludeField("score");
+
+        assertEquals("[{\"_id\":\"" + ID1.toHexString() + "\",\"name\":\"foo\"},{\"_id\":\"" + ID2.toHexString() + "\",\"name\":\"bar\"}]",
+                     writeJson(cursor));
+    }
+
+    /**
+     * Test that operations are still applied when the cursor is written as JSON
+     */
+    @Test
+    public void testWriteJsonWithOperation(final @Injectable DBCursor dbCursor) throws IOException {
+        expectTwoDocuments(dbCursor);
+
+        MongoAssetCursor cursor = new MongoAssetCursor(dbCursor);
+        cursor.excludeField("score");
+        cursor.addOperation(new AssetOperation() {
+            @Override
+            public void perform(Asset asset) {
+                asset.getProperties().remove("name");
+            }
+        });
+
+        assertEquals("[{\"_id\":\"" + ID1.toHexString() + "\"},{\"_id\":\"" + ID2.toHexString() + "\"}]",
+                     writeJson(cursor));
+    }
+
+}
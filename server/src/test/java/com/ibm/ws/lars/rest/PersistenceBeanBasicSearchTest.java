@@ -16,11 +16,13 @@
 package com.ibm.ws.lars.rest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -29,10 +31,12 @@ import mockit.Expectations;
 import mockit.Injectable;
 import mockit.Mocked;
 
+import org.bson.types.ObjectId;
 import org.junit.Test;
 
 import com.ibm.ws.lars.rest.Condition.Operation;
 import com.ibm.ws.lars.rest.SortOptions.SortOrder;
+import com.ibm.ws.lars.rest.model.AssetCursor;
 import com.ibm.ws.lars.rest.mongo.PersistenceBean;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
@@ -123,6 +127,91 @@ public class PersistenceBeanBasicSearchTest {
         createTestBean().retrieveAllAssets(filters, null, pagination, null);
     }
 
+    /**
+     * Test that keyset pagination sorts on the sort field and _id, uses a range predicate rather
+     * than skip() to find the page, and sets a continuation token for the next page
+     */
+    @Test
+    public void testRetrieveAllAssetsKeysetPaginated(final @Mocked DBCollection collection, final @Injectable DBCursor cursor) {
+        final ObjectId lastId = new ObjectId("0123456789abcdef01234567");
+        final ObjectId nextId = new ObjectId("76543210fedcba9876543210");
+        final BasicDBObject sortObject = new BasicDBObject("name", 1).append("_id", 1);
+
+        final BasicDBList orList = new BasicDBList();
+        orList.add(new BasicDBObject("name", new BasicDBObject("$gt", "foo")));
+        orList.add(new BasicDBObject("name", "foo").append("_id", new BasicDBObject("$gt", lastId)));
+        final BasicDBList andList = new BasicDBList();
+        andList.add(new BasicDBObject());
+        andList.add(new BasicDBObject("$or", orList));
+        final BasicDBObject filterObject = new BasicDBObject("$and", andList);
+
+        new Expectations() {
+            {
+                collection.find(filterObject, (DBObject) withNull());
+                result = cursor;
+                times = 1;
+                cursor.sort(sortObject);
+                cursor.limit(3);
+                cursor.skip(anyInt);
+                times = 0;
+                cursor.hasNext();
+                result = true;
+                cursor.next();
+                returns(new BasicDBObject("_id", new ObjectId()).append("name", "goo"),
+                        new BasicDBObject("_id", nextId).append("name", "zzz"),
+                        new BasicDBObject("_id", new ObjectId()).append("name", "zzzz"));
+                cursor.close();
+            }
+        };
+
+        PaginationOptions pagination = new PaginationOptions(2, new ContinuationToken("foo", lastId.toHexString()));
+        SortOptions sortOptions = new SortOptions("name", SortOrder.ASCENDING);
+        AssetCursor result = createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptyList(), null, pagination, sortOptions);
+        assertEquals(new ContinuationToken("zzz", nextId.toHexString()), result.getContinuationToken());
+        assertEquals(2, result.size());
+    }
+
+    /**
+     * Test that there is no continuation token when the last page is not full, and that date sort
+     * values in a continuation token are compared as dates
+     */
+    @Test
+    public void testRetrieveAllAssetsKeysetLastPage(final @Mocked DBCollection collection, final @Injectable DBCursor cursor) {
+        final ObjectId lastId = new ObjectId("0123456789abcdef01234567");
+        final Date lastDate = new Date(1000L);
+        final BasicDBObject sortObject = new BasicDBObject("date", -1).append("_id", -1);
+
+        final BasicDBList orList = new BasicDBList();
+        orList.add(new BasicDBObject("date", new BasicDBObject("$lt", lastDate)));
+        orList.add(new BasicDBObject("date", lastDate).append("_id", new BasicDBObject("$lt", lastId)));
+        orList.add(new BasicDBObject("date", null));
+        final BasicDBList andList = new BasicDBList();
+        andList.add(new BasicDBObject());
+        andList.add(new BasicDBObject("$or", orList));
+        final BasicDBObject filterObject = new BasicDBObject("$and", andList);
+
+        new Expectations() {
+            {
+                collection.find(filterObject, (DBObject) withNull());
+                result = cursor;
+                cursor.sort(sortObject);
+                cursor.limit(3);
+                cursor.hasNext();
+                returns(true, false);
+                cursor.next();
+                result = new BasicDBObject("_id", new ObjectId()).append("date", new Date(500L));
+                cursor.close();
+            }
+        };
+
+        ContinuationToken token = new ContinuationToken(Collections.singletonMap("$date", 1000L), lastId.toHexString());
+        PaginationOptions pagination = new PaginationOptions(2, token);
+        SortOptions sortOptions = new SortOptions("date", SortOrder.DESCENDING);
+        AssetCursor result = createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptyList(), null, pagination, sortOptions);
+        assertNull(result.getContinuationToken());
+        assertEquals(1, result.size());
+    }
+
     /**
      * Test that providing a SortOptions object results in the correct sort() method being called on
      * the result cursor
@@ -206,6 +295,44 @@ public class PersistenceBeanBasicSearchTest {
         createTestBean().retrieveAllAssets(filters, "foo", null, sortOptions);
     }
 
+    /**
+     * Test that providing a list of fields results in a database query with a projection which
+     * includes only those fields
+     */
+    @Test
+    public void testRetrieveAllAssetsWithFields(final @Mocked DBCollection collection, final @Mocked DBCursor cursor) {
+        final BasicDBObject projectionObject = new BasicDBObject("name", 1);
+        projectionObject.put("wlpInformation.provideFeature", 1);
+
+        new Expectations() {
+            {
+                collection.find((DBObject) withNotNull(), projectionObject);
+            }
+        };
+
+        createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptySet(), null, null, null, Arrays.asList("name", "wlpInformation.provideFeature"));
+    }
+
+    /**
+     * Test that providing a list of fields and a search term results in a projection which
+     * includes both the fields and the text score
+     */
+    @Test
+    public void testRetrieveAllAssetsWithFieldsAndSearch(final @Mocked DBCollection collection, final @Mocked DBCursor cursor) {
+        final BasicDBObject sortObject = new BasicDBObject("score", new BasicDBObject("$meta", "textScore"));
+        final BasicDBObject projectionObject = new BasicDBObject("name", 1);
+        projectionObject.put("score", new BasicDBObject("$meta", "textScore"));
+
+        new Expectations() {
+            {
+                collection.find((DBObject) withNotNull(), projectionObject);
+                cursor.sort(sortObject);
+            }
+        };
+
+        createTestBean().retrieveAllAssets(Collections.<AssetFilter> emptySet(), "foo", null, null, Arrays.asList("name"));
+    }
+
     @Test
     public void testCountAllAssets(final @Mocked DBCollection collection, final @Injectable DBCursor cursor) {
         BasicDBList list = new BasicDBList();
@@ -20,6 +20,7 @@ import java.net.URISyntaxException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 
@@ -32,6 +33,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.ibm.ws.lars.rest.exceptions.AssetConflictException;
 import com.ibm.ws.lars.rest.exceptions.AssetPersistenceException;
 import com.ibm.ws.lars.rest.exceptions.InvalidIdException;
 import com.ibm.ws.lars.rest.exceptions.InvalidJsonAssetException;
@@ -63,7 +65,7 @@ public class RepositoryRESTResourceLoggingTest {
     }
 
     @Test
-    public void testGetAsset(@Mocked final Logger logger, @Mocked final SecurityContext sc) throws InvalidIdException, NonExistentArtefactException {
+    public void testGetAsset(@Mocked final Logger logger, @Mocked final SecurityContext sc, @Mocked final Request request) throws InvalidIdException, NonExistentArtefactException {
 
         new Expectations() {
             {
@@ -75,11 +77,11 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAsset(NON_EXISTENT_ID, dummyUriInfo, sc);
+        getRestResource().getAsset(NON_EXISTENT_ID, dummyUriInfo, sc, request);
     }
 
     @Test
-    public void testGetAssets(@Mocked final Logger logger, @Mocked final UriInfo info, @Mocked SecurityContext context) throws URISyntaxException, JsonProcessingException, InvalidParameterException {
+    public void testGetAssets(@Mocked final Logger logger, @Mocked final UriInfo info, @Mocked SecurityContext context, @Mocked Request request) throws URISyntaxException, JsonProcessingException, InvalidParameterException {
 
         new Expectations() {
             {
@@ -95,7 +97,7 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAssets(info, context);
+        getRestResource().getAssets(info, context, request);
     }
 
     @Test
@@ -182,7 +184,7 @@ public class RepositoryRESTResourceLoggingTest {
     }
 
     @Test
-    public void testGetAttachments(@Mocked final Logger logger, @Mocked final SecurityContext sc) throws Exception {
+    public void testGetAttachments(@Mocked final Logger logger, @Mocked final SecurityContext sc, @Mocked final Request request) throws Exception {
 
         new Expectations() {
             {
@@ -194,7 +196,7 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAttachments(NON_EXISTENT_ID, dummyUriInfo, sc);
+        getRestResource().getAttachments(NON_EXISTENT_ID, dummyUriInfo, sc, request);
     }
 
     @Test
@@ -227,11 +229,11 @@ public class RepositoryRESTResourceLoggingTest {
             }
         };
 
-        getRestResource().getAttachmentContent(NON_EXISTENT_ID, NON_EXISTENT_ID, "no_name", dummyUriInfo, sc);
+        getRestResource().getAttachmentContent(NON_EXISTENT_ID, NON_EXISTENT_ID, "no_name", dummyUriInfo, sc, null);
     }
 
     @Test
-    public void testUpdateAssetState(@Mocked final Logger logger) throws NonExistentArtefactException, RepositoryResourceLifecycleException {
+    public void testUpdateAssetState(@Mocked final Logger logger) throws NonExistentArtefactException, RepositoryResourceLifecycleException, AssetConflictException {
 
         final String updateJson = "{\"action\":\"publish\"}";
 
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.ibm.ws.lars.rest.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.ibm.ws.lars.rest.ContentHash;
+import com.ibm.ws.lars.rest.MemoryPersistor;
+import com.ibm.ws.lars.rest.exceptions.NonExistentArtefactException;
+import com.ibm.ws.lars.rest.model.AttachmentContentMetadata;
+import com.ibm.ws.lars.rest.model.AttachmentContentResponse;
+
+/**
+ * Unit tests for the {@link FileContentStore} class
+ */
+public class FileContentStoreTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileContentStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new FileContentStore(folder.getRoot().toPath().resolve("attachments"));
+        store.initialize();
+    }
+
+    @Test
+    public void testStoreAndRetrieve() throws Exception {
+        AttachmentContentMetadata metadata = store.createAttachmentContent("test.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+        assertEquals(CONTENT.length, metadata.length);
+        assertEquals(ContentHash.toHex(ContentHash.newSha256().digest(CONTENT)), metadata.sha256);
+
+        try (AttachmentContentResponse content = store.retrieveAttachmentContent(metadata.filename)) {
+            assertEquals("text/plain", content.getContentType());
+            assertEquals(CONTENT.length, content.getLength());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.write(out, 0, -1);
+            assertArrayEquals(CONTENT, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testWriteRange() throws Exception {
+        AttachmentContentMetadata metadata = store.createAttachmentContent("test.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+
+        try (AttachmentContentResponse content = store.retrieveAttachmentContent(metadata.filename)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.write(out, 5, 10);
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 5, 15), out.toByteArray());
+        }
+
+        try (AttachmentContentResponse content = store.retrieveAttachmentContent(metadata.filename)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.write(out, 15, -1);
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 15, CONTENT.length), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testIdenticalContentNotShared() throws Exception {
+        AttachmentContentMetadata first = store.createAttachmentContent("first.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+        AttachmentContentMetadata second = store.createAttachmentContent("second.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+        assertNotEquals(first.filename, second.filename);
+
+        store.deleteAttachmentContent(first.filename);
+        try (AttachmentContentResponse content = store.retrieveAttachmentContent(second.filename)) {
+            assertEquals(CONTENT.length, content.getLength());
+        }
+    }
+
+    @Test(expected = NonExistentArtefactException.class)
+    public void testDelete() throws Exception {
+        AttachmentContentMetadata metadata = store.createAttachmentContent("test.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+        store.deleteAttachmentContent(metadata.filename);
+        store.retrieveAttachmentContent(metadata.filename);
+    }
+
+    @Test(expected = NonExistentArtefactException.class)
+    public void testRetrieveInvalidId() throws Exception {
+        store.retrieveAttachmentContent("../../etc/passwd");
+    }
+
+    @Test
+    public void testReadThroughToPreviousStore() throws Exception {
+        MemoryPersistor previous = new MemoryPersistor();
+        AttachmentContentMetadata old = previous.createAttachmentContent("old.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+
+        FileContentStore switched = new FileContentStore(folder.getRoot().toPath().resolve("switched"), previous);
+        switched.initialize();
+
+        try (AttachmentContentResponse content = switched.retrieveAttachmentContent(old.filename)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.write(out, 0, -1);
+            assertArrayEquals(CONTENT, out.toByteArray());
+        }
+
+        // New content goes to a file, not the previous store
+        AttachmentContentMetadata created = switched.createAttachmentContent("new.txt", "text/plain", new ByteArrayInputStream(CONTENT));
+        try {
+            previous.retrieveAttachmentContent(created.filename);
+            fail("New content should not be stored in the previous store");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+
+        switched.deleteAttachmentContents(Arrays.asList(old.filename, created.filename));
+        try {
+            previous.retrieveAttachmentContent(old.filename);
+            fail("Content in the previous store should have been deleted through it");
+        } catch (NonExistentArtefactException e) {
+            // expected
+        }
+    }
+
+}
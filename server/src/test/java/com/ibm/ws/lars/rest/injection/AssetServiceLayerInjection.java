@@ -18,6 +18,7 @@ package com.ibm.ws.lars.rest.injection;
 import java.lang.reflect.Field;
 
 import com.ibm.ws.lars.rest.AssetServiceLayer;
+import com.ibm.ws.lars.rest.AttachmentContentStore;
 import com.ibm.ws.lars.rest.Configuration;
 import com.ibm.ws.lars.rest.Persistor;
 
@@ -28,6 +29,7 @@ public class AssetServiceLayerInjection {
 
     private static final String CONFIGURATION_FIELD = "configuration";
     private static final String PERSISTENCE_BEAN_FIELD = "persistenceBean";
+    private static final String CONTENT_STORE_FIELD = "contentStore";
 
     public static void setConfiguration(AssetServiceLayer serviceLayer, Configuration configuration) {
         try {
@@ -49,4 +51,14 @@ public class AssetServiceLayerInjection {
         }
     }
 
+    public static void setContentStore(AssetServiceLayer serviceLayer, AttachmentContentStore contentStore) {
+        try {
+            Field field = AssetServiceLayer.class.getDeclaredField(CONTENT_STORE_FIELD);
+            field.setAccessible(true);
+            field.set(serviceLayer, contentStore);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to inject content store", e);
+        }
+    }
+
 }
@@ -18,6 +18,7 @@ package com.ibm.ws.lars.testutils.clients;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -112,6 +113,15 @@ public abstract class AbstractFileWriteableClient implements RepositoryWriteable
         return _readClient.getAsset(asset.get_id());
     }
 
+    @Override
+    public List<Asset> addAssets(Collection<Asset> assets) throws IOException, BadVersionException, RequestFailureException, SecurityException, ClientFailureException {
+        List<Asset> added = new ArrayList<Asset>();
+        for (Asset asset : assets) {
+            added.add(addAsset(asset));
+        }
+        return added;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -148,6 +158,11 @@ public abstract class AbstractFileWriteableClient implements RepositoryWriteable
         return _readClient.getAllAssets();
     }
 
+    @Override
+    public Collection<Asset> getAssetsById(Collection<String> assetIds) throws IOException, RequestFailureException {
+        return _readClient.getAssetsById(assetIds);
+    }
+
     @Override
     public Collection<Asset> getAssets(ResourceType type) throws IOException, RequestFailureException {
         return _readClient.getAssets(type);
@@ -178,6 +193,11 @@ public abstract class AbstractFileWriteableClient implements RepositoryWriteable
         return _readClient.getFilteredAssets(filters);
     }
 
+    @Override
+    public Collection<Asset> getFilteredAssets(Map<FilterableAttribute, Collection<String>> filters, Collection<String> fields) throws IOException, RequestFailureException {
+        return _readClient.getFilteredAssets(filters, fields);
+    }
+
     @Override
     public void checkRepositoryStatus() throws IOException, RequestFailureException {
         _readClient.checkRepositoryStatus();
@@ -18,10 +18,21 @@ package com.ibm.ws.massive.esa;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.ZipException;
 
 import com.ibm.ws.massive.esa.internal.EsaManifest;
@@ -86,6 +97,194 @@ public class MassiveEsa extends MassiveUploader implements RepositoryUploader<Es
         return resources;
     }
 
+    /**
+     * This method will add a collection of ESAs into MaaSive, uploading up to <code>threads</code> of them at the same
+     * time. All of the ESAs are uploaded even if some of them fail, and then the first failure is thrown.
+     *
+     * @param esas The ESAs to add
+     * @param strategy The strategy to use for every ESA, which must be thread-safe if more than one thread is used
+     * @param threads The maximum number of ESAs to upload at the same time
+     * @return the new {@link EsaResource}s added to massive (will not included any resources that
+     *         were modified as a result of this operation)
+     * @throws RepositoryException if any of the ESAs could not be uploaded
+     */
+    public Collection<EsaResource> addEsasToMassive(Collection<File> esas, UploadStrategy strategy, int threads) throws RepositoryException {
+        Map<File, UploadStrategy> strategies = new LinkedHashMap<File, UploadStrategy>();
+        for (File esa : esas) {
+            strategies.put(esa, strategy);
+        }
+
+        Collection<EsaResource> resources = new HashSet<EsaResource>();
+        RepositoryException firstFailure = null;
+        for (UploadResult result : addEsasToMassive(strategies, threads, null)) {
+            if (result.getException() != null) {
+                if (firstFailure == null) {
+                    firstFailure = result.getException();
+                }
+            } else {
+                resources.add(result.getResource());
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+
+        return resources;
+    }
+
+    /**
+     * Uploads a number of ESAs, each with its own strategy, using a pool of up to <code>threads</code> worker threads.
+     * <p>
+     * Each worker prepares an ESA (exploding it, reading its manifest and attachments) and then uploads it, so while
+     * one ESA is being sent to the repository the next can be prepared by another worker. An ESA is only prepared by the
+     * worker which uploads it, and only a few more ESAs than there are workers are queued at a time, so a slow repository
+     * holds back the preparation of further ESAs rather than letting them pile up. Resources which share a vanity URL are still matched and uploaded one at a time, see
+     * {@link com.ibm.ws.repository.strategies.writeable.BaseStrategy#getVanityUrlLock(String)}.
+     * <p>
+     * A failure to upload one ESA does not stop the others from being uploaded, instead the failure is recorded in the
+     * result for that ESA.
+     *
+     * @param esas The ESAs to add, along with the strategy to use for each one. A strategy which is used for more than
+     *            one ESA must be thread-safe.
+     * @param threads The maximum number of ESAs to upload at the same time. If this is one or less the ESAs are uploaded
+     *            one after another on the calling thread.
+     * @param listener Told about each ESA as it finishes uploading, may be <code>null</code>. The listener is always
+     *            called on the thread that called this method, so doesn't need to be thread-safe.
+     * @return the result of uploading each ESA, in the same order as <code>esas</code>
+     * @throws RepositoryException if the thread is interrupted while waiting for the uploads to finish
+     */
+    public List<UploadResult> addEsasToMassive(Map<File, ? extends UploadStrategy> esas, int threads, UploadListener listener) throws RepositoryException {
+        UploadResult[] results = new UploadResult[esas.size()];
+        List<UploadTask> tasks = new ArrayList<UploadTask>(esas.size());
+        for (Map.Entry<File, ? extends UploadStrategy> esa : esas.entrySet()) {
+            tasks.add(new UploadTask(tasks.size(), esa.getKey(), esa.getValue()));
+        }
+
+        if (threads <= 1 || tasks.size() <= 1) {
+            for (UploadTask task : tasks) {
+                finished(task.call(), results, listener);
+            }
+            return Arrays.asList(results);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        CompletionService<UploadResult> completion = new ExecutorCompletionService<UploadResult>(executor);
+        // Keep each worker busy without handing out every ESA at once
+        int maxInFlight = threads * 2;
+        int inFlight = 0;
+        try {
+            for (UploadTask task : tasks) {
+                if (inFlight == maxInFlight) {
+                    finished(completion.take().get(), results, listener);
+                    inFlight--;
+                }
+                completion.submit(task);
+                inFlight++;
+            }
+            while (inFlight > 0) {
+                finished(completion.take().get(), results, listener);
+                inFlight--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while uploading ESAs", e);
+        } catch (ExecutionException e) {
+            // UploadTask catches RepositoryExceptions, so this must be unchecked
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw (Error) cause;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return Arrays.asList(results);
+    }
+
+    private static void finished(UploadResult result, UploadResult[] results, UploadListener listener) {
+        results[result.index] = result;
+        if (listener != null) {
+            listener.uploadFinished(result);
+        }
+    }
+
+    /**
+     * Uploads a single ESA, recording the outcome rather than throwing it
+     */
+    private class UploadTask implements Callable<UploadResult> {
+        private final int index;
+        private final File esa;
+        private final UploadStrategy strategy;
+
+        UploadTask(int index, File esa, UploadStrategy strategy) {
+            this.index = index;
+            this.esa = esa;
+            this.strategy = strategy;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public UploadResult call() {
+            try {
+                return new UploadResult(index, esa, uploadFile(esa, strategy, null), null);
+            } catch (RepositoryException e) {
+                return new UploadResult(index, esa, null, e);
+            }
+        }
+    }
+
+    /**
+     * The outcome of uploading one ESA with {@link MassiveEsa#addEsasToMassive(Map, int, UploadListener)}
+     */
+    public static class UploadResult {
+        private final int index;
+        private final File esa;
+        private final EsaResource resource;
+        private final RepositoryException exception;
+
+        UploadResult(int index, File esa, EsaResource resource, RepositoryException exception) {
+            this.index = index;
+            this.esa = esa;
+            this.resource = resource;
+            this.exception = exception;
+        }
+
+        /**
+         * @return the ESA which was uploaded
+         */
+        public File getEsa() {
+            return esa;
+        }
+
+        /**
+         * @return the resource which was uploaded, or <code>null</code> if the upload failed
+         */
+        public EsaResource getResource() {
+            return resource;
+        }
+
+        /**
+         * @return the reason the upload failed, or <code>null</code> if it succeeded
+         */
+        public RepositoryException getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Receives progress from {@link MassiveEsa#addEsasToMassive(Map, int, UploadListener)}
+     */
+    public interface UploadListener {
+
+        /**
+         * Called when an ESA has finished uploading, whether or not the upload succeeded
+         *
+         * @param result the outcome of the upload
+         */
+        void uploadFinished(UploadResult result);
+    }
+
     /*
      * (non-Javadoc)
      *